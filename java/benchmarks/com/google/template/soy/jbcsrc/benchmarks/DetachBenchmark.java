@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.jbcsrc.api.SoySauce;
+import com.google.template.soy.jbcsrc.api.SoySauce.WriteContinuation;
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares detaching renders with {@link SoySauce.Renderer#setBlockOnFutures blocking} renders of
+ * a template that waits on a future for every value it prints, at the bottom of a chain of calls.
+ *
+ * <p>The futures complete as soon as they are first found to be incomplete, so this measures the
+ * cost of saving and restoring the render state rather than the time spent waiting.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetachBenchmark {
+  private static final int VALUE_COUNT = 50;
+
+  @Param({"1", "20"})
+  public int depth;
+
+  @Param({"false", "true"})
+  public boolean blockOnFutures;
+
+  private SoySauce sauce;
+  private final StringBuilder buffer = new StringBuilder();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    sauce =
+        SoyFileSet.builder()
+            .add(DetachBenchmark.class.getResource("detach_benchmark.soy"))
+            .build()
+            .compileTemplates();
+  }
+
+  @Benchmark
+  public int render() throws IOException {
+    ImmutableList.Builder<Future<String>> values = ImmutableList.builder();
+    for (int i = 0; i < VALUE_COUNT; i++) {
+      values.add(new PendingOnceFuture("value " + i));
+    }
+    buffer.setLength(0);
+    WriteContinuation continuation =
+        sauce
+            .renderTemplate("soy.benchmarks.detach.nested")
+            .setData(ImmutableMap.of("depth", depth, "values", values.build()))
+            .setBlockOnFutures(blockOnFutures)
+            .renderHtml(buffer);
+    while (!continuation.result().isDone()) {
+      continuation = continuation.continueRender();
+    }
+    return buffer.length();
+  }
+
+  /** A future that reports that it is incomplete once, and is complete from then on. */
+  private static final class PendingOnceFuture implements Future<String> {
+    private final String value;
+    private boolean checked;
+
+    PendingOnceFuture(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean isDone() {
+      if (checked) {
+        return true;
+      }
+      checked = true;
+      return false;
+    }
+
+    @Override
+    public String get() {
+      checked = true;
+      return value;
+    }
+
+    @Override
+    public String get(long timeout, TimeUnit unit) {
+      return get();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return false;
+    }
+  }
+}
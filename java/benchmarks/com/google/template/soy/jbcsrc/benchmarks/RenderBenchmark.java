@@ -0,0 +1,171 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.base.internal.SoyFileKind;
+import com.google.template.soy.jbcsrc.api.SoySauce;
+import com.google.template.soy.testing.ExampleExtendable;
+import com.google.template.soy.testing.SomeEmbeddedMessage;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput and allocation rate of {@link SoySauce.Renderer#renderHtml} over a
+ * corpus of templates that exercise the main jbcsrc rendering paths.
+ *
+ * <p>Run with {@code mvn -Pbenchmarks test-compile exec:exec@run-benchmarks}. Per scenario this
+ * reports ns/op, and the {@code gc.alloc.rate.norm} line reports bytes/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+  private static final String NAMESPACE = "soy.benchmarks.render.";
+
+  @Param({
+    "deepCalls",
+    "largeLoop",
+    "pluralMsgs",
+    "autoescapedPrints",
+    "lazyLets",
+    "protoParams",
+  })
+  public String scenario;
+
+  private SoySauce.Renderer renderer;
+  private final StringBuilder buffer = new StringBuilder();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SoySauce sauce =
+        SoyFileSet.builder()
+            .add(RenderBenchmark.class.getResource("render_benchmark.soy"))
+            .addProtoDescriptors(SoyFileKind.DEP, ExampleExtendable.getDescriptor())
+            .build()
+            .compileTemplates();
+    renderer = sauce.renderTemplate(NAMESPACE + scenario).setData(dataFor(scenario));
+  }
+
+  @Benchmark
+  public int render() throws IOException {
+    buffer.setLength(0);
+    renderer.renderHtml(buffer).assertDone();
+    return buffer.length();
+  }
+
+  private static Map<String, ?> dataFor(String scenario) {
+    switch (scenario) {
+      case "deepCalls":
+        return ImmutableMap.of(
+            "depth", 50, "title", "Title", "subtitle", "Subtitle", "footer", "Footer");
+      case "largeLoop":
+        {
+          ImmutableList.Builder<Object> items = ImmutableList.builder();
+          for (int i = 0; i < 1000; i++) {
+            items.add(ImmutableMap.of("id", i, "name", "item " + i, "price", i * 1.25));
+          }
+          return ImmutableMap.of("items", items.build());
+        }
+      case "pluralMsgs":
+        {
+          ImmutableList.Builder<Object> counts = ImmutableList.builder();
+          for (int i = 0; i < 200; i++) {
+            counts.add(i % 5);
+          }
+          return ImmutableMap.of("counts", counts.build(), "user", "Alex", "gender", "other");
+        }
+      case "autoescapedPrints":
+        {
+          ImmutableList.Builder<Object> values = ImmutableList.builder();
+          for (int i = 0; i < 200; i++) {
+            values.add("<b>\"quoted\" & 'single' " + i + "</b> / \\ ? = #");
+          }
+          return ImmutableMap.of("values", values.build());
+        }
+      case "lazyLets":
+        {
+          ImmutableList.Builder<Object> rows = ImmutableList.builder();
+          for (int i = 0; i < 200; i++) {
+            rows.add(ImmutableMap.of("label", "row " + i, "visible", i % 3 == 0));
+          }
+          return ImmutableMap.of("rows", rows.build());
+        }
+      case "protoParams":
+        {
+          ImmutableList.Builder<Object> protos = ImmutableList.builder();
+          for (int i = 0; i < 100; i++) {
+            ExampleExtendable.Builder proto =
+                ExampleExtendable.newBuilder()
+                    .setSomeString("proto " + i)
+                    .setSomeNumNoDefault(i)
+                    .setStringField("field " + i)
+                    .setBoolField(i % 2 == 0);
+            for (int j = 0; j < 5; j++) {
+              proto.addRepeatedEmbeddedMessage(
+                  SomeEmbeddedMessage.newBuilder()
+                      .setSomeEmbeddedNum(j)
+                      .setSomeEmbeddedString("embedded " + j));
+            }
+            protos.add(proto.build());
+          }
+          return ImmutableMap.of("protos", protos.build());
+        }
+      default:
+        throw new IllegalArgumentException("unknown scenario: " + scenario);
+    }
+  }
+
+  /**
+   * Runs the benchmarks with the {@link GCProfiler} attached, so allocation rates are reported
+   * alongside timings. Standard JMH command line flags are supported, by default all the
+   * benchmarks in this package are run.
+   */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(commandLineOptions).addProfiler(GCProfiler.class);
+    if (commandLineOptions.getIncludes().isEmpty()) {
+      options.include(RenderBenchmark.class.getPackage().getName() + ".");
+    }
+    new Runner(options.build()).run();
+  }
+}
@@ -15,7 +15,9 @@
  */
 package com.google.template.soy;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.joining;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -27,9 +29,15 @@ import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.errorprone.annotations.ForOverride;
 import com.google.inject.Guice;
@@ -52,6 +60,12 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.StringWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -63,10 +77,20 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.NamedOptionDef;
 import org.kohsuke.args4j.Option;
+import org.kohsuke.args4j.spi.FieldSetter;
+import org.kohsuke.args4j.spi.OptionHandler;
 
 /**
  * Base class for the Soy Compilers.
@@ -187,6 +211,25 @@ public abstract class AbstractSoyCompiler {
               + "This flag should only be set in integration test environment.")
   private boolean disableOptimizer = false;
 
+  @Option(
+      name = "--compilerThreads",
+      usage =
+          "The number of threads the compiler may use for work that can run in parallel, such as"
+              + " parsing and per-file code generation. This caps the compiler's parallelism; the"
+              + " output doesn't depend on this setting. Defaults to 1.")
+  private int compilerThreads = 1;
+
+  @Option(
+      name = "--compileCacheDir",
+      usage =
+          "A directory in which to cache compiler outputs, keyed on the compiler, its flags and the"
+              + " contents of all input files. When nothing changed the outputs are copied from the"
+              + " cache and compilation is skipped entirely, in which case warnings are not"
+              + " reported again. Only supported by compilers that write a fixed set of output"
+              + " files, such as the header and jbcsrc compilers; it has no effect for compilers"
+              + " that write one output per input, such as the jssrc compiler.")
+  private File compileCacheDir = null;
+
   @Option(
       name = "--allow_unblessed_generated_files",
       usage = "Whether to allow generated source files without the blessed comment.")
@@ -282,6 +325,22 @@ public abstract class AbstractSoyCompiler {
     if (requireSources() && srcs.isEmpty()) {
       exitWithError("Must provide list of source Soy files (--srcs).");
     }
+    if (compilerThreads < 1) {
+      exitWithError("--compilerThreads must be positive, got: " + compilerThreads);
+    }
+
+    ImmutableList<File> cacheableOutputs = cacheableOutputs();
+    CompileOutputCache outputCache = null;
+    HashCode cacheKey = null;
+    if (compileCacheDir != null && !cacheableOutputs.isEmpty()) {
+      cacheKey = compileCacheKey(cmdLineParser, cacheableOutputs);
+      if (cacheKey != null) {
+        outputCache = new CompileOutputCache(compileCacheDir);
+        if (outputCache.restore(cacheKey, cacheableOutputs)) {
+          return;
+        }
+      }
+    }
 
     SoyFileSet.Builder sfsBuilder = new SoyFileSet.Builder(/* ignored= */ true);
 
@@ -365,7 +424,24 @@ public abstract class AbstractSoyCompiler {
       sfsBuilder.disableOptimizer();
     }
 
-    compile(sfsBuilder);
+    ExecutorService compilerExecutor = null;
+    if (compilerThreads > 1) {
+      compilerExecutor =
+          Executors.newFixedThreadPool(
+              compilerThreads,
+              new ThreadFactoryBuilder().setNameFormat("soy-compiler-%d").setDaemon(true).build());
+      sfsBuilder.setCompilerExecutor(compilerExecutor);
+    }
+    try {
+      compile(sfsBuilder);
+      if (outputCache != null) {
+        outputCache.store(cacheKey, cacheableOutputs);
+      }
+    } finally {
+      if (compilerExecutor != null) {
+        compilerExecutor.shutdownNow();
+      }
+    }
     timer.stop();
     // Unless the build is faster than 1 second, issue a warning if more than half of the build is
     // constructing the guice injector.  This often happens just because the modules install too
@@ -439,6 +515,144 @@ public abstract class AbstractSoyCompiler {
     return descriptors.build();
   }
 
+  /**
+   * Computes the {@link CompileOutputCache} key from everything that can affect the outputs: the
+   * compiler and plugin implementations, the flags and the contents of all input files.
+   *
+   * <p>The flags are read from their parsed values rather than from the command line, since args4j
+   * expands {@code @argfile} arguments while parsing. Flags that can't affect the contents of the
+   * outputs, i.e. the output paths themselves, {@code --compileCacheDir} and {@code
+   * --compilerThreads}, are left out.
+   *
+   * @return the key, or null if an input is missing, in which case the compile should run normally
+   *     so it can report the error.
+   */
+  @Nullable
+  private HashCode compileCacheKey(SoyCmdLineParser cmdLineParser, List<File> outputs)
+      throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(getClass().getName(), UTF_8);
+    // The implementations of the compiler and its plugins are identified by the jars that contain
+    // them.
+    Set<String> codeSources = new TreeSet<>();
+    addCodeSource(codeSources, AbstractSoyCompiler.class);
+    addCodeSource(codeSources, getClass());
+    SortedMap<String, String> flags = new TreeMap<>();
+    for (OptionHandler<?> handler : cmdLineParser.getOptions()) {
+      String name = ((NamedOptionDef) handler.option).name();
+      FieldSetter field = handler.setter.asFieldSetter();
+      if (field == null) {
+        // Not a field, so there is no way to tell what was parsed.
+        return null;
+      }
+      Object value = field.getValue();
+      if (name.equals("--compileCacheDir")
+          || name.equals("--compilerThreads")
+          || outputs.contains(value)) {
+        continue;
+      }
+      flags.put(name, flagValueString(value, codeSources));
+    }
+    for (Entry<String, String> flag : flags.entrySet()) {
+      hasher.putString(flag.getKey(), UTF_8).putChar('=').putString(flag.getValue(), UTF_8);
+      hasher.putChar('\n');
+    }
+    for (List<File> files :
+        ImmutableList.of(
+            srcs,
+            depHeaders,
+            indirectDepHeaders,
+            protoDescDirectDeps,
+            protoDescIndirectDeps,
+            cssMetadata,
+            javaDeps,
+            cacheKeyFiles())) {
+      hasher.putInt(files.size());
+      for (File file : files) {
+        try {
+          hasher.putBytes(soyCompilerFileReader.read(file).hash(Hashing.sha256()).asBytes());
+        } catch (FileNotFoundException fnfe) {
+          return null;
+        }
+      }
+    }
+    for (String codeSource : codeSources) {
+      hasher.putString(codeSource, UTF_8);
+      Path path = Paths.get(URI.create(codeSource));
+      if (Files.isRegularFile(path)) {
+        hasher.putBytes(MoreFiles.asByteSource(path).hash(Hashing.sha256()).asBytes());
+      } else if (Files.isDirectory(path)) {
+        // Exploded classes, e.g. when running from a build directory or an IDE.
+        ImmutableList<Path> files;
+        try (Stream<Path> walk = Files.walk(path)) {
+          files = walk.filter(Files::isRegularFile).sorted().collect(toImmutableList());
+        }
+        for (Path file : files) {
+          hasher.putString(path.relativize(file).toString(), UTF_8);
+          hasher.putBytes(MoreFiles.asByteSource(file).hash(Hashing.sha256()).asBytes());
+        }
+      }
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * Returns a canonical representation of a parsed flag value. Plugins, such as the modules of
+   * {@code --pluginModules}, are represented by their class, whose code source is added to {@code
+   * codeSources}.
+   */
+  private static String flagValueString(@Nullable Object value, Set<String> codeSources) {
+    if (value == null) {
+      return "null";
+    }
+    if (value instanceof Multimap) {
+      value = ((Multimap<?, ?>) value).asMap();
+    }
+    if (value instanceof Map) {
+      // Sorted, so the key doesn't depend on the iteration order of the map.
+      Set<String> entries = new TreeSet<>();
+      for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        entries.add(
+            flagValueString(entry.getKey(), codeSources)
+                + "="
+                + flagValueString(entry.getValue(), codeSources));
+      }
+      return entries.toString();
+    }
+    if (value instanceof Iterable) {
+      List<String> elements = new ArrayList<>();
+      for (Object element : (Iterable<?>) value) {
+        elements.add(flagValueString(element, codeSources));
+      }
+      return elements.toString();
+    }
+    String string;
+    if (value instanceof CharSequence
+        || value instanceof File
+        || value instanceof Path
+        || value instanceof Boolean
+        || value instanceof Number
+        || value instanceof Enum) {
+      string = value.toString();
+    } else {
+      addCodeSource(codeSources, value.getClass());
+      string = value.getClass().getName();
+    }
+    // Length prefixed, so values containing separators can't collide.
+    return string.length() + ":" + string;
+  }
+
+  private static void addCodeSource(Set<String> codeSources, Class<?> clazz) {
+    CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+    if (codeSource != null && codeSource.getLocation().getProtocol().equals("file")) {
+      try {
+        codeSources.add(codeSource.getLocation().toURI().toString());
+      } catch (URISyntaxException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
   private void addCompilationUnitsToBuilder(SoyFileSet.Builder sfsBuilder) {
     // it isn't unusual for a file to be listed in both deps and indirect deps.  just ignore
     // duplicates
@@ -493,6 +707,25 @@ public abstract class AbstractSoyCompiler {
     return sce.getMessage();
   }
 
+  /**
+   * Extension point for subclasses to support {@code --compileCacheDir}: returns every file that
+   * {@link #compile} writes. Compilers may only opt in if all of their input files are passed via
+   * the flags declared in this class.
+   */
+  @ForOverride
+  ImmutableList<File> cacheableOutputs() {
+    return ImmutableList.of();
+  }
+
+  /**
+   * Extension point for subclasses with {@link #cacheableOutputs}: returns the input files read by
+   * {@link #compile} that are not declared in this class. Their contents are part of the cache key.
+   */
+  @ForOverride
+  ImmutableList<File> cacheKeyFiles() {
+    return ImmutableList.of();
+  }
+
   /**
    * Performs the actual compilation.
    *
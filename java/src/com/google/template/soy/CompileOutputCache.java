@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * A content addressed, on disk cache of compiler outputs.
+ *
+ * <p>Each entry is a directory named after the hash of all the compiler inputs, containing one file
+ * per compiler output. Entries are written to a temporary directory and then atomically renamed
+ * into place, so concurrent compilers may share a cache directory and readers never observe partial
+ * entries. Nothing is ever evicted; the cache directory may be deleted at any time.
+ */
+final class CompileOutputCache {
+  private static final String TMP_PREFIX = ".tmp-";
+
+  private final Path directory;
+
+  CompileOutputCache(File directory) {
+    this.directory = directory.toPath();
+  }
+
+  /**
+   * Copies the cached outputs for {@code key} to {@code outputs}.
+   *
+   * @return true if there was an entry, false if the caller needs to compile.
+   */
+  boolean restore(HashCode key, ImmutableList<File> outputs) throws IOException {
+    Path entry = directory.resolve(key.toString());
+    if (!Files.isDirectory(entry)) {
+      return false;
+    }
+    for (int i = 0; i < outputs.size(); i++) {
+      if (!Files.isRegularFile(entry.resolve(Integer.toString(i)))) {
+        return false;
+      }
+    }
+    for (int i = 0; i < outputs.size(); i++) {
+      Path output = outputs.get(i).toPath();
+      Path parent = output.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      Files.copy(
+          entry.resolve(Integer.toString(i)), output, StandardCopyOption.REPLACE_EXISTING);
+    }
+    return true;
+  }
+
+  /** Stores the freshly compiled {@code outputs} under {@code key}. */
+  void store(HashCode key, ImmutableList<File> outputs) throws IOException {
+    Files.createDirectories(directory);
+    Path entry = directory.resolve(key.toString());
+    if (Files.isDirectory(entry)) {
+      return;
+    }
+    Path tmp = Files.createTempDirectory(directory, TMP_PREFIX);
+    try {
+      for (int i = 0; i < outputs.size(); i++) {
+        Files.copy(checkNotNull(outputs.get(i)).toPath(), tmp.resolve(Integer.toString(i)));
+      }
+      try {
+        Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException | FileAlreadyExistsException e) {
+        // Either the filesystem can't do it, or another compiler stored the same entry first. In
+        // both cases just leave the cache as is, the outputs are already in place.
+      } catch (IOException e) {
+        // Some platforms report a concurrently created, non-empty target as a generic failure.
+        if (!Files.isDirectory(entry)) {
+          throw e;
+        }
+      }
+    } finally {
+      deleteRecursively(tmp);
+    }
+  }
+
+  private static void deleteRecursively(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(path)) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.template.soy.jbcsrc.api.SoySauceBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.kohsuke.args4j.Option;
+
+/**
+ * Executable for generating a class data sharing (AppCDS) class list for a jar produced by {@link
+ * SoyToJbcSrcCompiler}, and optionally dumping a static archive from it.
+ *
+ * <p>With an archive, the JVM maps the template classes from the archive at startup instead of
+ * loading, parsing and verifying them from the jar. Note that the JVM only uses archived classes
+ * that were loaded from jars (not directories) on a classpath matching the one used to create the
+ * archive, and that both the jar and the JDK must be unchanged.
+ */
+public final class SoyClassListGenerator extends AbstractSoyCompiler {
+  @Option(
+      name = "--jar",
+      required = true,
+      usage = "[Required] The JAR file produced by the SoyToJbcSrcCompiler.")
+  private File jar;
+
+  @Option(
+      name = "--output",
+      required = true,
+      usage =
+          "[Required] The file name of the class list to be written. It is suitable for passing"
+              + " to -XX:SharedClassListFile.")
+  private File output;
+
+  @Option(
+      name = "--loadTemplates",
+      usage =
+          "[Optional] Whether to load and link every template in the jar and add the classes that"
+              + " this requires (such as the Soy runtime) to the class list. This requires the"
+              + " runtime dependencies of the templates to be on the classpath or in"
+              + " --runtimeJars.")
+  private boolean loadTemplates = false;
+
+  @Option(
+      name = "--runtimeJars",
+      usage = "[Optional] Extra jars needed to load the templates with --loadTemplates.",
+      handler = SoyCmdLineParser.FileListOptionHandler.class)
+  private List<File> runtimeJars = new ArrayList<>();
+
+  @Option(
+      name = "--archive",
+      usage =
+          "[Optional] The file name of a static CDS archive to dump from the class list. Requires"
+              + " --archiveClasspath.")
+  private File archive;
+
+  @Option(
+      name = "--archiveClasspath",
+      usage =
+          "[Optional] The classpath that servers using --archive will run with. It must include"
+              + " the --jar.")
+  private String archiveClasspath;
+
+  SoyClassListGenerator(PluginLoader loader, SoyInputCache cache) {
+    super(loader, cache);
+  }
+
+  SoyClassListGenerator() {}
+
+  public static void main(String[] args) {
+    new SoyClassListGenerator().runMain(args);
+  }
+
+  @Override
+  boolean requireSources() {
+    return false;
+  }
+
+  @Override
+  protected void compile(SoyFileSet.Builder sfsBuilder) throws IOException {
+    if (archive != null && archiveClasspath == null) {
+      throw exitWithError("--archive requires --archiveClasspath");
+    }
+    Set<String> classes = new LinkedHashSet<>(readJarClasses(jar));
+    if (loadTemplates) {
+      classes.addAll(loadTemplates());
+    }
+    Files.write(output.toPath(), classes, UTF_8);
+    if (archive != null) {
+      dumpArchive();
+    }
+  }
+
+  /** Returns the internal names of all the classes in the jar, in jar order. */
+  private static ImmutableList<String> readJarClasses(File jar) throws IOException {
+    ImmutableList.Builder<String> classes = ImmutableList.builder();
+    try (JarFile jarFile = new JarFile(jar)) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        if (name.endsWith(".class")) {
+          classes.add(name.substring(0, name.length() - ".class".length()));
+        }
+      }
+    }
+    return classes.build();
+  }
+
+  /**
+   * Loads and links all the templates in the jar, returning the internal names of every class that
+   * the templates needed, in the order they were requested.
+   */
+  private ImmutableList<String> loadTemplates() throws IOException {
+    List<URL> urls = new ArrayList<>();
+    urls.add(jar.toURI().toURL());
+    for (File runtimeJar : runtimeJars) {
+      urls.add(runtimeJar.toURI().toURL());
+    }
+    try (RecordingClassLoader loader =
+        new RecordingClassLoader(urls.toArray(new URL[0]), getClass().getClassLoader())) {
+      new SoySauceBuilder()
+          .withClassLoader(loader)
+          .withWarmup(MoreExecutors.directExecutor(), stats -> {})
+          .build();
+      synchronized (loader.requested) {
+        return ImmutableList.copyOf(loader.requested);
+      }
+    }
+  }
+
+  private void dumpArchive() throws IOException {
+    // A static dump only archives the listed classes, so add the JDK's own list to keep the
+    // benefits of the default archive.
+    Path classList = Files.createTempFile("soy", ".classlist");
+    try {
+      Path jdkClassList = Paths.get(System.getProperty("java.home"), "lib", "classlist");
+      List<String> lines = new ArrayList<>();
+      if (Files.exists(jdkClassList)) {
+        lines.addAll(Files.readAllLines(jdkClassList, UTF_8));
+      }
+      lines.addAll(Files.readAllLines(output.toPath(), UTF_8));
+      Files.write(classList, lines, UTF_8);
+
+      Process process =
+          new ProcessBuilder(
+                  Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                  "-Xshare:dump",
+                  "-XX:SharedClassListFile=" + classList,
+                  "-XX:SharedArchiveFile=" + archive,
+                  "-cp",
+                  archiveClasspath)
+              .redirectErrorStream(true)
+              .start();
+      String processOutput = new String(process.getInputStream().readAllBytes(), UTF_8);
+      if (!process.waitFor(10, TimeUnit.MINUTES) || process.exitValue() != 0) {
+        process.destroyForcibly();
+        throw exitWithError("Failed to dump the CDS archive:\n" + processOutput);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } finally {
+      Files.delete(classList);
+    }
+  }
+
+  /** A class loader that records the names of all the classes that are requested from it. */
+  private static final class RecordingClassLoader extends URLClassLoader {
+    final Set<String> requested = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    RecordingClassLoader(URL[] urls, ClassLoader parent) {
+      super(urls, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      Class<?> clazz = super.loadClass(name, resolve);
+      requested.add(name.replace('.', '/'));
+      return clazz;
+    }
+  }
+}
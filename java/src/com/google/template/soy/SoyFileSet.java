@@ -101,6 +101,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -148,6 +149,9 @@ public final class SoyFileSet {
     /** Optional AST cache. */
     private SoyAstCache cache = null;
 
+    /** Optional executor for running independent compiler work in parallel. */
+    @Nullable private Executor compilerExecutor = null;
+
     /** The general compiler options. */
     private SoyGeneralOptions lazyGeneralOptions = null;
 
@@ -242,6 +246,7 @@ public final class SoyFileSet {
           compilationUnitsBuilder.build(),
           getGeneralOptions(),
           cache,
+          compilerExecutor,
           conformanceConfig,
           warningSink,
           pluginRuntimeJars,
@@ -447,6 +452,23 @@ public final class SoyFileSet {
       return this;
     }
 
+    /**
+     * Configures an executor the compiler may use to parse, check and generate code for files in
+     * parallel.
+     *
+     * <p>The compiler output is identical to a serial compile, including the order of reported
+     * errors. The executor is owned by the caller, it is not shut down by the compiler.
+     *
+     * @param compilerExecutor The executor to use. Null indicates to compile serially on the
+     *     calling thread.
+     * @return This builder.
+     */
+    @CanIgnoreReturnValue
+    public Builder setCompilerExecutor(@Nullable Executor compilerExecutor) {
+      this.compilerExecutor = compilerExecutor;
+      return this;
+    }
+
     /**
      * Sets experimental features. These features are unreleased and are not generally available.
      *
@@ -592,6 +614,9 @@ public final class SoyFileSet {
   /** Optional soy tree cache for faster recompile times. */
   @Nullable private final SoyAstCache cache;
 
+  /** Optional executor for running independent compiler work in parallel. */
+  @Nullable private final Executor compilerExecutor;
+
   private final SoyGeneralOptions generalOptions;
 
   private final ValidatedConformanceConfig conformanceConfig;
@@ -625,6 +650,7 @@ public final class SoyFileSet {
       ImmutableList<CompilationUnitAndKind> compilationUnits,
       SoyGeneralOptions generalOptions,
       @Nullable SoyAstCache cache,
+      @Nullable Executor compilerExecutor,
       ValidatedConformanceConfig conformanceConfig,
       @Nullable Appendable warningSink,
       ImmutableList<File> pluginRuntimeJars,
@@ -638,6 +664,7 @@ public final class SoyFileSet {
     this.soyFileSuppliers = soyFileSuppliers;
     this.compilationUnits = compilationUnits;
     this.cache = cache;
+    this.compilerExecutor = compilerExecutor;
     this.generalOptions = generalOptions.clone();
     this.soyFunctions = InternalPlugins.filterDuplicateFunctions(soyFunctions);
     this.printDirectives = InternalPlugins.filterDuplicateDirectives(printDirectives);
@@ -946,7 +973,31 @@ public final class SoyFileSet {
         () -> {
           ServerCompilationPrimitives primitives = compileForServerRendering();
           throwIfErrorsPresent();
-          return doCompileSoySauce(primitives, PluginInstances.of(pluginInstances));
+          return doCompileSoySauce(
+              primitives, PluginInstances.of(pluginInstances), /* msgBundle= */ null);
+        });
+  }
+
+  /**
+   * Compiles this Soy file set into a set of java classes implementing the {@link SoySauce}
+   * interface, with the translations from the given bundle compiled into the templates.
+   *
+   * <p>Rendering these templates doesn't look up or format messages at runtime, but they always
+   * render the translations from {@code msgBundle}, falling back to the source messages. Renders
+   * should still set a message bundle for the same locale, since it supplies the locale for plural
+   * and bidi formatting.
+   *
+   * @return A set of compiled templates
+   * @throws SoyCompilationException If compilation fails.
+   */
+  public SoySauce compileTemplatesForLocale(
+      SoyMsgBundle msgBundle, Map<String, ? extends Supplier<Object>> pluginInstances) {
+    checkNotNull(msgBundle);
+    return entryPoint(
+        () -> {
+          ServerCompilationPrimitives primitives = compileForServerRendering();
+          throwIfErrorsPresent();
+          return doCompileSoySauce(primitives, PluginInstances.of(pluginInstances), msgBundle);
         });
   }
 
@@ -962,12 +1013,29 @@ public final class SoyFileSet {
    * @throws SoyCompilationException If compilation fails.
    */
   void compileToJar(ByteSink jarTarget, Optional<ByteSink> srcJarTarget) {
+    compileToJar(jarTarget, srcJarTarget, /* msgBundle= */ null);
+  }
+
+  /**
+   * Like {@link #compileToJar(ByteSink, Optional)}, but compiles the translations from the given
+   * bundle into the templates, see {@link #compileTemplatesForLocale}.
+   *
+   * @param msgBundle The translations to compile, or {@code null} to look them up at render time
+   */
+  void compileToJar(
+      ByteSink jarTarget, Optional<ByteSink> srcJarTarget, @Nullable SoyMsgBundle msgBundle) {
     entryPointVoid(
         () -> {
           ServerCompilationPrimitives primitives = compileForServerRendering();
           try {
             BytecodeCompiler.compileToJar(
-                primitives.soyTree, errorReporter, typeRegistry, jarTarget, primitives.registry);
+                primitives.soyTree,
+                errorReporter,
+                typeRegistry,
+                jarTarget,
+                primitives.registry,
+                compilerExecutor,
+                msgBundle);
             if (srcJarTarget.isPresent()) {
               BytecodeCompiler.writeSrcJar(
                   primitives.soyTree, soyFileSuppliers, srcJarTarget.get());
@@ -980,10 +1048,17 @@ public final class SoyFileSet {
 
   /** Helper method to compile SoySauce from {@link ServerCompilationPrimitives} */
   private SoySauce doCompileSoySauce(
-      ServerCompilationPrimitives primitives, PluginInstances pluginInstances) {
+      ServerCompilationPrimitives primitives,
+      PluginInstances pluginInstances,
+      @Nullable SoyMsgBundle msgBundle) {
     Optional<CompiledTemplates> templates =
         BytecodeCompiler.compile(
-            primitives.registry, primitives.soyTree, errorReporter, soyFileSuppliers, typeRegistry);
+            primitives.registry,
+            primitives.soyTree,
+            errorReporter,
+            soyFileSuppliers,
+            typeRegistry,
+            msgBundle);
 
     throwIfErrorsPresent();
 
@@ -1246,6 +1321,7 @@ public final class SoyFileSet {
   private ParseResult parse(PassManager.Builder builder, SoyTypeRegistry typeRegistry) {
     return SoyFileSetParser.newBuilder()
         .setCache(cache)
+        .setParseExecutor(compilerExecutor)
         .setSoyFileSuppliers(soyFileSuppliers)
         .setCompilationUnits(compilationUnits)
         .setCssRegistry(cssRegistry)
@@ -1268,6 +1344,7 @@ public final class SoyFileSet {
         .setSoyPrintDirectives(printDirectives)
         .setCssRegistry(cssRegistry)
         .setErrorReporter(errorReporter)
+        .setExecutor(compilerExecutor)
         .setJavaPluginValidator(javaMethodChecker)
         .setConformanceConfig(conformanceConfig)
         .setPluginResolver(buildPluginResolver());
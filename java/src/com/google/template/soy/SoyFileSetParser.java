@@ -18,13 +18,19 @@ package com.google.template.soy;
 
 
 import com.google.auto.value.AutoValue;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.base.internal.FixedIdGenerator;
 import com.google.template.soy.base.internal.IdGenerator;
 import com.google.template.soy.base.internal.IncrementingIdGenerator;
 import com.google.template.soy.base.internal.SoyFileSupplier;
+import com.google.template.soy.basetree.CopyState;
 import com.google.template.soy.css.CssRegistry;
 import com.google.template.soy.error.ErrorReporter;
 import com.google.template.soy.passes.PassManager;
@@ -39,7 +45,11 @@ import com.google.template.soy.soytree.SoyTreeUtils;
 import com.google.template.soy.types.SoyTypeRegistry;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
 
 /**
@@ -101,6 +111,14 @@ public abstract class SoyFileSetParser {
   /** Optional file cache. */
   @Nullable
   abstract SoyAstCache cache();
+
+  /**
+   * Optional executor for parsing files in parallel. When absent, files are parsed serially on the
+   * calling thread.
+   */
+  @Nullable
+  abstract Executor parseExecutor();
+
   /** Files to parse. Each must have a unique file name. */
   public abstract ImmutableMap<SourceFilePath, SoyFileSupplier> soyFileSuppliers();
 
@@ -119,6 +137,8 @@ public abstract class SoyFileSetParser {
   public abstract static class Builder {
     public abstract Builder setCache(SoyAstCache cache);
 
+    public abstract Builder setParseExecutor(Executor parseExecutor);
+
     public abstract Builder setSoyFileSuppliers(
         ImmutableMap<SourceFilePath, SoyFileSupplier> soyFileSuppliers);
 
@@ -161,32 +181,31 @@ public abstract class SoyFileSetParser {
     // help with assigning unique names in the js and python backends.  We should just move this
     // into those backends
     FixedIdGenerator fixedIdGenerator = new FixedIdGenerator(-1);
+    // Parsing a file is independent of all other files, so each file can be parsed on its own
+    // thread. Errors are buffered per file and everything is merged below in input order, so the
+    // result doesn't depend on scheduling.
+    Executor executor =
+        parseExecutor() != null ? parseExecutor() : MoreExecutors.directExecutor();
+    List<ListenableFuture<ParsedFile>> parsedFiles = new ArrayList<>();
     for (SoyFileSupplier fileSupplier : soyFileSuppliers().values()) {
-      SoyFileSupplier.Version version = fileSupplier.getVersion();
-      SoyFileNode node = cache() != null ? cache().get(fileSupplier.getFilePath(), version) : null;
+      parsedFiles.add(
+          Futures.submit(() -> parseAndCacheFile(fileSupplier, fixedIdGenerator), executor));
+    }
+    for (ListenableFuture<ParsedFile> future : parsedFiles) {
+      ParsedFile parsedFile = getParsedFile(future);
+      parsedFile.errorReporter.copyTo(errorReporter());
+      SoyFileNode node = parsedFile.node;
+      // TODO(b/19269289): implement error recovery and keep on trucking in order to display
+      // as many errors as possible. Currently, the later passes just spew NPEs if run on
+      // a malformed parse tree.
       if (node == null) {
-        node = parseSoyFileHelper(fileSupplier, fixedIdGenerator);
-        // TODO(b/19269289): implement error recovery and keep on trucking in order to display
-        // as many errors as possible. Currently, the later passes just spew NPEs if run on
-        // a malformed parse tree.
-        if (node == null) {
-          filesWereSkipped = true;
-          continue;
-        }
-        // Run passes that are considered part of initial parsing.
-        passManager().runParsePasses(node, fixedIdGenerator);
-        // Run passes that check the tree.
-        if (cache() != null) {
-          cache().put(fileSupplier.getFilePath(), version, node);
-        }
+        filesWereSkipped = true;
+        continue;
       }
-      // Make a copy here and assign ids.
-      // We need to make a copy because we may have stored a version in the cache or taken a version
-      // out of the cache, the cache does not make defensive copies, so we need to.
-      // Also, we need to assign ids because we performed all parsing with the fixed id generator.
-      // In theory we could optimize the no cache case and avoid this copy, but that is an
-      // increasingly uncommon configuration.
-      node = SoyTreeUtils.cloneWithNewIds(node, soyTree.getNodeIdGenerator());
+      // Assign ids, since we performed all parsing with the fixed id generator. The node is already
+      // private to this parse (see parseAndCacheFile), so this is cheap and, since it happens in
+      // input order, deterministic.
+      SoyTreeUtils.assignNewIds(node, soyTree.getNodeIdGenerator());
       soyTree.addChild(node);
     }
 
@@ -205,14 +224,68 @@ public abstract class SoyFileSetParser {
     return ParseResult.create(soyTree, Optional.ofNullable(finalFileSetMetadata), cssRegistry());
   }
 
+  /** The result of parsing a single file, along with the errors reported while parsing it. */
+  private static final class ParsedFile {
+    @Nullable final SoyFileNode node;
+    final ErrorReporter errorReporter;
+
+    ParsedFile(@Nullable SoyFileNode node, ErrorReporter errorReporter) {
+      this.node = node;
+      this.errorReporter = errorReporter;
+    }
+  }
+
+  /**
+   * Parses one Soy file and runs the parse passes on it, or fetches it from the cache. This may be
+   * called concurrently for different files.
+   */
+  private ParsedFile parseAndCacheFile(SoyFileSupplier fileSupplier, IdGenerator nodeIdGen)
+      throws IOException {
+    ErrorReporter fileErrorReporter = ErrorReporter.create(ImmutableMap.of());
+    SoyFileSupplier.Version version = fileSupplier.getVersion();
+    SoyFileNode node = cache() != null ? cache().get(fileSupplier.getFilePath(), version) : null;
+    if (node == null) {
+      node = parseSoyFileHelper(fileSupplier, nodeIdGen, fileErrorReporter);
+      if (node == null) {
+        return new ParsedFile(null, fileErrorReporter);
+      }
+      // Run passes that are considered part of initial parsing.
+      passManager().runParsePasses(node, nodeIdGen, fileErrorReporter);
+      if (cache() == null) {
+        // Nobody else has seen this tree, so there is no need to copy it.
+        return new ParsedFile(node, fileErrorReporter);
+      }
+      cache().put(fileSupplier.getFilePath(), version, node);
+    }
+    // The cache does not make defensive copies and later passes mutate the tree, so we need a
+    // private copy. Copying here rather than when merging lets the copies of unchanged files
+    // proceed in parallel with each other and with parsing the changed files; only the cheap id
+    // assignment is serialized.
+    return new ParsedFile((SoyFileNode) node.copy(new CopyState()), fileErrorReporter);
+  }
+
+  private static ParsedFile getParsedFile(ListenableFuture<ParsedFile> future)
+      throws IOException {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, IOException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new IllegalStateException(cause);
+    }
+  }
+
   /**
    * Private helper for {@code parseWithVersions()} to parse one Soy file.
    *
    * @param soyFileSupplier Supplier of the Soy file content and path.
    * @param nodeIdGen The generator of node ids.
+   * @param errorReporter The reporter for errors in this file.
    * @return The resulting parse tree for one Soy file and the version from which it was parsed.
    */
-  private SoyFileNode parseSoyFileHelper(SoyFileSupplier soyFileSupplier, IdGenerator nodeIdGen)
+  private static SoyFileNode parseSoyFileHelper(
+      SoyFileSupplier soyFileSupplier, IdGenerator nodeIdGen, ErrorReporter errorReporter)
       throws IOException {
     try (Reader soyFileReader = soyFileSupplier.open()) {
       String filePath = soyFileSupplier.getFilePath().path();
@@ -226,7 +299,7 @@ public abstract class SoyFileSetParser {
       // Currently the only parameters are the id generator, the file, and the errorReporter.
       // This ensures that the file be cached without worrying about other compiler inputs.
       return new SoyFileParser(
-              nodeIdGen, soyFileReader, SourceFilePath.create(filePath), errorReporter())
+              nodeIdGen, soyFileReader, SourceFilePath.create(filePath), errorReporter)
           .parseSoyFile();
     }
   }
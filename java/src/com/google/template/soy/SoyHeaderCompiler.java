@@ -18,6 +18,7 @@ package com.google.template.soy;
 
 import static java.util.stream.Collectors.toList;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.template.soy.css.CssMetadata;
 import com.google.template.soy.css.CssRegistry;
@@ -79,6 +80,18 @@ final class SoyHeaderCompiler extends AbstractSoyCompiler {
 
   SoyHeaderCompiler() {}
 
+  @Override
+  ImmutableList<File> cacheableOutputs() {
+    ImmutableList.Builder<File> outputs = ImmutableList.<File>builder().add(output);
+    if (cssMetadataOutput != null) {
+      outputs.add(cssMetadataOutput);
+    }
+    if (templateCallMetadataOutput != null) {
+      outputs.add(templateCallMetadataOutput);
+    }
+    return outputs.build();
+  }
+
   @Override
   protected void compile(SoyFileSet.Builder sfsBuilder) throws IOException {
     SoyFileSet.HeaderResult result = sfsBuilder.build().compileMinimallyForHeaders();
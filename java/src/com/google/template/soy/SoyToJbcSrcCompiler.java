@@ -16,9 +16,15 @@
 
 package com.google.template.soy;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteSink;
 import com.google.common.io.Files;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.SoyMsgBundleHandler;
+import com.google.template.soy.msgs.SoyMsgPlugin;
+import com.google.template.soy.xliffmsgplugin.XliffMsgPlugin;
 import java.io.File;
+import java.io.IOException;
 import java.util.Optional;
 import org.kohsuke.args4j.Option;
 
@@ -43,6 +49,21 @@ public final class SoyToJbcSrcCompiler extends AbstractSoyCompiler {
   )
   private File outputSrcJar;
 
+  @Option(
+      name = "--messageFile",
+      usage =
+          "[Optional] A translated messages file to compile into the templates. The jar will"
+              + " then render the translations of this file without looking up messages at"
+              + " runtime, so it should only be used to render the locale of the file.")
+  private File messageFile;
+
+  @Option(
+      name = "--messagePlugin",
+      usage =
+          "Specifies the full class name of a SoyMsgPlugin used to read the --messageFile. If not"
+              + " specified, the default is com.google.template.soy.xliffmsgplugin.XliffMsgPlugin.")
+  private SoyMsgPlugin messagePlugin = new XliffMsgPlugin();
+
   SoyToJbcSrcCompiler(PluginLoader loader, SoyInputCache cache) {
     super(loader, cache);
   }
@@ -50,12 +71,27 @@ public final class SoyToJbcSrcCompiler extends AbstractSoyCompiler {
   SoyToJbcSrcCompiler() {}
 
   @Override
-  protected void compile(SoyFileSet.Builder sfsBuilder) {
+  ImmutableList<File> cacheableOutputs() {
+    return outputSrcJar == null ? ImmutableList.of(output) : ImmutableList.of(output, outputSrcJar);
+  }
+
+  @Override
+  ImmutableList<File> cacheKeyFiles() {
+    return messageFile == null ? ImmutableList.of() : ImmutableList.of(messageFile);
+  }
+
+  @Override
+  protected void compile(SoyFileSet.Builder sfsBuilder) throws IOException {
     Optional<ByteSink> srcJarSink = Optional.empty();
     if (outputSrcJar != null) {
       srcJarSink = Optional.of(Files.asByteSink(outputSrcJar));
     }
-    compile(sfsBuilder.build(), Files.asByteSink(output), srcJarSink);
+    if (messageFile != null) {
+      SoyMsgBundle msgBundle = new SoyMsgBundleHandler(messagePlugin).createFromFile(messageFile);
+      sfsBuilder.build().compileToJar(Files.asByteSink(output), srcJarSink, msgBundle);
+    } else {
+      compile(sfsBuilder.build(), Files.asByteSink(output), srcJarSink);
+    }
   }
 
   /**
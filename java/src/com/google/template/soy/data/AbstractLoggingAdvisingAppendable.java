@@ -72,6 +72,16 @@ public abstract class AbstractLoggingAdvisingAppendable extends LoggingAdvisingA
     return this;
   }
 
+  @CanIgnoreReturnValue
+  @Override
+  public final AbstractLoggingAdvisingAppendable appendUtf8(String text, byte[] utf8)
+      throws IOException {
+    if (!isLogOnly()) {
+      doAppendUtf8(text, utf8);
+    }
+    return this;
+  }
+
   /** Called whenever a logging function is being rendered. */
   @CanIgnoreReturnValue
   @Override
@@ -122,6 +132,12 @@ public abstract class AbstractLoggingAdvisingAppendable extends LoggingAdvisingA
   @ForOverride
   protected abstract void doAppend(char c) throws IOException;
 
+  /** See {@link #appendUtf8}, by default this just appends the text. */
+  @ForOverride
+  protected void doAppendUtf8(String text, byte[] utf8) throws IOException {
+    doAppend(text);
+  }
+
   @ForOverride
   protected abstract void doEnterLoggableElement(LogStatement statement);
 
@@ -108,6 +108,13 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
   @Nonnull
   public abstract LoggingAdvisingAppendable append(char c) throws IOException;
 
+  @CanIgnoreReturnValue
+  @Override
+  @Nonnull
+  public LoggingAdvisingAppendable appendUtf8(String text, byte[] utf8) throws IOException {
+    return append(text);
+  }
+
   /** Called whenever a loggable element is entered. */
   @Nonnull
   public abstract LoggingAdvisingAppendable enterLoggableElement(LogStatement statement);
@@ -19,6 +19,7 @@ package com.google.template.soy.data;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.template.soy.jbcsrc.api.RenderResult;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.function.Function;
@@ -44,6 +45,17 @@ public final class SoyFutureValueProvider extends SoyAbstractCachingValueProvide
   public static final ThreadLocal<FutureBlockCallback> futureBlockCallback =
       ThreadLocal.withInitial(() -> () -> {});
 
+  /**
+   * Whether {@link #status()} should wait for incomplete futures on the current thread, rather than
+   * asking the caller to detach.
+   *
+   * <p>This is set for the duration of blocking renders, where parking the thread is cheaper than
+   * saving and restoring the render state. See {@code SoySauce.Renderer#setBlockOnFutures}.
+   *
+   * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
+   */
+  public static final ThreadLocal<Boolean> blockInStatus = ThreadLocal.withInitial(() -> false);
+
   /** The wrapped Future object that will provide the value, if needed. */
   private final Future<?> future;
 
@@ -62,7 +74,22 @@ public final class SoyFutureValueProvider extends SoyAbstractCachingValueProvide
 
   @Override
   public RenderResult status() {
-    return future.isDone() ? RenderResult.done() : RenderResult.continueAfter(future);
+    if (future.isDone()) {
+      return RenderResult.done();
+    }
+    if (blockInStatus.get()) {
+      try {
+        future.get();
+      } catch (InterruptedException ie) {
+        // Let the caller decide how to wait.
+        Thread.currentThread().interrupt();
+        return RenderResult.continueAfter(future);
+      } catch (ExecutionException | CancellationException e) {
+        // compute() reports these.
+      }
+      return RenderResult.done();
+    }
+    return RenderResult.continueAfter(future);
   }
 
   /**
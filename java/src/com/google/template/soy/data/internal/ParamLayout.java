@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.data.RecordProperty;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The declared parameters of a template, in declaration order, which assigns each one a slot in a
+ * {@link ParamStore}.
+ *
+ * <p>Layouts are interned so that a caller and callee compiled separately share the same instance,
+ * which lets the callee cheaply check whether a param store was built for it.
+ *
+ * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
+ */
+public final class ParamLayout {
+  private static final ConcurrentMap<ImmutableList<String>, ParamLayout> interned =
+      new ConcurrentHashMap<>();
+
+  /** Below this size a linear scan is faster than a hash lookup. */
+  private static final int MAX_LINEAR_SCAN = 8;
+
+  /** Returns the layout for the given parameter names. */
+  public static ParamLayout of(String... names) {
+    ImmutableList<String> key = ImmutableList.copyOf(names);
+    ParamLayout layout = interned.get(key);
+    if (layout == null) {
+      layout = interned.computeIfAbsent(key, ParamLayout::new);
+    }
+    return layout;
+  }
+
+  private final RecordProperty[] properties;
+  private final IdentityHashMap<RecordProperty, Integer> slots;
+
+  private ParamLayout(ImmutableList<String> names) {
+    this.properties = names.stream().map(RecordProperty::get).toArray(RecordProperty[]::new);
+    if (properties.length > MAX_LINEAR_SCAN) {
+      slots = new IdentityHashMap<>(properties.length);
+      for (int i = 0; i < properties.length; i++) {
+        slots.put(properties[i], i);
+      }
+    } else {
+      slots = null;
+    }
+  }
+
+  /** The number of slots. */
+  public int size() {
+    return properties.length;
+  }
+
+  /** Returns the property for the given slot. */
+  public RecordProperty property(int slot) {
+    return properties[slot];
+  }
+
+  /** Returns the slot for the property, or {@code -1} if it isn't part of this layout. */
+  public int slotOf(RecordProperty property) {
+    if (slots != null) {
+      Integer slot = slots.get(property);
+      return slot == null ? -1 : slot;
+    }
+    RecordProperty[] properties = this.properties;
+    for (int i = 0; i < properties.length; i++) {
+      if (properties[i] == property) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public String toString() {
+    return "ParamLayout"
+        + Arrays.stream(properties).map(RecordProperty::getName).collect(toImmutableList());
+  }
+}
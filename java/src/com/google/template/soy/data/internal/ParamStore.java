@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.DoNotCall;
 import com.google.template.soy.data.RecordProperty;
@@ -30,18 +31,33 @@ import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Internal-use param store for passing data in subtemplate calls.
  *
+ * <p>A store created from a frozen backing store doesn't copy it, but holds only its own fields and
+ * delegates to the backing store for the rest. So passing {@code data="all"} along with a few
+ * params down a deep call stack costs time proportional to the new params rather than to all the
+ * params.
+ *
+ * <p>A store created with a {@link ParamLayout} holds the params declared in the layout in an array
+ * rather than the map, so that the template the store was built for can look them up by slot.
+ *
  * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
  */
 public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValueProvider> {
 
+  /**
+   * The maximum number of backing stores to chain together before copying, this bounds the cost of
+   * looking up fields that are passed down through many levels of calls.
+   */
+  private static final int MAX_DEPTH = 8;
+
   public static ParamStore merge(ParamStore store1, ParamStore store2) {
-    var newStore = new ParamStore(store1.size() + store2.size());
-    store1.forEach(newStore::setFieldCritical);
+    var newStore = new ParamStore(store1, store2.size());
     store2.forEach(newStore::setFieldCritical);
     return newStore.freeze();
   }
@@ -55,19 +71,81 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
     return newStore.freeze();
   }
 
+  /** The layout of {@link #slots}, or {@code null} if all fields are stored in the map. */
+  @Nullable private final ParamLayout layout;
+
+  /** The values of the fields in {@link #layout}, {@code null} for ones that aren't set. */
+  @Nullable private final SoyValueProvider[] slots;
+
+  /** The number of non-null {@link #slots}. */
+  private int slotCount;
+
+  /** The frozen store that holds all the fields not set in this one, if any. */
+  @Nullable private final ParamStore parent;
+
+  /** The number of stores in the {@link #parent} chain. */
+  private final int depth;
+
+  /** The number of fields in this store that override a field in the {@link #parent} chain. */
+  private int shadowed;
+
   private boolean frozen;
 
+  /**
+   * Creates a store with all the fields of {@code backingStore}, which can then be augmented with
+   * {@code size} more fields.
+   *
+   * <p>If the backing store is frozen it is referenced rather than copied.
+   */
   public ParamStore(ParamStore backingStore, int size) {
-    super(backingStore.size() + size);
-    backingStore.forEach(super::put);
+    this(backingStore, null, size);
+  }
+
+  /**
+   * Creates a store for calling a template with the given layout. {@code size} is the number of
+   * fields that will be set which aren't in the layout.
+   */
+  public ParamStore(ParamLayout layout, int size) {
+    this(null, Preconditions.checkNotNull(layout), size);
   }
 
   public ParamStore(int size) {
-    super(size);
+    this(null, null, size);
   }
 
   public ParamStore() {
     super();
+    this.layout = null;
+    this.slots = null;
+    this.parent = null;
+    this.depth = 0;
+  }
+
+  /**
+   * Creates a store with all the fields of {@code backingStore}, if any, for calling a template with
+   * the given layout, if any. {@code size} is the number of fields that will be set which aren't in
+   * the layout.
+   */
+  public ParamStore(
+      @Nullable ParamStore backingStore, @Nullable ParamLayout layout, int size) {
+    super(
+        backingStore == null || canChainTo(backingStore) ? size : backingStore.size() + size);
+    this.layout = layout;
+    this.slots = layout == null ? null : new SoyValueProvider[layout.size()];
+    if (backingStore != null && canChainTo(backingStore)) {
+      this.parent = backingStore;
+      this.depth = backingStore.depth + 1;
+    } else {
+      this.parent = null;
+      this.depth = 0;
+      if (backingStore != null) {
+        backingStore.forEach(this::putLocal);
+      }
+    }
+  }
+
+  private static boolean canChainTo(ParamStore backingStore) {
+    return backingStore.frozen && backingStore.depth < MAX_DEPTH && !backingStore.isEmpty();
   }
 
   @CanIgnoreReturnValue
@@ -90,7 +168,10 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
   public ParamStore setField(RecordProperty name, @Nonnull SoyValueProvider valueProvider) {
     checkState(!frozen);
     Preconditions.checkNotNull(valueProvider);
-    super.put(name, valueProvider);
+    if (parent != null && !containsLocalField(name) && parent.hasField(name)) {
+      shadowed++;
+    }
+    putLocal(name, valueProvider);
     return this;
   }
 
@@ -106,24 +187,127 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
   public ParamStore setFieldCritical(RecordProperty name, @Nonnull SoyValueProvider valueProvider) {
     checkState(!frozen);
     Preconditions.checkNotNull(valueProvider);
-    SoyValueProvider previous = super.put(name, valueProvider);
-    checkState(previous == null, "value already set for param %s", name);
+    checkState(!hasField(name), "value already set for param %s", name);
+    putLocal(name, valueProvider);
     return this;
   }
 
   public boolean hasField(RecordProperty name) {
-    return super.containsKey(name);
+    for (ParamStore store = this; store != null; store = store.parent) {
+      if (store.containsLocalField(name)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   public SoyValueProvider getFieldProvider(RecordProperty name) {
-    return super.get(name);
+    for (ParamStore store = this; store != null; store = store.parent) {
+      SoyValueProvider provider = store.getLocalField(name);
+      if (provider != null) {
+        return provider;
+      }
+    }
+    return null;
   }
 
   public SoyValueProvider getPositionalParam(RecordProperty name) {
-    SoyValueProvider provider = super.get(name);
+    SoyValueProvider provider = getFieldProvider(name);
     return provider != null ? provider : UndefinedData.INSTANCE;
   }
 
+  /**
+   * Returns the field in the given slot of the layout, this is equivalent to {@code
+   * getFieldProvider(layout.property(slot))} but is just an array access if this store was built
+   * for the layout.
+   */
+  public SoyValueProvider getFieldProvider(ParamLayout layout, int slot) {
+    if (this.layout == layout) {
+      SoyValueProvider provider = slots[slot];
+      if (provider != null || parent == null) {
+        return provider;
+      }
+      return parent.getFieldProvider(layout, slot);
+    }
+    return getFieldProvider(layout.property(slot));
+  }
+
+  private boolean containsLocalField(RecordProperty name) {
+    return getLocalField(name) != null;
+  }
+
+  @Nullable
+  private SoyValueProvider getLocalField(RecordProperty name) {
+    if (layout != null) {
+      int slot = layout.slotOf(name);
+      if (slot >= 0) {
+        return slots[slot];
+      }
+    }
+    return super.get(name);
+  }
+
+  @Nullable
+  private SoyValueProvider putLocal(RecordProperty name, SoyValueProvider valueProvider) {
+    if (layout != null) {
+      int slot = layout.slotOf(name);
+      if (slot >= 0) {
+        SoyValueProvider previous = slots[slot];
+        slots[slot] = valueProvider;
+        if (previous == null) {
+          slotCount++;
+        }
+        return previous;
+      }
+    }
+    return super.put(name, valueProvider);
+  }
+
+  private void forEachLocal(BiConsumer<? super RecordProperty, ? super SoyValueProvider> action) {
+    super.forEach(action);
+    if (slots != null) {
+      for (int i = 0; i < slots.length; i++) {
+        SoyValueProvider provider = slots[i];
+        if (provider != null) {
+          action.accept(layout.property(i), provider);
+        }
+      }
+    }
+  }
+
+  private int localSize() {
+    return super.size() + slotCount;
+  }
+
+  @Override
+  public int size() {
+    return parent == null ? localSize() : localSize() + parent.size() - shadowed;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return localSize() == 0 && (parent == null || parent.isEmpty());
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof RecordProperty && hasField((RecordProperty) key);
+  }
+
+  /** Calls {@code action} once for each field, including the ones in the backing store. */
+  @Override
+  public void forEach(BiConsumer<? super RecordProperty, ? super SoyValueProvider> action) {
+    forEachLocal(action);
+    if (parent != null) {
+      parent.forEach(
+          (k, v) -> {
+            if (!containsLocalField(k)) {
+              action.accept(k, v);
+            }
+          });
+    }
+  }
+
   public ImmutableMap<String, SoyValueProvider> asStringMap() {
     ImmutableMap.Builder<String, SoyValueProvider> builder =
         ImmutableMap.builderWithExpectedSize(size());
@@ -150,7 +334,7 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
     if (size() != otherStore.size()) {
       return false;
     }
-    for (var key : super.keySet()) {
+    for (var key : properties()) {
       if (!getFieldProvider(key).equals(otherStore.getFieldProvider(key))) {
         return false;
       }
@@ -162,7 +346,7 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
   public int hashCode() {
     checkState(frozen);
     int result = 0;
-    for (var key : super.keySet()) {
+    for (var key : properties()) {
       // We accumulate with + to ensure we are associative (insensitive to ordering)
       result += System.identityHashCode(key) ^ getFieldProvider(key).hashCode();
     }
@@ -170,7 +354,12 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
   }
 
   public Set<RecordProperty> properties() {
-    return super.keySet();
+    if (parent == null && layout == null) {
+      return super.keySet();
+    }
+    Set<RecordProperty> properties = Sets.newIdentityHashSet();
+    forEach((k, v) -> properties.add(k));
+    return properties;
   }
 
   // Override base methods methods to clarify our api... too bad java doesn't have private
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.error;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.base.SourceLocation;
+
+/**
+ * An {@link ErrorReporter} that lets a thread temporarily redirect everything it reports into a
+ * private buffer.
+ *
+ * <p>This allows work that reports errors to run concurrently, with the buffers copied to the
+ * delegate afterwards in a deterministic order. Outside of {@link #runBuffered} every call goes to
+ * the delegate.
+ */
+public final class PerThreadErrorReporter extends ErrorReporter {
+  private final ErrorReporter delegate;
+  private final ThreadLocal<ErrorReporter> buffer = new ThreadLocal<>();
+
+  public PerThreadErrorReporter(ErrorReporter delegate) {
+    this.delegate = checkNotNull(delegate);
+  }
+
+  /** Runs {@code action} on the current thread, sending all reports to {@code buffer}. */
+  public void runBuffered(ErrorReporter buffer, Runnable action) {
+    checkState(this.buffer.get() == null, "already buffering on this thread");
+    this.buffer.set(checkNotNull(buffer));
+    try {
+      action.run();
+    } finally {
+      this.buffer.remove();
+    }
+  }
+
+  private ErrorReporter current() {
+    ErrorReporter current = buffer.get();
+    return current != null ? current : delegate;
+  }
+
+  @Override
+  public void report(SourceLocation sourceLocation, SoyErrorKind error, Object... args) {
+    current().report(sourceLocation, error, args);
+  }
+
+  @Override
+  public void warn(SourceLocation sourceLocation, SoyErrorKind error, Object... args) {
+    current().warn(sourceLocation, error, args);
+  }
+
+  @Override
+  public void copyTo(ErrorReporter other) {
+    current().copyTo(other);
+  }
+
+  @Override
+  public ImmutableList<SoyError> getReports() {
+    return current().getReports();
+  }
+
+  @Override
+  protected ImmutableList<SoyError> getReports(int from, int to) {
+    return current().getReports(from, to);
+  }
+
+  @Override
+  public ImmutableList<SoyError> getErrors() {
+    return current().getErrors();
+  }
+
+  @Override
+  public ImmutableList<SoyError> getWarnings() {
+    return current().getWarnings();
+  }
+
+  @Override
+  int getCurrentNumberOfErrors() {
+    return current().getCurrentNumberOfErrors();
+  }
+
+  @Override
+  int getCurrentNumberOfReports() {
+    return current().getCurrentNumberOfReports();
+  }
+}
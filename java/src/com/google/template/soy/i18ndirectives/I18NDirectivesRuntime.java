@@ -18,6 +18,9 @@ package com.google.template.soy.i18ndirectives;
 
 import static java.util.Comparator.comparing;
 
+import com.google.auto.value.AutoValue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.template.soy.data.RecordProperty;
 import com.google.template.soy.data.SoyList;
@@ -25,16 +28,58 @@ import com.google.template.soy.data.SoyRecord;
 import com.google.template.soy.data.SoyValue;
 import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.restricted.NumberData;
+import com.ibm.icu.number.LocalizedNumberFormatter;
 import com.ibm.icu.text.Collator;
 import com.ibm.icu.text.CompactDecimalFormat;
 import com.ibm.icu.text.CompactDecimalFormat.CompactStyle;
+import com.ibm.icu.text.DecimalFormat;
 import com.ibm.icu.text.NumberFormat;
 import com.ibm.icu.text.RuleBasedCollator;
 import com.ibm.icu.util.ULocale;
+import java.util.function.DoubleFunction;
 import javax.annotation.Nullable;
 
 /** Java implementations of the i18n directives. */
 public final class I18NDirectivesRuntime {
+  // Constructing ICU formatters and collators is expensive, and the set of distinct configurations
+  // used by an application is small, so we cache them. The bounds are just a safety net.
+  private static final int MAX_CACHED_INSTANCES = 1000;
+
+  private static final Cache<NumberFormatKey, DoubleFunction<String>> NUMBER_FORMATS =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_INSTANCES).build();
+
+  private static final Cache<CollatorKey, Collator> COLLATORS =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_INSTANCES).build();
+
+  @AutoValue
+  abstract static class NumberFormatKey {
+    abstract ULocale locale();
+
+    abstract String formatType();
+
+    @Nullable
+    abstract String numbersKeyword();
+
+    @Nullable
+    abstract Integer minFractionDigits();
+
+    @Nullable
+    abstract Integer maxFractionDigits();
+  }
+
+  @AutoValue
+  abstract static class CollatorKey {
+    abstract ULocale locale();
+
+    @Nullable
+    abstract Boolean numeric();
+
+    @Nullable
+    abstract String caseFirst();
+
+    @Nullable
+    abstract String sensitivity();
+  }
 
   private I18NDirectivesRuntime() {}
 
@@ -120,6 +165,36 @@ public final class I18NDirectivesRuntime {
       String numbersKeyword,
       @Nullable Integer minFractionDigits,
       @Nullable Integer maxFractionDigits) {
+    NumberFormatKey key =
+        new AutoValue_I18NDirectivesRuntime_NumberFormatKey(
+            uLocale, formatType, numbersKeyword, minFractionDigits, maxFractionDigits);
+    DoubleFunction<String> formatter = NUMBER_FORMATS.getIfPresent(key);
+    if (formatter == null) {
+      NumberFormat numberFormat =
+          createNumberFormat(
+              uLocale, formatType, numbersKeyword, minFractionDigits, maxFractionDigits);
+      if (numberFormat instanceof DecimalFormat) {
+        // NumberFormat isn't thread safe, but the equivalent LocalizedNumberFormatter is immutable
+        // and much faster.
+        LocalizedNumberFormatter numberFormatter =
+            ((DecimalFormat) numberFormat).toNumberFormatter();
+        formatter = n -> numberFormatter.format(n).toString();
+      } else {
+        // e.g. a RuleBasedNumberFormat for algorithmic numbering systems, cloning is still much
+        // cheaper than constructing one.
+        formatter = n -> ((NumberFormat) numberFormat.clone()).format(n);
+      }
+      NUMBER_FORMATS.put(key, formatter);
+    }
+    return formatter.apply(number);
+  }
+
+  private static NumberFormat createNumberFormat(
+      ULocale uLocale,
+      String formatType,
+      String numbersKeyword,
+      @Nullable Integer minFractionDigits,
+      @Nullable Integer maxFractionDigits) {
     uLocale = uLocale.setKeywordValue("numbers", numbersKeyword);
     NumberFormat numberFormat;
     switch (formatType) {
@@ -159,8 +234,7 @@ public final class I18NDirectivesRuntime {
     } else if (numberFormat instanceof CompactDecimalFormat) {
       ((CompactDecimalFormat) numberFormat).setMaximumSignificantDigits(3);
     }
-
-    return numberFormat.format(number);
+    return numberFormat;
   }
 
   private static final RecordProperty NUMERIC = RecordProperty.get("numeric");
@@ -169,44 +243,68 @@ public final class I18NDirectivesRuntime {
 
   public static ImmutableList<SoyValueProvider> localeSort(
       ULocale uLocale, SoyList list, @Nullable SoyRecord options) {
-    RuleBasedCollator collator = (RuleBasedCollator) Collator.getInstance(uLocale);
+    Boolean numeric = null;
+    String caseFirst = null;
+    String sensitivity = null;
     if (options != null) {
       if (options.hasField(NUMERIC)) {
-        collator.setNumericCollation(options.getField(NUMERIC).booleanValue());
+        numeric = options.getField(NUMERIC).booleanValue();
       }
       if (options.hasField(CASE_FIRST)) {
-        String caseFirst = options.getField(CASE_FIRST).stringValue();
-        if ("upper".equals(caseFirst)) {
-          collator.setUpperCaseFirst(true);
-        } else if ("lower".equals(caseFirst)) {
-          collator.setLowerCaseFirst(true);
-        }
+        caseFirst = options.getField(CASE_FIRST).stringValue();
       }
       if (options.hasField(SENSITIVITY)) {
-        String sensitivity = options.getField(SENSITIVITY).stringValue();
-        switch (sensitivity) {
-          case "base":
-            collator.setStrength(Collator.PRIMARY);
-            break;
-          case "accent":
-            collator.setStrength(Collator.SECONDARY);
-            break;
-          case "case":
-            collator.setStrength(Collator.TERTIARY);
-            break;
-          case "variant":
-            collator.setStrength(Collator.IDENTICAL);
-            break;
-          default:
-            throw new IllegalArgumentException("Bad value for sensitivity: " + sensitivity);
-        }
+        sensitivity = options.getField(SENSITIVITY).stringValue();
       } else {
         // Match Intl.Collator default sensitivity (variant).
-        collator.setStrength(Collator.IDENTICAL);
+        sensitivity = "variant";
       }
     }
+    CollatorKey key =
+        new AutoValue_I18NDirectivesRuntime_CollatorKey(uLocale, numeric, caseFirst, sensitivity);
+    Collator collator = COLLATORS.getIfPresent(key);
+    if (collator == null) {
+      collator = createCollator(uLocale, numeric, caseFirst, sensitivity);
+      COLLATORS.put(key, collator);
+    }
     return ImmutableList.sortedCopyOf(
         comparing((SoyValueProvider arg) -> arg.resolve().stringValue(), collator),
         list.asJavaList());
   }
+
+  /** Returns a frozen, and therefore thread safe, collator. */
+  private static Collator createCollator(
+      ULocale uLocale,
+      @Nullable Boolean numeric,
+      @Nullable String caseFirst,
+      @Nullable String sensitivity) {
+    RuleBasedCollator collator = (RuleBasedCollator) Collator.getInstance(uLocale);
+    if (numeric != null) {
+      collator.setNumericCollation(numeric);
+    }
+    if ("upper".equals(caseFirst)) {
+      collator.setUpperCaseFirst(true);
+    } else if ("lower".equals(caseFirst)) {
+      collator.setLowerCaseFirst(true);
+    }
+    if (sensitivity != null) {
+      switch (sensitivity) {
+        case "base":
+          collator.setStrength(Collator.PRIMARY);
+          break;
+        case "accent":
+          collator.setStrength(Collator.SECONDARY);
+          break;
+        case "case":
+          collator.setStrength(Collator.TERTIARY);
+          break;
+        case "variant":
+          collator.setStrength(Collator.IDENTICAL);
+          break;
+        default:
+          throw new IllegalArgumentException("Bad value for sensitivity: " + sensitivity);
+      }
+    }
+    return collator.freeze();
+  }
 }
@@ -49,6 +49,10 @@ final class AppendableExpression extends Expression {
   private static final MethodRef APPEND_CHAR =
       MethodRef.createNonPure(LoggingAdvisingAppendable.class, "append", char.class);
 
+  private static final MethodRef APPEND_UTF8 =
+      MethodRef.createNonPure(
+          LoggingAdvisingAppendable.class, "appendUtf8", String.class, byte[].class);
+
   private static final MethodRef SOFT_LIMITED =
       MethodRef.createNonPure(LoggingAdvisingAppendable.class, "softLimitReached").asCheap();
 
@@ -144,6 +148,15 @@ final class AppendableExpression extends Expression {
     return withNewDelegate(delegate.invoke(APPEND_CHAR, exp), true);
   }
 
+  /**
+   * Returns a similar {@link AppendableExpression} but with the given constant appended to it via
+   * {@link LoggingAdvisingAppendable#appendUtf8}.
+   */
+  AppendableExpression appendConstant(String text) {
+    return withNewDelegate(
+        delegate.invoke(APPEND_UTF8, constant(text), BytecodeUtils.constantUtf8(text)), true);
+  }
+
   /** Returns an expression with the result of {@link AppendableExpression#softLimitReached}. */
   Expression softLimitReached() {
     checkArgument(supportsSoftLimiting);
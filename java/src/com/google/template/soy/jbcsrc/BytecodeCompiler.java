@@ -20,10 +20,14 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.io.ByteSink;
 import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.base.internal.SoyFileSupplier;
 import com.google.template.soy.base.internal.SoyJarFileWriter;
@@ -35,6 +39,7 @@ import com.google.template.soy.jbcsrc.internal.ClassData;
 import com.google.template.soy.jbcsrc.restricted.Flags;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
 import com.google.template.soy.jbcsrc.shared.Names;
+import com.google.template.soy.msgs.SoyMsgBundle;
 import com.google.template.soy.plugin.java.internal.PluginAnalyzer;
 import com.google.template.soy.plugin.java.restricted.SoyJavaSourceFunction;
 import com.google.template.soy.soytree.FileSetMetadata;
@@ -44,14 +49,21 @@ import com.google.template.soy.soytree.SoyFileSetNode;
 import com.google.template.soy.soytree.SoyTreeUtils;
 import com.google.template.soy.soytree.TemplateMetadata;
 import com.google.template.soy.soytree.TemplateNode;
+import com.google.template.soy.soytree.Visibility;
 import com.google.template.soy.types.SoyTypeRegistry;
 import com.google.template.soy.types.TemplateType;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
 
 /** The entry point to the {@code jbcsrc} compiler. */
 public final class BytecodeCompiler {
@@ -70,6 +82,28 @@ public final class BytecodeCompiler {
       ErrorReporter reporter,
       ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
       SoyTypeRegistry typeRegistry) {
+    return compile(
+        registry, fileSet, reporter, filePathsToSuppliers, typeRegistry, /* msgBundle= */ null);
+  }
+
+  /**
+   * Compiles all the templates in the given registry, with the translations from the given bundle
+   * compiled into the templates.
+   *
+   * <p>This avoids looking up and formatting messages when rendering, but the resulting templates
+   * render the translations of {@code msgBundle} regardless of the bundle they are rendered with.
+   * The render time bundle should still be set to one for the same locale, since it supplies the
+   * locale for plurals and bidi formatting.
+   *
+   * @param msgBundle The translations to compile, or {@code null} to look them up at render time
+   */
+  public static Optional<CompiledTemplates> compile(
+      FileSetMetadata registry,
+      SoyFileSetNode fileSet,
+      ErrorReporter reporter,
+      ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry,
+      @Nullable SoyMsgBundle msgBundle) {
     ErrorReporter.Checkpoint checkpoint = reporter.checkpoint();
     CompiledTemplates templates =
         new CompiledTemplates(
@@ -77,7 +111,8 @@ public final class BytecodeCompiler {
                 .filter(BytecodeCompiler::isModTemplate)
                 .map(BytecodeCompiler::modImplName)
                 .collect(toImmutableSet()),
-            new CompilingClassLoader(fileSet, filePathsToSuppliers, typeRegistry, registry));
+            new CompilingClassLoader(
+                fileSet, filePathsToSuppliers, typeRegistry, registry, msgBundle));
     if (reporter.errorsSince(checkpoint)) {
       return Optional.empty();
     }
@@ -123,8 +158,49 @@ public final class BytecodeCompiler {
       ByteSink sink,
       PartialFileSetMetadata fileSetMetadata)
       throws IOException {
+    compileToJar(fileSet, reporter, typeRegistry, sink, fileSetMetadata, /* executor= */ null);
+  }
+
+  /**
+   * Like {@link #compileToJar(SoyFileSetNode, ErrorReporter, SoyTypeRegistry, ByteSink,
+   * PartialFileSetMetadata)}, but generates the classes for each file on the given executor. The
+   * jar is identical to a serial compile.
+   *
+   * @param executor The executor to generate classes on, or null to generate them on the calling
+   *     thread.
+   */
+  public static void compileToJar(
+      SoyFileSetNode fileSet,
+      ErrorReporter reporter,
+      SoyTypeRegistry typeRegistry,
+      ByteSink sink,
+      PartialFileSetMetadata fileSetMetadata,
+      @Nullable Executor executor)
+      throws IOException {
+    compileToJar(
+        fileSet, reporter, typeRegistry, sink, fileSetMetadata, executor, /* msgBundle= */ null);
+  }
+
+  /**
+   * Like {@link #compileToJar(SoyFileSetNode, ErrorReporter, SoyTypeRegistry, ByteSink,
+   * PartialFileSetMetadata, Executor)}, but compiles the translations from the given bundle into
+   * the templates. This produces a jar for a single locale, see {@link #compile(FileSetMetadata,
+   * SoyFileSetNode, ErrorReporter, ImmutableMap, SoyTypeRegistry, SoyMsgBundle)}.
+   *
+   * @param msgBundle The translations to compile, or {@code null} to look them up at render time
+   */
+  public static void compileToJar(
+      SoyFileSetNode fileSet,
+      ErrorReporter reporter,
+      SoyTypeRegistry typeRegistry,
+      ByteSink sink,
+      PartialFileSetMetadata fileSetMetadata,
+      @Nullable Executor executor,
+      @Nullable SoyMsgBundle msgBundle)
+      throws IOException {
     try (SoyJarFileWriter writer = new SoyJarFileWriter(sink.openStream())) {
       Set<String> modTemplates = new TreeSet<>();
+      Set<String> publicTemplates = new TreeSet<>();
 
       // A map of plugin names -> info about the required instance class (only for plugins that
       // require a runtime class).
@@ -146,6 +222,11 @@ public final class BytecodeCompiler {
               modTemplates.add(name);
             }
 
+            @Override
+            void onCompilePublicTemplate(String name) {
+              publicTemplates.add(name);
+            }
+
             @Override
             void onFunctionCallFound(FunctionNode fnNode) {
               // For each function call, check if the plugin needs an instance class. If so, add an
@@ -170,12 +251,20 @@ public final class BytecodeCompiler {
               }
             }
           },
-          fileSetMetadata);
+          fileSetMetadata,
+          executor,
+          msgBundle);
       if (!modTemplates.isEmpty()) {
         String delData = Joiner.on('\n').join(modTemplates);
         writer.writeEntry(
             Names.META_INF_DELTEMPLATE_PATH, ByteSource.wrap(delData.getBytes(UTF_8)));
       }
+      // Used by SoySauceBuilder.withWarmup to find all the templates on the classpath.
+      if (!publicTemplates.isEmpty()) {
+        String templateData = Joiner.on('\n').join(publicTemplates);
+        writer.writeEntry(
+            Names.META_INF_TEMPLATE_PATH, ByteSource.wrap(templateData.getBytes(UTF_8)));
+      }
 
       // Collect all instances from all declared externs.
       fileSet.getChildren().stream()
@@ -244,11 +333,11 @@ public final class BytecodeCompiler {
     void onCompileModifiableTemplate(String name) {}
 
     /**
-     * Callback to notify a template (not a modifiable template) was compiled.
+     * Callback to notify a public template (not a modifiable template) was compiled.
      *
      * @param name The full name as would be returned by SoyTemplateInfo.getName()
      */
-    void onCompileTemplate(String name) {}
+    void onCompilePublicTemplate(String name) {}
 
     /**
      * Callback to notify that a function call was found.
@@ -262,39 +351,123 @@ public final class BytecodeCompiler {
     }
   }
 
+  /** The classes generated for a single file, along with the errors reported while doing so. */
+  private static final class CompiledFile {
+    final List<ClassData> classes;
+    final ErrorReporter errorReporter;
+
+    CompiledFile(List<ClassData> classes, ErrorReporter errorReporter) {
+      this.classes = classes;
+      this.errorReporter = errorReporter;
+    }
+  }
+
+  /**
+   * The maximum number of files whose classes are generated ahead of the file being written, when
+   * compiling in parallel. This bounds the generated bytecode held in memory at once.
+   */
+  private static final int MAX_FILES_IN_FLIGHT = 2 * Runtime.getRuntime().availableProcessors();
+
   private static <T, E extends Throwable> T compileTemplates(
       SoyFileSetNode fileSet,
       ErrorReporter errorReporter,
       SoyTypeRegistry typeRegistry,
       CompilerListener<T, E> listener,
-      PartialFileSetMetadata fileSetMetadata)
+      PartialFileSetMetadata fileSetMetadata,
+      @Nullable Executor executor,
+      @Nullable SoyMsgBundle msgBundle)
       throws E {
-    JavaSourceFunctionCompiler javaSourceFunctionCompiler =
-        new JavaSourceFunctionCompiler(typeRegistry, errorReporter);
-    for (SoyFileNode file : fileSet.getChildren()) {
-      for (ClassData clazz :
-          new SoyFileCompiler(file, javaSourceFunctionCompiler, fileSetMetadata).compile()) {
-        if (Flags.DEBUG) {
-          clazz.checkClass();
-        }
-        listener.onCompile(clazz);
+    if (executor == null) {
+      // Compile and report one file at a time, so the classes of each file can be released before
+      // compiling the next.
+      JavaSourceFunctionCompiler javaSourceFunctionCompiler =
+          new JavaSourceFunctionCompiler(typeRegistry, errorReporter);
+      for (SoyFileNode file : fileSet.getChildren()) {
+        reportCompiledFile(
+            file,
+            compileFile(file, javaSourceFunctionCompiler, fileSetMetadata, msgBundle),
+            listener);
       }
-      for (TemplateNode template : file.getTemplates()) {
-        TemplateMetadata metadata = TemplateMetadata.fromTemplate(template);
-        if (isModTemplate(metadata)) {
-          listener.onCompileModifiableTemplate(modImplName(metadata));
-        } else {
-          listener.onCompileTemplate(template.getTemplateName());
-        }
-
-        /* For each function call in the template, trigger the function call listener. */
-        for (FunctionNode fnNode : SoyTreeUtils.getAllNodesOfType(template, FunctionNode.class)) {
-          listener.onFunctionCallFound(fnNode);
+      return listener.getResult();
+    }
+    // Each SoyFileCompiler only depends on its own file and on the (read only) metadata of the
+    // others, so the files can be compiled concurrently. Results, including errors, are consumed
+    // in file order below, so the output doesn't depend on scheduling. Files are only submitted
+    // once they are within MAX_FILES_IN_FLIGHT of the file being reported.
+    List<SoyFileNode> files = fileSet.getChildren();
+    Deque<ListenableFuture<CompiledFile>> inFlight = new ArrayDeque<>();
+    int nextToSubmit = 0;
+    try {
+      for (SoyFileNode file : files) {
+        while (nextToSubmit < files.size() && inFlight.size() < MAX_FILES_IN_FLIGHT) {
+          SoyFileNode toCompile = files.get(nextToSubmit++);
+          inFlight.add(
+              Futures.submit(
+                  () -> {
+                    ErrorReporter fileErrorReporter = ErrorReporter.create(ImmutableMap.of());
+                    return new CompiledFile(
+                        compileFile(
+                            toCompile,
+                            new JavaSourceFunctionCompiler(typeRegistry, fileErrorReporter),
+                            fileSetMetadata,
+                            msgBundle),
+                        fileErrorReporter);
+                  },
+                  executor));
         }
+        CompiledFile compiledFile = getCompiledFile(inFlight.remove());
+        compiledFile.errorReporter.copyTo(errorReporter);
+        reportCompiledFile(file, compiledFile.classes, listener);
       }
+    } finally {
+      // Only non-empty if reporting a file failed.
+      inFlight.forEach(future -> future.cancel(false));
     }
     return listener.getResult();
   }
 
+  private static List<ClassData> compileFile(
+      SoyFileNode file,
+      JavaSourceFunctionCompiler javaSourceFunctionCompiler,
+      PartialFileSetMetadata fileSetMetadata,
+      @Nullable SoyMsgBundle msgBundle) {
+    List<ClassData> classes =
+        new SoyFileCompiler(file, javaSourceFunctionCompiler, fileSetMetadata, msgBundle)
+            .compile();
+    if (Flags.DEBUG) {
+      classes.forEach(ClassData::checkClass);
+    }
+    return classes;
+  }
+
+  private static <T, E extends Throwable> void reportCompiledFile(
+      SoyFileNode file, List<ClassData> classes, CompilerListener<T, E> listener) throws E {
+    for (ClassData clazz : classes) {
+      listener.onCompile(clazz);
+    }
+    for (TemplateNode template : file.getTemplates()) {
+      TemplateMetadata metadata = TemplateMetadata.fromTemplate(template);
+      if (isModTemplate(metadata)) {
+        listener.onCompileModifiableTemplate(modImplName(metadata));
+      } else if (template.getVisibility() == Visibility.PUBLIC) {
+        listener.onCompilePublicTemplate(template.getTemplateName());
+      }
+
+      /* For each function call in the template, trigger the function call listener. */
+      for (FunctionNode fnNode : SoyTreeUtils.getAllNodesOfType(template, FunctionNode.class)) {
+        listener.onFunctionCallFound(fnNode);
+      }
+    }
+  }
+
+  private static CompiledFile getCompiledFile(ListenableFuture<CompiledFile> future) {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
   private BytecodeCompiler() {}
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.basetree.CopyState;
+import com.google.template.soy.soytree.CallBasicNode;
+import com.google.template.soy.soytree.CallNode;
+import com.google.template.soy.soytree.LetContentNode;
+import com.google.template.soy.soytree.SoyFileNode;
+import com.google.template.soy.soytree.SoyNode;
+import com.google.template.soy.soytree.SoyNode.RenderUnitNode;
+import com.google.template.soy.soytree.SoyTreeUtils;
+import com.google.template.soy.soytree.TemplateBasicNode;
+import com.google.template.soy.soytree.TemplateNode;
+import com.google.template.soy.soytree.Visibility;
+import com.google.template.soy.soytree.defn.TemplateParam;
+import com.google.template.soy.types.TemplateType;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Decides which calls to compile by inlining the callee, and prepares the copy of the callee that
+ * is compiled in place of the call.
+ *
+ * <p>A {@code {call}} allocates the params, invokes the callee's render method and checks its
+ * {@link com.google.template.soy.jbcsrc.api.RenderResult}, which is a significant cost for small
+ * helper templates that are called from a loop. So we inline calls to templates that:
+ *
+ * <ul>
+ *   <li>Are private basic templates in the same file. Calls to other templates may be dispatched to
+ *       a different implementation at runtime, e.g. by test stubbing.
+ *   <li>Have no {@code @inject} or {@code @state} variables.
+ *   <li>Don't make any calls themselves, so inlining is never recursive.
+ *   <li>Have no more than {@link #MAX_INLINED_TEMPLATE_SIZE} AST nodes.
+ *   <li>Have the same content kind as the call site, and need no escaping.
+ * </ul>
+ *
+ * <p>Params are still passed as lazy {@link com.google.template.soy.data.SoyValueProvider}s and
+ * bound to the callee's params with the same default logic as the callee's own render method, so
+ * inlining doesn't change what is evaluated or when.
+ */
+final class CallInliner {
+
+  /**
+   * The maximum size of a template that will be inlined, as the number of nodes in its AST
+   * (including expression nodes). Set the {@code soy_jbcsrc_max_inlined_template_size} system
+   * property to override it, a value of {@code 0} disables inlining.
+   */
+  static final int MAX_INLINED_TEMPLATE_SIZE =
+      Integer.getInteger("soy_jbcsrc_max_inlined_template_size", 32);
+
+  /** A copy of the callee's body, ready to be compiled at the call site. */
+  @AutoValue
+  abstract static class InlinedTemplate {
+    /**
+     * A synthetic block holding the callee's body. It is attached to the parent of the call (but
+     * not added to its children) so that ancestor queries made during code generation see the
+     * call site.
+     */
+    abstract LetContentNode body();
+
+    /** The copies of the callee's params referenced by {@link #body()}, by name. */
+    abstract ImmutableMap<String, TemplateParam> params();
+  }
+
+  /** Returns the callee if {@code call} should be compiled by inlining it. */
+  static Optional<TemplateBasicNode> getInlinableCallee(CallBasicNode call) {
+    return getInlinableCallee(call, MAX_INLINED_TEMPLATE_SIZE);
+  }
+
+  static Optional<TemplateBasicNode> getInlinableCallee(CallBasicNode call, int maxSize) {
+    if (maxSize <= 0
+        || !call.isStaticCall()
+        || call.isPassingData()
+        || call.getVariantExpr() != null
+        || call.getKeyExpr() != null
+        || call.isErrorFallbackSkip()
+        || !call.getEscapingDirectives().isEmpty()) {
+      return Optional.empty();
+    }
+    Optional<TemplateBasicNode> callee =
+        call.getNearestAncestor(SoyFileNode.class).getTemplates().stream()
+            .filter(
+                t ->
+                    t.getVisibility() == Visibility.PRIVATE
+                        && t.getKind() == SoyNode.Kind.TEMPLATE_BASIC_NODE
+                        && t.getTemplateName().equals(call.getCalleeName()))
+            .map(TemplateBasicNode.class::cast)
+            .findFirst();
+    if (!callee.isPresent() || !canInline(call, callee.get(), maxSize)) {
+      return Optional.empty();
+    }
+    return callee;
+  }
+
+  private static boolean canInline(CallBasicNode call, TemplateBasicNode callee, int maxSize) {
+    RenderUnitNode callSite = call.getNearestAncestor(RenderUnitNode.class);
+    if (callee.isModifiable()
+        || callee.getModifiesExpr() != null
+        || callSite == null
+        || callSite.getContentKind() != callee.getContentKind()
+        // Only plain params, since @inject and @state are initialized differently.
+        || callee.getHeaderParams().size() != callee.getParams().size()) {
+      return false;
+    }
+    // Element templates have hidden params, make sure the caller only passes declared ones.
+    ImmutableList<String> paramNames =
+        callee.getParams().stream().map(TemplateParam::name).collect(toImmutableList());
+    if (!call.getStaticType().getActualParameters().stream()
+        .map(TemplateType.Parameter::getName)
+        .allMatch(paramNames::contains)) {
+      return false;
+    }
+    return SoyTreeUtils.allNodes(callee).limit(maxSize + 1L).count() <= maxSize
+        && SoyTreeUtils.allNodesOfType(callee, CallNode.class).findAny().isEmpty();
+  }
+
+  /** Returns a copy of the callee's body to compile in place of {@code call}. */
+  static InlinedTemplate inline(CallBasicNode call, TemplateBasicNode callee) {
+    // Copy the whole template so that the body references fresh copies of the params. Lazy
+    // closures capture params by identity, so two inlined copies of a template in the same closure
+    // must not share them.
+    TemplateNode copy = callee.copy(new CopyState());
+    LetContentNode body =
+        LetContentNode.forVariable(
+            /* id= */ -1,
+            call.getSourceLocation(),
+            "$inlined",
+            call.getSourceLocation(),
+            callee.getContentKind());
+    body.addChildren(ImmutableList.copyOf(copy.getChildren()));
+    body.setParent(call.getParent());
+    return new AutoValue_CallInliner_InlinedTemplate(
+        body,
+        copy.getParams().stream()
+            .collect(toImmutableMap(TemplateParam::name, Function.identity())));
+  }
+
+  private CallInliner() {}
+}
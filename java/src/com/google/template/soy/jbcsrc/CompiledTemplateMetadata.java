@@ -16,7 +16,10 @@
 
 package com.google.template.soy.jbcsrc;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
 import com.google.template.soy.exprtree.TemplateLiteralNode;
 import com.google.template.soy.jbcsrc.restricted.BytecodeUtils;
 import com.google.template.soy.jbcsrc.restricted.MethodRef;
@@ -210,6 +213,28 @@ abstract class CompiledTemplateMetadata {
 
   abstract TemplateType templateType();
 
+  /**
+   * The declared params, in the order of their slots in the {@link ParamStore} passed to {@link
+   * #renderMethod()}, if the template looks them up by slot.
+   *
+   * <p>Templates with a positional signature receive their params directly, and deltemplates and
+   * modifiable templates may be dispatched to implementations with different params.
+   */
+  Optional<ImmutableList<String>> paramLayout() {
+    TemplateType templateType = templateType();
+    if (hasPositionalSignature()
+        || templateType.getActualParameters().isEmpty()
+        || templateType.getTemplateKind() == TemplateType.TemplateKind.DELTEMPLATE
+        || templateType.isModifiable()
+        || templateType.isModifying()) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        templateType.getActualParameters().stream()
+            .map(TemplateType.Parameter::getName)
+            .collect(toImmutableList()));
+  }
+
   /** The name of the compiled template class. */
   abstract TypeInfo typeInfo();
 
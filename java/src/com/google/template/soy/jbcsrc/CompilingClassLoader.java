@@ -27,6 +27,7 @@ import com.google.template.soy.internal.exemptions.NamespaceExemptions;
 import com.google.template.soy.jbcsrc.internal.AbstractMemoryClassLoader;
 import com.google.template.soy.jbcsrc.internal.ClassData;
 import com.google.template.soy.jbcsrc.shared.Names;
+import com.google.template.soy.msgs.SoyMsgBundle;
 import com.google.template.soy.soytree.PartialFileSetMetadata;
 import com.google.template.soy.soytree.SoyFileNode;
 import com.google.template.soy.soytree.SoyFileSetNode;
@@ -36,6 +37,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /** A classloader that can compile templates on demand. */
 final class CompilingClassLoader extends AbstractMemoryClassLoader {
@@ -47,12 +49,22 @@ final class CompilingClassLoader extends AbstractMemoryClassLoader {
   private final ImmutableMap<String, SoyFileNode> javaClassNameToFile;
   private final SoyTypeRegistry typeRegistry;
   private final PartialFileSetMetadata fileSetMetadata;
+  @Nullable private final SoyMsgBundle msgBundle;
 
   CompilingClassLoader(
       SoyFileSetNode fileSet,
       ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
       SoyTypeRegistry typeRegistry,
       PartialFileSetMetadata fileSetMetadata) {
+    this(fileSet, filePathsToSuppliers, typeRegistry, fileSetMetadata, /* msgBundle= */ null);
+  }
+
+  CompilingClassLoader(
+      SoyFileSetNode fileSet,
+      ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry,
+      PartialFileSetMetadata fileSetMetadata,
+      @Nullable SoyMsgBundle msgBundle) {
     Map<String, SoyFileNode> javaClassNameToFile = new LinkedHashMap<>();
     for (SoyFileNode file : fileSet.getChildren()) {
       if (NamespaceExemptions.isKnownDuplicateNamespace(file.getNamespace())) {
@@ -70,6 +82,7 @@ final class CompilingClassLoader extends AbstractMemoryClassLoader {
     this.typeRegistry = typeRegistry;
     this.filePathsToSuppliers = filePathsToSuppliers;
     this.fileSetMetadata = fileSetMetadata;
+    this.msgBundle = msgBundle;
   }
 
   @Override
@@ -97,7 +110,10 @@ final class CompilingClassLoader extends AbstractMemoryClassLoader {
     ErrorReporter reporter = ErrorReporter.create(filePathsToSuppliers);
     for (ClassData clazz :
         new SoyFileCompiler(
-                node, new JavaSourceFunctionCompiler(typeRegistry, reporter), fileSetMetadata)
+                node,
+                new JavaSourceFunctionCompiler(typeRegistry, reporter),
+                fileSetMetadata,
+                msgBundle)
             .compile()) {
       String className = clazz.type().className();
       if (className.equals(name)) {
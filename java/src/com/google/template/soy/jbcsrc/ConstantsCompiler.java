@@ -64,6 +64,11 @@ public final class ConstantsCompiler {
           // Data access is not allowed in const context.
           throw new UnsupportedOperationException();
         }
+
+        @Override
+        public boolean isOutputMemoizable() {
+          return false;
+        }
       };
 
   private final ConstNode constant;
@@ -305,6 +305,21 @@ final class ExpressionCompiler {
     return new CanCompileToConstantVisitor(context).exec(expr);
   }
 
+  /**
+   * Returns {@code true} if the plugin doesn't access the render context or require an instance
+   * function, so its result only depends on its arguments.
+   */
+  static boolean isContextFreePlugin(SoyJavaSourceFunction function) {
+    try {
+      PluginAnalyzer.PluginMetadata metadata = PluginAnalyzer.analyze(function);
+      return metadata.pluginInstanceNames().isEmpty() && !metadata.accessesContext();
+    } catch (Throwable ignored) {
+      // sort of lame but this just means that we will report the error when we try to generate
+      // actual code.
+      return false;
+    }
+  }
+
   private final SoyNode context;
   private final TemplateAnalysis analysis;
   private final TemplateParameterLookup parameters;
@@ -2070,17 +2085,9 @@ final class ExpressionCompiler {
       // TODO(lukes): if the plugin is annotated as @SoyPureFunction, but it accesses the context,
       // then it isn't pure.  add logic in the validator?
       if (function instanceof SoyJavaSourceFunction) {
-        try {
-          PluginAnalyzer.PluginMetadata metadata =
-              PluginAnalyzer.analyze((SoyJavaSourceFunction) function);
-          // the plugin can be generated as a constant expression if it doesn't access the context
-          // or require an instance function.
-          return metadata.pluginInstanceNames().isEmpty() && !metadata.accessesContext();
-        } catch (Throwable ignored) {
-          // sort of lame but this just means that we will report the error when we try to generate
-          // actual code.
-          return false;
-        }
+        // the plugin can be generated as a constant expression if it doesn't access the context
+        // or require an instance function.
+        return isContextFreePlugin((SoyJavaSourceFunction) function);
       }
       // legacy functions are not OK.
       return false;
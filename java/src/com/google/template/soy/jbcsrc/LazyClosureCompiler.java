@@ -17,12 +17,9 @@
 package com.google.template.soy.jbcsrc;
 
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.NULLARY_INIT;
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.SOY_VALUE_PROVIDER_TYPE;
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.constant;
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.constantSanitizedContentKindAsContentKind;
-import static com.google.template.soy.jbcsrc.restricted.LocalVariable.createLocal;
-import static com.google.template.soy.jbcsrc.restricted.LocalVariable.createThisVar;
 import static com.google.template.soy.jbcsrc.restricted.MethodRefs.RENDER_RESULT_DONE;
 import static com.google.template.soy.jbcsrc.restricted.Statement.returnExpression;
 import static com.google.template.soy.soytree.SoyTreeUtils.isDescendantOf;
@@ -34,23 +31,25 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.template.soy.base.internal.SanitizedContentKind;
 import com.google.template.soy.data.LoggingAdvisingAppendable;
+import com.google.template.soy.data.SoyValue;
+import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.exprtree.AbstractLocalVarDefn;
 import com.google.template.soy.exprtree.ExprNode;
 import com.google.template.soy.exprtree.ExprRootNode;
 import com.google.template.soy.exprtree.VarDefn;
 import com.google.template.soy.jbcsrc.ExpressionCompiler.BasicExpressionCompiler;
 import com.google.template.soy.jbcsrc.ExpressionDetacher.BasicDetacher;
-import com.google.template.soy.jbcsrc.internal.SoyClassWriter;
 import com.google.template.soy.jbcsrc.restricted.BytecodeUtils;
 import com.google.template.soy.jbcsrc.restricted.CodeBuilder;
 import com.google.template.soy.jbcsrc.restricted.Expression;
-import com.google.template.soy.jbcsrc.restricted.FieldRef;
+import com.google.template.soy.jbcsrc.restricted.Expression.Feature;
+import com.google.template.soy.jbcsrc.restricted.Expression.Features;
+import com.google.template.soy.jbcsrc.restricted.LambdaFactory;
 import com.google.template.soy.jbcsrc.restricted.LocalVariable;
 import com.google.template.soy.jbcsrc.restricted.MethodRef;
 import com.google.template.soy.jbcsrc.restricted.MethodRefs;
 import com.google.template.soy.jbcsrc.restricted.SoyExpression;
 import com.google.template.soy.jbcsrc.restricted.Statement;
-import com.google.template.soy.jbcsrc.restricted.TypeInfo;
 import com.google.template.soy.jbcsrc.runtime.DetachableContentProvider;
 import com.google.template.soy.jbcsrc.runtime.DetachableSoyValueProvider;
 import com.google.template.soy.jbcsrc.runtime.DetachableSoyValueProviderProvider;
@@ -71,9 +70,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import org.objectweb.asm.Label;
-import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
-import org.objectweb.asm.commons.Method;
 
 /**
  * A compiler for lazy closures.
@@ -87,20 +84,20 @@ import org.objectweb.asm.commons.Method;
  *
  * <ul>
  *   <li>Lazy expression evaluation. Triggered by {@link LetValueNode} or {@link
- *       CallParamValueNode}. For each of these we will generate a subtype of {@link
- *       DetachableSoyValueProvider}.
+ *       CallParamValueNode}. For each of these we will generate a {@link
+ *       DetachableSoyValueProvider.Resolver}.
  *   <li>Lazy content evaluation. Triggered by {@link LetContentNode} or {@link
- *       CallParamContentNode}. For each of these we will generate a subtype of {@link
- *       DetachableContentProvider} and appropriately wrap it around a {@link SanitizedContent} or
- *       {@link StringData} value.
+ *       CallParamContentNode}. For each of these we will generate a {@link
+ *       DetachableContentProvider.Renderer} and appropriately wrap it around a {@link
+ *       SanitizedContent} or {@link StringData} value.
  * </ul>
  *
  * <p>Each of these lazy statements execute in the context of their parents and have access to all
  * the local variables and parameters of their parent templates at the point of their definition. To
- * implement this, the child will be passed references to all needed data explicitly at the point of
- * definition. To do this we will identify all the data that will be referenced by the closure and
- * pass it as explicit constructor parameters and will store them in fields. So that, for a template
- * like:
+ * implement this, we compile the body of the closure to a static method of the template class and
+ * identify all the data that will be referenced by the closure. These are passed as leading
+ * parameters to the method, and bound at the point of definition with a lambda. So that, for a
+ * template like:
  *
  * <pre>{@code
  * {template foo}
@@ -114,22 +111,17 @@ import org.objectweb.asm.commons.Method;
  *
  * <pre>{@code
  * ...
- * LetValue$$b b = new LetValue$$b(params.getFieldProvider("a"));
+ * SoyValueProvider b = DetachableSoyValueProvider.create(provider -> foo$$let_b(a, provider));
  * b.render(out);
  * ...
  *
- * final class LetValue$$b extends DetachableSoyValueProvider {
- *   final SoyValueProvider a;
- *   LetValue$$b(SoyValueProvider a) {
- *     this.a = a;
- *   }
- *
- *   {@literal @}Override protected RenderResult doResolve() {
- *      this.resolvedValue = eval(expr, node);
- *      return RenderResult.done();
- *   }
+ * private static RenderResult foo$$let_b(SoyValueProvider a, DetachableSoyValueProvider provider) {
+ *   return provider.resolveTo(eval(expr, node));
  * }
  * }</pre>
+ *
+ * <p>The lambdas are spun at runtime by the {@link java.lang.invoke.LambdaMetafactory}, so unlike
+ * generated subclasses they don't add to the size of the compiled templates.
  */
 final class LazyClosureCompiler {
   @AutoValue
@@ -154,39 +146,40 @@ final class LazyClosureCompiler {
     abstract boolean requiresDetachLogicToResolve();
   }
 
-  // All our lazy closures are package private.  They should only be referenced by their parent
-  // classes (or each other)
-  private static final int LAZY_CLOSURE_ACCESS = Opcodes.ACC_FINAL;
-  private static final Method DO_RESOLVE;
-  private static final Method DO_RESOLVE_DELEGATE;
-  private static final Method DO_RENDER;
-  private static final FieldRef RESOLVED_VALUE =
-      FieldRef.instanceFieldReference(DetachableSoyValueProvider.class, "resolvedValue");
-  private static final FieldRef RESOLVED_VALUE_PROVIDER =
-      FieldRef.instanceFieldReference(
-          DetachableSoyValueProviderProvider.class, "resolvedValueProvider");
-  private static final TypeInfo DETACHABLE_CONTENT_PROVIDER_TYPE =
-      TypeInfo.create(DetachableContentProvider.class);
-  private static final TypeInfo DETACHABLE_VALUE_PROVIDER_TYPE =
-      TypeInfo.create(DetachableSoyValueProvider.class);
-  private static final TypeInfo DETACHABLE_VALUE_PROVIDER_PROVIDER_TYPE =
-      TypeInfo.create(DetachableSoyValueProviderProvider.class);
-
-  static {
-    try {
-      DO_RESOLVE =
-          Method.getMethod(DetachableSoyValueProvider.class.getDeclaredMethod("doResolve"));
-      DO_RESOLVE_DELEGATE =
-          Method.getMethod(
-              DetachableSoyValueProviderProvider.class.getDeclaredMethod("doResolveDelegate"));
-      DO_RENDER =
-          Method.getMethod(
-              DetachableContentProvider.class.getDeclaredMethod(
-                  "doRender", LoggingAdvisingAppendable.class));
-    } catch (NoSuchMethodException | SecurityException e) {
-      throw new AssertionError(e);
-    }
-  }
+  private static final Type DETACHABLE_VALUE_PROVIDER_TYPE =
+      Type.getType(DetachableSoyValueProvider.class);
+  private static final Type DETACHABLE_VALUE_PROVIDER_PROVIDER_TYPE =
+      Type.getType(DetachableSoyValueProviderProvider.class);
+  private static final MethodRef CONTENT_PROVIDER_CREATE =
+      MethodRef.createPure(
+              DetachableContentProvider.class, "create", DetachableContentProvider.Renderer.class)
+          .asNonJavaNullable();
+  private static final MethodRef CONTENT_PROVIDER_RENDER =
+      MethodRef.createNonPure(
+          DetachableContentProvider.Renderer.class, "render", LoggingAdvisingAppendable.class);
+  private static final MethodRef VALUE_PROVIDER_CREATE =
+      MethodRef.createPure(
+              DetachableSoyValueProvider.class, "create", DetachableSoyValueProvider.Resolver.class)
+          .asNonJavaNullable();
+  private static final MethodRef VALUE_PROVIDER_RESOLVE =
+      MethodRef.createNonPure(
+          DetachableSoyValueProvider.Resolver.class, "resolve", DetachableSoyValueProvider.class);
+  private static final MethodRef VALUE_PROVIDER_RESOLVE_TO =
+      MethodRef.createNonPure(DetachableSoyValueProvider.class, "resolveTo", SoyValue.class);
+  private static final MethodRef VALUE_PROVIDER_PROVIDER_CREATE =
+      MethodRef.createPure(
+              DetachableSoyValueProviderProvider.class,
+              "create",
+              DetachableSoyValueProviderProvider.Resolver.class)
+          .asNonJavaNullable();
+  private static final MethodRef VALUE_PROVIDER_PROVIDER_RESOLVE =
+      MethodRef.createNonPure(
+          DetachableSoyValueProviderProvider.Resolver.class,
+          "resolve",
+          DetachableSoyValueProviderProvider.class);
+  private static final MethodRef VALUE_PROVIDER_PROVIDER_RESOLVE_TO =
+      MethodRef.createNonPure(
+          DetachableSoyValueProviderProvider.class, "resolveTo", SoyValueProvider.class);
 
   private final SoyNodeCompiler parent;
 
@@ -247,29 +240,17 @@ final class LazyClosureCompiler {
               parent.analysis, exprNode));
     }
 
-    TypeInfo type =
-        parent.innerClasses.registerInnerClassWithGeneratedName(
-            getProposedName(namePrefix, varName), LAZY_CLOSURE_ACCESS);
-    SoyClassWriter writer =
-        SoyClassWriter.builder(type)
-            .setAccess(LAZY_CLOSURE_ACCESS)
-            .extending(DETACHABLE_VALUE_PROVIDER_PROVIDER_TYPE)
-            .sourceFileName(declaringNode.getSourceLocation().getFileName())
-            .build();
-
+    String proposedName = getProposedName(namePrefix, varName);
     Optional<Expression> asSoyValueProviderProvider =
         new CompilationUnit(
                 parent.analysis,
-                writer,
-                type,
+                declaringNode,
+                proposedName,
                 DETACHABLE_VALUE_PROVIDER_PROVIDER_TYPE,
-                declaringNode)
+                StandardNames.PROVIDER)
             .compileExpressionToSoyValueProviderIfUseful(exprNode);
 
     if (asSoyValueProviderProvider.isPresent()) {
-      parent.innerClasses.registerAsInnerClass(writer, type);
-      writer.visitEnd();
-      parent.innerClasses.add(writer.toClassData());
       return LazyClosure.create(
           varName,
           asSoyValueProviderProvider.get(),
@@ -278,20 +259,14 @@ final class LazyClosureCompiler {
           /* requiresDetachLogicToResolve= */ true);
     }
 
-    writer =
-        SoyClassWriter.builder(type)
-            .setAccess(LAZY_CLOSURE_ACCESS)
-            .extending(DETACHABLE_VALUE_PROVIDER_TYPE)
-            .sourceFileName(declaringNode.getSourceLocation().getFileName())
-            .build();
     Expression expr =
         new CompilationUnit(
-                parent.analysis, writer, type, DETACHABLE_VALUE_PROVIDER_TYPE, declaringNode)
+                parent.analysis,
+                declaringNode,
+                proposedName,
+                DETACHABLE_VALUE_PROVIDER_TYPE,
+                StandardNames.PROVIDER)
             .compileExpression(exprNode);
-
-    parent.innerClasses.registerAsInnerClass(writer, type);
-    writer.visitEnd();
-    parent.innerClasses.add(writer.toClassData());
     return LazyClosure.create(
         varName,
         expr,
@@ -336,22 +311,14 @@ final class LazyClosureCompiler {
           /* isTrivial= */ false,
           /* requiresDetachLogicToResolve= */ false);
     }
-    TypeInfo type =
-        parent.innerClasses.registerInnerClassWithGeneratedName(proposedName, LAZY_CLOSURE_ACCESS);
-    SoyClassWriter writer =
-        SoyClassWriter.builder(type)
-            .setAccess(LAZY_CLOSURE_ACCESS)
-            .extending(DETACHABLE_CONTENT_PROVIDER_TYPE)
-            .sourceFileName(renderUnit.getSourceLocation().getFileName())
-            .build();
     Expression expr =
         new CompilationUnit(
-                parent.analysis, writer, type, DETACHABLE_CONTENT_PROVIDER_TYPE, renderUnit)
+                parent.analysis,
+                renderUnit,
+                proposedName,
+                BytecodeUtils.LOGGING_ADVISING_APPENDABLE_TYPE,
+                StandardNames.APPENDABLE)
             .compileRenderable(renderUnit, prefix, suffix);
-
-    parent.innerClasses.registerAsInnerClass(writer, type);
-    writer.visitEnd();
-    parent.innerClasses.add(writer.toClassData());
     return LazyClosure.create(
         varName,
         expr,
@@ -420,44 +387,49 @@ final class LazyClosureCompiler {
     return prefix + "_" + varName;
   }
 
-  /** A simple object to aid in generating code for a single node. */
+  /** A simple object to aid in generating the method for a single closure. */
   private final class CompilationUnit {
     final TemplateAnalysis analysis;
-    final FieldManager fields;
-    final TypeInfo type;
-    final TypeInfo baseClass;
     final SoyNode node;
-    final SoyClassWriter writer;
+    final String proposedName;
+    final Label start = new Label();
+    final Label end = new Label();
+    final TemplateVariableManager variableSet;
+    final LazyClosureParameterLookup lookup;
+    /**
+     * The trailing parameter of the method, which is passed by the runtime rather than captured
+     * from the parent.
+     */
+    final ClosureParameter freeParameter;
+
+    final String freeParameterName;
 
     CompilationUnit(
         TemplateAnalysis analysis,
-        SoyClassWriter writer,
-        TypeInfo type,
-        TypeInfo baseClass,
-        SoyNode node) {
+        SoyNode node,
+        String proposedName,
+        Type freeParameterType,
+        String freeParameterName) {
       this.analysis = analysis;
-      this.writer = writer;
-      this.fields = new FieldManager(type);
-      this.type = type;
-      this.baseClass = baseClass;
       this.node = node;
-    }
-
-    Expression compileExpression(ExprNode exprNode) {
-      Label start = new Label();
-      Label end = new Label();
-      TemplateVariableManager variableSet =
+      this.proposedName = proposedName;
+      // The parameters are added by generateMethod, once we know what the body captures.
+      this.variableSet =
           new TemplateVariableManager(
-              type.type(),
-              DO_RESOLVE.getArgumentTypes(),
+              parent.syntheticMethods.owner().type(),
+              new Type[0],
               /* parameterNames= */ ImmutableList.of(),
               start,
               end,
-              /* isStatic= */ false);
-      Expression thisVar = variableSet.getVariable("this");
-      LazyClosureParameterLookup lookup =
-          new LazyClosureParameterLookup(this, parent.parameterLookup, variableSet, thisVar);
-      SoyExpression compile =
+              /* isStatic= */ true);
+      this.lookup = new LazyClosureParameterLookup(this, parent.parameterLookup, variableSet);
+      this.freeParameter =
+          new ClosureParameter(freeParameterType, Features.of(Feature.NON_JAVA_NULLABLE));
+      this.freeParameterName = freeParameterName;
+    }
+
+    Expression compileExpression(ExprNode exprNode) {
+      SoyExpression expression =
           ExpressionCompiler.createBasicCompiler(
                   node,
                   analysis,
@@ -465,45 +437,14 @@ final class LazyClosureCompiler {
                   variableSet,
                   parent.javaSourceFunctionCompiler,
                   parent.fileSetMetadata)
-              .compile(exprNode);
-      SoyExpression expression = compile.box();
-      Statement storeExpr = RESOLVED_VALUE.putInstanceField(thisVar, expression);
-      Statement returnDone = Statement.returnExpression(RENDER_RESULT_DONE.invoke());
-      Statement doResolveImpl =
-          new Statement() {
-            @Override
-            protected void doGen(CodeBuilder adapter) {
-              adapter.mark(start);
-              storeExpr.gen(adapter);
-              returnDone.gen(adapter);
-              adapter.mark(end);
-
-              variableSet.generateTableEntries(adapter);
-            }
-          };
-      Expression constructExpr = generateConstructor(lookup.getCapturedFields());
-
-      doResolveImpl.writeMethod(Opcodes.ACC_PROTECTED, DO_RESOLVE, writer);
-      fields.defineFields(writer);
-      fields.defineStaticInitializer(writer);
-      return constructExpr;
+              .compile(exprNode)
+              .box();
+      Statement body =
+          returnExpression(VALUE_PROVIDER_RESOLVE_TO.invoke(freeParameter, expression));
+      return VALUE_PROVIDER_CREATE.invoke(generateMethod(body, VALUE_PROVIDER_RESOLVE));
     }
 
     Optional<Expression> compileExpressionToSoyValueProviderIfUseful(ExprNode exprNode) {
-      Label start = new Label();
-      Label end = new Label();
-      TemplateVariableManager variableSet =
-          new TemplateVariableManager(
-              type.type(),
-              DO_RESOLVE_DELEGATE.getArgumentTypes(),
-              ImmutableList.of(),
-              start,
-              end,
-              /* isStatic= */ false);
-      Expression thisVar = variableSet.getVariable("this");
-
-      LazyClosureParameterLookup lookup =
-          new LazyClosureParameterLookup(this, parent.parameterLookup, variableSet, thisVar);
       ExpressionCompiler expressionCompiler =
           ExpressionCompiler.create(
               node,
@@ -521,158 +462,136 @@ final class LazyClosureCompiler {
         return Optional.empty();
       }
 
-      Statement storeExpr = RESOLVED_VALUE_PROVIDER.putInstanceField(thisVar, expr.get());
-      Statement returnDone = Statement.returnExpression(RENDER_RESULT_DONE.invoke());
-      Statement doResolveImpl =
-          new Statement() {
-            @Override
-            protected void doGen(CodeBuilder adapter) {
-              adapter.mark(start);
-              storeExpr.gen(adapter);
-              returnDone.gen(adapter);
-              adapter.mark(end);
-
-              variableSet.generateTableEntries(adapter);
-            }
-          };
-      Expression constructExpr = generateConstructor(lookup.getCapturedFields());
-
-      doResolveImpl.writeMethod(Opcodes.ACC_PROTECTED, DO_RESOLVE_DELEGATE, writer);
-      fields.defineFields(writer);
-      fields.defineStaticInitializer(writer);
-      return Optional.of(constructExpr);
+      Statement body =
+          returnExpression(VALUE_PROVIDER_PROVIDER_RESOLVE_TO.invoke(freeParameter, expr.get()));
+      return Optional.of(
+          VALUE_PROVIDER_PROVIDER_CREATE.invoke(
+              generateMethod(body, VALUE_PROVIDER_PROVIDER_RESOLVE)));
     }
 
     Expression compileRenderable(
         RenderUnitNode renderUnit, ExtraCodeCompiler prefix, ExtraCodeCompiler suffix) {
-
-      Label start = new Label();
-      Label end = new Label();
       BasicExpressionCompiler constantCompiler =
           ExpressionCompiler.createConstantCompiler(
               node,
               analysis,
-              new SimpleLocalVariableManager(type.type(), /* isStatic= */ true),
+              new SimpleLocalVariableManager(
+                  parent.syntheticMethods.owner().type(), /* isStatic= */ true),
               parent.javaSourceFunctionCompiler,
               parent.fileSetMetadata);
-      TemplateVariableManager variableSet =
-          new TemplateVariableManager(
-              type.type(),
-              DO_RENDER.getArgumentTypes(),
-              ImmutableList.of(StandardNames.APPENDABLE),
-              start,
-              end,
-              /* isStatic= */ false);
-
-      LazyClosureParameterLookup lookup =
-          new LazyClosureParameterLookup(
-              this, parent.parameterLookup, variableSet, variableSet.getVariable("this"));
       SoyNodeCompiler soyNodeCompiler =
           SoyNodeCompiler.create(
               node,
               analysis,
-              parent.innerClasses,
-              AppendableExpression.forExpression(
-                  variableSet.getVariable(StandardNames.APPENDABLE).asNonJavaNullable()),
+              parent.syntheticMethods,
+              AppendableExpression.forExpression(freeParameter),
               variableSet,
               lookup,
-              fields,
+              parent.fields,
               constantCompiler,
               parent.javaSourceFunctionCompiler,
-              parent.fileSetMetadata);
+              parent.fileSetMetadata,
+              parent.msgBundle);
       Statement nodeBody = soyNodeCompiler.compile(renderUnit, prefix, suffix);
-      Statement returnDone = returnExpression(MethodRefs.RENDER_RESULT_DONE.invoke());
-      Statement fullMethodBody =
+      Statement body = Statement.concat(nodeBody, returnExpression(RENDER_RESULT_DONE.invoke()));
+      return CONTENT_PROVIDER_CREATE.invoke(generateMethod(body, CONTENT_PROVIDER_RENDER));
+    }
+
+    /**
+     * Writes the method for the closure, which takes all the captured values followed by the free
+     * parameter, and returns an expression that binds the captured values to a lambda.
+     */
+    Expression generateMethod(Statement body, MethodRef interfaceMethod) {
+      ImmutableList<ParentCapture> captures = ImmutableList.copyOf(lookup.getCapturedFields());
+      List<Type> parameterTypes = new ArrayList<>();
+      List<String> parameterNames = new ArrayList<>();
+      List<Expression> parentExpressions = new ArrayList<>();
+      for (ParentCapture capture : captures) {
+        parameterTypes.add(capture.parameter().resultType());
+        parameterNames.add(capture.name());
+        parentExpressions.add(capture.parentExpression());
+      }
+      parameterTypes.add(freeParameter.resultType());
+      parameterNames.add(freeParameterName);
+      ImmutableList<LocalVariable> parameters =
+          variableSet.updateParameterTypes(parameterTypes.toArray(new Type[0]), parameterNames);
+      for (int i = 0; i < captures.size(); i++) {
+        captures.get(i).parameter().bind(parameters.get(i));
+      }
+      freeParameter.bind(Iterables.getLast(parameters));
+
+      Statement methodBody =
           new Statement() {
             @Override
             protected void doGen(CodeBuilder adapter) {
               adapter.mark(start);
-              nodeBody.gen(adapter);
+              body.gen(adapter);
               adapter.mark(end);
-              returnDone.gen(adapter);
 
               variableSet.generateTableEntries(adapter);
             }
           };
-      Expression constructExpr = generateConstructor(lookup.getCapturedFields());
+      MethodRef method =
+          parent.syntheticMethods.addStaticMethod(
+              getMethodName(), BytecodeUtils.RENDER_RESULT_TYPE, parameterTypes, methodBody);
+      return LambdaFactory.create(interfaceMethod, method).invoke(parentExpressions);
+    }
 
-      fields.defineFields(writer);
-      fullMethodBody.writeMethod(Opcodes.ACC_PROTECTED, DO_RENDER, writer);
-      fields.defineStaticInitializer(writer);
-      return constructExpr;
+    /** Returns a name for the method that identifies the template and the closure in traces. */
+    String getMethodName() {
+      TemplateNode template = node.getNearestAncestor(TemplateNode.class);
+      return Names.renderMethodNameFromSoyTemplateName(template.getTemplateName())
+          + "$$"
+          + proposedName;
     }
+  }
 
-    /**
-     * Generates a public constructor that assigns our final field and checks for missing required
-     * params and returns an expression invoking that constructor with
-     *
-     * <p>This constructor is called by the generate factory classes.
-     */
-    Expression generateConstructor(Iterable<ParentCapture> captures) {
-      Label start = new Label();
-      Label end = new Label();
-      LocalVariable thisVar = createThisVar(type, start, end);
-      List<LocalVariable> params = new ArrayList<>();
-      List<Type> paramTypes = new ArrayList<>();
-      List<Statement> assignments = new ArrayList<>();
-      List<Expression> argExpressions = new ArrayList<>();
-      int index = 1; // start at 1 since 'this' occupied slot 0
-      for (ParentCapture capture : captures) {
-        FieldRef field = capture.field();
-        LocalVariable var = createLocal(field.name(), index, field.type(), start, end);
-        assignments.add(field.putInstanceField(thisVar, var));
-        argExpressions.add(capture.parentExpression());
-        params.add(var);
-        paramTypes.add(field.type());
-        index += field.type().getSize();
-      }
+  /**
+   * A parameter of a closure method. The body of the closure is compiled before we know which
+   * values it captures, so the parameters are only allocated once the body is complete.
+   */
+  static final class ClosureParameter extends Expression {
+    private LocalVariable variable;
 
-      Statement constructorBody =
-          new Statement() {
-            @Override
-            protected void doGen(CodeBuilder cb) {
-              cb.mark(start);
-              // call super()
-              cb.loadThis();
-              cb.invokeConstructor(baseClass.type(), NULLARY_INIT);
-              // assign params to fields
-              for (Statement assignment : assignments) {
-                assignment.gen(cb);
-              }
-              cb.returnValue();
-              cb.mark(end);
-              thisVar.tableEntry(cb);
-              for (LocalVariable local : params) {
-                local.tableEntry(cb);
-              }
-            }
-          };
+    ClosureParameter(Type type, Features features) {
+      // Reading a parameter is as cheap as reading any other local.
+      super(type, features.plus(Feature.CHEAP));
+    }
 
-      MethodRef constructor =
-          MethodRef.createConstructorMethod(type, MethodRef.MethodPureness.PURE, paramTypes);
-      constructorBody.writeMethod(Opcodes.ACC_PUBLIC, constructor.method(), writer);
-      return constructor.invoke(argExpressions);
+    void bind(LocalVariable variable) {
+      checkState(this.variable == null, "already bound");
+      this.variable = variable;
+    }
+
+    @Override
+    protected void doGen(CodeBuilder adapter) {
+      checkState(variable != null, "parameter was read before the method was generated");
+      variable.gen(adapter);
     }
   }
 
   /**
-   * Represents a field captured from our parent. To capture a value from our parent we grab the
-   * expression that produces that value and then generate a field in the child with the same type.
+   * Represents a value captured from our parent. To capture a value from our parent we grab the
+   * expression that produces that value and then generate a parameter of the closure method with
+   * the same type.
    *
-   * <p>{@link CompilationUnit#generateConstructor} generates the code to propagate the captured
-   * values from the parent to the child, and from the constructor to the generated fields.
+   * <p>{@link CompilationUnit#generateMethod} generates the code to propagate the captured values
+   * from the parent to the lambda, and from the lambda to the method parameters.
    */
   @AutoValue
   abstract static class ParentCapture {
-    static ParentCapture create(FieldRef captureField, Expression parentExpression) {
-      if (parentExpression.isNonJavaNullable()) {
-        captureField = captureField.asNonJavaNullable();
-      }
-      return new AutoValue_LazyClosureCompiler_ParentCapture(captureField, parentExpression);
+    static ParentCapture create(String name, Expression parentExpression) {
+      return new AutoValue_LazyClosureCompiler_ParentCapture(
+          name,
+          new ClosureParameter(parentExpression.resultType(), parentExpression.features()),
+          parentExpression);
     }
 
-    /** The field in the closure that stores the captured value. */
-    abstract FieldRef field();
+    /** A proposed name for the parameter. */
+    abstract String name();
+
+    /** The parameter of the closure method that receives the captured value. */
+    abstract ClosureParameter parameter();
 
     /** An expression that produces the value for this capture from the parent. */
     abstract Expression parentExpression();
@@ -697,7 +616,6 @@ final class LazyClosureCompiler {
     private final CompilationUnit params;
     private final TemplateParameterLookup parentParameterLookup;
     private final TemplateVariableManager variableSet;
-    private final Expression thisVar;
 
     // These fields track all the parent captures that we need to generate.
     // NOTE: TemplateParam and LocalVar have identity semantics.  But the AST is guaranteed to not
@@ -711,47 +629,37 @@ final class LazyClosureCompiler {
     LazyClosureParameterLookup(
         CompilationUnit params,
         TemplateParameterLookup parentParameterLookup,
-        TemplateVariableManager variableSet,
-        Expression thisVar) {
+        TemplateVariableManager variableSet) {
       this.params = params;
       this.parentParameterLookup = parentParameterLookup;
       this.variableSet = variableSet;
-      this.thisVar = thisVar;
     }
 
     @Override
     public Expression getParam(TemplateParam param) {
       ParentCapture capturedField = localFields.get(param);
       if (capturedField == null) {
-        Expression expression = parentParameterLookup.getParam(param);
-        FieldRef field =
-            params.fields.addGeneratedFinalField(param.name(), expression.resultType());
-        capturedField = ParentCapture.create(field, expression);
+        capturedField = ParentCapture.create(param.name(), parentParameterLookup.getParam(param));
         localFields.put(param, capturedField);
       }
-      return capturedField.field().accessor(thisVar);
+      return capturedField.parameter();
     }
 
     @Override
     public Expression getIjRecord() {
       if (ijCapture == null) {
-        ijCapture =
-            ParentCapture.create(
-                params.fields.addFinalField(StandardNames.IJ, BytecodeUtils.PARAM_STORE_TYPE),
-                parentParameterLookup.getIjRecord());
+        ijCapture = ParentCapture.create(StandardNames.IJ, parentParameterLookup.getIjRecord());
       }
-      return ijCapture.field().accessor(thisVar);
+      return ijCapture.parameter();
     }
 
     @Override
     public Expression getParamsRecord() {
       if (paramsCapture == null) {
         paramsCapture =
-            ParentCapture.create(
-                params.fields.addFinalField(StandardNames.PARAMS, BytecodeUtils.PARAM_STORE_TYPE),
-                parentParameterLookup.getParamsRecord());
+            ParentCapture.create(StandardNames.PARAMS, parentParameterLookup.getParamsRecord());
       }
-      return paramsCapture.field().accessor(thisVar);
+      return paramsCapture.parameter();
     }
 
     @Override
@@ -763,13 +671,10 @@ final class LazyClosureCompiler {
 
       ParentCapture capturedField = localFields.get(local);
       if (capturedField == null) {
-        Expression expression = parentParameterLookup.getLocal(local);
-        FieldRef field =
-            params.fields.addGeneratedFinalField(local.name(), expression.resultType());
-        capturedField = ParentCapture.create(field, expression);
+        capturedField = ParentCapture.create(local.name(), parentParameterLookup.getLocal(local));
         localFields.put(local, capturedField);
       }
-      return capturedField.field().accessor(thisVar);
+      return capturedField.parameter();
     }
 
     @Override
@@ -781,13 +686,11 @@ final class LazyClosureCompiler {
 
       ParentCapture capturedField = syntheticFields.get(varName);
       if (capturedField == null) {
-        Expression expression = parentParameterLookup.getLocal(varName);
-        FieldRef field =
-            params.fields.addGeneratedFinalField(varName.name(), expression.resultType());
-        capturedField = ParentCapture.create(field, expression);
+        capturedField =
+            ParentCapture.create(varName.name(), parentParameterLookup.getLocal(varName));
         syntheticFields.put(varName, capturedField);
       }
-      return capturedField.field().accessor(thisVar);
+      return capturedField.parameter();
     }
 
     Iterable<ParentCapture> getCapturedFields() {
@@ -803,11 +706,9 @@ final class LazyClosureCompiler {
       if (renderContextCapture == null) {
         renderContextCapture =
             ParentCapture.create(
-                params.fields.addFinalField(
-                    StandardNames.RENDER_CONTEXT, BytecodeUtils.RENDER_CONTEXT_TYPE),
-                parentParameterLookup.getRenderContext());
+                StandardNames.RENDER_CONTEXT, parentParameterLookup.getRenderContext());
       }
-      return new RenderContextExpression(renderContextCapture.field().accessor(thisVar));
+      return new RenderContextExpression(renderContextCapture.parameter());
     }
   }
 }
@@ -36,8 +36,13 @@ import com.google.template.soy.jbcsrc.restricted.MethodRef;
 import com.google.template.soy.jbcsrc.restricted.MethodRefs;
 import com.google.template.soy.jbcsrc.restricted.SoyExpression;
 import com.google.template.soy.jbcsrc.restricted.Statement;
+import com.google.template.soy.jbcsrc.runtime.JbcSrcRuntime.MsgRenderer;
 import com.google.template.soy.jbcsrc.shared.MsgDefaultConstantFactory;
+import com.google.template.soy.msgs.SoyMsgBundle;
 import com.google.template.soy.msgs.internal.MsgUtils.MsgPartsAndIds;
+import com.google.template.soy.msgs.restricted.SoyMsgPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPlaceholderPart;
+import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
 import com.google.template.soy.shared.restricted.SoyPrintDirective;
 import com.google.template.soy.soytree.EscapingMode;
 import com.google.template.soy.soytree.MsgHtmlTagNode;
@@ -48,11 +53,18 @@ import com.google.template.soy.soytree.MsgSelectNode;
 import com.google.template.soy.soytree.SoyNode.Kind;
 import com.google.template.soy.soytree.SoyNode.MsgSubstUnitNode;
 import com.google.template.soy.soytree.SoyNode.StandaloneNode;
+import com.google.template.soy.soytree.SoyTreeUtils;
 import com.google.template.soy.soytree.VeLogNode;
 import com.google.template.soy.types.StringType;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import javax.annotation.Nullable;
 import org.objectweb.asm.ConstantDynamic;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
@@ -69,6 +81,9 @@ import org.objectweb.asm.Label;
  *   <li>performing lookup from the RenderContext to get the translation
  *   <li>generating code calculate placeholder values
  * </ul>
+ *
+ * <p>When compiling for a single locale with a {@link SoyMsgBundle}, the translations are instead
+ * compiled into the generated code, and simple messages are rendered without any runtime support.
  */
 final class MsgCompiler {
   private static final Handle MESSAGE_FACTORY_HANDLE =
@@ -112,6 +127,14 @@ final class MsgCompiler {
      */
     Placeholder compile(
         String phname, StandaloneNode node, ExtraCodeCompiler prefix, ExtraCodeCompiler suffix);
+
+    /**
+     * Compiles the given placeholder to a statement that renders it directly into the current
+     * appendable.
+     *
+     * <p>The statement is guaranteed to be written to a location with a stack depth of zero.
+     */
+    Statement compileInline(MsgPlaceholderNode placeholder);
   }
 
   private final DetachState detachState;
@@ -119,18 +142,25 @@ final class MsgCompiler {
   private final TemplateVariableManager variableManager;
   private final AppendableExpression appendableExpression;
   private final PlaceholderCompiler placeholderCompiler;
+  @Nullable private final SoyMsgBundle msgBundle;
 
+  /**
+   * @param msgBundle If non-null, the bundle to compile translations from. Otherwise translations
+   *     are looked up in the {@code RenderContext} when rendering.
+   */
   MsgCompiler(
       DetachState detachState,
       TemplateParameterLookup parameterLookup,
       TemplateVariableManager variableManager,
       AppendableExpression appendableExpression,
-      PlaceholderCompiler placeholderCompiler) {
+      PlaceholderCompiler placeholderCompiler,
+      @Nullable SoyMsgBundle msgBundle) {
     this.detachState = checkNotNull(detachState);
     this.parameterLookup = checkNotNull(parameterLookup);
     this.variableManager = checkNotNull(variableManager);
     this.appendableExpression = checkNotNull(appendableExpression);
     this.placeholderCompiler = checkNotNull(placeholderCompiler);
+    this.msgBundle = msgBundle;
   }
 
   /**
@@ -148,6 +178,10 @@ final class MsgCompiler {
       MsgNode msg,
       ImmutableList<SoyPrintDirective> escapingDirectives,
       boolean isFallback) {
+    if (msgBundle != null) {
+      return compileTranslation(partsAndId, msg, escapingDirectives)
+          .withSourceLocation(msg.getSourceLocation());
+    }
     Expression soyMsgDefaultParts =
         isFallback ? null : compileDefaultMessagePartsConstant(partsAndId);
     Expression soyMsgParts =
@@ -160,7 +194,13 @@ final class MsgCompiler {
     Statement printMsg;
     if (msg.isRawTextMsg()) {
       // Simplest case, just a static string translation
-      printMsg = handleBasicTranslation(msg, escapingDirectives, soyMsgParts);
+      printMsg =
+          handleBasicTranslation(
+              escapingDirectives,
+              (msg.getEscapingMode() == EscapingMode.ESCAPE_HTML
+                      ? MethodRefs.HANDLE_BASIC_TRANSLATION_AND_ESCAPE_HTML
+                      : MethodRefs.HANDLE_BASIC_TRANSLATION)
+                  .invoke(soyMsgParts));
     } else {
       // String translation + placeholders
       printMsg =
@@ -174,6 +214,103 @@ final class MsgCompiler {
     return printMsg.withSourceLocation(msg.getSourceLocation());
   }
 
+  /**
+   * Compiles the translation of the message from {@link #msgBundle}, falling back to the source
+   * message if there is none, so that rendering doesn't need to look up the message.
+   *
+   * <p>Messages without plurals, selects or velog placeholders are compiled to a sequence of
+   * appends, with each placeholder rendered in place. Others are still formatted by a {@code
+   * MsgRenderer}, but with constant parts.
+   */
+  private Statement compileTranslation(
+      MsgPartsAndIds partsAndId, MsgNode msg, ImmutableList<SoyPrintDirective> escapingDirectives) {
+    ImmutableList<SoyMsgPart> parts =
+        getTranslation(msgBundle, partsAndId.id, msg.getAlternateId());
+    if (parts.isEmpty()) {
+      parts = partsAndId.parts;
+    }
+    if (msg.isRawTextMsg() && parts.size() == 1 && parts.get(0) instanceof SoyMsgRawTextPart) {
+      return handleBasicTranslation(
+          escapingDirectives, constant(rawText(msg, (SoyMsgRawTextPart) parts.get(0))));
+    }
+    if (escapingDirectives.isEmpty() && canRenderInPlace(msg, parts)) {
+      List<Statement> statements = new ArrayList<>();
+      for (SoyMsgPart part : parts) {
+        if (part instanceof SoyMsgRawTextPart) {
+          statements.add(
+              appendableExpression
+                  .appendString(constant(rawText(msg, (SoyMsgRawTextPart) part)))
+                  .toStatement());
+        } else {
+          statements.add(
+              placeholderCompiler.compileInline(
+                  msg.getRepPlaceholderNode(
+                      ((SoyMsgPlaceholderPart) part).getPlaceholderName())));
+        }
+      }
+      return Statement.concat(statements);
+    }
+    Expression soyMsgParts = compileMessagePartsConstant(parts);
+    if (msg.isRawTextMsg()) {
+      return handleBasicTranslation(
+          escapingDirectives,
+          (msg.getEscapingMode() == EscapingMode.ESCAPE_HTML
+                  ? MethodRefs.HANDLE_BASIC_TRANSLATION_AND_ESCAPE_HTML
+                  : MethodRefs.HANDLE_BASIC_TRANSLATION)
+              .invoke(soyMsgParts));
+    }
+    return handleTranslationWithPlaceholders(
+        msg,
+        escapingDirectives,
+        soyMsgParts,
+        parameterLookup.getPluginContext().getULocale(),
+        partsAndId);
+  }
+
+  /**
+   * Returns whether the translation can be rendered by appending its parts in order, which is the
+   * case if it only consists of raw text and normal placeholders of the message, with each
+   * placeholder appearing at most once. Velog placeholders are excluded since the {@code
+   * MsgRenderer} checks that the translation keeps their start and end tags in order.
+   */
+  private static boolean canRenderInPlace(MsgNode msg, ImmutableList<SoyMsgPart> parts) {
+    if (msg.isPlrselMsg() || SoyTreeUtils.hasNodesOfType(msg, VeLogNode.class)) {
+      return false;
+    }
+    Set<String> placeholders = new HashSet<>();
+    for (SoyMsgPart part : parts) {
+      if (part instanceof SoyMsgPlaceholderPart) {
+        String name = ((SoyMsgPlaceholderPart) part).getPlaceholderName();
+        if (!(msg.getVarNameToRepNodeMap().get(name) instanceof MsgPlaceholderNode)
+            || !placeholders.add(name)) {
+          return false;
+        }
+      } else if (!(part instanceof SoyMsgRawTextPart)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String rawText(MsgNode msg, SoyMsgRawTextPart part) {
+    return msg.getEscapingMode() == EscapingMode.ESCAPE_HTML
+        ? MsgRenderer.escapeHtml(part.getRawText())
+        : part.getRawText();
+  }
+
+  /**
+   * Returns the translation of the message with the given id or alternate id, or an empty list if
+   * the bundle has neither. This matches the lookups done by the {@code RenderContext}.
+   */
+  static ImmutableList<SoyMsgPart> getTranslation(
+      SoyMsgBundle msgBundle, long msgId, OptionalLong alternateId) {
+    ImmutableList<SoyMsgPart> parts = msgBundle.getMsgParts(msgId);
+    if (parts.isEmpty() && alternateId.isPresent()) {
+      parts = msgBundle.getMsgParts(alternateId.getAsLong());
+    }
+    return parts;
+  }
+
   /**
    * Returns an expression that evaluates to a constant {@code ImmutableList<SoyMsgPart>} used as
    * the default message for when translations don't exist.
@@ -184,8 +321,11 @@ final class MsgCompiler {
    * java serialization, but just invoking the SoyMsgPart constructors isn't too hard.
    */
   private Expression compileDefaultMessagePartsConstant(MsgPartsAndIds partsAndId) {
-    ImmutableList<Object> constantParts =
-        MsgDefaultConstantFactory.msgToPartsList(partsAndId.parts);
+    return compileMessagePartsConstant(partsAndId.parts);
+  }
+
+  private static Expression compileMessagePartsConstant(ImmutableList<SoyMsgPart> parts) {
+    ImmutableList<Object> constantParts = MsgDefaultConstantFactory.msgToPartsList(parts);
     return constant(
         IMMUTABLE_LIST_TYPE,
         new ConstantDynamic(
@@ -196,17 +336,16 @@ final class MsgCompiler {
         Features.of(Feature.CHEAP, Feature.NON_JAVA_NULLABLE));
   }
 
-  /** Handles a translation consisting of a single raw text node. */
+  /**
+   * Handles a translation consisting of a single raw text node.
+   *
+   * @param rawText A string valued expression for the text of the translation
+   */
   private Statement handleBasicTranslation(
-      MsgNode msg, ImmutableList<SoyPrintDirective> escapingDirectives, Expression soyMsgParts) {
+      ImmutableList<SoyPrintDirective> escapingDirectives, Expression rawText) {
     // optimize for simple constant translations (very common)
     // this becomes: renderContext.getSoyMessge(<id>).getParts().get(0).getRawText()
-    SoyExpression text =
-        SoyExpression.forString(
-            (msg.getEscapingMode() == EscapingMode.ESCAPE_HTML
-                    ? MethodRefs.HANDLE_BASIC_TRANSLATION_AND_ESCAPE_HTML
-                    : MethodRefs.HANDLE_BASIC_TRANSLATION)
-                .invoke(soyMsgParts));
+    SoyExpression text = SoyExpression.forString(rawText);
     // Note: there is no point in trying to stream here, since we are starting with a constant
     // string.
     for (SoyPrintDirective directive : escapingDirectives) {
@@ -19,7 +19,9 @@ import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.constant;
 
 import com.google.common.collect.ImmutableList;
 import com.google.template.soy.data.LoggingAdvisingAppendable;
+import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.internal.ParamStore;
+import com.google.template.soy.jbcsrc.api.RenderResult;
 import com.google.template.soy.jbcsrc.restricted.CodeBuilder;
 import com.google.template.soy.jbcsrc.restricted.Expression;
 import com.google.template.soy.jbcsrc.restricted.JbcSrcPluginContext;
@@ -137,6 +139,22 @@ final class RenderContextExpression extends Expression implements JbcSrcPluginCo
       MethodRef.createNonPure(RenderContext.class, "getLogger");
   private static final MethodRef POP_FRAME =
       MethodRef.createNonPure(RenderContext.class, "popFrame");
+  private static final MethodRef HAS_OUTPUT_CACHE =
+      MethodRef.createNonPure(RenderContext.class, "hasOutputCache").asCheap();
+  private static final MethodRef BEGIN_CACHED_RENDER =
+      MethodRef.createNonPure(
+          RenderContext.class,
+          "beginCachedRender",
+          String.class,
+          SoyValueProvider[].class,
+          LoggingAdvisingAppendable.class);
+  private static final MethodRef END_CACHED_RENDER =
+      MethodRef.createNonPure(
+              RenderContext.class,
+              "endCachedRender",
+              LoggingAdvisingAppendable.class,
+              RenderResult.class)
+          .asNonJavaNullable();
   private static final MethodRef GET_RENDER_CSS_HELPER =
       MethodRef.createNonPure(RenderContext.class, "getRenderCssHelper");
 
@@ -312,4 +330,16 @@ final class RenderContextExpression extends Expression implements JbcSrcPluginCo
   public Expression popFrame() {
     return delegate.invoke(POP_FRAME);
   }
+
+  Expression hasOutputCache() {
+    return delegate.invoke(HAS_OUTPUT_CACHE);
+  }
+
+  Expression beginCachedRender(String template, Expression params, Expression appendable) {
+    return delegate.invoke(BEGIN_CACHED_RENDER, constant(template), params, appendable);
+  }
+
+  Expression endCachedRender(Expression output, Expression result) {
+    return delegate.invoke(END_CACHED_RENDER, output, result);
+  }
 }
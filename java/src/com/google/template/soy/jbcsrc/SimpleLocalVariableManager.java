@@ -88,7 +88,15 @@ final class SimpleLocalVariableManager implements LocalVariableManager {
     }
   }
 
-  public void updateParameterTypes(Type[] parameterTypes, List<String> parameterNames) {
+  /**
+   * Adds parameters to a static method that was created without any, and returns the variables for
+   * them.
+   *
+   * <p>This allows compiling a method body before its parameters are known, as long as the
+   * parameters are only read after this is called.
+   */
+  public ImmutableList<LocalVariable> updateParameterTypes(
+      Type[] parameterTypes, List<String> parameterNames) {
     Set<String> allAllocatedVariableNames =
         allVariables.stream().map(v -> v.variableName()).collect(toCollection(HashSet::new));
     // We could support more changes (e.g. appending parameters, support instance methods), but
@@ -111,6 +119,7 @@ final class SimpleLocalVariableManager implements LocalVariableManager {
       var.shiftIndex(spaceForParameters);
     }
     // now allocate the parameters
+    ImmutableList.Builder<LocalVariable> parameters = ImmutableList.builder();
     int parameterIndex = 0;
     for (Type type : parameterTypes) {
       String name = parameterNames.get(parameterIndex);
@@ -118,18 +127,20 @@ final class SimpleLocalVariableManager implements LocalVariableManager {
       while (!allAllocatedVariableNames.add(name)) {
         name = "$" + name;
       }
-      reserveParameter(name, type);
+      parameters.add(reserveParameter(name, type));
       parameterIndex++;
     }
+    return parameters.build();
   }
 
-  private void reserveParameter(String name, Type type) {
+  private LocalVariable reserveParameter(String name, Type type) {
     int slot = reserveSlotFor(type);
     localNames.peek().exact(name);
     LocalVariable var =
         LocalVariable.createLocal(name, slot, type, /* start=*/ methodBegin, /* end=*/ methodEnd);
     allVariables.add(var);
     activeVariables.put(name, var);
+    return var;
   }
 
   @Override
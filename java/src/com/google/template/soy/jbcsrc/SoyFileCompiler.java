@@ -23,16 +23,17 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.template.soy.internal.exemptions.NamespaceExemptions;
 import com.google.template.soy.jbcsrc.internal.ClassData;
-import com.google.template.soy.jbcsrc.internal.InnerClasses;
 import com.google.template.soy.jbcsrc.internal.SoyClassWriter;
 import com.google.template.soy.jbcsrc.restricted.TypeInfo;
 import com.google.template.soy.jbcsrc.shared.Names;
+import com.google.template.soy.msgs.SoyMsgBundle;
 import com.google.template.soy.soytree.ConstNode;
 import com.google.template.soy.soytree.ExternNode;
 import com.google.template.soy.soytree.PartialFileSetMetadata;
 import com.google.template.soy.soytree.SoyFileNode;
 import com.google.template.soy.soytree.TemplateNode;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.objectweb.asm.Opcodes;
 
 /**
@@ -44,14 +45,28 @@ final class SoyFileCompiler {
   private final SoyFileNode fileNode;
   private final JavaSourceFunctionCompiler javaSourceFunctionCompiler;
   private final PartialFileSetMetadata fileSetMetadata;
+  @Nullable private final SoyMsgBundle msgBundle;
 
   SoyFileCompiler(
       SoyFileNode fileNode,
       JavaSourceFunctionCompiler javaSourceFunctionCompiler,
       PartialFileSetMetadata fileSetMetadata) {
+    this(fileNode, javaSourceFunctionCompiler, fileSetMetadata, /* msgBundle= */ null);
+  }
+
+  /**
+   * @param msgBundle If non-null, the translations to compile into the generated code instead of
+   *     looking them up in the {@link com.google.template.soy.jbcsrc.shared.RenderContext}.
+   */
+  SoyFileCompiler(
+      SoyFileNode fileNode,
+      JavaSourceFunctionCompiler javaSourceFunctionCompiler,
+      PartialFileSetMetadata fileSetMetadata,
+      @Nullable SoyMsgBundle msgBundle) {
     this.fileNode = fileNode;
     this.javaSourceFunctionCompiler = javaSourceFunctionCompiler;
     this.fileSetMetadata = fileSetMetadata;
+    this.msgBundle = msgBundle;
   }
 
   ImmutableList<ClassData> compile() {
@@ -80,9 +95,10 @@ final class SoyFileCompiler {
                           templateNode,
                           typeWriter.writer(),
                           typeWriter.fields(),
-                          typeWriter.innerClasses(),
+                          typeWriter.syntheticMethods(),
                           javaSourceFunctionCompiler,
-                          fileSetMetadata)
+                          fileSetMetadata,
+                          msgBundle)
                       .compile();
                   return typeWriter;
                 })
@@ -112,9 +128,10 @@ final class SoyFileCompiler {
                         (TemplateNode) c,
                         typeWriter.writer(),
                         typeWriter.fields(),
-                        typeWriter.innerClasses(),
+                        typeWriter.syntheticMethods(),
                         javaSourceFunctionCompiler,
-                        fileSetMetadata)
+                        fileSetMetadata,
+                        msgBundle)
                     .compile();
               }
             });
@@ -137,29 +154,26 @@ final class SoyFileCompiler {
 
     static TypeWriter create(TypeInfo type, SoyFileNode node) {
       FieldManager fields = new FieldManager(type);
-      InnerClasses innerClasses = new InnerClasses(type);
       SoyClassWriter writer =
           SoyClassWriter.builder(type)
               .setAccess(Opcodes.ACC_PUBLIC + Opcodes.ACC_SUPER + Opcodes.ACC_FINAL)
               .sourceFileName(node.getFileName())
               .build();
-      return new AutoValue_SoyFileCompiler_TypeWriter(writer, fields, innerClasses);
+      return new AutoValue_SoyFileCompiler_TypeWriter(
+          writer, fields, new SyntheticMethods(type, writer));
     }
 
     abstract SoyClassWriter writer();
 
     abstract FieldManager fields();
 
-    abstract InnerClasses innerClasses();
+    abstract SyntheticMethods syntheticMethods();
 
     Stream<ClassData> close() {
-      innerClasses().registerAllInnerClasses(writer());
       fields().defineFields(writer());
       fields().defineStaticInitializer(writer());
       writer().visitEnd();
-
-      return Stream.concat(
-          Stream.of(writer().toClassData()), innerClasses().getInnerClassData().stream());
+      return Stream.of(writer().toClassData());
     }
   }
 }
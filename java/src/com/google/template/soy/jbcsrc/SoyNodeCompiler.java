@@ -45,6 +45,7 @@ import com.google.template.soy.base.internal.SanitizedContentKind;
 import com.google.template.soy.basetree.Node;
 import com.google.template.soy.basetree.ParentNode;
 import com.google.template.soy.data.SoyRecord;
+import com.google.template.soy.exprtree.AbstractLocalVarDefn;
 import com.google.template.soy.exprtree.BooleanNode;
 import com.google.template.soy.exprtree.ExprNode;
 import com.google.template.soy.exprtree.ExprRootNode;
@@ -61,7 +62,6 @@ import com.google.template.soy.jbcsrc.LazyClosureCompiler.LazyClosure;
 import com.google.template.soy.jbcsrc.MsgCompiler.PlaceholderCompiler;
 import com.google.template.soy.jbcsrc.TemplateVariableManager.Scope;
 import com.google.template.soy.jbcsrc.TemplateVariableManager.Variable;
-import com.google.template.soy.jbcsrc.internal.InnerClasses;
 import com.google.template.soy.jbcsrc.restricted.Branch;
 import com.google.template.soy.jbcsrc.restricted.BytecodeUtils;
 import com.google.template.soy.jbcsrc.restricted.CodeBuilder;
@@ -75,6 +75,7 @@ import com.google.template.soy.jbcsrc.shared.ClassLoaderFallbackCallFactory;
 import com.google.template.soy.jbcsrc.shared.Names;
 import com.google.template.soy.jbcsrc.shared.SwitchFactory;
 import com.google.template.soy.logging.LoggingFunction;
+import com.google.template.soy.msgs.SoyMsgBundle;
 import com.google.template.soy.msgs.internal.MsgUtils;
 import com.google.template.soy.msgs.internal.MsgUtils.MsgPartsAndIds;
 import com.google.template.soy.shared.RangeArgs;
@@ -136,6 +137,7 @@ import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.TreeMap;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
@@ -154,23 +156,25 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
   /**
    * Creates a SoyNodeCompiler
    *
-   * @param innerClasses The current set of inner classes
+   * @param syntheticMethods The helper methods of the current class
    * @param appendableVar An expression that returns the current AdvisingAppendable that we are
    *     rendering into
    * @param variables The variable set for generating locals and fields
    * @param parameterLookup The variable lookup table for reading locals.
+   * @param msgBundle If non-null, the translations to compile into the generated code
    */
   static SoyNodeCompiler create(
       SoyNode context,
       TemplateAnalysis analysis,
-      InnerClasses innerClasses,
+      SyntheticMethods syntheticMethods,
       AppendableExpression appendableVar,
       TemplateVariableManager variables,
       TemplateParameterLookup parameterLookup,
       FieldManager fields,
       BasicExpressionCompiler constantCompiler,
       JavaSourceFunctionCompiler javaSourceFunctionCompiler,
-      PartialFileSetMetadata fileSetMetadata) {
+      PartialFileSetMetadata fileSetMetadata,
+      @Nullable SoyMsgBundle msgBundle) {
     // We pass a lazy supplier of render context so that lazy closure compiler classes that don't
     // generate detach logic don't trigger capturing this value into a field.
     DetachState detachState = new DetachState(variables, parameterLookup::getRenderContext);
@@ -186,7 +190,7 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
         ExpressionToSoyValueProviderCompiler.create(analysis, expressionCompiler, parameterLookup);
     return new SoyNodeCompiler(
         analysis,
-        innerClasses,
+        syntheticMethods,
         detachState,
         variables,
         parameterLookup,
@@ -196,11 +200,12 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
         soyValueProviderCompiler,
         constantCompiler,
         javaSourceFunctionCompiler,
-        fileSetMetadata);
+        fileSetMetadata,
+        msgBundle);
   }
 
   final TemplateAnalysis analysis;
-  final InnerClasses innerClasses;
+  final SyntheticMethods syntheticMethods;
   final DetachState detachState;
   final TemplateVariableManager variables;
   final TemplateParameterLookup parameterLookup;
@@ -211,11 +216,12 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
   final BasicExpressionCompiler constantCompiler;
   final JavaSourceFunctionCompiler javaSourceFunctionCompiler;
   final PartialFileSetMetadata fileSetMetadata;
+  @Nullable final SoyMsgBundle msgBundle;
   private Scope currentScope;
 
   SoyNodeCompiler(
       TemplateAnalysis analysis,
-      InnerClasses innerClasses,
+      SyntheticMethods syntheticMethods,
       DetachState detachState,
       TemplateVariableManager variables,
       TemplateParameterLookup parameterLookup,
@@ -225,9 +231,10 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
       ExpressionToSoyValueProviderCompiler expressionToSoyValueProviderCompiler,
       BasicExpressionCompiler constantCompiler,
       JavaSourceFunctionCompiler javaSourceFunctionCompiler,
-      PartialFileSetMetadata fileSetMetadata) {
+      PartialFileSetMetadata fileSetMetadata,
+      @Nullable SoyMsgBundle msgBundle) {
     this.analysis = checkNotNull(analysis);
-    this.innerClasses = innerClasses;
+    this.syntheticMethods = syntheticMethods;
     this.detachState = checkNotNull(detachState);
     this.variables = checkNotNull(variables);
     this.parameterLookup = checkNotNull(parameterLookup);
@@ -238,6 +245,7 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
     this.constantCompiler = constantCompiler;
     this.javaSourceFunctionCompiler = javaSourceFunctionCompiler;
     this.fileSetMetadata = fileSetMetadata;
+    this.msgBundle = msgBundle;
   }
 
   Statement compile(RenderUnitNode node, ExtraCodeCompiler prefix, ExtraCodeCompiler suffix) {
@@ -1133,7 +1141,7 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
     if (node.getRawText().length() == 1) {
       render = appendableExpression.appendChar(constant(node.getRawText().charAt(0)));
     } else {
-      render = appendableExpression.appendString(constant(node.getRawText()));
+      render = appendableExpression.appendConstant(node.getRawText());
     }
     return render.toStatement();
   }
@@ -1166,13 +1174,31 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
    * }</pre>
    *
    * <p>All of the logic for actually rendering {@code msg} nodes is handled by the {@link
-   * MsgCompiler}.
+   * MsgCompiler}. When compiling with a message bundle, the check is done at compile time and only
+   * the chosen message is compiled.
    */
   @Override
   protected Statement visitMsgFallbackGroupNode(MsgFallbackGroupNode node) {
     MsgNode msg = node.getMsg();
     MsgPartsAndIds idAndParts = MsgUtils.buildMsgPartsAndComputeMsgIdForDualFormat(msg);
     ImmutableList<SoyPrintDirective> escapingDirectives = node.getEscapingDirectives();
+    if (node.hasFallbackMsg() && msgBundle != null) {
+      // The translations are compiled in, so we can pick the message now.
+      MsgNode fallback = node.getFallbackMsg();
+      MsgPartsAndIds fallbackIdAndParts =
+          MsgUtils.buildMsgPartsAndComputeMsgIdForDualFormat(fallback);
+      boolean usePrimary =
+          !MsgCompiler.getTranslation(msgBundle, idAndParts.id, msg.getAlternateId()).isEmpty()
+              || MsgCompiler.getTranslation(
+                      msgBundle, fallbackIdAndParts.id, fallback.getAlternateId())
+                  .isEmpty();
+      return usePrimary
+          ? getMsgCompiler()
+              .compileMessage(idAndParts, msg, escapingDirectives, /* isFallback= */ false)
+          : getMsgCompiler()
+              .compileMessage(
+                  fallbackIdAndParts, fallback, escapingDirectives, /* isFallback= */ true);
+    }
     Statement renderDefault =
         getMsgCompiler()
             .compileMessage(idAndParts, msg, escapingDirectives, /* isFallback= */ false);
@@ -1314,6 +1340,11 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
     default Optional<DirectPositionalCallGenerator> asDirectPositionalCall() {
       return Optional.empty();
     }
+
+    /** The slot layout of the callee's params, see {@link CompiledTemplateMetadata#paramLayout}. */
+    default Optional<ImmutableList<String>> calleeParamLayout() {
+      return Optional.empty();
+    }
   }
 
   @FunctionalInterface
@@ -1410,6 +1441,10 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
 
   @Override
   protected Statement visitCallBasicNode(CallBasicNode node) {
+    Optional<TemplateBasicNode> inlinableCallee = CallInliner.getInlinableCallee(node);
+    if (inlinableCallee.isPresent()) {
+      return compileInlinedCall(node, CallInliner.inline(node, inlinableCallee.get()));
+    }
     // TODO(nicholasyu): if there is a variant expression, we should evaluate it prior to calling
     // the template since we know that it will always be the first thing evaluated, there is no
     // benefit in lazy evaluation.
@@ -1487,6 +1522,11 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
               return Optional.empty();
             }
 
+            @Override
+            public Optional<ImmutableList<String>> calleeParamLayout() {
+              return metadata.paramLayout();
+            }
+
             @Override
             public Optional<DirectCallGenerator> asDirectCall() {
               return Optional.of(
@@ -1523,6 +1563,118 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
     }
   }
 
+  /**
+   * Compiles a call by compiling a copy of the callee's body in place of it, see {@link
+   * CallInliner}.
+   *
+   * <p>The params are prepared exactly as for a positional call and then bound to the callee's
+   * params like its render method would, so the only difference from a call is that we skip
+   * allocating a stack frame and the detach logic around it.
+   */
+  private Statement compileInlinedCall(CallBasicNode node, CallInliner.InlinedTemplate inlined) {
+    TemplateVariableManager.Scope renderScope = variables.enterScope();
+    ImmutableList<TemplateType.Parameter> calleeParams =
+        node.getStaticType().getActualParameters();
+    ListOfExpressionsAndInitializer params =
+        prepareParamsHelper(node, Optional.empty())
+            .asPositionalParams(node, renderScope, node.getStaticType())
+            .get();
+    List<Statement> statements = new ArrayList<>();
+    statements.add(params.initializer());
+    Map<TemplateParam, Expression> boundParams = new HashMap<>();
+    for (int i = 0; i < calleeParams.size(); i++) {
+      TemplateParam param = inlined.params().get(calleeParams.get(i).getName());
+      Expression value =
+          param.hasDefault()
+              ? MethodRefs.RUNTIME_PARAM_OR_DEFAULT.invoke(
+                  params.expressions().get(i),
+                  TemplateCompiler.getDefaultValue(
+                          inlined.body(), param, exprCompiler, constantCompiler, fields)
+                      .box())
+              : MethodRefs.RUNTIME_PARAM.invoke(params.expressions().get(i));
+      if (!value.isCheap()) {
+        TemplateVariableManager.Variable variable =
+            renderScope.createSynthetic(
+                SyntheticVarName.forInlinedParam(param, inlined.body()), value, STORE);
+        statements.add(variable.initializer());
+        value = variable.accessor();
+      }
+      boundParams.put(param, value);
+    }
+    TemplateParameterLookup inlinedLookup =
+        new InlinedParameterLookup(parameterLookup, boundParams);
+    ExpressionCompiler inlinedExprCompiler =
+        ExpressionCompiler.create(
+            inlined.body(),
+            analysis,
+            inlinedLookup,
+            variables,
+            javaSourceFunctionCompiler,
+            fileSetMetadata);
+    SoyNodeCompiler inlinedCompiler =
+        new SoyNodeCompiler(
+            analysis,
+            syntheticMethods,
+            detachState,
+            variables,
+            inlinedLookup,
+            fields,
+            appendableExpression,
+            inlinedExprCompiler,
+            ExpressionToSoyValueProviderCompiler.create(
+                analysis, inlinedExprCompiler, inlinedLookup),
+            constantCompiler,
+            javaSourceFunctionCompiler,
+            fileSetMetadata,
+            msgBundle);
+    statements.add(inlinedCompiler.visitChildrenInNewScope(inlined.body()));
+    statements.add(renderScope.exitScope());
+    return Statement.concat(statements);
+  }
+
+  /** Resolves the params of an inlined template to the values bound by the caller. */
+  private static final class InlinedParameterLookup implements TemplateParameterLookup {
+    private final TemplateParameterLookup delegate;
+    private final Map<TemplateParam, Expression> params;
+
+    InlinedParameterLookup(
+        TemplateParameterLookup delegate, Map<TemplateParam, Expression> params) {
+      this.delegate = delegate;
+      this.params = params;
+    }
+
+    @Override
+    public Expression getParam(TemplateParam param) {
+      return checkNotNull(params.get(param), "unbound param: %s", param);
+    }
+
+    @Override
+    public Expression getLocal(AbstractLocalVarDefn<?> local) {
+      return delegate.getLocal(local);
+    }
+
+    @Override
+    public Expression getLocal(SyntheticVarName varName) {
+      return delegate.getLocal(varName);
+    }
+
+    @Override
+    public RenderContextExpression getRenderContext() {
+      return delegate.getRenderContext();
+    }
+
+    @Override
+    public Expression getParamsRecord() {
+      // Only needed for data="all" calls, and inlined templates don't make calls.
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Expression getIjRecord() {
+      return delegate.getIjRecord();
+    }
+  }
+
   private static DirectCallGenerator directCallFromTemplateExpression(
       Expression compiledTemplateExpression) {
     return (params, ij, output, context) ->
@@ -1570,7 +1722,8 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
     Statement initParams;
 
     TemplateVariableManager.Scope renderScope = variables.enterScope();
-    RecordOrPositional paramsExpression = prepareParamsHelper(node);
+    RecordOrPositional paramsExpression =
+        prepareParamsHelper(node, callGenerator.calleeParamLayout());
     Statement initCallee = Statement.NULL_STATEMENT;
     if (!areAllPrintDirectivesStreamable(node) || node.isErrorFallbackSkip()) {
       // in this case we need to wrap a CompiledTemplate to buffer to catch exceptions or to
@@ -1764,7 +1917,8 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
     abstract Optional<ImmutableMap<String, Supplier<Expression>>> explicit();
   }
 
-  private RecordOrPositional prepareParamsHelper(CallNode node) {
+  private RecordOrPositional prepareParamsHelper(
+      CallNode node, Optional<ImmutableList<String>> calleeParamLayout) {
     if (node instanceof CallBasicNode && ((CallBasicNode) node).getVariantExpr() != null) {
       CallBasicNode callBasicNode = (CallBasicNode) node;
       node.addChild(
@@ -1775,7 +1929,8 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
               callBasicNode.getVariantExpr().getRoot()));
     }
     ImmutableMap<String, Supplier<Expression>> explicitParams = compileExplicitParams(node);
-    Supplier<Expression> recordExpression = () -> getParamStoreExpression(node, explicitParams);
+    Supplier<Expression> recordExpression =
+        () -> getParamStoreExpression(node, explicitParams, calleeParamLayout);
     return RecordOrPositional.create(
         recordExpression, node.isPassingData() ? Optional.empty() : Optional.of(explicitParams));
   }
@@ -1806,10 +1961,12 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
 
   /**
    * Returns an expression that creates a new {@link ParamStore} suitable for holding all the
-   * parameters.
+   * parameters, laid out for the callee if its layout is known.
    */
   private Expression getParamStoreExpression(
-      CallNode node, Map<String, Supplier<Expression>> params) {
+      CallNode node,
+      Map<String, Supplier<Expression>> params,
+      Optional<ImmutableList<String>> calleeParamLayout) {
     Map<String, Expression> paramsMap = new LinkedHashMap<>();
     params.forEach((k, v) -> paramsMap.put(k, v.get()));
     if (node.isPassingAllData()) {
@@ -1824,7 +1981,8 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
                 ? Optional.of(getDataRecordExpression(node, reattachDataLabel))
                 : Optional.empty();
 
-    return BytecodeUtils.newParamStore(baseRecord, paramsMap).labelStart(reattachDataLabel);
+    return BytecodeUtils.newParamStore(baseRecord, paramsMap, calleeParamLayout)
+        .labelStart(reattachDataLabel);
   }
 
   private void maybeAddDefaultParams(CallNode node, Map<String, Expression> paramsMap) {
@@ -1944,14 +2102,20 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
             return Placeholder.create(
                 closure.soyValueProvider(), closure.requiresDetachLogicToResolve());
           }
-        });
+
+          @Override
+          public Statement compileInline(MsgPlaceholderNode placeholder) {
+            return visitChildrenInNewScope(placeholder);
+          }
+        },
+        msgBundle);
   }
 
   /** Returns a {@link SoyNodeCompiler} identical to this one but with an alternate appendable. */
   SoyNodeCompiler compilerWithNewAppendable(AppendableExpression appendable) {
     return new SoyNodeCompiler(
         analysis,
-        innerClasses,
+        syntheticMethods,
         detachState,
         variables,
         parameterLookup,
@@ -1961,6 +2125,7 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
         expressionToSoyValueProviderCompiler,
         constantCompiler,
         javaSourceFunctionCompiler,
-        fileSetMetadata);
+        fileSetMetadata,
+        msgBundle);
   }
 }
@@ -22,6 +22,7 @@ final class StandardNames {
   static final String IJ = "$ij";
   static final String COMPILED_TEMPLATE = "$template";
   static final String APPENDABLE = "$appendable";
+  static final String PROVIDER = "$provider";
   static final String RENDER_CONTEXT = "$renderContext";
   static final String CURRENT_CALLEE = "$currentCallee";
   static final String CURRENT_RENDEREE = "$currentRenderee";
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc;
+
+import com.google.template.soy.base.internal.UniqueNameGenerator;
+import com.google.template.soy.jbcsrc.internal.JbcSrcNameGenerators;
+import com.google.template.soy.jbcsrc.restricted.MethodRef;
+import com.google.template.soy.jbcsrc.restricted.Statement;
+import com.google.template.soy.jbcsrc.restricted.TypeInfo;
+import java.util.List;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.Method;
+
+/**
+ * Manages writing compiler generated helper methods, like the bodies of lazy closures, to a given
+ * class.
+ */
+final class SyntheticMethods {
+  private final UniqueNameGenerator methodNames = JbcSrcNameGenerators.forFieldNames();
+  private final TypeInfo owner;
+  private final ClassVisitor writer;
+
+  SyntheticMethods(TypeInfo owner, ClassVisitor writer) {
+    this.owner = owner;
+    this.writer = writer;
+  }
+
+  TypeInfo owner() {
+    return owner;
+  }
+
+  /**
+   * Writes a private static method with the given signature and body, and returns a reference to
+   * it.
+   *
+   * @param proposedName A proposed name for the method, the actual name may be modified to ensure
+   *     uniqueness. Should contain a {@code $$} so it can't collide with template, constant or extern
+   *     methods.
+   */
+  MethodRef addStaticMethod(
+      String proposedName, Type returnType, List<Type> argTypes, Statement body) {
+    Method method =
+        new Method(methodNames.generate(proposedName), returnType, argTypes.toArray(new Type[0]));
+    body.writeMethod(
+        Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, method, writer);
+    return MethodRef.createStaticMethod(owner, method, MethodRef.MethodPureness.NON_PURE);
+  }
+}
@@ -20,7 +20,9 @@ import com.google.auto.value.AutoValue;
 import com.google.template.soy.basetree.Node;
 import com.google.template.soy.soytree.CallParamNode;
 import com.google.template.soy.soytree.ForNonemptyNode;
+import com.google.template.soy.soytree.LetContentNode;
 import com.google.template.soy.soytree.SwitchNode;
+import com.google.template.soy.soytree.defn.TemplateParam;
 import javax.annotation.Nullable;
 
 /**
@@ -75,6 +77,10 @@ abstract class SyntheticVarName {
     return new AutoValue_SyntheticVarName(param.getKey().identifier(), param);
   }
 
+  static SyntheticVarName forInlinedParam(TemplateParam param, LetContentNode inlinedBody) {
+    return new AutoValue_SyntheticVarName(param.name(), inlinedBody);
+  }
+
   abstract String name();
 
   @Nullable
@@ -32,6 +32,8 @@ import com.google.template.soy.exprtree.VarRefNode;
  *       field reference has already been referenced at a given point and therefore {code
  *       SoyValueProvider#status()} has already returned {@link
  *       com.google.template.soy.jbcsrc.api.RenderResult#done()}.
+ *   <li>{@link #isOutputMemoizable()} can tell us whether the output of the template is determined
+ *       by its parameters.
  * </ul>
  *
  * <p>TODO(lukes): consider adding the following
@@ -57,4 +59,10 @@ interface TemplateAnalysis {
    * within a given template.
    */
   boolean isResolved(DataAccessNode ref);
+
+  /**
+   * Returns true if the output of the template only depends on the values of its parameters, which
+   * are all simple values, so calls with equal parameters can reuse the output of an earlier call.
+   */
+  boolean isOutputMemoizable();
 }
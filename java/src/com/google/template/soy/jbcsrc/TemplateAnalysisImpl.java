@@ -28,6 +28,7 @@ import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import com.google.template.soy.basetree.CopyState;
+import com.google.template.soy.basetree.Node;
 import com.google.template.soy.exprtree.AbstractExprNodeVisitor;
 import com.google.template.soy.exprtree.DataAccessNode;
 import com.google.template.soy.exprtree.ExprEquivalence;
@@ -42,6 +43,7 @@ import com.google.template.soy.exprtree.ListComprehensionNode;
 import com.google.template.soy.exprtree.ListLiteralNode;
 import com.google.template.soy.exprtree.MapLiteralFromListNode;
 import com.google.template.soy.exprtree.MapLiteralNode;
+import com.google.template.soy.exprtree.MethodCallNode;
 import com.google.template.soy.exprtree.NullSafeAccessNode;
 import com.google.template.soy.exprtree.OperatorNodes.AmpAmpOpNode;
 import com.google.template.soy.exprtree.OperatorNodes.AndOpNode;
@@ -63,8 +65,17 @@ import com.google.template.soy.msgs.restricted.SoyMsgPluralPart;
 import com.google.template.soy.msgs.restricted.SoyMsgPluralRemainderPart;
 import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
 import com.google.template.soy.msgs.restricted.SoyMsgSelectPart;
+import com.google.template.soy.plugin.java.restricted.SoyJavaSourceFunction;
+import com.google.template.soy.plugin.restricted.SoySourceFunction;
 import com.google.template.soy.shared.RangeArgs;
 import com.google.template.soy.shared.internal.BuiltinFunction;
+import com.google.template.soy.shared.internal.BuiltinMethod;
+import com.google.template.soy.shared.restricted.SoyFunctions;
+import com.google.template.soy.shared.restricted.SoyJavaPrintDirective;
+import com.google.template.soy.shared.restricted.SoyMethod;
+import com.google.template.soy.shared.restricted.SoyPrintDirective;
+import com.google.template.soy.shared.restricted.SoyPurePrintDirective;
+import com.google.template.soy.shared.restricted.SoySourceFunctionMethod;
 import com.google.template.soy.soytree.AbstractSoyNodeVisitor;
 import com.google.template.soy.soytree.CallNode;
 import com.google.template.soy.soytree.CallParamContentNode;
@@ -91,11 +102,15 @@ import com.google.template.soy.soytree.RawTextNode;
 import com.google.template.soy.soytree.SoyNode;
 import com.google.template.soy.soytree.SoyNode.ParentSoyNode;
 import com.google.template.soy.soytree.SoyNode.StandaloneNode;
+import com.google.template.soy.soytree.SoyTreeUtils;
 import com.google.template.soy.soytree.SwitchCaseNode;
 import com.google.template.soy.soytree.SwitchDefaultNode;
 import com.google.template.soy.soytree.SwitchNode;
 import com.google.template.soy.soytree.TemplateNode;
 import com.google.template.soy.soytree.VeLogNode;
+import com.google.template.soy.soytree.defn.TemplateParam;
+import com.google.template.soy.types.SoyType;
+import com.google.template.soy.types.UnionType;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -114,14 +129,16 @@ final class TemplateAnalysisImpl implements TemplateAnalysis {
 
   static TemplateAnalysisImpl analyze(TemplateNode node) {
     AccessGraph templateGraph = new PseudoEvaluatorVisitor().evaluate(node);
-    return new TemplateAnalysisImpl(templateGraph);
+    return new TemplateAnalysisImpl(templateGraph, computeIsOutputMemoizable(node));
   }
 
   private final AccessGraph templateGraph;
   private final ImmutableSet<ExprNode> resolvedExpressions;
+  private final boolean isOutputMemoizable;
 
-  private TemplateAnalysisImpl(AccessGraph templateGraph) {
+  private TemplateAnalysisImpl(AccessGraph templateGraph, boolean isOutputMemoizable) {
     this.templateGraph = templateGraph;
+    this.isOutputMemoizable = isOutputMemoizable;
     this.resolvedExpressions =
         templateGraph != null
             ? ImmutableSet.copyOf(templateGraph.getResolvedExpressions())
@@ -144,6 +161,124 @@ final class TemplateAnalysisImpl implements TemplateAnalysis {
     return resolvedExpressions.contains(ref);
   }
 
+  @Override
+  public boolean isOutputMemoizable() {
+    return isOutputMemoizable;
+  }
+
+  /**
+   * A template is memoizable if all of its params are simple values and nothing in it depends on
+   * the render: there are no injected params, calls, messages, logging statements, renaming
+   * functions or plugins that use the render context or plugin instances.
+   *
+   * <p>Templates that don't print anything or loop are skipped since a cache lookup isn't likely
+   * to be cheaper than just rendering them.
+   */
+  private static boolean computeIsOutputMemoizable(TemplateNode node) {
+    for (TemplateParam param : node.getAllParams()) {
+      if (param.isInjected() || !isSimpleValueType(param.type())) {
+        return false;
+      }
+    }
+    return SoyTreeUtils.allNodes(node).allMatch(TemplateAnalysisImpl::isMemoizable)
+        && SoyTreeUtils.allNodes(node)
+            .anyMatch(n -> n instanceof PrintNode || n instanceof ForNode);
+  }
+
+  /** Whether values of the type have a cheap value based {@code equals}, see RenderContext. */
+  private static boolean isSimpleValueType(SoyType type) {
+    switch (type.getKind()) {
+      case NULL:
+      case UNDEFINED:
+      case BOOL:
+      case INT:
+      case FLOAT:
+      case STRING:
+      case HTML:
+      case ELEMENT:
+      case ATTRIBUTES:
+      case JS:
+      case CSS:
+      case URI:
+      case TRUSTED_RESOURCE_URI:
+        return true;
+      case UNION:
+        return ((UnionType) type)
+            .getMembers().stream().allMatch(TemplateAnalysisImpl::isSimpleValueType);
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isMemoizable(Node node) {
+    if (node instanceof CallNode
+        || node instanceof MsgFallbackGroupNode
+        || node instanceof VeLogNode
+        || node instanceof LogNode
+        || node instanceof DebuggerNode
+        || node instanceof TemplateLiteralNode) {
+      return false;
+    }
+    if (node instanceof PrintDirectiveNode) {
+      SoyPrintDirective directive = ((PrintDirectiveNode) node).getPrintDirective();
+      return directive instanceof SoyJavaPrintDirective
+          && directive.getClass().isAnnotationPresent(SoyPurePrintDirective.class);
+    }
+    if (node instanceof VarRefNode) {
+      switch (((VarRefNode) node).getDefnDecl().kind()) {
+        case PARAM:
+        case LOCAL_VAR:
+        case COMPREHENSION_VAR:
+        case STATE:
+          return true;
+        default:
+          // consts, imports and externs are evaluated with the render context.
+          return false;
+      }
+    }
+    if (node instanceof FunctionNode) {
+      FunctionNode function = (FunctionNode) node;
+      if (!function.isResolved()) {
+        return false;
+      }
+      Object soyFunction = function.getSoyFunction();
+      if (soyFunction instanceof BuiltinFunction) {
+        switch ((BuiltinFunction) soyFunction) {
+          case CHECK_NOT_NULL:
+          case TO_FLOAT:
+          case PROTO_INIT:
+          case EMPTY_TO_NULL:
+          case UNDEFINED_TO_NULL:
+          case UNDEFINED_TO_NULL_SSR:
+            return true;
+          case DEBUG_SOY_TEMPLATE_INFO:
+            // The cache is bypassed when rendering debug info.
+            return true;
+          default:
+            return false;
+        }
+      }
+      return function.isPure() && isContextFreeFunction(soyFunction);
+    }
+    if (node instanceof MethodCallNode) {
+      SoyMethod method = ((MethodCallNode) node).getSoyMethod();
+      if (method instanceof BuiltinMethod) {
+        return method != BuiltinMethod.BIND;
+      }
+      if (method instanceof SoySourceFunctionMethod) {
+        SoySourceFunction impl = ((SoySourceFunctionMethod) method).getImpl();
+        return SoyFunctions.isPure(impl) && isContextFreeFunction(impl);
+      }
+      return false;
+    }
+    return true;
+  }
+
+  private static boolean isContextFreeFunction(Object function) {
+    return function instanceof SoyJavaSourceFunction
+        && ExpressionCompiler.isContextFreePlugin((SoyJavaSourceFunction) function);
+  }
+
   /**
    * This visitor (and the {@link PseudoEvaluatorExprVisitor}) visits every Soy node in the order
    * that the code generated from those node would execute and constructs an {@link AccessGraph}.
@@ -27,6 +27,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
+import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.internal.Converters;
 import com.google.template.soy.exprtree.AbstractLocalVarDefn;
 import com.google.template.soy.exprtree.ExprRootNode;
@@ -34,7 +35,6 @@ import com.google.template.soy.exprtree.TemplateLiteralNode;
 import com.google.template.soy.exprtree.VarDefn;
 import com.google.template.soy.exprtree.VarRefNode;
 import com.google.template.soy.jbcsrc.ExpressionCompiler.BasicExpressionCompiler;
-import com.google.template.soy.jbcsrc.internal.InnerClasses;
 import com.google.template.soy.jbcsrc.internal.SoyClassWriter;
 import com.google.template.soy.jbcsrc.restricted.AnnotationRef;
 import com.google.template.soy.jbcsrc.restricted.BytecodeUtils;
@@ -50,6 +50,7 @@ import com.google.template.soy.jbcsrc.restricted.Statement;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplate;
 import com.google.template.soy.jbcsrc.shared.RecordToPositionalCallFactory;
 import com.google.template.soy.jbcsrc.shared.TemplateMetadata;
+import com.google.template.soy.msgs.SoyMsgBundle;
 import com.google.template.soy.soytree.CallDelegateNode;
 import com.google.template.soy.soytree.CallParamContentNode;
 import com.google.template.soy.soytree.CallParamValueNode;
@@ -96,27 +97,30 @@ final class TemplateCompiler {
   private final FieldManager fields;
   private final CompiledTemplateMetadata template;
   private final TemplateNode templateNode;
-  private final InnerClasses innerClasses;
+  private final SyntheticMethods syntheticMethods;
   private final SoyClassWriter writer;
   private final TemplateAnalysis analysis;
   private final JavaSourceFunctionCompiler javaSourceFunctionCompiler;
   private final PartialFileSetMetadata fileSetMetadata;
+  @Nullable private final SoyMsgBundle msgBundle;
 
   TemplateCompiler(
       TemplateNode templateNode,
       SoyClassWriter writer,
       FieldManager fields,
-      InnerClasses innerClasses,
+      SyntheticMethods syntheticMethods,
       JavaSourceFunctionCompiler javaSourceFunctionCompiler,
-      PartialFileSetMetadata fileSetMetadata) {
+      PartialFileSetMetadata fileSetMetadata,
+      @Nullable SoyMsgBundle msgBundle) {
     this.template = CompiledTemplateMetadata.create(templateNode);
     this.templateNode = templateNode;
     this.writer = writer;
     this.fields = fields;
-    this.innerClasses = innerClasses;
+    this.syntheticMethods = syntheticMethods;
     this.analysis = TemplateAnalysisImpl.analyze(templateNode);
     this.javaSourceFunctionCompiler = javaSourceFunctionCompiler;
     this.fileSetMetadata = fileSetMetadata;
+    this.msgBundle = msgBundle;
   }
 
   /**
@@ -126,10 +130,10 @@ final class TemplateCompiler {
    *
    * <ul>
    *   <li>A {@link CompiledTemplate}
-   *   <li>A DetachableSoyValueProvider subclass for each {@link LetValueNode} and {@link
-   *       CallParamValueNode}
-   *   <li>A DetachableContentProvider subclass for each {@link LetContentNode} and {@link
-   *       CallParamContentNode}
+   *   <li>A static method for each {@link LetValueNode} and {@link CallParamValueNode}, bound to a
+   *       DetachableSoyValueProvider with a lambda
+   *   <li>A static method for each {@link LetContentNode} and {@link CallParamContentNode}, bound
+   *       to a DetachableContentProvider with a lambda
    *       <p>Note: This will <em>not</em> generate classes for other templates, only the template
    *       configured in the constructor. But it will generate classes that <em>reference</em> the
    *       classes that are generated for other templates. It is the callers responsibility to
@@ -201,9 +205,8 @@ final class TemplateCompiler {
   }
 
   private int methodAccess() {
-    // TODO(lukes): private templates need to have default access so they can be called by our
-    // generated inner classes (e.g. a let).  Once jdk11 has landed we could workaround by declaring
-    // our inner classes as 'nestmates' see https://openjdk.java.net/jeps/181
+    // private templates need to have default access so they can be called by templates that are
+    // compiled to their own classes, see SoyFileCompiler.compileToManyClasses.
     return (templateNode.getVisibility() == Visibility.PUBLIC || isModifyingTemplate()
             ? Opcodes.ACC_PUBLIC
             : 0)
@@ -422,6 +425,14 @@ final class TemplateCompiler {
     paramNames.add(StandardNames.APPENDABLE);
     paramNames.add(StandardNames.RENDER_CONTEXT);
     Method method = template.positionalRenderMethod().orElse(template.renderMethod()).method();
+    // Only positional signatures are memoized, since they give us the declared params directly.
+    boolean isMemoized = template.hasPositionalSignature() && analysis.isOutputMemoizable();
+    if (isMemoized) {
+      Method uncachedMethod =
+          new Method(method.getName() + UNCACHED_METHOD_SUFFIX, method.getDescriptor());
+      generateCachedRenderMethod(method, uncachedMethod, paramNames.build());
+      method = uncachedMethod;
+    }
     TemplateVariableManager variableSet =
         new TemplateVariableManager(
             template.typeInfo().type(),
@@ -448,14 +459,15 @@ final class TemplateCompiler {
         SoyNodeCompiler.create(
             templateNode,
             analysis,
-            innerClasses,
+            syntheticMethods,
             appendable,
             variableSet,
             variables,
             fields,
             constantCompiler,
             javaSourceFunctionCompiler,
-            fileSetMetadata);
+            fileSetMetadata,
+            msgBundle);
     // Allocate local variables for all declared parameters.
     // NOTE: we initialize the parameters prior to where the jump table is initialized, this means
     // that all variables will be re-initialized ever time we re-enter the template.
@@ -463,6 +475,7 @@ final class TemplateCompiler {
     // and then pull stuff out of it to initialize params is awkward
     TemplateVariableManager.Scope templateScope = variableSet.enterScope();
     List<Statement> paramInitStatements = new ArrayList<>();
+    ImmutableList<String> paramLayout = template.paramLayout().orElse(ImmutableList.of());
     for (TemplateParam param : templateNode.getAllParams()) {
       SoyExpression defaultValue =
           param.hasDefault()
@@ -475,7 +488,11 @@ final class TemplateCompiler {
         localVariable = templateScope.createNamedLocal(param.name(), initialValue.resultType());
         paramInitStatements.add(localVariable.initialize(initialValue));
       } else if (paramsVar.isPresent()) {
-        initialValue = getFieldProviderOrDefault(param.name(), paramsVar.get(), defaultValue);
+        int slot = paramLayout.indexOf(param.name());
+        initialValue =
+            slot >= 0
+                ? getSlotOrDefault(paramLayout, slot, paramsVar.get(), defaultValue)
+                : getFieldProviderOrDefault(param.name(), paramsVar.get(), defaultValue);
         localVariable = templateScope.createNamedLocal(param.name(), initialValue.resultType());
         paramInitStatements.add(localVariable.initialize(initialValue));
       } else {
@@ -508,6 +525,100 @@ final class TemplateCompiler {
         adapter.mark(end);
         returnDone.gen(adapter);
 
+        variableSet.generateTableEntries(adapter);
+      }
+    }.writeIOExceptionMethod(
+        isMemoized ? Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC : methodAccess(), method, writer);
+  }
+
+  private static final String UNCACHED_METHOD_SUFFIX = "$uncached";
+
+  private static final Type SOY_VALUE_PROVIDER_ARRAY_TYPE =
+      Type.getType(SoyValueProvider[].class);
+
+  /**
+   * Generates the render method of a memoizable template, which checks the template output cache
+   * before calling the method that actually renders the template. Generates code like:
+   *
+   * <pre>{@code
+   * public static RenderResult foo(
+   *     SoyValueProvider p1,
+   *     SoyValueProvider p2,
+   *     ParamStore ij,
+   *     LoggingAdvisingAppendable appendable,
+   *     RenderContext context) {
+   *   if (context.hasOutputCache()) {
+   *     appendable =
+   *         context.beginCachedRender("ns.foo", new SoyValueProvider[] {p1, p2}, appendable);
+   *     if (appendable == null) {
+   *       return RenderResult.done();
+   *     }
+   *     return context.endCachedRender(appendable, foo$uncached(p1, p2, ij, appendable, context));
+   *   }
+   *   return foo$uncached(p1, p2, ij, appendable, context);
+   * }
+   * }</pre>
+   */
+  private void generateCachedRenderMethod(
+      Method method, Method uncachedMethod, ImmutableList<String> paramNames) {
+    Label start = new Label();
+    Label end = new Label();
+    TemplateVariableManager variableSet =
+        new TemplateVariableManager(
+            template.typeInfo().type(),
+            method.getArgumentTypes(),
+            paramNames,
+            start,
+            end,
+            /* isStatic= */ true);
+    ImmutableList<Expression> params =
+        template.templateType().getActualParameters().stream()
+            .map(param -> variableSet.getVariable(param.getName()))
+            .collect(toImmutableList());
+    LocalVariable appendable = (LocalVariable) variableSet.getVariable(StandardNames.APPENDABLE);
+    RenderContextExpression context =
+        new RenderContextExpression(variableSet.getVariable(StandardNames.RENDER_CONTEXT));
+    MethodRef uncached =
+        MethodRef.createStaticMethod(
+                template.typeInfo(), uncachedMethod, MethodRef.MethodPureness.NON_PURE)
+            .asNonJavaNullable();
+    Expression callUncached =
+        uncached.invoke(
+            ImmutableList.<Expression>builder()
+                .addAll(params)
+                .add(
+                    variableSet.getVariable(StandardNames.IJ),
+                    appendable,
+                    variableSet.getVariable(StandardNames.RENDER_CONTEXT))
+                .build());
+    Expression hasOutputCache = context.hasOutputCache();
+    Statement beginCachedRender =
+        appendable.store(
+            context.beginCachedRender(
+                templateNode.getTemplateName(),
+                BytecodeUtils.asArray(SOY_VALUE_PROVIDER_ARRAY_TYPE, params),
+                appendable));
+    Statement returnDone = Statement.returnExpression(MethodRefs.RENDER_RESULT_DONE.invoke());
+    Statement returnCached =
+        Statement.returnExpression(context.endCachedRender(appendable, callUncached));
+    Statement returnUncached = Statement.returnExpression(callUncached);
+    new Statement() {
+      @Override
+      protected void doGen(CodeBuilder adapter) {
+        adapter.mark(start);
+        Label uncachedRender = new Label();
+        hasOutputCache.gen(adapter);
+        adapter.ifZCmp(Opcodes.IFEQ, uncachedRender);
+        beginCachedRender.gen(adapter);
+        Label render = new Label();
+        appendable.gen(adapter);
+        adapter.ifNonNull(render);
+        returnDone.gen(adapter);
+        adapter.mark(render);
+        returnCached.gen(adapter);
+        adapter.mark(uncachedRender);
+        returnUncached.gen(adapter);
+        adapter.mark(end);
         variableSet.generateTableEntries(adapter);
       }
     }.writeIOExceptionMethod(methodAccess(), method, writer);
@@ -518,12 +629,25 @@ final class TemplateCompiler {
       TemplateHeaderVarDefn headerVar,
       ExpressionCompiler expressionCompiler,
       BasicExpressionCompiler constantCompiler) {
+    return getDefaultValue(templateNode, headerVar, expressionCompiler, constantCompiler, fields);
+  }
+
+  /**
+   * Compiles the default value of a header var, storing it in a static field if it is an expensive
+   * constant.
+   */
+  static SoyExpression getDefaultValue(
+      SoyNode context,
+      TemplateHeaderVarDefn headerVar,
+      ExpressionCompiler expressionCompiler,
+      BasicExpressionCompiler constantCompiler,
+      FieldManager fields) {
     ExprRootNode defaultValueNode = headerVar.defaultValue();
     if (defaultValueNode.getType() == NullType.getInstance()) {
       // a special case for null to avoid poor handling elsewhere in the compiler.
       return SoyExpression.SOY_NULL;
     } else {
-      if (ExpressionCompiler.canCompileToConstant(templateNode, defaultValueNode)) {
+      if (ExpressionCompiler.canCompileToConstant(context, defaultValueNode)) {
         SoyExpression defaultValue =
             constantCompiler.compile(defaultValueNode).box().toMaybeConstant();
         if (!defaultValue.isCheap()) {
@@ -560,6 +684,21 @@ final class TemplateCompiler {
     }
   }
 
+  private static Expression getSlotOrDefault(
+      ImmutableList<String> layout,
+      int slot,
+      Expression record,
+      @Nullable SoyExpression defaultValue) {
+    Expression layoutExpr = BytecodeUtils.constantParamLayout(layout);
+    if (defaultValue == null) {
+      return MethodRefs.RUNTIME_GET_PARAMETER_SLOT.invoke(
+          record, layoutExpr, BytecodeUtils.constant(slot));
+    } else {
+      return MethodRefs.RUNTIME_GET_PARAMETER_SLOT_DEFAULT.invoke(
+          record, layoutExpr, BytecodeUtils.constant(slot), defaultValue.box());
+    }
+  }
+
   /**
    * Generates the main method that selects the implementation out of the map. Generates code like:
    *
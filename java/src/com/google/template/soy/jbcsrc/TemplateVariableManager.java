@@ -225,8 +225,10 @@ final class TemplateVariableManager implements LocalVariableManager {
                 activeScope.variablesByKey.put(VarKey.create(key), new TrivialVariable(value)));
   }
 
-  public void updateParameterTypes(Type[] parameterTypes, List<String> parameterNames) {
-    delegate.updateParameterTypes(parameterTypes, parameterNames);
+  /** See {@link SimpleLocalVariableManager#updateParameterTypes}. */
+  public ImmutableList<LocalVariable> updateParameterTypes(
+      Type[] parameterTypes, List<String> parameterNames) {
+    return delegate.updateParameterTypes(parameterTypes, parameterNames);
   }
 
   /** Enters a new scope. Variables may only be defined within a scope. */
@@ -41,6 +41,20 @@ public interface AdvisingAppendable extends Appendable {
   @Override
   AdvisingAppendable append(char c) throws IOException;
 
+  /**
+   * Appends a constant string whose UTF-8 encoding is already known.
+   *
+   * <p>Templates use this for their raw text, so that implementations that write UTF-8 (like {@link
+   * Utf8AdvisingAppendable}) can copy the bytes rather than encoding the text on every render. By
+   * default this just appends the text.
+   *
+   * @param text the text to append
+   * @param utf8 the UTF-8 encoding of {@code text}. This is shared and must not be modified.
+   */
+  default AdvisingAppendable appendUtf8(String text, byte[] utf8) throws IOException {
+    return append(text);
+  }
+
   /**
    * Indicates that an internal limit has been reached or exceeded and that write operations should
    * be suspended <i>soon</i>.
@@ -55,6 +55,17 @@ final class AppendableAsAdvisingAppendable implements AdvisingAppendable {
     return this;
   }
 
+  @CanIgnoreReturnValue
+  @Override
+  public AdvisingAppendable appendUtf8(String text, byte[] utf8) throws IOException {
+    if (appendable instanceof AdvisingAppendable) {
+      ((AdvisingAppendable) appendable).appendUtf8(text, utf8);
+    } else {
+      appendable.append(text);
+    }
+    return this;
+  }
+
   @Override
   public boolean softLimitReached() {
     // no limits can be inferred
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.util.concurrent.JdkFutureAdapters;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.template.soy.jbcsrc.api.SoySauce.Continuation;
+import com.google.template.soy.jbcsrc.api.SoySauce.WriteContinuation;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Drives a render to completion without blocking, resuming it on an executor whenever it pauses.
+ *
+ * <p>See {@link SoySauce.Renderer#renderHtmlAsync(AdvisingAppendable, Executor, Supplier)}.
+ */
+final class AsyncRender<T> {
+  /** A render that can be started, i.e. a call to one of the {@code Renderer.renderFoo} methods. */
+  @FunctionalInterface
+  interface WriteStart {
+    WriteContinuation start() throws IOException;
+  }
+
+  /**
+   * Renders to completion, writing to the appendable that {@code start} renders into.
+   *
+   * @param outputReady Called whenever the appendable reaches its soft limit, returns a future that
+   *     completes once it can accept more output.
+   */
+  static CompletableFuture<Void> render(
+      WriteStart start, Executor executor, Supplier<? extends Future<?>> outputReady) {
+    AsyncRender<Void> render = new AsyncRender<>(executor, checkNotNull(outputReady));
+    WriteContinuation continuation;
+    try {
+      continuation = start.start();
+    } catch (Throwable t) {
+      render.future.completeExceptionally(t);
+      return render.future;
+    }
+    render.run(new WriteStep(continuation));
+    return render.future;
+  }
+
+  /** Renders to completion, producing the value of the final continuation. */
+  static <T> CompletableFuture<T> renderValue(Supplier<Continuation<T>> start, Executor executor) {
+    // The output is buffered internally, so it never reaches a soft limit.
+    AsyncRender<T> render =
+        new AsyncRender<>(
+            executor,
+            () -> {
+              throw new IllegalStateException("unexpected soft limit");
+            });
+    Continuation<T> continuation;
+    try {
+      continuation = start.get();
+    } catch (Throwable t) {
+      render.future.completeExceptionally(t);
+      return render.future;
+    }
+    render.run(new ValueStep<>(continuation));
+    return render.future;
+  }
+
+  /** Adapts {@link WriteContinuation} and {@link Continuation} to a common interface. */
+  private interface Step<T> {
+    RenderResult result();
+
+    Step<T> continueRender() throws IOException;
+
+    T get();
+  }
+
+  private static final class WriteStep implements Step<Void> {
+    final WriteContinuation delegate;
+
+    WriteStep(WriteContinuation delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public RenderResult result() {
+      return delegate.result();
+    }
+
+    @Override
+    public Step<Void> continueRender() throws IOException {
+      return new WriteStep(delegate.continueRender());
+    }
+
+    @Override
+    public Void get() {
+      return null;
+    }
+  }
+
+  private static final class ValueStep<T> implements Step<T> {
+    final Continuation<T> delegate;
+
+    ValueStep(Continuation<T> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public RenderResult result() {
+      return delegate.result();
+    }
+
+    @Override
+    public Step<T> continueRender() {
+      return new ValueStep<>(delegate.continueRender());
+    }
+
+    @Override
+    public T get() {
+      return delegate.get();
+    }
+  }
+
+  private final Executor executor;
+  private final Supplier<? extends Future<?>> outputReady;
+  private final CompletableFuture<T> future = new CompletableFuture<>();
+
+  private AsyncRender(Executor executor, Supplier<? extends Future<?>> outputReady) {
+    this.executor = checkNotNull(executor);
+    this.outputReady = outputReady;
+  }
+
+  /**
+   * Renders until the render completes or pauses on something that isn't ready, i.e. a pending
+   * future or the output, in which case a callback is scheduled to {@link #resume} it.
+   */
+  private void run(Step<T> step) {
+    try {
+      while (true) {
+        RenderResult result = step.result();
+        switch (result.type()) {
+          case DONE:
+            future.complete(step.get());
+            return;
+          case LIMITED:
+            Future<?> ready = checkNotNull(outputReady.get(), "outputReady returned null");
+            if (!ready.isDone()) {
+              Step<T> limited = step;
+              whenDone(ready, () -> resume(limited));
+              return;
+            }
+            break;
+          case DETACH:
+            Future<?> pending = result.future();
+            if (!pending.isDone()) {
+              Step<T> detached = step;
+              whenDone(pending, () -> resume(detached));
+              return;
+            }
+            break;
+        }
+        step = step.continueRender();
+      }
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+    }
+  }
+
+  private void resume(Step<T> step) {
+    if (future.isDone()) {
+      // The caller cancelled the render.
+      return;
+    }
+    Step<T> next;
+    try {
+      next = step.continueRender();
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+      return;
+    }
+    run(next);
+  }
+
+  /** Runs the callback on the executor once the future completes. */
+  private void whenDone(Future<?> pending, Runnable callback) {
+    if (pending instanceof ListenableFuture) {
+      ((ListenableFuture<?>) pending).addListener(callback, executor);
+    } else if (pending instanceof CompletionStage) {
+      ((CompletionStage<?>) pending).whenCompleteAsync((v, t) -> callback.run(), executor);
+    } else {
+      // A plain Future can't notify us, so this ties up an executor thread until it completes.
+      JdkFutureAdapters.listenInPoolThread(pending, executor)
+          .addListener(callback, directExecutor());
+    }
+  }
+}
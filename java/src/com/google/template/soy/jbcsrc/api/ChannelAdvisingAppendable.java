@@ -0,0 +1,268 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+
+/**
+ * An {@link AdvisingAppendable} that writes UTF-8 encoded bytes to a {@link WritableByteChannel},
+ * typically a non-blocking socket.
+ *
+ * <p>Output is encoded into a fixed number of direct buffers which are written to the channel as
+ * they fill up. {@link #softLimitReached()} reports when the channel isn't keeping up and most of
+ * the buffers are waiting to be written, at which point a render will return a {@link
+ * RenderResult.Type#LIMITED} result. The caller should then wait for the channel to become
+ * writable (e.g. by registering for {@link java.nio.channels.SelectionKey#OP_WRITE}), call {@link
+ * #drain()} and continue the render:
+ *
+ * <pre>{@code
+ * WriteContinuation continuation = renderer.renderHtml(appendable);
+ * while (!continuation.result().isDone()) {
+ *   // ...wait for the channel to be writable, or for the future if the render detached...
+ *   appendable.drain();
+ *   continuation = continuation.continueRender();
+ * }
+ * while (!appendable.finish()) {
+ *   // ...wait for the channel to be writable...
+ * }
+ * }</pre>
+ *
+ * <p>Like all advising appendables the limit is only advisory. Content appended while all the
+ * direct buffers are in use is held in temporary heap buffers, so memory use is bounded by how
+ * far a render can get between checks of the soft limit.
+ *
+ * <p>Unpaired surrogates are written as {@code '?'}, like {@link String#getBytes}.
+ *
+ * <p>This class is not thread safe.
+ */
+public final class ChannelAdvisingAppendable implements AdvisingAppendable {
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+  private static final int DEFAULT_MAX_BUFFERS = 4;
+
+  /** Returns an appendable that writes to the given channel. */
+  public static ChannelAdvisingAppendable create(WritableByteChannel channel) {
+    return new ChannelAdvisingAppendable(channel, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BUFFERS);
+  }
+
+  /**
+   * Returns an appendable that writes to the given channel, using at most {@code maxBuffers}
+   * direct buffers of {@code bufferSize} bytes each.
+   */
+  public static ChannelAdvisingAppendable create(
+      WritableByteChannel channel, int bufferSize, int maxBuffers) {
+    // Leave room for the longest encoding of a single code point.
+    checkArgument(bufferSize >= 4, "bufferSize must be at least 4: %s", bufferSize);
+    checkArgument(maxBuffers >= 2, "maxBuffers must be at least 2: %s", maxBuffers);
+    return new ChannelAdvisingAppendable(channel, bufferSize, maxBuffers);
+  }
+
+  private final WritableByteChannel channel;
+  private final int bufferSize;
+  private final int maxBuffers;
+  /** Buffers that are full, or were drained, and are waiting to be written, in flipped state. */
+  private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+  /** Direct buffers that have been written and can be reused. */
+  private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+  private int allocatedBuffers;
+  /** The buffer being appended to. */
+  private ByteBuffer current;
+  /** A high surrogate from the end of the last append, or 0. */
+  private char pendingHighSurrogate;
+
+  private ChannelAdvisingAppendable(WritableByteChannel channel, int bufferSize, int maxBuffers) {
+    this.channel = checkNotNull(channel);
+    this.bufferSize = bufferSize;
+    this.maxBuffers = maxBuffers;
+    this.current = newBuffer();
+  }
+
+  @Override
+  public ChannelAdvisingAppendable append(CharSequence csq) throws IOException {
+    return append(csq, 0, csq.length());
+  }
+
+  @Override
+  public ChannelAdvisingAppendable append(CharSequence csq, int start, int end) throws IOException {
+    for (int i = start; i < end; i++) {
+      char c = csq.charAt(i);
+      // Most content is ASCII, so write it directly until we need to do something else.
+      if (c < 0x80 && current.hasRemaining() && pendingHighSurrogate == 0) {
+        current.put((byte) c);
+      } else {
+        encode(c);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public ChannelAdvisingAppendable append(char c) throws IOException {
+    encode(c);
+    return this;
+  }
+
+  @Override
+  public ChannelAdvisingAppendable appendUtf8(String text, byte[] utf8) throws IOException {
+    if (pendingHighSurrogate != 0) {
+      writeUnpairedSurrogate();
+    }
+    int offset = 0;
+    while (offset < utf8.length) {
+      if (!current.hasRemaining()) {
+        nextBuffer();
+      }
+      int length = Math.min(current.remaining(), utf8.length - offset);
+      current.put(utf8, offset, length);
+      offset += length;
+    }
+    return this;
+  }
+
+  /**
+   * Returns {@code true} if the channel hasn't kept up with the output and all but one of the
+   * direct buffers are waiting to be written.
+   */
+  @Override
+  public boolean softLimitReached() {
+    return pending.size() >= maxBuffers - 1;
+  }
+
+  /**
+   * Writes as much of the appended content to the channel as it will accept without blocking.
+   *
+   * <p>A trailing high surrogate stays buffered, since it may be completed by the next append.
+   *
+   * @return {@code true} if all the content was written
+   */
+  public boolean drain() throws IOException {
+    if (current.position() > 0) {
+      nextBuffer();
+    } else {
+      writePending();
+    }
+    return pending.isEmpty();
+  }
+
+  /**
+   * Writes as much of the remaining content to the channel as it will accept without blocking.
+   * Call this once rendering is complete, and then {@link #drain()} until all the content has been
+   * written.
+   *
+   * @return {@code true} if all the content was written
+   */
+  public boolean finish() throws IOException {
+    if (pendingHighSurrogate != 0) {
+      writeUnpairedSurrogate();
+    }
+    return drain();
+  }
+
+  /** Returns the number of bytes that have been appended but not yet written to the channel. */
+  public long pendingBytes() {
+    long bytes = current.position();
+    for (ByteBuffer buffer : pending) {
+      bytes += buffer.remaining();
+    }
+    return bytes;
+  }
+
+  private void encode(char c) throws IOException {
+    if (current.remaining() < 4) {
+      nextBuffer();
+    }
+    ByteBuffer buffer = current;
+    if (pendingHighSurrogate != 0) {
+      if (Character.isLowSurrogate(c)) {
+        int codePoint = Character.toCodePoint(pendingHighSurrogate, c);
+        pendingHighSurrogate = 0;
+        buffer.put((byte) (0xF0 | (codePoint >>> 18)));
+        buffer.put((byte) (0x80 | ((codePoint >>> 12) & 0x3F)));
+        buffer.put((byte) (0x80 | ((codePoint >>> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+        return;
+      }
+      writeUnpairedSurrogate();
+    }
+    if (c < 0x80) {
+      buffer.put((byte) c);
+    } else if (c < 0x800) {
+      buffer.put((byte) (0xC0 | (c >>> 6)));
+      buffer.put((byte) (0x80 | (c & 0x3F)));
+    } else if (Character.isHighSurrogate(c)) {
+      pendingHighSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      buffer.put((byte) '?');
+    } else {
+      buffer.put((byte) (0xE0 | (c >>> 12)));
+      buffer.put((byte) (0x80 | ((c >>> 6) & 0x3F)));
+      buffer.put((byte) (0x80 | (c & 0x3F)));
+    }
+  }
+
+  private void writeUnpairedSurrogate() throws IOException {
+    pendingHighSurrogate = 0;
+    if (!current.hasRemaining()) {
+      nextBuffer();
+    }
+    current.put((byte) '?');
+  }
+
+  /** Queues the current buffer to be written, writes what we can and starts a new buffer. */
+  private void nextBuffer() throws IOException {
+    current.flip();
+    pending.add(current);
+    writePending();
+    current = newBuffer();
+  }
+
+  private void writePending() throws IOException {
+    ByteBuffer buffer;
+    while ((buffer = pending.peek()) != null) {
+      channel.write(buffer);
+      if (buffer.hasRemaining()) {
+        // The channel is full.
+        return;
+      }
+      pending.poll();
+      if (buffer.isDirect()) {
+        buffer.clear();
+        free.push(buffer);
+      }
+    }
+  }
+
+  private ByteBuffer newBuffer() {
+    ByteBuffer buffer = free.poll();
+    if (buffer != null) {
+      return buffer;
+    }
+    if (allocatedBuffers < maxBuffers) {
+      allocatedBuffers++;
+      return ByteBuffer.allocateDirect(bufferSize);
+    }
+    // We are over the soft limit and the caller hasn't paused, fall back to a temporary buffer
+    // rather than dropping or blocking.
+    return ByteBuffer.allocate(bufferSize);
+  }
+}
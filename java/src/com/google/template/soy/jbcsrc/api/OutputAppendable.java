@@ -74,6 +74,11 @@ public final class OutputAppendable extends AbstractLoggingAdvisingAppendable {
     outputAppendable.append(c);
   }
 
+  @Override
+  protected void doAppendUtf8(String text, byte[] utf8) throws IOException {
+    outputAppendable.appendUtf8(text, utf8);
+  }
+
   @Override
   protected void doAppendLoggingFunctionInvocation(
       LoggingFunctionInvocation funCall, ImmutableList<Function<String, String>> escapers)
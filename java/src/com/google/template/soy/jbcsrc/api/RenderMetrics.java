@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import com.google.auto.value.AutoValue;
+import java.time.Duration;
+
+/**
+ * Measurements of a single completed render, see {@link
+ * SoySauce.Renderer#setRenderMetricsListener}.
+ */
+@AutoValue
+public abstract class RenderMetrics {
+  /** Receives the metrics for each completed render. */
+  @FunctionalInterface
+  public interface Listener {
+    /**
+     * Called on the rendering thread once a render completes. Renders that throw are not reported.
+     */
+    void onRenderComplete(RenderMetrics metrics);
+  }
+
+  static RenderMetrics create(
+      String templateName,
+      Duration wallTime,
+      Duration renderTime,
+      long outputChars,
+      int detaches,
+      int softLimitPauses,
+      int bufferedRenders) {
+    return new AutoValue_RenderMetrics(
+        templateName,
+        wallTime,
+        renderTime,
+        outputChars,
+        detaches,
+        softLimitPauses,
+        bufferedRenders);
+  }
+
+  /** The template that was rendered. */
+  public abstract String templateName();
+
+  /** The time from starting the render until it completed, including time spent paused. */
+  public abstract Duration wallTime();
+
+  /** The time spent actually rendering, excluding time spent paused. */
+  public abstract Duration renderTime();
+
+  /** The number of characters written to the output. */
+  public abstract long outputChars();
+
+  /** The number of times rendering paused because of an incomplete future. */
+  public abstract int detaches();
+
+  /** The number of times rendering paused because the output reported its soft limit. */
+  public abstract int softLimitPauses();
+
+  /**
+   * The number of calls that were rendered into a buffer rather than streamed, for example because
+   * of a print directive that doesn't support streaming.
+   */
+  public abstract int bufferedRenders();
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.collect.ImmutableSortedMap.toImmutableSortedMap;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Ordering;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link RenderMetrics.Listener} that aggregates metrics per template.
+ *
+ * <p>This is thread safe and cheap enough to share across all the renders in a server.
+ */
+public final class RenderMetricsCollector implements RenderMetrics.Listener {
+  /** The aggregated metrics for a single template. */
+  @AutoValue
+  public abstract static class TemplateMetrics {
+    /** The number of completed renders. */
+    public abstract long renders();
+
+    public abstract Duration totalWallTime();
+
+    public abstract Duration maxWallTime();
+
+    public abstract Duration totalRenderTime();
+
+    public abstract long totalOutputChars();
+
+    public abstract long totalDetaches();
+
+    public abstract long totalSoftLimitPauses();
+
+    public abstract long totalBufferedRenders();
+  }
+
+  private static final class Accumulator {
+    final LongAdder renders = new LongAdder();
+    final LongAdder wallNanos = new LongAdder();
+    final LongAccumulator maxWallNanos = new LongAccumulator(Math::max, 0);
+    final LongAdder renderNanos = new LongAdder();
+    final LongAdder outputChars = new LongAdder();
+    final LongAdder detaches = new LongAdder();
+    final LongAdder softLimitPauses = new LongAdder();
+    final LongAdder bufferedRenders = new LongAdder();
+
+    void add(RenderMetrics metrics) {
+      long wall = metrics.wallTime().toNanos();
+      renders.increment();
+      wallNanos.add(wall);
+      maxWallNanos.accumulate(wall);
+      renderNanos.add(metrics.renderTime().toNanos());
+      outputChars.add(metrics.outputChars());
+      detaches.add(metrics.detaches());
+      softLimitPauses.add(metrics.softLimitPauses());
+      bufferedRenders.add(metrics.bufferedRenders());
+    }
+
+    TemplateMetrics snapshot() {
+      return new AutoValue_RenderMetricsCollector_TemplateMetrics(
+          renders.sum(),
+          Duration.ofNanos(wallNanos.sum()),
+          Duration.ofNanos(maxWallNanos.get()),
+          Duration.ofNanos(renderNanos.sum()),
+          outputChars.sum(),
+          detaches.sum(),
+          softLimitPauses.sum(),
+          bufferedRenders.sum());
+    }
+  }
+
+  private final ConcurrentHashMap<String, Accumulator> templates = new ConcurrentHashMap<>();
+
+  @Override
+  public void onRenderComplete(RenderMetrics metrics) {
+    templates.computeIfAbsent(metrics.templateName(), k -> new Accumulator()).add(metrics);
+  }
+
+  /**
+   * Returns the metrics aggregated so far, keyed by template name.
+   *
+   * <p>Renders that complete concurrently with this call may be partially included.
+   */
+  public ImmutableSortedMap<String, TemplateMetrics> snapshot() {
+    return templates.entrySet().stream()
+        .collect(
+            toImmutableSortedMap(
+                Ordering.natural(), e -> e.getKey(), e -> e.getValue().snapshot()));
+  }
+
+  /** Discards everything collected so far. */
+  public void reset() {
+    templates.clear();
+  }
+}
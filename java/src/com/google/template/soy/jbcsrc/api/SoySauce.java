@@ -38,6 +38,9 @@ import com.google.template.soy.shared.SoyCssTracker;
 import com.google.template.soy.shared.SoyIdRenamingMap;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -186,6 +189,47 @@ public interface SoySauce {
     @CanIgnoreReturnValue
     Renderer setCssTracker(SoyCssTracker cssTracker);
 
+    /**
+     * Configures a listener to receive the {@link RenderMetrics} of each render that completes.
+     * Metrics are only gathered while a listener is set.
+     *
+     * <p>See {@link RenderMetricsCollector} for a listener that aggregates metrics per template.
+     */
+    @CanIgnoreReturnValue
+    Renderer setRenderMetricsListener(RenderMetrics.Listener listener);
+
+    /**
+     * Configures whether rendering waits for incomplete futures in the template data rather than
+     * detaching.
+     *
+     * <p>By default, a render that needs the value of an incomplete future saves its state and
+     * returns a continuation so the caller can resume it later. When blocking, the rendering thread
+     * instead waits for the future where its value is needed, which avoids the cost of saving and
+     * restoring the render state. This is a good fit for renders running on threads that are cheap
+     * to block, such as virtual threads.
+     *
+     * <p>Blocking renders never return a {@link RenderResult.Type#DETACH} continuation. When the
+     * {@link AdvisingAppendable#softLimitReached() soft limit} of the output is reached, they wait
+     * for the output as configured by {@link #setOutputReady}, or otherwise return a {@link
+     * RenderResult.Type#LIMITED} continuation that keeps blocking on futures when continued.
+     *
+     * <p>The default is set by {@link SoySauceBuilder#withBlockOnFutures}.
+     */
+    @CanIgnoreReturnValue
+    Renderer setBlockOnFutures(boolean blockOnFutures);
+
+    /**
+     * Configures how {@linkplain #setBlockOnFutures blocking} renders wait for the output once its
+     * {@link AdvisingAppendable#softLimitReached() soft limit} is reached. The render calls {@code
+     * outputReady} and waits for the future it returns, e.g. one that completes once the output was
+     * flushed, before continuing on the same thread.
+     *
+     * <p>This has no effect on non-blocking renders, which return a {@link
+     * RenderResult.Type#LIMITED} continuation instead.
+     */
+    @CanIgnoreReturnValue
+    Renderer setOutputReady(Supplier<? extends Future<?>> outputReady);
+
     /**
      * Renders the configured html template to the given appendable, returning a continuation (more
      * details below). Verifies that the content type is {@link ContentKind.HTML} (corresponding to
@@ -253,6 +297,44 @@ public interface SoySauce {
     @CheckReturnValue
     Continuation<SanitizedContent> renderHtml();
 
+    /**
+     * Renders the configured html template to the given appendable, returning a future that
+     * completes when rendering is done. Verifies that the content type is {@link ContentKind.HTML}
+     * (corresponding to kind="html" in the template).
+     *
+     * <p>Rendering starts on the calling thread. Whenever it pauses on an incomplete {@code Future}
+     * it is resumed on the {@code executor} once that future completes, so a render waiting on data
+     * doesn't occupy a thread. This works best when the futures passed as template data are {@link
+     * com.google.common.util.concurrent.ListenableFuture ListenableFutures} or {@link
+     * java.util.concurrent.CompletionStage CompletionStages}, since waiting for a plain {@code
+     * Future} occupies an executor thread.
+     *
+     * <p>If the appendable reports that its {@link AdvisingAppendable#softLimitReached() soft limit}
+     * was reached, {@code outputReady} is called and the render is resumed on the {@code executor}
+     * once the future it returns completes, e.g. once the output was flushed. The same caveats
+     * apply to this future as to the ones in the template data.
+     *
+     * <p>If rendering fails, e.g. because the appendable threw an {@link IOException}, the future
+     * fails with the same exception. Cancelling the future stops rendering the next time it would
+     * be resumed.
+     */
+    @CheckReturnValue
+    default CompletableFuture<Void> renderHtmlAsync(
+        AdvisingAppendable out, Executor executor, Supplier<? extends Future<?>> outputReady) {
+      return AsyncRender.render(() -> renderHtml(out), executor, outputReady);
+    }
+
+    /**
+     * Renders the configured html template to a {@link SanitizedContent}, returning a future that
+     * completes when rendering is done.
+     *
+     * <p>See {@link #renderHtmlAsync(AdvisingAppendable, Executor, Supplier)} for more details.
+     */
+    @CheckReturnValue
+    default CompletableFuture<SanitizedContent> renderHtmlAsync(Executor executor) {
+      return AsyncRender.renderValue(this::renderHtml, executor);
+    }
+
     /**
      * Renders the configured js template to the given appendable, returning a continuation.
      *
@@ -465,6 +547,32 @@ public interface SoySauce {
      */
     @CheckReturnValue
     Continuation<String> renderText();
+
+    /**
+     * Renders the configured template to the given appendable, returning a future that completes
+     * when rendering is done.
+     *
+     * <p>This method does not verify the template {@link ContentKind}, since any template can be
+     * rendered as text.
+     *
+     * <p>See {@link #renderHtmlAsync(AdvisingAppendable, Executor, Supplier)} for more details.
+     */
+    @CheckReturnValue
+    default CompletableFuture<Void> renderTextAsync(
+        AdvisingAppendable out, Executor executor, Supplier<? extends Future<?>> outputReady) {
+      return AsyncRender.render(() -> renderText(out), executor, outputReady);
+    }
+
+    /**
+     * Renders the configured template to a {@link String}, returning a future that completes when
+     * rendering is done.
+     *
+     * <p>See {@link #renderHtmlAsync(AdvisingAppendable, Executor, Supplier)} for more details.
+     */
+    @CheckReturnValue
+    default CompletableFuture<String> renderTextAsync(Executor executor) {
+      return AsyncRender.renderValue(this::renderText, executor);
+    }
   }
 
   /**
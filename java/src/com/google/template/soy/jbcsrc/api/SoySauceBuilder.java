@@ -16,8 +16,11 @@
 
 package com.google.template.soy.jbcsrc.api;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
@@ -34,17 +37,41 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.time.Duration;
 import java.util.Enumeration;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
 
 /** Constructs {@link SoySauce} implementations. */
 public final class SoySauceBuilder {
+  /** Describes the work done by {@link #withWarmup}. */
+  @AutoValue
+  public abstract static class WarmupStats {
+    static WarmupStats create(int templateCount, Duration duration) {
+      return new AutoValue_SoySauceBuilder_WarmupStats(templateCount, duration);
+    }
+
+    /** The number of templates that were loaded, including transitive callees. */
+    public abstract int templateCount();
+
+    /** How long it took to load them. */
+    public abstract Duration duration();
+  }
+
   private ImmutableList<SoyFunction> userFunctions = ImmutableList.of();
   private ImmutableList<SoyPrintDirective> userDirectives = ImmutableList.of();
   private PluginInstances userPluginInstances = PluginInstances.empty();
   private CompiledTemplates.Factory compiledTemplatesFactory = CompiledTemplates::new;
   private ClassLoader loader;
+  // null means all templates
+  @Nullable private ImmutableSet<String> warmupTemplates;
+  @Nullable private Executor warmupExecutor;
+  private Consumer<? super WarmupStats> warmupListener;
+  private boolean blockOnFutures;
+  @Nullable private TemplateOutputCache outputCache;
 
   public SoySauceBuilder() {}
 
@@ -83,6 +110,56 @@ public final class SoySauceBuilder {
     return this;
   }
 
+  /**
+   * Loads and links every compiled template on the classpath when the SoySauce is built, so that
+   * the first render of each template doesn't have to.
+   *
+   * <p>Templates are found via a listing that the compiler writes into each jar. Loading is spread
+   * across {@code executor} and {@link #build} blocks until it completes, then passes timing
+   * information to {@code listener}.
+   */
+  @CanIgnoreReturnValue
+  public SoySauceBuilder withWarmup(Executor executor, Consumer<? super WarmupStats> listener) {
+    this.warmupTemplates = null;
+    this.warmupExecutor = checkNotNull(executor);
+    this.warmupListener = checkNotNull(listener);
+    return this;
+  }
+
+  /**
+   * Like {@link #withWarmup(Executor, Consumer)} but only loads the given templates and the
+   * templates that they may call.
+   */
+  @CanIgnoreReturnValue
+  public SoySauceBuilder withWarmup(
+      Iterable<String> templateNames, Executor executor, Consumer<? super WarmupStats> listener) {
+    this.warmupTemplates = ImmutableSet.copyOf(templateNames);
+    this.warmupExecutor = checkNotNull(executor);
+    this.warmupListener = checkNotNull(listener);
+    return this;
+  }
+
+  /**
+   * Makes renderers wait for incomplete futures in the template data rather than detaching, see
+   * {@link SoySauce.Renderer#setBlockOnFutures}.
+   */
+  @CanIgnoreReturnValue
+  public SoySauceBuilder withBlockOnFutures() {
+    this.blockOnFutures = true;
+    return this;
+  }
+
+  /**
+   * Caches the output of memoizable templates in the given cache, see {@link TemplateOutputCache}.
+   *
+   * <p>The cache may be shared by several SoySauce instances built from the same templates.
+   */
+  @CanIgnoreReturnValue
+  public SoySauceBuilder withTemplateOutputCache(TemplateOutputCache outputCache) {
+    this.outputCache = checkNotNull(outputCache);
+    return this;
+  }
+
   /** Sets the user functions. */
   @CanIgnoreReturnValue
   SoySauceBuilder withFunctions(
@@ -116,8 +193,13 @@ public final class SoySauceBuilder {
     if (loader == null) {
       loader = SoySauceBuilder.class.getClassLoader();
     }
+    ImmutableSet<String> delTemplates = readMetaInf(loader, Names.META_INF_DELTEMPLATE_PATH);
+    CompiledTemplates templates = compiledTemplatesFactory.create(delTemplates, loader);
+    if (warmupExecutor != null) {
+      warmup(templates, delTemplates);
+    }
     return new SoySauceImpl(
-        compiledTemplatesFactory.create(readDelTemplatesFromMetaInf(loader), loader),
+        templates,
         scopedData.enterable(),
         userFunctions, // We don't need internal functions because they only matter at compile time
         ImmutableList.<SoyPrintDirective>builder()
@@ -126,15 +208,31 @@ public final class SoySauceBuilder {
             .addAll(InternalPlugins.internalDirectives(scopedData))
             .addAll(userDirectives)
             .build(),
-        userPluginInstances);
+        userPluginInstances,
+        blockOnFutures,
+        outputCache);
+  }
+
+  private void warmup(CompiledTemplates templates, ImmutableSet<String> delTemplates) {
+    Stopwatch timer = Stopwatch.createStarted();
+    ImmutableSet<String> toLoad = warmupTemplates;
+    if (toLoad == null) {
+      toLoad =
+          ImmutableSet.<String>builder()
+              .addAll(readMetaInf(loader, Names.META_INF_TEMPLATE_PATH))
+              .addAll(delTemplates)
+              .build();
+    }
+    int templateCount = templates.preload(toLoad, warmupExecutor);
+    warmupListener.accept(WarmupStats.create(templateCount, timer.elapsed()));
   }
 
-  /** Walks all resources with the META_INF_DELTEMPLATE_PATH and collects the deltemplates. */
-  private static ImmutableSet<String> readDelTemplatesFromMetaInf(ClassLoader loader) {
+  /** Walks all resources with the given path and collects their lines. */
+  private static ImmutableSet<String> readMetaInf(ClassLoader loader, String path) {
     URL url = null;
     try {
       ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-      Enumeration<URL> resources = loader.getResources(Names.META_INF_DELTEMPLATE_PATH);
+      Enumeration<URL> resources = loader.getResources(path);
       while (resources.hasMoreElements()) {
         url = resources.nextElement();
         try (InputStream in = url.openStream()) {
@@ -146,7 +244,7 @@ public final class SoySauceBuilder {
       }
       return builder.build();
     } catch (IOException iox) {
-      throw new RuntimeException("Unable to read deltemplate listing in " + url, iox);
+      throw new RuntimeException("Unable to read template listing in " + url, iox);
     }
   }
 }
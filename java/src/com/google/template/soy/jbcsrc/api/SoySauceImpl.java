@@ -28,11 +28,13 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 import com.google.template.soy.data.RecordProperty;
 import com.google.template.soy.data.SanitizedContent;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
+import com.google.template.soy.data.SoyFutureValueProvider;
 import com.google.template.soy.data.SoyTemplate;
 import com.google.template.soy.data.SoyTemplateData;
 import com.google.template.soy.data.SoyValueConverter;
@@ -57,8 +59,12 @@ import com.google.template.soy.shared.restricted.SoyJavaFunction;
 import com.google.template.soy.shared.restricted.SoyJavaPrintDirective;
 import com.google.template.soy.shared.restricted.SoyPrintDirective;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -70,6 +76,8 @@ public final class SoySauceImpl implements SoySauce {
   private final SoyScopedData.Enterable apiCallScope;
   private final PluginInstances pluginInstances;
   private final ImmutableMap<String, SoyJavaPrintDirective> printDirectives;
+  private final boolean blockOnFutures;
+  @Nullable private final TemplateOutputCache outputCache;
 
   public SoySauceImpl(
       CompiledTemplates templates,
@@ -77,7 +85,31 @@ public final class SoySauceImpl implements SoySauce {
       ImmutableList<? extends SoyFunction> functions,
       ImmutableList<? extends SoyPrintDirective> printDirectives,
       PluginInstances pluginInstances) {
+    this(
+        templates,
+        apiCallScope,
+        functions,
+        printDirectives,
+        pluginInstances,
+        /* blockOnFutures= */ false,
+        /* outputCache= */ null);
+  }
+
+  /**
+   * @param blockOnFutures the default for {@link Renderer#setBlockOnFutures} for all renderers
+   * @param outputCache the cache for the output of memoizable templates, if any
+   */
+  public SoySauceImpl(
+      CompiledTemplates templates,
+      SoyScopedData.Enterable apiCallScope,
+      ImmutableList<? extends SoyFunction> functions,
+      ImmutableList<? extends SoyPrintDirective> printDirectives,
+      PluginInstances pluginInstances,
+      boolean blockOnFutures,
+      @Nullable TemplateOutputCache outputCache) {
     this.templates = checkNotNull(templates);
+    this.blockOnFutures = blockOnFutures;
+    this.outputCache = outputCache;
     this.apiCallScope = checkNotNull(apiCallScope);
     ImmutableMap.Builder<String, Supplier<Object>> pluginInstanceBuilder = ImmutableMap.builder();
 
@@ -168,11 +200,15 @@ public final class SoySauceImpl implements SoySauce {
     private final CompiledTemplate template;
     private final ContentKind contentKind;
     private final RenderContext.Builder contextBuilder =
-        new RenderContext.Builder(templates, printDirectives, SoySauceImpl.this.pluginInstances);
+        new RenderContext.Builder(templates, printDirectives, SoySauceImpl.this.pluginInstances)
+            .withOutputCache(outputCache);
 
     private ParamStore data;
     private ParamStore ij;
     private boolean dataSetInConstructor;
+    @Nullable private RenderMetrics.Listener metricsListener;
+    private boolean blockOnFutures = SoySauceImpl.this.blockOnFutures;
+    @Nullable private Supplier<? extends Future<?>> outputReady;
 
     RendererImpl(
         String templateName,
@@ -288,6 +324,27 @@ public final class SoySauceImpl implements SoySauce {
       return this;
     }
 
+    @CanIgnoreReturnValue
+    @Override
+    public RendererImpl setRenderMetricsListener(RenderMetrics.Listener listener) {
+      this.metricsListener = checkNotNull(listener);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public RendererImpl setBlockOnFutures(boolean blockOnFutures) {
+      this.blockOnFutures = blockOnFutures;
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public RendererImpl setOutputReady(Supplier<? extends Future<?>> outputReady) {
+      this.outputReady = checkNotNull(outputReady);
+      return this;
+    }
+
     @Override
     public WriteContinuation renderHtml(AdvisingAppendable out) throws IOException {
       return startRender(out, ContentKind.HTML);
@@ -381,10 +438,20 @@ public final class SoySauceImpl implements SoySauce {
       ParamStore params = data == null ? ParamStore.EMPTY_INSTANCE : data;
       ParamStore injectedParams = ij == null ? ParamStore.EMPTY_INSTANCE : ij;
       RenderContext context = contextBuilder.build();
+      MetricsTracker metrics = null;
+      if (metricsListener != null) {
+        metrics = new MetricsTracker(templateName, metricsListener, context, out);
+        out = metrics.output;
+      }
       OutputAppendable output = OutputAppendable.create(out, context.getLogger());
       RendererClosure renderer = () -> template.render(params, injectedParams, output, context);
 
-      return doRender(renderer, new Scoper(apiCallScope, context.getBidiGlobalDir()));
+      Scoper scoper = new Scoper(apiCallScope, context.getBidiGlobalDir());
+      if (blockOnFutures) {
+        MetricsTracker blockingMetrics = metrics;
+        return doBlockingRender(() -> doRender(renderer, scoper, blockingMetrics), outputReady);
+      }
+      return doRender(renderer, scoper, metrics);
     }
 
     private void enforceContentKind(ContentKind expectedContentKind) {
@@ -410,8 +477,10 @@ public final class SoySauceImpl implements SoySauce {
     RenderResult render() throws IOException;
   }
 
-  private static WriteContinuation doRender(RendererClosure renderer, Scoper scoper)
+  private static WriteContinuation doRender(
+      RendererClosure renderer, Scoper scoper, @Nullable MetricsTracker metrics)
       throws IOException {
+    long startNanos = metrics != null ? System.nanoTime() : 0;
     RenderResult result;
     try (SoyScopedData.InScope scope = scoper.enter()) {
       result = renderer.render();
@@ -420,10 +489,170 @@ public final class SoySauceImpl implements SoySauce {
       Throwables.throwIfInstanceOf(t, IOException.class);
       throw t;
     }
+    if (metrics != null) {
+      metrics.onRenderResult(result, System.nanoTime() - startNanos);
+    }
     if (result.isDone()) {
       return Continuations.done();
     }
-    return new WriteContinuationImpl(result, renderer, scoper);
+    return new WriteContinuationImpl(result, renderer, scoper, metrics);
+  }
+
+  /** Starts or continues a render. */
+  @FunctionalInterface
+  private interface RenderStep {
+    WriteContinuation render() throws IOException;
+  }
+
+  /**
+   * Renders on the current thread until the render completes or its output reaches the soft limit
+   * and there is no {@code outputReady} to wait for. Futures wrapped by {@link
+   * SoyFutureValueProvider} are waited for where they are needed, so the render never saves and
+   * restores its state for them. Anything else that detaches, such as a future returned by a
+   * plugin, is waited for here.
+   */
+  private static WriteContinuation doBlockingRender(
+      RenderStep step, @Nullable Supplier<? extends Future<?>> outputReady) throws IOException {
+    boolean wasBlocking = SoyFutureValueProvider.blockInStatus.get();
+    SoyFutureValueProvider.blockInStatus.set(true);
+    try {
+      WriteContinuation continuation = step.render();
+      while (!continuation.result().isDone()) {
+        RenderResult result = continuation.result();
+        if (result.type() == RenderResult.Type.DETACH) {
+          try {
+            Uninterruptibles.getUninterruptibly(result.future());
+          } catch (ExecutionException | CancellationException e) {
+            // The render will report the failure when it resolves the value.
+          }
+        } else if (outputReady == null) {
+          // Let the caller wait for the output, the render keeps blocking once it is continued.
+          return new BlockingContinuation(continuation);
+        } else {
+          try {
+            Uninterruptibles.getUninterruptibly(outputReady.get());
+          } catch (ExecutionException e) {
+            throw new IOException("Failed waiting for the output", e.getCause());
+          }
+        }
+        continuation = continuation.continueRender();
+      }
+      return continuation;
+    } finally {
+      SoyFutureValueProvider.blockInStatus.set(wasBlocking);
+    }
+  }
+
+  /** A {@link RenderResult.Type#LIMITED} blocking render, which keeps blocking when continued. */
+  private static final class BlockingContinuation implements WriteContinuation {
+    final WriteContinuation delegate;
+
+    BlockingContinuation(WriteContinuation delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public RenderResult result() {
+      return delegate.result();
+    }
+
+    @Override
+    public WriteContinuation continueRender() throws IOException {
+      return doBlockingRender(delegate::continueRender, /* outputReady= */ null);
+    }
+  }
+
+  /** Gathers the {@link RenderMetrics} for a single render across all of its continuations. */
+  private static final class MetricsTracker {
+    final String templateName;
+    final RenderMetrics.Listener listener;
+    final RenderContext context;
+    final CountingAppendable output;
+    final long startNanos = System.nanoTime();
+    long renderNanos;
+    int detaches;
+    int softLimitPauses;
+
+    MetricsTracker(
+        String templateName,
+        RenderMetrics.Listener listener,
+        RenderContext context,
+        AdvisingAppendable output) {
+      this.templateName = templateName;
+      this.listener = listener;
+      this.context = context;
+      this.output = new CountingAppendable(output);
+    }
+
+    void onRenderResult(RenderResult result, long elapsedNanos) {
+      renderNanos += elapsedNanos;
+      switch (result.type()) {
+        case DETACH:
+          detaches++;
+          break;
+        case LIMITED:
+          softLimitPauses++;
+          break;
+        case DONE:
+          listener.onRenderComplete(
+              RenderMetrics.create(
+                  templateName,
+                  Duration.ofNanos(System.nanoTime() - startNanos),
+                  Duration.ofNanos(renderNanos),
+                  output.count,
+                  detaches,
+                  softLimitPauses,
+                  context.getBufferedRenderCount()));
+          break;
+      }
+    }
+  }
+
+  /** An {@link AdvisingAppendable} that counts the characters written to it. */
+  private static final class CountingAppendable implements AdvisingAppendable {
+    final AdvisingAppendable delegate;
+    long count;
+
+    CountingAppendable(AdvisingAppendable delegate) {
+      this.delegate = delegate;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable append(CharSequence csq) throws IOException {
+      count += csq.length();
+      delegate.append(csq);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable append(CharSequence csq, int start, int end) throws IOException {
+      count += end - start;
+      delegate.append(csq, start, end);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable append(char c) throws IOException {
+      count++;
+      delegate.append(c);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable appendUtf8(String text, byte[] utf8) throws IOException {
+      count += text.length();
+      delegate.appendUtf8(text, utf8);
+      return this;
+    }
+
+    @Override
+    public boolean softLimitReached() {
+      return delegate.softLimitReached();
+    }
   }
 
   private static final class WriteContinuationImpl implements WriteContinuation {
@@ -436,14 +665,23 @@ public final class SoySauceImpl implements SoySauce {
     @GuardedBy("lock")
     final RendererClosure renderer;
 
+    @GuardedBy("lock")
+    @Nullable
+    final MetricsTracker metrics;
+
     @GuardedBy("lock")
     boolean hasContinueBeenCalled;
 
-    WriteContinuationImpl(RenderResult result, RendererClosure renderer, Scoper scoper) {
+    WriteContinuationImpl(
+        RenderResult result,
+        RendererClosure renderer,
+        Scoper scoper,
+        @Nullable MetricsTracker metrics) {
       checkArgument(!result.isDone());
       this.result = checkNotNull(result);
       this.renderer = checkNotNull(renderer);
       this.scoper = checkNotNull(scoper);
+      this.metrics = metrics;
     }
 
     @Override
@@ -458,7 +696,7 @@ public final class SoySauceImpl implements SoySauce {
           throw new IllegalStateException("continueRender() has already been called.");
         }
         hasContinueBeenCalled = true;
-        return doRender(renderer, scoper);
+        return doRender(renderer, scoper, metrics);
       }
     }
   }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.template.soy.data.SoyValue;
+import javax.annotation.Nullable;
+
+/**
+ * A cache of the output of memoizable templates, shared by all renders of a {@link SoySauce}.
+ *
+ * <p>The compiler identifies templates whose output only depends on their parameters: templates
+ * that only take strings, numbers, booleans and sanitized content, and which don't reference
+ * injected data, messages, css or xid renaming, logging or plugins that need the render context.
+ * When a cache is configured with {@link SoySauceBuilder#withTemplateOutputCache}, calls to these
+ * templates with the same parameters replay the content rendered by an earlier call instead of
+ * executing the template again.
+ *
+ * <p>Since the output doesn't depend on the render, one cache can be used for all locales and
+ * renaming maps. It is bypassed when rendering debug template info, and when a call is made
+ * before all its parameters are available.
+ *
+ * <p>This class is thread safe.
+ */
+public final class TemplateOutputCache {
+
+  /** Returns a cache that holds the output of at most {@code maximumSize} calls. */
+  public static TemplateOutputCache create(long maximumSize) {
+    checkArgument(maximumSize > 0, "maximumSize must be positive: %s", maximumSize);
+    return new TemplateOutputCache(
+        CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build());
+  }
+
+  private final Cache<Object, SoyValue> cache;
+
+  private TemplateOutputCache(Cache<Object, SoyValue> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Returns the content rendered for the given call, if any.
+   *
+   * <p>Please treat this as superpackage-private for Soy internals.
+   */
+  @Nullable
+  public SoyValue get(Object key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Stores the content rendered for the given call.
+   *
+   * <p>Please treat this as superpackage-private for Soy internals.
+   */
+  public void put(Object key, SoyValue content) {
+    cache.put(key, content);
+  }
+
+  /** Discards all the cached output. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** Returns the number of calls currently in the cache. */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Returns hit, miss and eviction statistics for this cache. Only {@link CacheStats#hitCount},
+   * {@link CacheStats#missCount} and {@link CacheStats#evictionCount} (and values derived from
+   * them, like {@link CacheStats#hitRate}) are meaningful, since the cache doesn't load values
+   * itself.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link AdvisingAppendable} that writes UTF-8 encoded bytes to an {@link OutputStream}.
+ *
+ * <p>The raw text of templates is copied from encodings computed once per template, and all other
+ * content is encoded directly into an internal buffer, so rendering to this avoids both
+ * re-encoding constant text on every render and any intermediate {@code String} or {@code char[]}
+ * buffers.
+ *
+ * <p>Output is buffered, so {@link #flush} or {@link #close} must be called once rendering is
+ * complete. Unpaired surrogates are written as {@code '?'}, like {@link String#getBytes}.
+ *
+ * <p>This class is not thread safe.
+ */
+public final class Utf8AdvisingAppendable implements AdvisingAppendable, Flushable, Closeable {
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  /** Returns an appendable that writes to the given stream. */
+  public static Utf8AdvisingAppendable create(OutputStream out) {
+    return new Utf8AdvisingAppendable(out, DEFAULT_BUFFER_SIZE);
+  }
+
+  /** Returns an appendable that writes to the given stream, buffering up to {@code bufferSize}. */
+  public static Utf8AdvisingAppendable create(OutputStream out, int bufferSize) {
+    // Leave room for the longest encoding of a single code point.
+    checkArgument(bufferSize >= 4, "bufferSize must be at least 4: %s", bufferSize);
+    return new Utf8AdvisingAppendable(out, bufferSize);
+  }
+
+  private final OutputStream out;
+  private final byte[] buffer;
+  private int position;
+  /** A high surrogate from the end of the last append, or 0. */
+  private char pendingHighSurrogate;
+
+  private Utf8AdvisingAppendable(OutputStream out, int bufferSize) {
+    this.out = checkNotNull(out);
+    this.buffer = new byte[bufferSize];
+  }
+
+  @Override
+  public Utf8AdvisingAppendable append(CharSequence csq) throws IOException {
+    return append(csq, 0, csq.length());
+  }
+
+  @Override
+  public Utf8AdvisingAppendable append(CharSequence csq, int start, int end) throws IOException {
+    byte[] buffer = this.buffer;
+    int position = this.position;
+    for (int i = start; i < end; i++) {
+      char c = csq.charAt(i);
+      // Most content is ASCII, so write it directly until we need to do something else.
+      if (c < 0x80 && position < buffer.length && pendingHighSurrogate == 0) {
+        buffer[position++] = (byte) c;
+      } else {
+        this.position = position;
+        encode(c);
+        position = this.position;
+      }
+    }
+    this.position = position;
+    return this;
+  }
+
+  @Override
+  public Utf8AdvisingAppendable append(char c) throws IOException {
+    encode(c);
+    return this;
+  }
+
+  @Override
+  public Utf8AdvisingAppendable appendUtf8(String text, byte[] utf8) throws IOException {
+    if (pendingHighSurrogate != 0) {
+      writeUnpairedSurrogate();
+    }
+    if (utf8.length > buffer.length - position) {
+      flushBuffer();
+      if (utf8.length > buffer.length) {
+        out.write(utf8);
+        return this;
+      }
+    }
+    System.arraycopy(utf8, 0, buffer, position, utf8.length);
+    position += utf8.length;
+    return this;
+  }
+
+  /** Returns {@code false}, the stream is expected to block if it needs to apply back-pressure. */
+  @Override
+  public boolean softLimitReached() {
+    return false;
+  }
+
+  /**
+   * Writes all the buffered bytes to the stream and flushes it. A trailing high surrogate stays
+   * buffered, since it may be completed by the next append.
+   */
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+    out.flush();
+  }
+
+  /** Writes all the buffered bytes to the stream and closes it. */
+  @Override
+  public void close() throws IOException {
+    if (pendingHighSurrogate != 0) {
+      writeUnpairedSurrogate();
+    }
+    flushBuffer();
+    out.close();
+  }
+
+  private void encode(char c) throws IOException {
+    if (buffer.length - position < 4) {
+      flushBuffer();
+    }
+    if (pendingHighSurrogate != 0) {
+      if (Character.isLowSurrogate(c)) {
+        int codePoint = Character.toCodePoint(pendingHighSurrogate, c);
+        pendingHighSurrogate = 0;
+        buffer[position++] = (byte) (0xF0 | (codePoint >>> 18));
+        buffer[position++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3F));
+        buffer[position++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        return;
+      }
+      writeUnpairedSurrogate();
+    }
+    if (c < 0x80) {
+      buffer[position++] = (byte) c;
+    } else if (c < 0x800) {
+      buffer[position++] = (byte) (0xC0 | (c >>> 6));
+      buffer[position++] = (byte) (0x80 | (c & 0x3F));
+    } else if (Character.isHighSurrogate(c)) {
+      pendingHighSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      buffer[position++] = '?';
+    } else {
+      buffer[position++] = (byte) (0xE0 | (c >>> 12));
+      buffer[position++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+      buffer[position++] = (byte) (0x80 | (c & 0x3F));
+    }
+  }
+
+  private void writeUnpairedSurrogate() throws IOException {
+    pendingHighSurrogate = 0;
+    if (position == buffer.length) {
+      flushBuffer();
+    }
+    buffer[position++] = '?';
+  }
+
+  private void flushBuffer() throws IOException {
+    if (position > 0) {
+      out.write(buffer, 0, position);
+      position = 0;
+    }
+  }
+}
@@ -51,6 +51,7 @@ import com.google.template.soy.data.SoyVisualElement;
 import com.google.template.soy.data.SoyVisualElementData;
 import com.google.template.soy.data.TemplateValue;
 import com.google.template.soy.data.internal.Converters;
+import com.google.template.soy.data.internal.ParamLayout;
 import com.google.template.soy.data.internal.ParamStore;
 import com.google.template.soy.data.internal.SoyMapImpl;
 import com.google.template.soy.data.internal.SoyRecordImpl;
@@ -153,6 +154,7 @@ public final class BytecodeUtils {
   public static final Type RENDER_CONTEXT_TYPE = Type.getType(RenderContext.class);
   public static final Type RENDER_RESULT_TYPE = Type.getType(RenderResult.class);
   public static final Type PARAM_STORE_TYPE = Type.getType(ParamStore.class);
+  public static final Type PARAM_LAYOUT_TYPE = Type.getType(ParamLayout.class);
   public static final Type STRING_TYPE = Type.getType(String.class);
   public static final Type THROWABLE_TYPE = Type.getType(Throwable.class);
   public static final Type ILLEGAL_STATE_EXCEPTION_TYPE = Type.getType(IllegalStateException.class);
@@ -191,6 +193,16 @@ public final class BytecodeUtils {
               String[].class)
           .asHandle();
 
+  private static final Handle UTF8_CONSTANT_HANDLE =
+      MethodRef.createPure(
+              ExtraConstantBootstraps.class,
+              "constantUtf8",
+              MethodHandles.Lookup.class,
+              String.class,
+              Class.class,
+              String[].class)
+          .asHandle();
+
   private static final Handle NULL_CONSTANT_HANDLE =
       MethodRef.createPure(
               ConstantBootstraps.class,
@@ -256,6 +268,16 @@ public final class BytecodeUtils {
               Object[].class)
           .asHandle();
 
+  private static final Handle CONSTANT_PARAM_LAYOUT =
+      MethodRef.createPure(
+              ExtraConstantBootstraps.class,
+              "constantParamLayout",
+              MethodHandles.Lookup.class,
+              String.class,
+              Class.class,
+              String[].class)
+          .asHandle();
+
   private static final Handle CONSTANT_RECORD_HANDLE =
       MethodRef.createPure(
               ExtraConstantBootstraps.class,
@@ -498,6 +520,48 @@ public final class BytecodeUtils {
 
   /** Returns an {@link Expression} that can load the given String constant. */
   public static Expression constant(String value) {
+    List<String> stringConstants = splitStringConstant(value);
+    if (stringConstants.size() == 1) {
+      String basicString = stringConstants.get(0);
+      return new Expression(
+          STRING_TYPE,
+          Expression.ConstantValue.raw(basicString, STRING_TYPE),
+          Features.of(Feature.CHEAP, Feature.NON_JAVA_NULLABLE)) {
+        @Override
+        protected void doGen(CodeBuilder mv) {
+          mv.visitLdcInsn(basicString);
+        }
+      };
+    }
+    return constant(
+        STRING_TYPE,
+        new ConstantDynamic(
+            "largeString",
+            STRING_TYPE.getDescriptor(),
+            LARGE_STRING_CONSTANT_HANDLE,
+            stringConstants.toArray()),
+        Feature.NON_JAVA_NULLABLE.asFeatures());
+  }
+
+  /**
+   * Returns an {@link Expression} that can load the UTF-8 encoding of the given String constant as
+   * a {@code byte[]}. The array is computed once and shared, so it must not be modified.
+   */
+  public static Expression constantUtf8(String value) {
+    // The bytes are encoded when the constant is linked, so the class only needs to store the
+    // string, which is usually shared with the constant for the string itself.
+    return constant(
+        Type.getType(byte[].class),
+        new ConstantDynamic(
+            "utf8",
+            Type.getDescriptor(byte[].class),
+            UTF8_CONSTANT_HANDLE,
+            splitStringConstant(value).toArray()),
+        Feature.NON_JAVA_NULLABLE.asFeatures());
+  }
+
+  /** Splits the string into parts that can each be stored in the constant pool. */
+  private static List<String> splitStringConstant(String value) {
     // string constants use a "modified UTF8" encoding
     // https://en.wikipedia.org/wiki/UTF-8#Modified_UTF-8
     // and are limited by the classfile format to contain no more than 65535 bytes
@@ -531,26 +595,7 @@ public final class BytecodeUtils {
       index++;
     }
     stringConstants.add(value.substring(previousStart));
-    if (stringConstants.size() == 1) {
-      String basicString = stringConstants.get(0);
-      return new Expression(
-          STRING_TYPE,
-          Expression.ConstantValue.raw(basicString, STRING_TYPE),
-          Features.of(Feature.CHEAP, Feature.NON_JAVA_NULLABLE)) {
-        @Override
-        protected void doGen(CodeBuilder mv) {
-          mv.visitLdcInsn(basicString);
-        }
-      };
-    }
-    return constant(
-        STRING_TYPE,
-        new ConstantDynamic(
-            "largeString",
-            STRING_TYPE.getDescriptor(),
-            LARGE_STRING_CONSTANT_HANDLE,
-            stringConstants.toArray()),
-        Feature.NON_JAVA_NULLABLE.asFeatures());
+    return stringConstants;
   }
 
   /** Returns an {@link Expression} that evaluates to the given ContentKind, or null. */
@@ -580,6 +625,18 @@ public final class BytecodeUtils {
         Features.of(Feature.NON_JAVA_NULLABLE, Feature.CHEAP));
   }
 
+  /** Returns an {@link Expression} that evaluates to the interned layout for the given params. */
+  public static Expression constantParamLayout(List<String> params) {
+    return constant(
+        PARAM_LAYOUT_TYPE,
+        new ConstantDynamic(
+            "paramLayout",
+            PARAM_LAYOUT_TYPE.getDescriptor(),
+            CONSTANT_PARAM_LAYOUT,
+            params.toArray()),
+        Features.of(Feature.NON_JAVA_NULLABLE, Feature.CHEAP));
+  }
+
   /**
    * Returns an {@link Expression} that evaluates to the {@link ContentKind} value that is
    * equivalent to the given {@link SanitizedContentKind}.
@@ -982,18 +1039,42 @@ public final class BytecodeUtils {
    */
   public static Expression newParamStore(
       Optional<Expression> baseStore, Map<String, Expression> params) {
+    return newParamStore(baseStore, params, Optional.empty());
+  }
+
+  /**
+   * Construct a ParamStore for calling a template whose declared params are {@code layout}, so the
+   * callee can look them up by slot.
+   *
+   * <p>The values in the params map must either be `SoyValueProvider` expressions or be
+   * SoyExpression instances that can be trivially coerced to SoyValueProvider
+   */
+  public static Expression newParamStore(
+      Optional<Expression> baseStore,
+      Map<String, Expression> params,
+      Optional<ImmutableList<String>> layout) {
     baseStore.ifPresent(e -> e.checkAssignableTo(BytecodeUtils.PARAM_STORE_TYPE));
     if (params.isEmpty()) {
       return baseStore.orElse(FieldRef.EMPTY_PARAMS.accessor());
     }
+    // Only use the layout if we are setting some of the declared params, otherwise the callee will
+    // find them all in the base store.
+    Optional<Expression> layoutExpr =
+        layout
+            .filter(names -> names.stream().anyMatch(params::containsKey))
+            .map(BytecodeUtils::constantParamLayout);
     // NOTE: we can always represent
     if (Expression.areAllConstant(params.values())
         && baseStore.map(Expression::isConstant).orElse(true)) {
-      Object[] constantArgs = new Object[params.size() * 2 + (baseStore.isPresent() ? 1 : 0)];
+      int prefixArgs = (baseStore.isPresent() ? 1 : 0) + (layoutExpr.isPresent() ? 1 : 0);
+      Object[] constantArgs = new Object[prefixArgs + params.size() * 2];
       int i = 0;
       if (baseStore.isPresent()) {
         constantArgs[i++] = baseStore.get().constantBytecodeValue();
       }
+      if (layoutExpr.isPresent()) {
+        constantArgs[i++] = layoutExpr.get().constantBytecodeValue();
+      }
       for (var entry : params.entrySet()) {
         // We could pass constantRecordSymbol(entry.getKey()).constantBytecodeValue() but it is more
         // efficient to invoke one bulk bootstrap method than a lot of little ones.  Caching within
@@ -1010,10 +1091,21 @@ public final class BytecodeUtils {
               constantArgs),
           Features.of(Feature.NON_JAVA_NULLABLE, Feature.NON_SOY_NULLISH));
     }
-    var paramStore =
-        baseStore.isPresent()
-            ? MethodRefs.PARAM_STORE_AUGMENT.invoke(baseStore.get(), constant(params.size()))
-            : MethodRefs.PARAM_STORE_SIZE.invoke(constant(params.size()));
+    Expression paramStore;
+    if (layoutExpr.isPresent()) {
+      int undeclaredParams =
+          (int) params.keySet().stream().filter(name -> !layout.get().contains(name)).count();
+      paramStore =
+          MethodRefs.PARAM_STORE_LAYOUT.invoke(
+              baseStore.orElse(constantNull(BytecodeUtils.PARAM_STORE_TYPE)),
+              layoutExpr.get(),
+              constant(undeclaredParams));
+    } else {
+      paramStore =
+          baseStore.isPresent()
+              ? MethodRefs.PARAM_STORE_AUGMENT.invoke(baseStore.get(), constant(params.size()))
+              : MethodRefs.PARAM_STORE_SIZE.invoke(constant(params.size()));
+    }
 
     for (var entry : params.entrySet()) {
       var value = entry.getValue();
@@ -1023,8 +1115,9 @@ public final class BytecodeUtils {
       var key = constantRecordProperty(entry.getKey());
       paramStore = paramStore.invoke(MethodRefs.PARAM_STORE_SET_FIELD, key, value);
     }
-
-    return paramStore;
+    // Freeze the store so that callees passing it along with data="all" can reference it rather
+    // than copy it.
+    return paramStore.invoke(MethodRefs.PARAM_STORE_FREEZE);
   }
 
   public static Expression newImmutableMap(
@@ -1049,7 +1142,9 @@ public final class BytecodeUtils {
             : MethodRefs.IMMUTABLE_MAP_BUILDER_BUILD_OR_THROW);
   }
 
-  private static Expression asArray(Type arrayType, ImmutableList<? extends Expression> elements) {
+  /** Returns an expression that returns a new array containing all the given items. */
+  public static Expression asArray(
+      Type arrayType, ImmutableList<? extends Expression> elements) {
     Type elementType = arrayType.getElementType();
     return new Expression(arrayType, Feature.NON_JAVA_NULLABLE.asFeatures()) {
       @Override
@@ -49,6 +49,7 @@ import com.google.template.soy.data.internal.DictImpl;
 import com.google.template.soy.data.internal.LazyProtoToSoyValueList;
 import com.google.template.soy.data.internal.LazyProtoToSoyValueMap;
 import com.google.template.soy.data.internal.ListImpl;
+import com.google.template.soy.data.internal.ParamLayout;
 import com.google.template.soy.data.internal.ParamStore;
 import com.google.template.soy.data.internal.RuntimeMapTypeTracker;
 import com.google.template.soy.data.internal.SoyMapImpl;
@@ -258,6 +259,7 @@ public final class MethodRefs {
 
   public static final MethodRef PARAM_STORE_SET_FIELD =
       createNonPure(ParamStore.class, "setField", RecordProperty.class, SoyValueProvider.class);
+  public static final MethodRef PARAM_STORE_FREEZE = createNonPure(ParamStore.class, "freeze");
   public static final MethodRef PARAM_STORE_FROM_RECORD =
       createPure(ParamStore.class, "fromRecord", SoyRecord.class);
 
@@ -360,6 +362,19 @@ public final class MethodRefs {
           RecordProperty.class,
           SoyValue.class);
 
+  public static final MethodRef RUNTIME_GET_PARAMETER_SLOT =
+      createPure(
+          JbcSrcRuntime.class, "getParameter", ParamStore.class, ParamLayout.class, int.class);
+
+  public static final MethodRef RUNTIME_GET_PARAMETER_SLOT_DEFAULT =
+      createPure(
+          JbcSrcRuntime.class,
+          "getParameter",
+          ParamStore.class,
+          ParamLayout.class,
+          int.class,
+          SoyValue.class);
+
   public static final MethodRef RUNTIME_PARAM_OR_DEFAULT =
       createPure(JbcSrcRuntime.class, "paramOrDefault", SoyValueProvider.class, SoyValue.class)
           .asCheap();
@@ -655,6 +670,8 @@ public final class MethodRefs {
       createNonPureConstructor(LinkedHashMap.class, int.class);
   public static final MethodRef PARAM_STORE_AUGMENT =
       createPureConstructor(ParamStore.class, ParamStore.class, int.class);
+  public static final MethodRef PARAM_STORE_LAYOUT =
+      createPureConstructor(ParamStore.class, ParamStore.class, ParamLayout.class, int.class);
   public static final MethodRef PARAM_STORE_SIZE =
       createPureConstructor(ParamStore.class, int.class);
   public static final MethodRef SOY_RECORD_IMPL =
@@ -40,6 +40,33 @@ import javax.annotation.Nullable;
  */
 public abstract class DetachableContentProvider implements SoyValueProvider {
 
+  /**
+   * The rendering logic of a lazy content block. The compiler implements this with a static method
+   * of the template class, so that we don't need to generate a subclass for every block.
+   */
+  @FunctionalInterface
+  public interface Renderer {
+    RenderResult render(LoggingAdvisingAppendable appendable) throws IOException;
+  }
+
+  /** Returns a provider that renders its content by calling the given renderer. */
+  public static DetachableContentProvider create(Renderer renderer) {
+    return new RendererContentProvider(renderer);
+  }
+
+  private static final class RendererContentProvider extends DetachableContentProvider {
+    private final Renderer renderer;
+
+    RendererContentProvider(Renderer renderer) {
+      this.renderer = renderer;
+    }
+
+    @Override
+    protected RenderResult doRender(LoggingAdvisingAppendable appendable) throws IOException {
+      return renderer.render(appendable);
+    }
+  }
+
   // Will be either a SanitizedContent or a StringData.
   private SoyValue resolvedValue;
   private BufferingAppendable buffer;
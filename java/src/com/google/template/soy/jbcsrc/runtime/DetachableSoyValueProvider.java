@@ -34,8 +34,46 @@ import java.io.IOException;
  * {@link DetachableSoyValueProviderProvider} instead.
  */
 public abstract class DetachableSoyValueProvider implements SoyValueProvider {
+
+  /**
+   * The resolution logic of a lazy expression. The compiler implements this with a static method of
+   * the template class, so that we don't need to generate a subclass for every expression.
+   */
+  @FunctionalInterface
+  public interface Resolver {
+    /**
+     * Resolves the value of {@code provider}, by returning the result of {@link #resolveTo} or a
+     * result explaining why the value isn't available yet.
+     */
+    RenderResult resolve(DetachableSoyValueProvider provider);
+  }
+
+  /** Returns a provider that resolves its value by calling the given resolver. */
+  public static DetachableSoyValueProvider create(Resolver resolver) {
+    return new ResolverValueProvider(resolver);
+  }
+
+  private static final class ResolverValueProvider extends DetachableSoyValueProvider {
+    private final Resolver resolver;
+
+    ResolverValueProvider(Resolver resolver) {
+      this.resolver = resolver;
+    }
+
+    @Override
+    protected RenderResult doResolve() {
+      return resolver.resolve(this);
+    }
+  }
+
   protected SoyValue resolvedValue;
 
+  /** Stores the resolved value, for use by {@link Resolver} implementations. */
+  public final RenderResult resolveTo(SoyValue value) {
+    resolvedValue = value;
+    return RenderResult.done();
+  }
+
   @Override
   public final SoyValue resolve() {
     JbcSrcRuntime.awaitProvider(this);
@@ -34,8 +34,47 @@ import java.io.IOException;
  * SoyValue#render}.
  */
 public abstract class DetachableSoyValueProviderProvider implements SoyValueProvider {
+
+  /**
+   * The resolution logic of a lazy expression. The compiler implements this with a static method of
+   * the template class, so that we don't need to generate a subclass for every expression.
+   */
+  @FunctionalInterface
+  public interface Resolver {
+    /**
+     * Resolves the delegate of {@code provider}, by returning the result of {@link #resolveTo} or a
+     * result explaining why the delegate isn't available yet.
+     */
+    RenderResult resolve(DetachableSoyValueProviderProvider provider);
+  }
+
+  /** Returns a provider that resolves its delegate by calling the given resolver. */
+  public static DetachableSoyValueProviderProvider create(Resolver resolver) {
+    return new ResolverValueProviderProvider(resolver);
+  }
+
+  private static final class ResolverValueProviderProvider
+      extends DetachableSoyValueProviderProvider {
+    private final Resolver resolver;
+
+    ResolverValueProviderProvider(Resolver resolver) {
+      this.resolver = resolver;
+    }
+
+    @Override
+    protected RenderResult doResolveDelegate() {
+      return resolver.resolve(this);
+    }
+  }
+
   protected SoyValueProvider resolvedValueProvider = null;
 
+  /** Stores the resolved delegate, for use by {@link Resolver} implementations. */
+  public final RenderResult resolveTo(SoyValueProvider provider) {
+    resolvedValueProvider = provider;
+    return RenderResult.done();
+  }
+
   @Override
   public final SoyValue resolve() {
     JbcSrcRuntime.awaitProvider(this);
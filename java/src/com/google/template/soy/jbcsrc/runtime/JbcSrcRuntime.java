@@ -53,6 +53,7 @@ import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.SoyVisualElementData;
 import com.google.template.soy.data.TemplateValue;
 import com.google.template.soy.data.internal.LazyProtoToSoyValueList;
+import com.google.template.soy.data.internal.ParamLayout;
 import com.google.template.soy.data.internal.ParamStore;
 import com.google.template.soy.data.restricted.NullData;
 import com.google.template.soy.data.restricted.NumberData;
@@ -178,6 +179,20 @@ public final class JbcSrcRuntime {
         paramStore.getFieldProvider(field), /* defaultValue= */ NullData.INSTANCE);
   }
 
+  @Keep
+  @Nonnull
+  public static SoyValueProvider getParameter(
+      ParamStore paramStore, ParamLayout layout, int slot, SoyValue defaultValue) {
+    return paramOrDefault(paramStore.getFieldProvider(layout, slot), defaultValue);
+  }
+
+  @Keep
+  @Nonnull
+  public static SoyValueProvider getParameter(ParamStore paramStore, ParamLayout layout, int slot) {
+    return paramOrDefault(
+        paramStore.getFieldProvider(layout, slot), /* defaultValue= */ NullData.INSTANCE);
+  }
+
   /**
    * Interprets a passed parameter. Handling tofu null and reinterpreting null as MISSING_PARAMETER
    */
@@ -394,7 +409,8 @@ public final class JbcSrcRuntime {
       return this;
     }
 
-    static String escapeHtml(String s) {
+    /** Escapes a raw text part of a message for an HTML context. */
+    public static String escapeHtml(String s) {
       // Note that "&" is not replaced because the translation can contain HTML entities.
       return s.replace("<", "&lt;");
     }
@@ -853,6 +869,7 @@ public final class JbcSrcRuntime {
       switch (frame.stateNumber) {
         case 0:
           buffer = LoggingAdvisingAppendable.buffering();
+          context.recordBufferedRender();
           break;
         case 1:
           try {
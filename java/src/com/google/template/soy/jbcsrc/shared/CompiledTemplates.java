@@ -23,10 +23,14 @@ import static java.lang.invoke.MethodType.methodType;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.errorprone.annotations.concurrent.LazyInit;
 import com.google.template.soy.data.LoggingAdvisingAppendable;
 import com.google.template.soy.data.RecordProperty;
@@ -41,12 +45,17 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import javax.annotation.Nullable;
@@ -236,6 +245,73 @@ public class CompiledTemplates {
     return selectedTemplate.template();
   }
 
+  /**
+   * Eagerly loads, initializes and links the given templates and all the templates they may call,
+   * so that the first render of each one doesn't pay for class loading and method handle
+   * resolution.
+   *
+   * <p>Templates are loaded concurrently on {@code executor}, this blocks until they are all
+   * loaded. Errors loading any template are propagated.
+   *
+   * @return the number of templates that were loaded
+   */
+  public int preload(Iterable<String> templateNames, Executor executor) {
+    Set<String> seen = new HashSet<>();
+    List<String> toLoad = new ArrayList<>();
+    for (String name : templateNames) {
+      if (seen.add(name)) {
+        toLoad.add(name);
+      }
+    }
+    // Load the call graph one level at a time, since we only know the callees of a template once
+    // it has been loaded.
+    while (!toLoad.isEmpty()) {
+      List<ListenableFuture<TemplateData>> loading = new ArrayList<>(toLoad.size());
+      for (String name : toLoad) {
+        loading.add(Futures.submit(() -> preloadTemplate(name), executor));
+      }
+      toLoad = new ArrayList<>();
+      for (TemplateData data : getDone(Futures.allAsList(loading))) {
+        for (String callee : data.callees) {
+          if (seen.add(callee)) {
+            toLoad.add(callee);
+          }
+        }
+        for (String delCallee : data.delCallees) {
+          for (TemplateData potentialCallee : selector.delTemplateNameToValues().get(delCallee)) {
+            if (seen.add(potentialCallee.soyTemplateName)) {
+              toLoad.add(potentialCallee.soyTemplateName);
+            }
+          }
+        }
+      }
+    }
+    return seen.size();
+  }
+
+  private TemplateData preloadTemplate(String name) {
+    TemplateData data = getTemplateData(name);
+    // Private templates are only ever called directly from their own class, so there is nothing to
+    // link.
+    if (Modifier.isPublic(data.templateMethod.getModifiers())) {
+      data.template();
+      data.renderMethod();
+      if (data.positionalParameters.isPresent()) {
+        data.positionalRenderMethod(data.positionalParameters.get().size());
+      }
+    }
+    return data;
+  }
+
+  private static <T> T getDone(ListenableFuture<T> future) {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
   private static final Splitter HASH_SPLITTER = Splitter.on('#');
 
   /**
@@ -17,6 +17,7 @@ package com.google.template.soy.jbcsrc.shared;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.lang.invoke.MethodType.methodType;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.stream;
 
 import com.google.common.collect.ImmutableList;
@@ -25,6 +26,7 @@ import com.google.errorprone.annotations.Keep;
 import com.google.template.soy.data.RecordProperty;
 import com.google.template.soy.data.SoyValue;
 import com.google.template.soy.data.SoyValueConverter;
+import com.google.template.soy.data.internal.ParamLayout;
 import com.google.template.soy.data.internal.ParamStore;
 import com.google.template.soy.data.internal.SoyMapImpl;
 import com.google.template.soy.data.internal.SoyRecordImpl;
@@ -90,16 +92,18 @@ public final class ExtraConstantBootstraps {
   }
 
   private static ParamStore asParams(Object... keyValuePairs) {
-    ParamStore params;
     int i = 0;
-    // If there are an odd number of kvps it is because the first one is actually a 'base'
-    // paramstore that we are extending.
-    if (keyValuePairs.length % 2 == 1) {
-      params = new ParamStore((ParamStore) keyValuePairs[0], (keyValuePairs.length - 1) / 2);
-      i = 1;
-    } else {
-      params = new ParamStore(keyValuePairs.length / 2);
+    // The key value pairs may be preceded by a 'base' paramstore that we are extending and by the
+    // layout of the template the params are for.
+    ParamStore base = null;
+    if (i < keyValuePairs.length && keyValuePairs[i] instanceof ParamStore) {
+      base = (ParamStore) keyValuePairs[i++];
     }
+    ParamLayout layout = null;
+    if (i < keyValuePairs.length && keyValuePairs[i] instanceof ParamLayout) {
+      layout = (ParamLayout) keyValuePairs[i++];
+    }
+    ParamStore params = new ParamStore(base, layout, (keyValuePairs.length - i) / 2);
     for (; i < keyValuePairs.length; i += 2) {
       params.setField(
           RecordProperty.get((String) keyValuePairs[i]),
@@ -108,6 +112,19 @@ public final class ExtraConstantBootstraps {
     return params.freeze();
   }
 
+  /** Returns the UTF-8 encoding of the concatenation of {@code parts}. */
+  @Keep
+  public static byte[] constantUtf8(
+      MethodHandles.Lookup lookup, String name, Class<?> type, String... parts) {
+    return String.join("", parts).getBytes(UTF_8);
+  }
+
+  @Keep
+  public static ParamLayout constantParamLayout(
+      MethodHandles.Lookup lookup, String name, Class<?> type, String... params) {
+    return ParamLayout.of(params);
+  }
+
   @Keep
   public static RecordProperty symbol(MethodHandles.Lookup lookup, String name, Class<?> type) {
     return RecordProperty.get(name);
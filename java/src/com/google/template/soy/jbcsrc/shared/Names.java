@@ -31,7 +31,7 @@ import org.objectweb.asm.Type;
  * files. These utilities are shared between the compiler and the runtime system.
  */
 public final class Names {
-  // Note: This and the plugin path below write into META-INF/services even though they aren't
+  // Note: This and the other paths below write into META-INF/services even though they aren't
   // services, because the surrounding tools already merge data in META-INF/services files.
   // (The tools do *not* merge other files in META-INF, which is why we hijack the services dir.)
   public static final String META_INF_DELTEMPLATE_PATH =
@@ -40,6 +40,9 @@ public final class Names {
   public static final String META_INF_PLUGIN_PATH =
       "META-INF/services/com.google.template.soy.plugins";
 
+  public static final String META_INF_TEMPLATE_PATH =
+      "META-INF/services/com.google.template.soy.templates";
+
   static final String CLASS_PREFIX = "com.google.template.soy.jbcsrc.gen.";
   public static final String INTERNAL_CLASS_PREFIX = CLASS_PREFIX.replace('.', '/');
 
@@ -25,12 +25,20 @@ import com.google.common.collect.ImmutableMap;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.template.soy.data.Dir;
 import com.google.template.soy.data.LoggingAdvisingAppendable;
+import com.google.template.soy.data.LoggingAdvisingAppendable.BufferingAppendable;
+import com.google.template.soy.data.SanitizedContent;
+import com.google.template.soy.data.SanitizedContent.ContentKind;
 import com.google.template.soy.data.SoyValue;
 import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.internal.ParamStore;
+import com.google.template.soy.data.restricted.BooleanData;
+import com.google.template.soy.data.restricted.FloatData;
+import com.google.template.soy.data.restricted.IntegerData;
+import com.google.template.soy.data.restricted.NullishData;
 import com.google.template.soy.data.restricted.StringData;
 import com.google.template.soy.internal.i18n.BidiGlobalDir;
 import com.google.template.soy.jbcsrc.api.RenderResult;
+import com.google.template.soy.jbcsrc.api.TemplateOutputCache;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates.TemplateData;
 import com.google.template.soy.logging.LoggableElementMetadata;
 import com.google.template.soy.logging.SoyLogger;
@@ -45,6 +53,7 @@ import com.google.template.soy.shared.SoyIdRenamingMap;
 import com.google.template.soy.shared.restricted.SoyJavaPrintDirective;
 import com.ibm.icu.util.ULocale;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.IdentityHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -83,6 +92,12 @@ public final class RenderContext {
 
   private final boolean debugSoyTemplateInfo;
   private final SoyLogger logger;
+  @Nullable private final TemplateOutputCache outputCache;
+
+  // The call that is being rendered into a buffer to be stored in the output cache, see
+  // beginCachedRender.  Memoizable templates don't call other templates, so there can only be one.
+  @Nullable private Object pendingOutputKey;
+  @Nullable private LoggingAdvisingAppendable pendingOutputAppendable;
 
   // This stores the stack frame for restoring state after a detach operation.  It is initialised to
   // a special state 0 that represents the first call to any detachable method.
@@ -91,6 +106,9 @@ public final class RenderContext {
   // as such doesn't appear to be an improvement over using our 'god object'.
   private StackFrame topFrame = StackFrame.INIT;
 
+  // The number of calls that were rendered into a buffer instead of streamed, for render metrics.
+  private int bufferedRenderCount;
+
   private RenderContext(
       CompiledTemplates templates,
       ImmutableMap<String, SoyJavaPrintDirective> soyJavaDirectivesMap,
@@ -101,7 +119,8 @@ public final class RenderContext {
       @Nullable SoyMsgBundle msgBundle,
       boolean debugSoyTemplateInfo,
       @Nullable SoyLogger logger,
-      @Nullable SoyCssTracker cssTracker) {
+      @Nullable SoyCssTracker cssTracker,
+      @Nullable TemplateOutputCache outputCache) {
     this.templates = templates;
     this.soyJavaDirectivesMap = soyJavaDirectivesMap;
     this.pluginInstances = pluginInstances;
@@ -112,6 +131,7 @@ public final class RenderContext {
     this.debugSoyTemplateInfo = debugSoyTemplateInfo;
     this.logger = logger == null ? SoyLogger.NO_OP : logger;
     this.cssTracker = cssTracker;
+    this.outputCache = outputCache;
   }
 
   @Nullable
@@ -253,9 +273,8 @@ public final class RenderContext {
   /** Returns {@code true} if the primary msg should be used instead of the fallback. */
   public boolean usePrimaryMsgIfFallback(long msgId, long fallbackId) {
     // Note: we need to make sure the fallback msg is actually present if we are going to fallback.
-    // use getMsgParts() since if the bundle is a RenderOnlySoyMsgBundleImpl then this will be
-    // allocation free.
-    return !msgBundle.getMsgParts(msgId).isEmpty() || msgBundle.getMsgParts(fallbackId).isEmpty();
+    // Use hasMsg() since it is fast and allocation free, unlike fetching the parts.
+    return msgBundle.hasMsg(msgId) || !msgBundle.hasMsg(fallbackId);
   }
 
   /**
@@ -263,11 +282,10 @@ public final class RenderContext {
    */
   public boolean usePrimaryOrAlternateIfFallback(long msgId, long alternateId, long fallbackId) {
     // Note: we need to make sure the fallback msg is actually present if we are going to fallback.
-    // use getMsgParts() since if the bundle is a RenderOnlySoyMsgBundleImpl then this will be
-    // allocation free.
-    return !msgBundle.getMsgParts(msgId).isEmpty()
-        || !msgBundle.getMsgParts(alternateId).isEmpty()
-        || msgBundle.getMsgParts(fallbackId).isEmpty();
+    // Use hasMsg() since it is fast and allocation free, unlike fetching the parts.
+    return msgBundle.hasMsg(msgId)
+        || msgBundle.hasMsg(alternateId)
+        || !msgBundle.hasMsg(fallbackId);
   }
 
   /**
@@ -277,11 +295,9 @@ public final class RenderContext {
   public boolean usePrimaryIfFallbackOrFallbackAlternate(
       long msgId, long fallbackId, long fallbackAlternateId) {
     // Note: we need to make sure the fallback msg is actually present if we are going to fallback.
-    // use getMsgParts() since if the bundle is a RenderOnlySoyMsgBundleImpl then this will be
-    // allocation free.
-    return !msgBundle.getMsgParts(msgId).isEmpty()
-        || (msgBundle.getMsgParts(fallbackId).isEmpty()
-            && msgBundle.getMsgParts(fallbackAlternateId).isEmpty());
+    // Use hasMsg() since it is fast and allocation free, unlike fetching the parts.
+    return msgBundle.hasMsg(msgId)
+        || (!msgBundle.hasMsg(fallbackId) && !msgBundle.hasMsg(fallbackAlternateId));
   }
 
   /**
@@ -291,12 +307,10 @@ public final class RenderContext {
   public boolean usePrimaryOrAlternateIfFallbackOrFallbackAlternate(
       long msgId, long alternateId, long fallbackId, long fallbackAlternateId) {
     // Note: we need to make sure the fallback msg is actually present if we are going to fallback.
-    // use getMsgParts() since if the bundle is a RenderOnlySoyMsgBundleImpl then this will be
-    // allocation free.
-    return !msgBundle.getMsgParts(msgId).isEmpty()
-        || !msgBundle.getMsgParts(alternateId).isEmpty()
-        || (msgBundle.getMsgParts(fallbackId).isEmpty()
-            && msgBundle.getMsgParts(fallbackAlternateId).isEmpty());
+    // Use hasMsg() since it is fast and allocation free, unlike fetching the parts.
+    return msgBundle.hasMsg(msgId)
+        || msgBundle.hasMsg(alternateId)
+        || (!msgBundle.hasMsg(fallbackId) && !msgBundle.hasMsg(fallbackAlternateId));
   }
 
   /**
@@ -393,6 +407,147 @@ public final class RenderContext {
     }
   }
 
+  /** Records that a call had to be rendered into a buffer instead of streamed to the output. */
+  public void recordBufferedRender() {
+    bufferedRenderCount++;
+  }
+
+  /** Returns the number of calls that had to be rendered into a buffer during this render. */
+  public int getBufferedRenderCount() {
+    return bufferedRenderCount;
+  }
+
+  /** Returns whether calls to memoizable templates should use the output cache. */
+  public boolean hasOutputCache() {
+    return outputCache != null && !debugSoyTemplateInfo;
+  }
+
+  /**
+   * Called at the start of a memoizable template, returns the appendable the template should render
+   * to or {@code null} if the output of an equivalent call was replayed from the cache.
+   *
+   * <p>The cache is bypassed if the template is being resumed after detaching, or if any of the
+   * params aren't resolved yet or aren't simple values.
+   */
+  @Nullable
+  public LoggingAdvisingAppendable beginCachedRender(
+      String template, SoyValueProvider[] params, LoggingAdvisingAppendable appendable)
+      throws IOException {
+    pendingOutputKey = null;
+    pendingOutputAppendable = null;
+    if (topFrame != StackFrame.INIT) {
+      return appendable;
+    }
+    Object[] keyParts = new Object[params.length + 1];
+    keyParts[0] = template;
+    for (int i = 0; i < params.length; i++) {
+      Object keyPart = toKeyPart(params[i]);
+      if (keyPart == null) {
+        return appendable;
+      }
+      keyParts[i + 1] = keyPart;
+    }
+    OutputKey key = new OutputKey(keyParts);
+    SoyValue content = outputCache.get(key);
+    if (content != null) {
+      replay(content, appendable);
+      return null;
+    }
+    pendingOutputKey = key;
+    pendingOutputAppendable = appendable;
+    return LoggingAdvisingAppendable.buffering();
+  }
+
+  /**
+   * Called at the end of a memoizable template with the result of rendering to the appendable
+   * returned by {@link #beginCachedRender}. If that was a buffer then the content is cached and
+   * replayed to the original appendable.
+   */
+  public RenderResult endCachedRender(LoggingAdvisingAppendable output, RenderResult result)
+      throws IOException {
+    Object key = pendingOutputKey;
+    if (key == null) {
+      return result;
+    }
+    LoggingAdvisingAppendable appendable = pendingOutputAppendable;
+    pendingOutputKey = null;
+    pendingOutputAppendable = null;
+    // All the params were resolved and memoizable templates have no other reason to detach.
+    Preconditions.checkState(result.isDone(), "memoizable template unexpectedly detached");
+    SoyValue content = ((BufferingAppendable) output).getAsSoyValue();
+    outputCache.put(key, content);
+    replay(content, appendable);
+    return result;
+  }
+
+  private static final Object ABSENT = new Object();
+
+  /**
+   * Returns an object with a value based {@code equals} that distinguishes everything that renders
+   * differently, or {@code null} if the param doesn't have one.
+   */
+  @Nullable
+  private static Object toKeyPart(@Nullable SoyValueProvider param) {
+    if (param == null) {
+      return ABSENT;
+    }
+    if (!param.status().isDone()) {
+      return null;
+    }
+    SoyValue value = param.resolve();
+    if (value == null) {
+      return ABSENT;
+    }
+    if (value instanceof StringData) {
+      return value.stringValue();
+    }
+    if (value instanceof IntegerData) {
+      return value.longValue();
+    }
+    if (value instanceof FloatData) {
+      // Unlike FloatData.equals, this distinguishes 0.0 and -0.0.
+      return value.floatValue();
+    }
+    if (value instanceof BooleanData) {
+      return value.booleanValue();
+    }
+    if (value instanceof SanitizedContent || value instanceof NullishData) {
+      return value;
+    }
+    return null;
+  }
+
+  private static void replay(SoyValue content, LoggingAdvisingAppendable appendable)
+      throws IOException {
+    if (content instanceof SanitizedContent) {
+      content.render(appendable);
+    } else {
+      appendable.setKindAndDirectionality(ContentKind.TEXT).append(content.stringValue());
+    }
+  }
+
+  private static final class OutputKey {
+    final Object[] parts;
+    final int hashCode;
+
+    OutputKey(Object[] parts) {
+      this.parts = parts;
+      this.hashCode = Arrays.hashCode(parts);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof OutputKey
+          && hashCode == ((OutputKey) other).hashCode
+          && Arrays.equals(parts, ((OutputKey) other).parts);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
   /**
    * Save the contents of the frame into the stack.
    *
@@ -427,7 +582,8 @@ public final class RenderContext {
         .withPluginInstances(pluginInstances)
         .withCssRenamingMap(cssRenamingMap)
         .withXidRenamingMap(xidRenamingMap)
-        .withMessageBundle(msgBundle);
+        .withMessageBundle(msgBundle)
+        .withOutputCache(outputCache);
   }
 
   /** A builder for configuring the context. */
@@ -442,6 +598,7 @@ public final class RenderContext {
     private boolean debugSoyTemplateInfo;
     private SoyLogger logger;
     private SoyCssTracker cssTracker;
+    private TemplateOutputCache outputCache;
 
     public Builder(
         CompiledTemplates templates,
@@ -500,6 +657,12 @@ public final class RenderContext {
       return this;
     }
 
+    @CanIgnoreReturnValue
+    public Builder withOutputCache(@Nullable TemplateOutputCache outputCache) {
+      this.outputCache = outputCache;
+      return this;
+    }
+
     public RenderContext build() {
       return new RenderContext(
           templates,
@@ -511,7 +674,8 @@ public final class RenderContext {
           msgBundle,
           debugSoyTemplateInfo,
           logger,
-          cssTracker);
+          cssTracker,
+          outputCache);
     }
   }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.template.soy.msgs.restricted.SoyMsg;
+import com.google.template.soy.msgs.restricted.SoyMsgBundleCompactor;
+import com.google.template.soy.msgs.restricted.SoyMsgPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralPart;
+import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
+import com.google.template.soy.msgs.restricted.SoyMsgSelectPart;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * A {@link SoyMsgBundleLoader} that only loads the bundle of a locale when it is first requested.
+ *
+ * <p>Bundles are read with a {@link SoyMsgBundleHandler} and compacted with a {@link
+ * SoyMsgBundleCompactor}, which is shared by all locales so that identical parts are only stored
+ * once. The default compactor only references parts weakly, so the parts of evicted locales can be
+ * garbage collected. The loader can be bounded by the approximate memory used by the loaded
+ * bundles, in which case the least recently used locales are evicted first and reloaded when they
+ * are requested again.
+ *
+ * <p>The loader is safe for concurrent use, concurrent requests for a locale only load it once.
+ */
+public final class LazySoyMsgBundleLoader implements SoyMsgBundleLoader {
+  /** A loaded bundle along with its approximate size. */
+  private static final class LoadedBundle {
+    final SoyMsgBundle bundle;
+
+    final int size;
+
+    LoadedBundle(SoyMsgBundle bundle, int size) {
+      this.bundle = bundle;
+      this.size = size;
+    }
+  }
+
+  /** Builder for a {@link LazySoyMsgBundleLoader}. */
+  public static final class Builder {
+    private final SoyMsgBundleHandler handler;
+    private final Function<Locale, Optional<URL>> resourceForLocale;
+    private SoyMsgBundleCompactor compactor;
+    private long maximumResidentBytes = -1;
+
+    private Builder(
+        SoyMsgBundleHandler handler, Function<Locale, Optional<URL>> resourceForLocale) {
+      this.handler = checkNotNull(handler);
+      this.resourceForLocale = checkNotNull(resourceForLocale);
+    }
+
+    /**
+     * Bounds the loader to hold bundles of at most the given approximate size in total. The size of
+     * a bundle is estimated from its messages, and doesn't account for parts shared with other
+     * bundles, so this is an upper bound of the memory retained by the loader.
+     */
+    @CanIgnoreReturnValue
+    public Builder maximumResidentBytes(long maximumResidentBytes) {
+      checkArgument(maximumResidentBytes >= 0, "maximumResidentBytes must be non-negative");
+      this.maximumResidentBytes = maximumResidentBytes;
+      return this;
+    }
+
+    /**
+     * Sets the compactor used to compact the loaded bundles. This can be used to share parts with
+     * bundles loaded by other means. By default each loader has its own {@linkplain
+     * SoyMsgBundleCompactor#newWeakCompactor weak compactor}.
+     *
+     * <p>A compactor created with the {@link SoyMsgBundleCompactor#SoyMsgBundleCompactor()
+     * constructor} retains every part it compacts, including the parts of evicted locales, so the
+     * memory retained is no longer bounded by {@link #maximumResidentBytes}.
+     */
+    @CanIgnoreReturnValue
+    public Builder compactor(SoyMsgBundleCompactor compactor) {
+      this.compactor = checkNotNull(compactor);
+      return this;
+    }
+
+    public LazySoyMsgBundleLoader build() {
+      return new LazySoyMsgBundleLoader(this);
+    }
+  }
+
+  /**
+   * Returns a builder for a loader that reads bundles with {@code handler}.
+   *
+   * @param resourceForLocale Returns the translated messages resource to use for a locale, or
+   *     empty if the locale has no translations and {@link SoyMsgBundle#EMPTY} should be used.
+   */
+  public static Builder builder(
+      SoyMsgBundleHandler handler, Function<Locale, Optional<URL>> resourceForLocale) {
+    return new Builder(handler, resourceForLocale);
+  }
+
+  private final SoyMsgBundleHandler handler;
+  private final Function<Locale, Optional<URL>> resourceForLocale;
+  private final SoyMsgBundleCompactor compactor;
+  private final LoadingCache<Locale, LoadedBundle> cache;
+
+  private LazySoyMsgBundleLoader(Builder builder) {
+    this.handler = builder.handler;
+    this.resourceForLocale = builder.resourceForLocale;
+    this.compactor =
+        builder.compactor == null ? SoyMsgBundleCompactor.newWeakCompactor() : builder.compactor;
+    CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().recordStats();
+    if (builder.maximumResidentBytes != -1) {
+      // A single segment, so the budget and the eviction order apply to all locales rather than
+      // to each segment. Locales are loaded rarely, so contention on writes isn't a concern.
+      cacheBuilder
+          .concurrencyLevel(1)
+          .maximumWeight(builder.maximumResidentBytes)
+          .<Locale, LoadedBundle>weigher((locale, loaded) -> loaded.size);
+    }
+    this.cache =
+        cacheBuilder.build(
+            new CacheLoader<Locale, LoadedBundle>() {
+              @Override
+              public LoadedBundle load(Locale locale) throws IOException {
+                return loadBundle(locale);
+              }
+            });
+  }
+
+  /**
+   * Returns the bundle for {@code locale}, loading it if it isn't resident.
+   *
+   * @throws UncheckedIOException If there's an error while reading the messages resource.
+   * @throws SoyMsgException If there's an error while processing the messages.
+   */
+  @Override
+  public SoyMsgBundle getSoyMsgBundleForLocale(Locale locale) {
+    try {
+      return cache.getUnchecked(locale).bundle;
+    } catch (UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      if (e.getCause() instanceof IOException) {
+        throw new UncheckedIOException((IOException) e.getCause());
+      }
+      throw e;
+    }
+  }
+
+  private LoadedBundle loadBundle(Locale locale) throws IOException {
+    Optional<URL> resource = resourceForLocale.apply(locale);
+    if (resource.isEmpty()) {
+      return new LoadedBundle(SoyMsgBundle.EMPTY, 0);
+    }
+    SoyMsgBundle bundle = compactor.compact(handler.createFromResource(resource.get()));
+    long size = 0;
+    for (SoyMsg msg : bundle) {
+      // The id, and the offset of the message's parts
+      size += Long.BYTES + Integer.BYTES + estimateSize(msg.getParts());
+    }
+    return new LoadedBundle(bundle, (int) Math.min(size, Integer.MAX_VALUE));
+  }
+
+  /** Roughly estimates the memory used by a list of parts, assuming 64 bit references. */
+  private static long estimateSize(List<SoyMsgPart> parts) {
+    long size = 0;
+    for (SoyMsgPart part : parts) {
+      // The reference to the part, and the part itself
+      size += 8 + 16;
+      if (part instanceof SoyMsgRawTextPart) {
+        size += 24 + ((SoyMsgRawTextPart) part).getRawText().length();
+      } else if (part instanceof SoyMsgPluralPart) {
+        for (SoyMsgPart.Case<?> pluralCase : ((SoyMsgPluralPart) part).getCases()) {
+          size += 16 + estimateSize(pluralCase.parts());
+        }
+      } else if (part instanceof SoyMsgSelectPart) {
+        for (SoyMsgPart.Case<?> selectCase : ((SoyMsgSelectPart) part).getCases()) {
+          size += 16 + estimateSize(selectCase.parts());
+        }
+      }
+    }
+    return size;
+  }
+
+  /** Returns the locales whose bundles are currently loaded. */
+  public ImmutableSet<Locale> residentLocales() {
+    return ImmutableSet.copyOf(cache.asMap().keySet());
+  }
+
+  /** Returns the approximate size of the currently loaded bundles, in bytes. */
+  public long residentBytes() {
+    return cache.asMap().values().stream().mapToLong(loaded -> loaded.size).sum();
+  }
+
+  /**
+   * Returns statistics for this loader. {@link CacheStats#loadCount} and {@link
+   * CacheStats#averageLoadPenalty} describe how often and how long it takes to load bundles, and
+   * {@link CacheStats#evictionCount} how often bundles were evicted to stay within the memory
+   * budget.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+}
@@ -65,6 +65,17 @@ public abstract class SoyMsgBundle implements Iterable<SoyMsg> {
     return msg == null ? ImmutableList.of() : msg.getParts();
   }
 
+  /**
+   * Returns {@code true} if this bundle has a message with the given id.
+   *
+   * <p>This is called on every render of a message with a fallback, so it should be fast. The
+   * default implementation is just {@link #getMsgParts}, subclasses are encouraged to override
+   * this to provide efficient implementations.
+   */
+  public boolean hasMsg(long msgId) {
+    return !getMsgParts(msgId).isEmpty();
+  }
+
   /**
    * Retrieves a message by its unique message id.
    *
@@ -118,6 +129,11 @@ public abstract class SoyMsgBundle implements Iterable<SoyMsg> {
         return ImmutableList.of();
       }
 
+      @Override
+      public boolean hasMsg(long msgId) {
+        return false;
+      }
+
       @Override
       public boolean isRtl() {
         return false;
@@ -18,14 +18,25 @@ package com.google.template.soy.msgs;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteSink;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.errorprone.annotations.Immutable;
 import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.msgs.restricted.SoyMsgBundleCompactor;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 
 /**
@@ -150,6 +161,70 @@ public class SoyMsgBundleHandler {
     }
   }
 
+  /**
+   * Reads many translated messages files concurrently, and compacts the resulting SoyMsgBundles.
+   *
+   * <p>Each file is read, parsed and compacted by its own task on {@code executor}, so this scales
+   * with the threads of the executor rather than with the number of files. All bundles are
+   * compacted with the same {@code compactor}, so parts that are identical across files are only
+   * stored once.
+   *
+   * @param inputFiles The input files to read from.
+   * @param compactor The compactor for the message bundles.
+   * @param executor The executor to read the files on.
+   * @return The message bundles created from the messages files, in the same order.
+   * @throws IOException If there's an error while accessing a file.
+   * @throws SoyMsgException If there's an error while processing the messages.
+   */
+  public ImmutableList<SoyMsgBundle> createCompactedFromFiles(
+      List<File> inputFiles, SoyMsgBundleCompactor compactor, Executor executor)
+      throws IOException {
+    List<Callable<SoyMsgBundle>> loaders = new ArrayList<>(inputFiles.size());
+    for (File inputFile : inputFiles) {
+      loaders.add(() -> compactor.compact(createFromFile(inputFile)));
+    }
+    return loadAll(loaders, executor);
+  }
+
+  /**
+   * Reads many translated messages resources concurrently, and compacts the resulting
+   * SoyMsgBundles. See {@link #createCompactedFromFiles}.
+   *
+   * @param inputResources The resources to read from.
+   * @param compactor The compactor for the message bundles.
+   * @param executor The executor to read the resources on.
+   * @return The message bundles created from the messages resources, in the same order.
+   * @throws IOException If there's an error while accessing a resource.
+   * @throws SoyMsgException If there's an error while processing the messages.
+   */
+  public ImmutableList<SoyMsgBundle> createCompactedFromResources(
+      List<URL> inputResources, SoyMsgBundleCompactor compactor, Executor executor)
+      throws IOException {
+    List<Callable<SoyMsgBundle>> loaders = new ArrayList<>(inputResources.size());
+    for (URL inputResource : inputResources) {
+      loaders.add(() -> compactor.compact(createFromResource(inputResource)));
+    }
+    return loadAll(loaders, executor);
+  }
+
+  private static ImmutableList<SoyMsgBundle> loadAll(
+      List<Callable<SoyMsgBundle>> loaders, Executor executor) throws IOException {
+    List<ListenableFuture<SoyMsgBundle>> bundles = new ArrayList<>(loaders.size());
+    for (Callable<SoyMsgBundle> loader : loaders) {
+      bundles.add(Futures.submit(loader, executor));
+    }
+    try {
+      return ImmutableList.copyOf(Uninterruptibles.getUninterruptibly(Futures.allAsList(bundles)));
+    } catch (ExecutionException e) {
+      // Don't bother loading the rest.
+      bundles.forEach(bundle -> bundle.cancel(false));
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, IOException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new IllegalStateException(cause);
+    }
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Soy internal methods.
 
@@ -100,6 +100,11 @@ public final class SoyMsgBundleWithFullLocale extends SoyMsgBundle {
     return delegate.getMsgParts(msgId);
   }
 
+  @Override
+  public boolean hasMsg(long msgId) {
+    return delegate.hasMsg(msgId);
+  }
+
   @Override
   public int getNumMsgs() {
     return delegate.getNumMsgs();
@@ -225,8 +225,7 @@ public final class InsertMsgsVisitor {
       long primaryMsgId = ((IntegerNode) node.getParam(1)).getValue();
       long fallbackMsgId = ((IntegerNode) node.getParam(2)).getValue();
       isPrimaryMsgInUse =
-          !msgBundle.getMsgParts(primaryMsgId).isEmpty()
-              || msgBundle.getMsgParts(fallbackMsgId).isEmpty();
+          msgBundle.hasMsg(primaryMsgId) || !msgBundle.hasMsg(fallbackMsgId);
     }
     node.getParent()
         .replaceChild(node, new BooleanNode(isPrimaryMsgInUse, node.getSourceLocation()));
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs.restricted;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSink;
+import com.google.common.io.Files;
+import com.google.template.soy.internal.i18n.BidiGlobalDir;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.SoyMsgException;
+import com.ibm.icu.util.ULocale;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+
+/**
+ * Represents all renderable messages in a locale, backed by a compact binary encoding that is
+ * typically memory mapped from a file written by {@link #write}.
+ *
+ * <p>Parsing a translated messages file and compacting it into a {@link RenderOnlySoyMsgBundleImpl}
+ * is slow and the whole bundle lives on the heap. Loading this bundle only requires mapping the
+ * file, and the parts of a message are only decoded the first time it is looked up. Decoded parts
+ * are kept, so the heap only holds the messages that are actually rendered.
+ *
+ * <p>Like {@link RenderOnlySoyMsgBundleImpl}, only enough information is retained for rendering.
+ * In particular placeholder examples are dropped.
+ *
+ * <p>The encoding is big-endian and looks like:
+ *
+ * <pre>
+ *   int magic, int version
+ *   string localeString (a length of -1 means null)
+ *   int numMsgs
+ *   long[numMsgs] ids, sorted
+ *   int[numMsgs + 1] offsets of each message's parts, relative to the start of the parts
+ *   parts of each message, as a list
+ * </pre>
+ *
+ * Strings are the length of their UTF-8 encoding followed by the bytes, lists are their size
+ * followed by the elements, and parts are a tag byte followed by the fields of the part.
+ */
+public final class MappedSoyMsgBundleImpl extends SoyMsgBundle {
+  private static final int MAGIC = 0x536f794d; // "SoyM"
+  private static final int VERSION = 1;
+
+  private static final byte RAW_TEXT_TAG = 0;
+  private static final byte PLACEHOLDER_TAG = 1;
+  private static final byte PLURAL_REMAINDER_TAG = 2;
+  private static final byte PLURAL_TAG = 3;
+  private static final byte SELECT_TAG = 4;
+
+  private static final SoyMsgPluralCaseSpec.Type[] CASE_TYPES =
+      SoyMsgPluralCaseSpec.Type.values();
+
+  /**
+   * Writes the messages of {@code bundle} in the format read by {@link #map} and {@link
+   * #fromBuffer}.
+   *
+   * @throws IllegalArgumentException If the bundle contains duplicate message ids.
+   */
+  public static void write(SoyMsgBundle bundle, ByteSink output) throws IOException {
+    List<SoyMsg> msgs = new ArrayList<>(bundle.getNumMsgs());
+    bundle.forEach(msgs::add);
+    msgs.sort(Comparator.comparingLong(SoyMsg::getId));
+
+    int[] offsets = new int[msgs.size() + 1];
+    ByteArrayOutputStream partBytes = new ByteArrayOutputStream();
+    DataOutputStream parts = new DataOutputStream(partBytes);
+    for (int i = 0; i < msgs.size(); i++) {
+      if (i > 0 && msgs.get(i).getId() == msgs.get(i - 1).getId()) {
+        throw new IllegalArgumentException(
+            "Duplicate message id " + msgs.get(i).getId() + " in bundle.");
+      }
+      offsets[i] = parts.size();
+      writeParts(parts, msgs.get(i).getParts());
+    }
+    offsets[msgs.size()] = parts.size();
+    parts.flush();
+
+    try (OutputStream stream = output.openBufferedStream()) {
+      DataOutputStream out = new DataOutputStream(stream);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      String localeString = bundle.getLocaleString();
+      if (localeString == null) {
+        out.writeInt(-1);
+      } else {
+        writeString(out, localeString);
+      }
+      out.writeInt(msgs.size());
+      for (SoyMsg msg : msgs) {
+        out.writeLong(msg.getId());
+      }
+      for (int offset : offsets) {
+        out.writeInt(offset);
+      }
+      partBytes.writeTo(out);
+      out.flush();
+    }
+  }
+
+  private static void writeParts(DataOutputStream out, List<SoyMsgPart> parts)
+      throws IOException {
+    out.writeInt(parts.size());
+    for (SoyMsgPart part : parts) {
+      if (part instanceof SoyMsgRawTextPart) {
+        out.writeByte(RAW_TEXT_TAG);
+        writeString(out, ((SoyMsgRawTextPart) part).getRawText());
+      } else if (part instanceof SoyMsgPlaceholderPart) {
+        out.writeByte(PLACEHOLDER_TAG);
+        writeString(out, ((SoyMsgPlaceholderPart) part).getPlaceholderName());
+      } else if (part instanceof SoyMsgPluralRemainderPart) {
+        out.writeByte(PLURAL_REMAINDER_TAG);
+        writeString(out, ((SoyMsgPluralRemainderPart) part).getPluralVarName());
+      } else if (part instanceof SoyMsgPluralPart) {
+        SoyMsgPluralPart plural = (SoyMsgPluralPart) part;
+        out.writeByte(PLURAL_TAG);
+        writeString(out, plural.getPluralVarName());
+        out.writeInt(plural.getOffset());
+        out.writeInt(plural.getCases().size());
+        for (SoyMsgPart.Case<SoyMsgPluralCaseSpec> pluralCase : plural.getCases()) {
+          SoyMsgPluralCaseSpec spec = pluralCase.spec();
+          out.writeByte(spec.getType().ordinal());
+          if (spec.getType() == SoyMsgPluralCaseSpec.Type.EXPLICIT) {
+            out.writeLong(spec.getExplicitValue());
+          }
+          writeParts(out, pluralCase.parts());
+        }
+      } else if (part instanceof SoyMsgSelectPart) {
+        SoyMsgSelectPart select = (SoyMsgSelectPart) part;
+        out.writeByte(SELECT_TAG);
+        writeString(out, select.getSelectVarName());
+        out.writeInt(select.getCases().size());
+        for (SoyMsgPart.Case<String> selectCase : select.getCases()) {
+          // The default case has a null spec
+          out.writeBoolean(selectCase.spec() != null);
+          if (selectCase.spec() != null) {
+            writeString(out, selectCase.spec());
+          }
+          writeParts(out, selectCase.parts());
+        }
+      } else {
+        throw new AssertionError("unexpected part: " + part);
+      }
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Memory maps a file written by {@link #write}.
+   *
+   * @throws IOException If there's an error while accessing the file.
+   * @throws SoyMsgException If the file isn't a message bundle in this format.
+   */
+  public static MappedSoyMsgBundleImpl map(File file) throws IOException {
+    try {
+      return fromBuffer(Files.map(file));
+    } catch (SoyMsgException sme) {
+      sme.setFileOrResourceName(file.toString());
+      throw sme;
+    }
+  }
+
+  /**
+   * Reads a bundle from a buffer holding the output of {@link #write}. The buffer must not be
+   * modified while the bundle is in use.
+   *
+   * @throws SoyMsgException If the buffer doesn't hold a message bundle in this format.
+   */
+  public static MappedSoyMsgBundleImpl fromBuffer(ByteBuffer buffer) {
+    // Only use absolute reads from here on, so concurrent lookups can share the buffer.
+    buffer = buffer.slice();
+    try {
+      if (buffer.getInt(0) != MAGIC) {
+        throw new SoyMsgException("Not a message bundle file.");
+      }
+      if (buffer.getInt(4) != VERSION) {
+        throw new SoyMsgException(
+            "Unsupported message bundle version: " + buffer.getInt(4) + ".");
+      }
+      return new MappedSoyMsgBundleImpl(buffer);
+    } catch (IndexOutOfBoundsException e) {
+      throw new SoyMsgException("Truncated message bundle file.", e);
+    }
+  }
+
+  private final ByteBuffer buffer;
+
+  @Nullable private final String localeString;
+  @Nullable private final ULocale locale;
+  private final boolean isRtl;
+
+  private final int numMsgs;
+
+  /** The position of the sorted message ids in {@link #buffer}. */
+  private final int idsStart;
+
+  /** The position of the message offsets in {@link #buffer}. */
+  private final int offsetsStart;
+
+  /** The position of the message parts in {@link #buffer}. */
+  private final int partsStart;
+
+  /** The parts of each message, by index, once they have been decoded. */
+  private final AtomicReferenceArray<ImmutableList<SoyMsgPart>> decodedParts;
+
+  private MappedSoyMsgBundleImpl(ByteBuffer buffer) {
+    this.buffer = buffer;
+    Decoder header = new Decoder(8);
+    this.localeString = header.readNullableString();
+    this.locale = localeString == null ? null : new ULocale(localeString);
+    this.isRtl = BidiGlobalDir.forStaticLocale(localeString) == BidiGlobalDir.RTL;
+    this.numMsgs = header.readInt();
+    this.idsStart = header.position;
+    this.offsetsStart = idsStart + numMsgs * Long.BYTES;
+    this.partsStart = offsetsStart + (numMsgs + 1) * Integer.BYTES;
+    if (numMsgs < 0 || partsStart + offsetAt(numMsgs) > buffer.limit()) {
+      throw new SoyMsgException("Truncated message bundle file.");
+    }
+    this.decodedParts = new AtomicReferenceArray<>(numMsgs);
+  }
+
+  @Override
+  @Nullable
+  public String getLocaleString() {
+    return localeString;
+  }
+
+  @Override
+  @Nullable
+  public ULocale getLocale() {
+    return locale;
+  }
+
+  @Override
+  public boolean isRtl() {
+    return isRtl;
+  }
+
+  @Override
+  public SoyMsg getMsg(long msgId) {
+    int index = binarySearch(msgId);
+    return index >= 0 ? resurrectMsg(index) : null;
+  }
+
+  @Override
+  public ImmutableList<SoyMsgPart> getMsgParts(long msgId) {
+    int index = binarySearch(msgId);
+    return index >= 0 ? partsForIndex(index) : ImmutableList.of();
+  }
+
+  @Override
+  public boolean hasMsg(long msgId) {
+    // Search the mapped ids rather than building an index on the heap, this doesn't decode parts.
+    return binarySearch(msgId) >= 0;
+  }
+
+  @Override
+  public int getNumMsgs() {
+    return numMsgs;
+  }
+
+  @Override
+  public Iterator<SoyMsg> iterator() {
+    return new Iterator<>() {
+      int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < numMsgs;
+      }
+
+      @Override
+      public SoyMsg next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return resurrectMsg(index++);
+      }
+    };
+  }
+
+  private long idAt(int index) {
+    return buffer.getLong(idsStart + index * Long.BYTES);
+  }
+
+  private int offsetAt(int index) {
+    return buffer.getInt(offsetsStart + index * Integer.BYTES);
+  }
+
+  private int binarySearch(long key) {
+    int low = 0;
+    int high = numMsgs - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midId = idAt(mid);
+      if (midId < key) {
+        low = mid + 1;
+      } else if (midId > key) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private ImmutableList<SoyMsgPart> partsForIndex(int index) {
+    ImmutableList<SoyMsgPart> parts = decodedParts.get(index);
+    if (parts == null) {
+      // Racing threads decode equal lists, so it doesn't matter which one wins.
+      parts = new Decoder(partsStart + offsetAt(index)).readParts();
+      decodedParts.lazySet(index, parts);
+    }
+    return parts;
+  }
+
+  /** Brings a message back to life from only its ID and parts. */
+  private SoyMsg resurrectMsg(int index) {
+    ImmutableList<SoyMsgPart> parts = partsForIndex(index);
+    return SoyMsg.builder()
+        .setId(idAt(index))
+        .setLocaleString(localeString)
+        .setIsPlrselMsg(MsgPartUtils.hasPlrselPart(parts))
+        .setParts(parts)
+        .build();
+  }
+
+  /** Reads values from {@link #buffer}, starting at a given position. */
+  private final class Decoder {
+    int position;
+
+    Decoder(int position) {
+      this.position = position;
+    }
+
+    byte readByte() {
+      return buffer.get(position++);
+    }
+
+    int readInt() {
+      int value = buffer.getInt(position);
+      position += Integer.BYTES;
+      return value;
+    }
+
+    long readLong() {
+      long value = buffer.getLong(position);
+      position += Long.BYTES;
+      return value;
+    }
+
+    String readString() {
+      byte[] bytes = new byte[readInt()];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = buffer.get(position + i);
+      }
+      position += bytes.length;
+      return new String(bytes, UTF_8);
+    }
+
+    @Nullable
+    String readNullableString() {
+      if (buffer.getInt(position) == -1) {
+        position += Integer.BYTES;
+        return null;
+      }
+      return readString();
+    }
+
+    ImmutableList<SoyMsgPart> readParts() {
+      int size = readInt();
+      ImmutableList.Builder<SoyMsgPart> parts = ImmutableList.builderWithExpectedSize(size);
+      for (int i = 0; i < size; i++) {
+        parts.add(readPart());
+      }
+      return parts.build();
+    }
+
+    SoyMsgPart readPart() {
+      byte tag = readByte();
+      switch (tag) {
+        case RAW_TEXT_TAG:
+          return SoyMsgRawTextPart.of(readString());
+        case PLACEHOLDER_TAG:
+          return new SoyMsgPlaceholderPart(readString());
+        case PLURAL_REMAINDER_TAG:
+          return new SoyMsgPluralRemainderPart(readString());
+        case PLURAL_TAG:
+          {
+            String varName = readString();
+            int offset = readInt();
+            int numCases = readInt();
+            List<SoyMsgPart.Case<SoyMsgPluralCaseSpec>> cases = new ArrayList<>(numCases);
+            for (int i = 0; i < numCases; i++) {
+              SoyMsgPluralCaseSpec.Type type = CASE_TYPES[readByte()];
+              SoyMsgPluralCaseSpec spec =
+                  type == SoyMsgPluralCaseSpec.Type.EXPLICIT
+                      ? new SoyMsgPluralCaseSpec(readLong())
+                      : SoyMsgPluralCaseSpec.forType(type);
+              cases.add(SoyMsgPart.Case.create(spec, readParts()));
+            }
+            return new SoyMsgPluralPart(varName, offset, cases);
+          }
+        case SELECT_TAG:
+          {
+            String varName = readString();
+            int numCases = readInt();
+            List<SoyMsgPart.Case<String>> cases = new ArrayList<>(numCases);
+            for (int i = 0; i < numCases; i++) {
+              String spec = readByte() != 0 ? readString() : null;
+              cases.add(SoyMsgPart.Case.create(spec, readParts()));
+            }
+            return new SoyMsgSelectPart(varName, cases);
+          }
+        default:
+          throw new SoyMsgException("Corrupt message bundle file, unknown part tag: " + tag);
+      }
+    }
+  }
+}
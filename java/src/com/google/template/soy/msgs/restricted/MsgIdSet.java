@@ -0,0 +1,87 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs.restricted;
+
+import com.google.errorprone.annotations.Immutable;
+import java.util.Arrays;
+
+/**
+ * An immutable set of message ids, which answers whether an id is present in constant time without
+ * allocating.
+ *
+ * <p>This is an open addressing hash table of primitive longs, kept at most half full. Message ids
+ * are never negative, so {@code -1} marks the empty slots.
+ */
+@Immutable
+public final class MsgIdSet {
+  private static final long EMPTY_SLOT = -1L;
+
+  /** Creates a set of the ids of the messages in {@code msgs}. */
+  public static MsgIdSet create(Iterable<SoyMsg> msgs) {
+    int size = 0;
+    for (SoyMsg unused : msgs) {
+      size++;
+    }
+    int capacity = 2;
+    while (capacity < size * 2) {
+      capacity <<= 1;
+    }
+    long[] table = new long[capacity];
+    Arrays.fill(table, EMPTY_SLOT);
+    int mask = table.length - 1;
+    for (SoyMsg msg : msgs) {
+      long id = msg.getId();
+      int slot = slotOf(id, mask);
+      while (table[slot] != EMPTY_SLOT && table[slot] != id) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = id;
+    }
+    return new MsgIdSet(table);
+  }
+
+  @SuppressWarnings("Immutable") // never modified after construction
+  private final long[] table;
+
+  private MsgIdSet(long[] table) {
+    this.table = table;
+  }
+
+  /** Returns {@code true} if {@code msgId} is in the set. */
+  public boolean contains(long msgId) {
+    if (msgId < 0) {
+      return false;
+    }
+    int mask = table.length - 1;
+    for (int slot = slotOf(msgId, mask); ; slot = (slot + 1) & mask) {
+      long id = table[slot];
+      if (id == msgId) {
+        return true;
+      }
+      if (id == EMPTY_SLOT) {
+        return false;
+      }
+    }
+  }
+
+  private static int slotOf(long msgId, int mask) {
+    // Message ids are fingerprints, but mix the bits anyway since they are cheap to mix and ids
+    // from other sources may not be as well distributed.
+    int hash = (int) (msgId ^ (msgId >>> 32)) * 0x9e3779b9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+}
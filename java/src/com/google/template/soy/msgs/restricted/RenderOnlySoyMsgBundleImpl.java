@@ -245,6 +245,12 @@ public final class RenderOnlySoyMsgBundleImpl extends SoyMsgBundle {
     return index >= 0 ? partsForIndex(index) : ImmutableList.of();
   }
 
+  @Override
+  public boolean hasMsg(long msgId) {
+    // The bucketed ids are already an index, and this avoids creating the sublist of parts.
+    return binarySearch(msgId) >= 0;
+  }
+
   private int binarySearch(long key) {
     int bucket = bucketOf(key);
     int low = bucketBoundaries[bucket];
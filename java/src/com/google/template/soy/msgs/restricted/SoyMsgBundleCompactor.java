@@ -19,11 +19,11 @@ package com.google.template.soy.msgs.restricted;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.template.soy.msgs.SoyMsgBundle;
 import com.google.template.soy.msgs.restricted.SoyMsgPart.Case;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 /**
  * Utility to compact message bundles.
@@ -38,6 +38,13 @@ import java.util.concurrent.ConcurrentMap;
  *
  * <p>This saves an enormous amount of memory, especially since in gender/plural messages, there are
  * many repeated parts.
+ *
+ * <p>This class is safe for concurrent use, so bundles can be compacted in parallel while still
+ * sharing parts.
+ *
+ * <p>Compactors created with {@link #newWeakCompactor} only retain the parts that are still used by
+ * a compacted bundle, at the cost of a slightly slower and larger interner. Use them when compacted
+ * bundles are discarded during the lifetime of the compactor.
  */
 public final class SoyMsgBundleCompactor {
 
@@ -48,7 +55,24 @@ public final class SoyMsgBundleCompactor {
   /** The default case spec for select blocks. */
   private static final String DEFAULT_SELECT_CASE_SPEC = null;
 
-  private final ConcurrentMap<Object, Object> interner = new ConcurrentHashMap<>();
+  /**
+   * Returns a compactor that only references the parts of its compacted bundles weakly, so parts
+   * can be garbage collected once no compacted bundle uses them.
+   */
+  public static SoyMsgBundleCompactor newWeakCompactor() {
+    return new SoyMsgBundleCompactor(Interners.newWeakInterner());
+  }
+
+  private final Interner<Object> interner;
+
+  /** Creates a compactor that retains every part it has compacted. */
+  public SoyMsgBundleCompactor() {
+    this(Interners.newStrongInterner());
+  }
+
+  private SoyMsgBundleCompactor(Interner<Object> interner) {
+    this.interner = interner;
+  }
 
   /**
    * Returns a more memory-efficient version of the internal message bundle.
@@ -179,15 +203,12 @@ public final class SoyMsgBundleCompactor {
   }
 
   /**
-   * Returns a possibly canonicalized version of the input. This causes a permanent reference to the
-   * input.
+   * Returns a possibly canonicalized version of the input. Unless this is a weak compactor, this
+   * causes a permanent reference to the input.
    */
   private <T> T intern(T input) {
     checkNotNull(input); // sanity
-    Object result = interner.putIfAbsent(input, input);
-    if (result == null) {
-      return input;
-    }
+    Object result = interner.intern(input);
     if (result.getClass() != input.getClass()) {
       throw new IllegalStateException();
     }
@@ -47,6 +47,9 @@ public class SoyMsgBundleImpl extends SoyMsgBundle {
   /** Map from unique message id to message. Iteration order is sorted order of message id. */
   private final ImmutableMap<Long, SoyMsg> msgMap;
 
+  /** The ids of {@link #msgMap}, which answers {@link #hasMsg} without boxing the id. */
+  private final MsgIdSet msgIds;
+
   /**
    * Note: If there exist duplicate message ids in the {@code msgs} list, an exception will be
    * thrown. If this is not desired, call the constructor that takes a merging policy.
@@ -100,6 +103,7 @@ public class SoyMsgBundleImpl extends SoyMsgBundle {
     }
 
     msgMap = ImmutableMap.copyOf(tempMsgMap);
+    msgIds = MsgIdSet.create(msgMap.values());
   }
 
 
@@ -124,6 +128,11 @@ public class SoyMsgBundleImpl extends SoyMsgBundle {
     return msgMap.get(msgId);
   }
 
+  @Override
+  public boolean hasMsg(long msgId) {
+    return msgIds.contains(msgId);
+  }
+
   @Override
   public int getNumMsgs() {
     return msgMap.size();
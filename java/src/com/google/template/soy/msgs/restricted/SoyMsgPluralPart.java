@@ -19,6 +19,8 @@ package com.google.template.soy.msgs.restricted;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.ibm.icu.text.PluralRules;
 import com.ibm.icu.util.ULocale;
@@ -29,6 +31,10 @@ import javax.annotation.Nullable;
  * Represents a plural statement within a message.
  */
 public final class SoyMsgPluralPart extends SoyMsgPart {
+  // PluralRules are immutable, but looking them up is relatively expensive and happens for every
+  // render of a plural message. The bound is just a safety net.
+  private static final Cache<ULocale, PluralRules> PLURAL_RULES =
+      CacheBuilder.newBuilder().maximumSize(1000).build();
 
   /** The plural variable name. */
   private final String pluralVarName;
@@ -105,7 +111,7 @@ public final class SoyMsgPluralPart extends SoyMsgPart {
 
     if (caseParts == null && hasNonExplicitCases) {
       // Didn't match any numeric value.  Check which plural rule it matches.
-      String pluralKeyword = PluralRules.forLocale(locale).select(pluralValue - offset);
+      String pluralKeyword = getPluralRules(locale).select(pluralValue - offset);
       SoyMsgPluralCaseSpec.Type correctCaseType =
           SoyMsgPluralCaseSpec.forType(pluralKeyword).getType();
 
@@ -127,6 +133,15 @@ public final class SoyMsgPluralPart extends SoyMsgPart {
     return checkNotNull(caseParts);
   }
 
+  private static PluralRules getPluralRules(ULocale locale) {
+    PluralRules rules = PLURAL_RULES.getIfPresent(locale);
+    if (rules == null) {
+      rules = PluralRules.forLocale(locale);
+      PLURAL_RULES.put(locale, rules);
+    }
+    return rules;
+  }
+
   @Override
   public boolean equals(Object other) {
     if (!(other instanceof SoyMsgPluralPart)) {
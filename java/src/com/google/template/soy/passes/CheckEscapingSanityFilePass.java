@@ -31,7 +31,7 @@ import com.google.template.soy.soytree.SoyTreeUtils;
  * <p>Checks that internal-only directives such as {@code |text} are not used.
  */
 @RunAfter(ContentSecurityPolicyNonceInjectionPass.class)
-final class CheckEscapingSanityFilePass implements CompilerFilePass {
+final class CheckEscapingSanityFilePass implements CompilerFilePass.Parallelizable {
 
   private static final SoyErrorKind ILLEGAL_PRINT_DIRECTIVE =
       SoyErrorKind.of("{0} can only be used internally by the Soy compiler.");
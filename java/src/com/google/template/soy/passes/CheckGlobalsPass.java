@@ -30,7 +30,7 @@ import com.google.template.soy.soytree.SoyFileNode;
  * <p>This is optional because the {@code jssrc} backend allows for unbound globals and many
  * projects rely on it. All other backends require globals to be substituted.
  */
-final class CheckGlobalsPass implements CompilerFilePass {
+final class CheckGlobalsPass implements CompilerFilePass.Parallelizable {
   private static final SoyErrorKind UNBOUND_GLOBAL =
       SoyErrorKind.of("Undefined symbol ''{0}''.{1}", StyleAllowance.NO_PUNCTUATION);
 
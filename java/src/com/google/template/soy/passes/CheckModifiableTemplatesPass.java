@@ -33,7 +33,7 @@ import java.util.TreeSet;
 
 /** Checks modifiable templates. */
 @RunAfter(ResolveExpressionTypesPass.class)
-final class CheckModifiableTemplatesPass implements CompilerFilePass {
+final class CheckModifiableTemplatesPass implements CompilerFilePass.Parallelizable {
 
   private static final SoyErrorKind MODIFIES_WITHOUT_MODNAME =
       SoyErrorKind.of(
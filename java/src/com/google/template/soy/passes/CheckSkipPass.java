@@ -28,7 +28,7 @@ import com.google.template.soy.soytree.SoyNode.ParentSoyNode;
 
 /** Checks for validity of skip nodes wrt their host node. */
 @RunBefore(FinalizeTemplateRegistryPass.class)
-final class CheckSkipPass implements CompilerFilePass {
+final class CheckSkipPass implements CompilerFilePass.Parallelizable {
 
   private static final SoyErrorKind SOY_SKIP_OPEN_TAG_CLOSE_AMBIGUOUS =
       SoyErrorKind.of("Skip element open tags must map to exactly one close tag.");
@@ -30,7 +30,7 @@ import com.google.template.soy.types.SoyType;
 
 /** Reports errors for illegal symbol references. */
 @RunAfter({ResolveExpressionTypesPass.class, MoreCallValidationsPass.class})
-final class CheckValidVarrefsPass implements CompilerFilePass {
+final class CheckValidVarrefsPass implements CompilerFilePass.Parallelizable {
 
   private static final ImmutableSet<SoyType.Kind> BAD_SOY_TYPE_KINDS =
       ImmutableSet.of(
@@ -32,6 +32,14 @@ import com.google.template.soy.soytree.SoyFileNode;
  */
 public interface CompilerFilePass extends CompilerFileSetPass {
 
+  /**
+   * Marker interface for passes that may run on different files concurrently, see {@link
+   * PassManager.Builder#setExecutor}. Such passes may only read or modify the file they are given,
+   * must not generate node ids, must not keep mutable state across files and must not depend on
+   * the errors reported for other files.
+   */
+  interface Parallelizable extends CompilerFilePass {}
+
   void run(SoyFileNode file, IdGenerator nodeIdGen);
 
   @Override
@@ -21,17 +21,23 @@ import static java.util.stream.Collectors.joining;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.base.internal.IdGenerator;
 import com.google.template.soy.conformance.ValidatedConformanceConfig;
 import com.google.template.soy.css.CssRegistry;
 import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.error.PerThreadErrorReporter;
 import com.google.template.soy.passes.CompilerFileSetPass.Result;
 import com.google.template.soy.passes.CompilerFileSetPass.TopologicallyOrdered;
 import com.google.template.soy.plugin.java.MethodChecker;
@@ -41,10 +47,14 @@ import com.google.template.soy.soytree.FileSetMetadata;
 import com.google.template.soy.soytree.SoyFileNode;
 import com.google.template.soy.soytree.SoyFileSetNode;
 import com.google.template.soy.types.SoyTypeRegistry;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
 
 /**
@@ -102,22 +112,47 @@ public final class PassManager {
     }
   }
 
+  /** Handed to {@link CompilerFilePass.Parallelizable} passes, which must not create nodes. */
+  private static final IdGenerator NO_NEW_IDS =
+      new IdGenerator() {
+        @Override
+        public int genId() {
+          throw new IllegalStateException("Parallelizable passes must not generate node ids");
+        }
+
+        @Override
+        public IdGenerator copy() {
+          return this;
+        }
+      };
+
   @VisibleForTesting final ImmutableList<CompilerFilePass> parsePasses;
   @VisibleForTesting final ImmutableList<CompilerFileSetPass> passes;
   private final AccumulatedState accumulatedState;
+  @Nullable private final Executor executor;
+  @Nullable private final PerThreadErrorReporter perThreadErrorReporter;
 
   private PassManager(
       ImmutableList<CompilerFilePass> parsePasses,
       ImmutableList<CompilerFileSetPass> passes,
-      AccumulatedState accumulatedState) {
+      AccumulatedState accumulatedState,
+      @Nullable Executor executor,
+      @Nullable PerThreadErrorReporter perThreadErrorReporter) {
     this.parsePasses = parsePasses;
     this.passes = passes;
     this.accumulatedState = accumulatedState;
+    this.executor = executor;
+    this.perThreadErrorReporter = perThreadErrorReporter;
     checkOrdering();
   }
 
-  public void runParsePasses(SoyFileNode file, IdGenerator nodeIdGen) {
-    for (CompilerFilePass pass : parsePasses) {
+  /**
+   * Runs the parse passes, reporting errors to the given reporter instead of the one this pass
+   * manager was configured with. This is safe to call concurrently for different files.
+   */
+  public void runParsePasses(
+      SoyFileNode file, IdGenerator nodeIdGen, ErrorReporter errorReporter) {
+    for (CompilerFilePass pass : createParsePasses(errorReporter)) {
       pass.run(file, nodeIdGen);
     }
   }
@@ -139,13 +174,44 @@ public final class PassManager {
       if (pass instanceof TopologicallyOrdered) {
         sourceFilesThisPass = accumulatedState.topologicallyOrderedFiles;
       }
-      if (pass.run(sourceFilesThisPass, idGenerator) == Result.STOP) {
+      if (executor != null
+          && pass instanceof CompilerFilePass.Parallelizable
+          && sourceFilesThisPass.size() > 1) {
+        runInParallel((CompilerFilePass) pass, sourceFilesThisPass);
+      } else if (pass.run(sourceFilesThisPass, idGenerator) == Result.STOP) {
         return Result.STOP;
       }
     }
     return Result.CONTINUE;
   }
 
+  /**
+   * Runs the pass over each file on the executor. Each file reports into its own buffer and the
+   * buffers are merged in file order, so the errors are identical to a serial run.
+   */
+  private void runInParallel(CompilerFilePass pass, ImmutableList<SoyFileNode> sourceFiles) {
+    List<ListenableFuture<ErrorReporter>> fileReports = new ArrayList<>(sourceFiles.size());
+    for (SoyFileNode file : sourceFiles) {
+      fileReports.add(
+          Futures.submit(
+              () -> {
+                ErrorReporter fileReporter = ErrorReporter.create(ImmutableMap.of());
+                perThreadErrorReporter.runBuffered(
+                    fileReporter, () -> pass.run(file, NO_NEW_IDS));
+                return fileReporter;
+              },
+              executor));
+    }
+    for (ListenableFuture<ErrorReporter> fileReport : fileReports) {
+      try {
+        Uninterruptibles.getUninterruptibly(fileReport).copyTo(perThreadErrorReporter);
+      } catch (ExecutionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+  }
+
   @Nullable
   public FileSetMetadata getFinalTemplateRegistry() {
     return accumulatedState.fileSetMetadataFull;
@@ -303,6 +369,7 @@ public final class PassManager {
     private boolean building;
     private boolean validateJavaMethods = true;
     private final AccumulatedState accumulatedState = new AccumulatedState();
+    @Nullable private Executor executor;
 
     @CanIgnoreReturnValue
     public Builder setErrorReporter(ErrorReporter errorReporter) {
@@ -310,6 +377,17 @@ public final class PassManager {
       return this;
     }
 
+    /**
+     * Configures an executor used to run {@link CompilerFilePass.Parallelizable} passes on all
+     * files concurrently. Other passes act as barriers and run serially, and errors are reported in
+     * the same order as a serial compile.
+     */
+    @CanIgnoreReturnValue
+    public Builder setExecutor(@Nullable Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
     @CanIgnoreReturnValue
     public Builder setSoyPrintDirectives(
         ImmutableList<? extends SoyPrintDirective> printDirectives) {
@@ -479,6 +557,14 @@ public final class PassManager {
     }
 
     public PassManager build() {
+      // Passes capture the error reporter when they are constructed, so in order to buffer errors
+      // per file during parallel execution they all need to share one that supports it.
+      ErrorReporter errorReporter = this.errorReporter;
+      PerThreadErrorReporter perThreadErrorReporter = null;
+      if (executor != null) {
+        perThreadErrorReporter = new PerThreadErrorReporter(errorReporter);
+        errorReporter = perThreadErrorReporter;
+      }
       // Single file passes
       // These passes perform tree rewriting and all compiler checks that don't require information
       // about callees.
@@ -728,7 +814,12 @@ public final class PassManager {
         throw new IllegalStateException(
             "The following continuation rules don't match any pass: " + passContinuationRegistry);
       }
-      return new PassManager(createParsePasses(errorReporter), passes.build(), accumulatedState);
+      return new PassManager(
+          createParsePasses(errorReporter),
+          passes.build(),
+          accumulatedState,
+          executor,
+          perThreadErrorReporter);
     }
 
     /** Adds the pass as a file set pass. */
@@ -24,7 +24,7 @@ import com.google.template.soy.soytree.SoyFileNode;
 
 /** A compiler pass to run {@link SoyConformance}. */
 @RunAfter({ResolvePluginsPass.class})
-public final class SoyConformancePass implements CompilerFilePass {
+public final class SoyConformancePass implements CompilerFilePass.Parallelizable {
   private final SoyConformance conformance;
   private final ErrorReporter errorReporter;
 
@@ -25,7 +25,7 @@ import com.google.template.soy.soytree.TemplateDelegateNode;
  * the AST.
  */
 @RunAfter(ResolveDottedImportsPass.class)
-final class ValidateVariantExpressionsPass implements CompilerFilePass {
+final class ValidateVariantExpressionsPass implements CompilerFilePass.Parallelizable {
 
   private final ErrorReporter errorReporter;
 
@@ -16,12 +16,19 @@
 
 package com.google.template.soy.shared;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.base.internal.SoyFileSupplier.Version;
 import com.google.template.soy.soytree.SoyFileNode;
-import java.util.HashMap;
-import java.util.Map;
-import javax.annotation.concurrent.GuardedBy;
+import com.google.template.soy.soytree.SoyTreeUtils;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 /**
@@ -32,6 +39,11 @@ import javax.inject.Inject;
  * are a large number of files, most of which aren't changing during the edit/reflect loop. This
  * does not help in a production startup-compilation setup; instead, this will just use more memory.
  *
+ * <p>The cache is safe for concurrent use and is unbounded by default. Long running processes can
+ * use {@link #builder()} to bound it by file count or by approximate AST node count, in which case
+ * the least recently used files are evicted first, and/or to only hold files softly so that they
+ * can be reclaimed under memory pressure.
+ *
  * <p>Please treat the internals as Soy superpackage-private.
  */
 public final class SoyAstCache {
@@ -41,18 +53,96 @@ public final class SoyAstCache {
 
     final Version version;
 
-    VersionedFile(SoyFileNode file, Version version) {
+    /** The approximate size of the file, in AST nodes. Only computed for weighted caches. */
+    final int nodeCount;
+
+    VersionedFile(SoyFileNode file, Version version, int nodeCount) {
       this.file = file;
       this.version = version;
+      this.nodeCount = nodeCount;
+    }
+  }
+
+  /** Builder for a bounded {@link SoyAstCache}. */
+  public static final class Builder {
+    private long maximumFileCount = -1;
+    private long maximumNodeCount = -1;
+    private boolean softValues;
+
+    private Builder() {}
+
+    /** Bounds the cache to hold at most the given number of files. */
+    @CanIgnoreReturnValue
+    public Builder maximumFileCount(long maximumFileCount) {
+      checkArgument(maximumFileCount >= 0, "maximumFileCount must be non-negative");
+      checkState(this.maximumNodeCount == -1, "maximumNodeCount was already set");
+      this.maximumFileCount = maximumFileCount;
+      return this;
+    }
+
+    /**
+     * Bounds the cache to hold files with at most the given number of AST nodes in total. This is a
+     * reasonable proxy for the memory retained by the cache.
+     */
+    @CanIgnoreReturnValue
+    public Builder maximumNodeCount(long maximumNodeCount) {
+      checkArgument(maximumNodeCount >= 0, "maximumNodeCount must be non-negative");
+      checkState(this.maximumFileCount == -1, "maximumFileCount was already set");
+      this.maximumNodeCount = maximumNodeCount;
+      return this;
+    }
+
+    /**
+     * Holds cached files with {@link java.lang.ref.SoftReference soft references}, so that the
+     * garbage collector may reclaim them under memory pressure.
+     */
+    @CanIgnoreReturnValue
+    public Builder softValues() {
+      this.softValues = true;
+      return this;
+    }
+
+    public SoyAstCache build() {
+      CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+      if (maximumFileCount != -1) {
+        builder.maximumSize(maximumFileCount);
+      }
+      if (maximumNodeCount != -1) {
+        builder
+            .maximumWeight(maximumNodeCount)
+            .<SourceFilePath, VersionedFile>weigher((path, file) -> file.nodeCount);
+      }
+      if (softValues) {
+        builder.softValues();
+      }
+      return new SoyAstCache(builder.build(), /* weighFiles= */ maximumNodeCount != -1);
     }
   }
 
+  /** Returns a builder for a bounded cache. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
   /** Cache mapping file path to the result of the last parse. */
-  @GuardedBy("this")
-  private final Map<SourceFilePath, VersionedFile> cache = new HashMap<>();
+  private final Cache<SourceFilePath, VersionedFile> cache;
 
+  private final boolean weighFiles;
+
+  // Tracked separately from the CacheStats, since a hit on an outdated version is a miss for us.
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+
+  /** Creates an unbounded cache. */
   @Inject
-  public SoyAstCache() {}
+  public SoyAstCache() {
+    this(CacheBuilder.newBuilder().recordStats().build(), /* weighFiles= */ false);
+  }
+
+  private SoyAstCache(Cache<SourceFilePath, VersionedFile> cache, boolean weighFiles) {
+    this.cache = cache;
+    this.weighFiles = weighFiles;
+  }
 
   /**
    * Stores a cached version of the AST.
@@ -64,8 +154,9 @@ public final class SoyAstCache {
    * @param file The parsed file. Caution this is stored as is, callers should take care to make
    *     defensive copies.
    */
-  public synchronized void put(SourceFilePath fileName, Version version, SoyFileNode file) {
-    cache.put(fileName, new VersionedFile(file, version));
+  public void put(SourceFilePath fileName, Version version, SoyFileNode file) {
+    int nodeCount = weighFiles ? (int) SoyTreeUtils.allNodes(file).count() : 1;
+    cache.put(fileName, new VersionedFile(file, version, nodeCount));
   }
 
   /**
@@ -78,16 +169,19 @@ public final class SoyAstCache {
    * @return The stored version of the tree. Callers should take care to make copies to avoid
    *     corrupting data in the cache.
    */
-  public synchronized SoyFileNode get(SourceFilePath fileName, Version version) {
-    VersionedFile entry = cache.get(fileName);
+  @Nullable
+  public SoyFileNode get(SourceFilePath fileName, Version version) {
+    VersionedFile entry = cache.getIfPresent(fileName);
     if (entry != null) {
       if (entry.version.equals(version)) {
+        hitCount.increment();
         return entry.file;
       } else {
         // Aggressively purge to save memory.
-        cache.remove(fileName);
+        cache.asMap().remove(fileName, entry);
       }
     }
+    missCount.increment();
     return null;
   }
 
@@ -95,8 +189,28 @@ public final class SoyAstCache {
    * Evicts a file from the cache, normally this is not necessary but it can be used to limit memory
    * consumption.
    */
-  public synchronized boolean evict(SourceFilePath fileName) {
-    VersionedFile entry = cache.remove(fileName);
+  public boolean evict(SourceFilePath fileName) {
+    VersionedFile entry = cache.asMap().remove(fileName);
     return entry != null;
   }
+
+  /** Returns the number of files currently in the cache. */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Returns hit, miss and eviction statistics for this cache. Only {@link CacheStats#hitCount},
+   * {@link CacheStats#missCount} and {@link CacheStats#evictionCount} (and values derived from
+   * them) are meaningful, since the cache doesn't load values itself.
+   */
+  public CacheStats stats() {
+    return new CacheStats(
+        hitCount.sum(),
+        missCount.sum(),
+        /* loadSuccessCount= */ 0,
+        /* loadExceptionCount= */ 0,
+        /* totalLoadTime= */ 0,
+        cache.stats().evictionCount());
+  }
 }
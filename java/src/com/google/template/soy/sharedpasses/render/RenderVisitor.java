@@ -729,7 +729,7 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
         throw new AssertionError();
       }
     }
-    return params;
+    return params.freeze();
   }
 
   private SoyRecord getDataRecord(CallNode node) {
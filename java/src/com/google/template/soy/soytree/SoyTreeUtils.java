@@ -342,11 +342,23 @@ public final class SoyTreeUtils {
     T clone = (T) origNode.copy(new CopyState());
 
     // Generate new ids.
-    new GenNewIdsVisitor(nodeIdGen).exec(clone);
+    assignNewIds(clone, nodeIdGen);
 
     return clone;
   }
 
+  /**
+   * Generates and sets new ids on all the nodes in the given subtree, in the same order as {@link
+   * #cloneWithNewIds}. This is useful when the caller already owns a private copy of the tree, for
+   * example one that was copied on another thread.
+   *
+   * @param node The root of the subtree to renumber.
+   * @param nodeIdGen The ID generator used for the tree.
+   */
+  public static void assignNewIds(SoyNode node, IdGenerator nodeIdGen) {
+    new GenNewIdsVisitor(nodeIdGen).exec(node);
+  }
+
   /**
    * Clones the given list of nodes and then generates and sets new ids on all the cloned nodes (by
    * default, SoyNode.copy(copyState) creates cloned nodes with the same ids as the original nodes).
@@ -456,7 +456,7 @@ public final class BaseTofu implements SoyTofu {
         }
         dest.setField(key, value);
       }
-      return dest;
+      return dest.freeze();
     }
 
     @CanIgnoreReturnValue
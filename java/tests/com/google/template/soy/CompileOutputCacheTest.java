@@ -0,0 +1,187 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import java.io.File;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for the {@code --compileCacheDir} support in {@link AbstractSoyCompiler}. */
+@RunWith(JUnit4.class)
+public final class CompileOutputCacheTest {
+  @Rule public final TemporaryFolder temp = new TemporaryFolder();
+
+  private File soyFile;
+  private File output;
+  private File cacheDir;
+
+  @Before
+  public void setUp() throws Exception {
+    soyFile = temp.newFile("temp.soy");
+    writeSoy("{namespace ns}\n{template a}\n  {@param p: string}\n  {$p}\n{/template}\n");
+    output = new File(temp.getRoot(), "temp.soyh");
+    cacheDir = new File(temp.getRoot(), "cache");
+  }
+
+  @Test
+  public void testWarmCompile_restoresOutputsWithoutCompiling() throws Exception {
+    assertThat(compileHeader()).isEqualTo(0);
+    byte[] coldOutput = Files.toByteArray(output);
+    File[] entries = cacheDir.listFiles();
+    assertThat(entries).hasLength(1);
+
+    // Overwrite the cached output, if the compiler really skips compiling it will just copy this.
+    Files.write(new byte[] {1, 2, 3}, new File(entries[0], "0"));
+    output.delete();
+    assertThat(compileHeader()).isEqualTo(0);
+    assertThat(Files.toByteArray(output)).isEqualTo(new byte[] {1, 2, 3});
+
+    // Restore the real output and make sure it is reused.
+    Files.write(coldOutput, new File(entries[0], "0"));
+    assertThat(compileHeader()).isEqualTo(0);
+    assertThat(Files.toByteArray(output)).isEqualTo(coldOutput);
+    assertThat(cacheDir.listFiles()).hasLength(1);
+  }
+
+  @Test
+  public void testChangedInput_compilesAgain() throws Exception {
+    assertThat(compileHeader()).isEqualTo(0);
+    byte[] firstOutput = Files.toByteArray(output);
+
+    writeSoy("{namespace ns}\n{template b}\n  {@param q: int}\n  {$q}\n{/template}\n");
+    assertThat(compileHeader()).isEqualTo(0);
+
+    assertThat(Files.toByteArray(output)).isNotEqualTo(firstOutput);
+    assertThat(cacheDir.listFiles()).hasLength(2);
+  }
+
+  @Test
+  public void testFlagsFromParamsFile_areInKey() throws Exception {
+    File params = temp.newFile("params");
+    writeParams(params, "--javaPackage", "com.example.a");
+    assertThat(compileHeader("@" + params)).isEqualTo(0);
+    assertThat(cacheDir.listFiles()).hasLength(1);
+
+    writeParams(params, "--javaPackage", "com.example.b");
+    assertThat(compileHeader("@" + params)).isEqualTo(0);
+    assertThat(cacheDir.listFiles()).hasLength(2);
+
+    // Flags that can't affect the outputs are left out of the key.
+    writeParams(params, "--javaPackage", "com.example.b", "--compilerThreads", "4");
+    assertThat(compileHeader("@" + params)).isEqualTo(0);
+    assertThat(cacheDir.listFiles()).hasLength(2);
+  }
+
+  @Test
+  public void testChangedMessageFile_compilesAgain() throws Exception {
+    File messageFile = temp.newFile("fr.xlf");
+    File jar = new File(temp.getRoot(), "temp.jar");
+    writeXliff(messageFile, "Bonjour");
+    assertThat(compileJar(messageFile, jar)).isEqualTo(0);
+    assertThat(cacheDir.listFiles()).hasLength(1);
+
+    writeXliff(messageFile, "Salut");
+    assertThat(compileJar(messageFile, jar)).isEqualTo(0);
+    assertThat(cacheDir.listFiles()).hasLength(2);
+
+    // Unchanged contents still hit the cache.
+    assertThat(compileJar(messageFile, jar)).isEqualTo(0);
+    assertThat(cacheDir.listFiles()).hasLength(2);
+  }
+
+  @Test
+  public void testCompileError_isNotCached() throws Exception {
+    writeSoy("{namespace ns}\n{template a}\n  {$undefined}\n{/template}\n");
+
+    assertThat(compileHeader()).isEqualTo(1);
+    assertThat(cacheDir.exists() ? cacheDir.listFiles() : new File[0]).isEmpty();
+  }
+
+  private void writeSoy(String content) throws Exception {
+    Files.asCharSink(soyFile, UTF_8).write(content);
+  }
+
+  private static void writeXliff(File file, String translation) throws Exception {
+    Files.asCharSink(file, UTF_8)
+        .write(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<xliff version=\"1.2\" xmlns=\"urn:oasis:names:tc:xliff:document:1.2\">\n"
+                + "  <file original=\"SoyMsgBundle\" datatype=\"x-soy-msg-bundle\""
+                + " xml:space=\"preserve\" source-language=\"en\" target-language=\"fr\">\n"
+                + "    <body>\n"
+                + "      <trans-unit id=\"123\" datatype=\"html\">\n"
+                + "        <source>Hello</source>\n"
+                + "        <target>"
+                + translation
+                + "</target>\n"
+                + "      </trans-unit>\n"
+                + "    </body>\n"
+                + "  </file>\n"
+                + "</xliff>\n");
+  }
+
+  private int compileJar(File messageFile, File jar) {
+    return new SoyToJbcSrcCompiler()
+        .run(
+            new String[] {
+              "--output",
+              jar.toString(),
+              "--messageFile",
+              messageFile.toString(),
+              "--compileCacheDir",
+              cacheDir.toString(),
+              "--srcs",
+              soyFile.toString()
+            },
+            System.err);
+  }
+
+  /** Writes an args4j params file, with the common flags followed by {@code flags}. */
+  private void writeParams(File params, String... flags) throws Exception {
+    Files.asCharSink(params, UTF_8)
+        .writeLines(
+            ImmutableList.<String>builder()
+                .add("--output", output.toString())
+                .add("--compileCacheDir", cacheDir.toString())
+                .add("--srcs", soyFile.toString())
+                .add(flags)
+                .build());
+  }
+
+  private int compileHeader() {
+    return compileHeader(
+        "--output",
+        output.toString(),
+        "--compileCacheDir",
+        cacheDir.toString(),
+        "--srcs",
+        soyFile.toString());
+  }
+
+  private static int compileHeader(String... args) {
+    return new SoyHeaderCompiler().run(args, System.err);
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SoyClassListGenerator}. */
+@RunWith(JUnit4.class)
+public final class SoyClassListGeneratorTest {
+  private static final String TEMPLATE_CLASS = "com/google/template/soy/jbcsrc/gen/ns";
+
+  @Rule public final TemporaryFolder temp = new TemporaryFolder();
+
+  private File jar;
+  private File output;
+
+  @Before
+  public void setUp() throws Exception {
+    File soyFile = temp.newFile("temp.soy");
+    Files.asCharSink(soyFile, UTF_8)
+        .write(
+            "{namespace ns}\n"
+                + "{template a}\n"
+                + "  {@param p: string}\n"
+                + "  {let $x kind=\"text\"}{$p}{/let}\n"
+                + "  {$x}\n"
+                + "{/template}\n");
+    jar = new File(temp.getRoot(), "temp.jar");
+    output = new File(temp.getRoot(), "temp.classlist");
+    assertThat(
+            new SoyToJbcSrcCompiler()
+                .run(
+                    new String[] {"--output", jar.toString(), "--srcs", soyFile.toString()},
+                    System.err))
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void testClassList() throws Exception {
+    assertThat(generate("--jar", jar.toString(), "--output", output.toString())).isEqualTo(0);
+
+    List<String> classes = Files.readLines(output, UTF_8);
+    assertThat(classes).contains(TEMPLATE_CLASS);
+    assertThat(classes).doesNotContain("com/google/template/soy/jbcsrc/shared/CompiledTemplate");
+  }
+
+  @Test
+  public void testClassList_loadTemplates() throws Exception {
+    assertThat(
+            generate("--jar", jar.toString(), "--output", output.toString(), "--loadTemplates"))
+        .isEqualTo(0);
+
+    List<String> classes = Files.readLines(output, UTF_8);
+    // Classes from the jar come first.
+    assertThat(classes.get(0)).isEqualTo(TEMPLATE_CLASS);
+    assertThat(classes).contains("com/google/template/soy/jbcsrc/shared/CompiledTemplate");
+    assertThat(classes).containsNoDuplicates();
+  }
+
+  @Test
+  public void testArchiveRequiresClasspath() {
+    assertThat(
+            generate(
+                "--jar",
+                jar.toString(),
+                "--output",
+                output.toString(),
+                "--archive",
+                new File(temp.getRoot(), "temp.jsa").toString()))
+        .isEqualTo(1);
+  }
+
+  private static int generate(String... args) {
+    return new SoyClassListGenerator().run(args, System.err);
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.error.SoyCompilationException;
+import com.google.template.soy.jssrc.SoyJsSrcOptions;
+import com.google.template.soy.passes.CompilerFilePass;
+import com.google.template.soy.shared.SoyAstCache;
+import com.google.template.soy.soytree.SoyFileNode;
+import com.google.template.soy.soytree.SoyFileSetNode;
+import com.google.template.soy.soytree.SoyNode;
+import com.google.template.soy.soytree.SoyTreeUtils;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SoyFileSetParser}. */
+@RunWith(JUnit4.class)
+public final class SoyFileSetParserTest {
+  private static final int NUM_FILES = 32;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testParallelParse_matchesSerialParse() {
+    SoyFileSetNode serial = createFileSet(/* executor= */ null).parseInEntryPoint().fileSet();
+    SoyFileSetNode parallel = createFileSet(executor).parseInEntryPoint().fileSet();
+
+    assertThat(sourceStrings(parallel)).isEqualTo(sourceStrings(serial));
+    assertThat(nodeIds(parallel)).isEqualTo(nodeIds(serial));
+  }
+
+  @Test
+  public void testParallelParse_generatesIdenticalCode() {
+    List<String> serial =
+        createFileSet(/* executor= */ null)
+            .compileToJsSrcInternal(new SoyJsSrcOptions(), /* msgBundle= */ null);
+    List<String> parallel =
+        createFileSet(executor)
+            .compileToJsSrcInternal(new SoyJsSrcOptions(), /* msgBundle= */ null);
+
+    assertThat(parallel).containsExactlyElementsIn(serial).inOrder();
+  }
+
+  @Test
+  public void testParallelParse_reportsErrorsInFileOrder() {
+    SoyCompilationException serial =
+        assertThrows(
+            SoyCompilationException.class,
+            () -> createFileSetWithErrors(/* executor= */ null).parseInEntryPoint());
+    SoyCompilationException parallel =
+        assertThrows(
+            SoyCompilationException.class,
+            () -> createFileSetWithErrors(executor).parseInEntryPoint());
+
+    assertThat(parallel.getErrors()).hasSize(NUM_FILES);
+    assertThat(parallel.getMessage()).isEqualTo(serial.getMessage());
+  }
+
+  @Test
+  public void testParallelPasses_reportErrorsInFileOrder() {
+    SoyCompilationException serial =
+        assertThrows(
+            SoyCompilationException.class,
+            () -> createFileSetWithCheckErrors(/* executor= */ null).parseInEntryPoint());
+    SoyCompilationException parallel =
+        assertThrows(
+            SoyCompilationException.class,
+            () -> createFileSetWithCheckErrors(executor).parseInEntryPoint());
+
+    assertThat(parallel.getErrors()).hasSize(2 * NUM_FILES);
+    assertThat(parallel.getMessage()).isEqualTo(serial.getMessage());
+  }
+
+  @Test
+  public void testCachedParse_copiesCachedFiles() {
+    SoyAstCache cache = new SoyAstCache();
+    SoyFileSetNode uncached = createFileSet(/* executor= */ null).parseInEntryPoint().fileSet();
+    SoyFileSetNode miss = createFileSet(executor, cache).parseInEntryPoint().fileSet();
+    SoyFileSetNode hit = createFileSet(executor, cache).parseInEntryPoint().fileSet();
+
+    assertThat(cache.stats().hitCount()).isEqualTo(NUM_FILES);
+    assertThat(sourceStrings(miss)).isEqualTo(sourceStrings(uncached));
+    assertThat(sourceStrings(hit)).isEqualTo(sourceStrings(uncached));
+    assertThat(nodeIds(miss)).isEqualTo(nodeIds(uncached));
+    assertThat(nodeIds(hit)).isEqualTo(nodeIds(uncached));
+    for (int i = 0; i < NUM_FILES; i++) {
+      assertThat(hit.getChild(i)).isNotSameInstanceAs(miss.getChild(i));
+    }
+  }
+
+  private static SoyFileSet createFileSet(@Nullable Executor executor) {
+    return createFileSet(executor, /* cache= */ null);
+  }
+
+  private static SoyFileSet createFileSet(
+      @Nullable Executor executor, @Nullable SoyAstCache cache) {
+    SoyFileSet.Builder builder =
+        SoyFileSet.builder().setCompilerExecutor(executor).setSoyAstCache(cache);
+    for (int i = 0; i < NUM_FILES; i++) {
+      builder.add(
+          "{namespace ns"
+              + i
+              + "}\n"
+              + (i > 0 ? "import {caller as prev} from 'file" + (i - 1) + ".soy';\n" : "")
+              + "{template caller}\n"
+              + "  {@param p: string}\n"
+              + "  <div class=\"{$p}\">\n"
+              + (i > 0 ? "    {call prev}{param p: $p + '" + i + "' /}{/call}\n" : "")
+              + "    {msg desc=\"a message\"}Hello {$p}!{/msg}\n"
+              + "  </div>\n"
+              + "{/template}\n",
+          "file" + i + ".soy");
+    }
+    return builder.build();
+  }
+
+  private static SoyFileSet createFileSetWithErrors(@Nullable Executor executor) {
+    SoyFileSet.Builder builder = SoyFileSet.builder().setCompilerExecutor(executor);
+    for (int i = 0; i < NUM_FILES; i++) {
+      builder.add(
+          "{namespace ns"
+              + i
+              + "}\n"
+              + "{template foo}\n"
+              + "  <div class=\"a\" class=\"b\"></div>\n"
+              + "{/template}\n",
+          "file" + i + ".soy");
+    }
+    return builder.build();
+  }
+
+  /** Files with errors from a {@link CompilerFilePass.Parallelizable} pass. */
+  private static SoyFileSet createFileSetWithCheckErrors(@Nullable Executor executor) {
+    SoyFileSet.Builder builder = SoyFileSet.builder().setCompilerExecutor(executor);
+    for (int i = 0; i < NUM_FILES; i++) {
+      builder.add(
+          "{namespace ns"
+              + i
+              + "}\n"
+              + "{template foo}\n"
+              + "  {@param m: map<list<int>, string>}\n"
+              + "  {@param n: map<list<string>, string>}\n"
+              + "  {$m}{$n}\n"
+              + "{/template}\n",
+          "file" + i + ".soy");
+    }
+    return builder.build();
+  }
+
+  private static ImmutableList<String> sourceStrings(SoyFileSetNode fileSet) {
+    return fileSet.getChildren().stream()
+        .map(SoyFileNode::toSourceString)
+        .collect(toImmutableList());
+  }
+
+  private static ImmutableList<Integer> nodeIds(SoyFileSetNode fileSet) {
+    return SoyTreeUtils.allNodesOfType(fileSet, SoyNode.class)
+        .map(SoyNode::getId)
+        .collect(toImmutableList());
+  }
+}
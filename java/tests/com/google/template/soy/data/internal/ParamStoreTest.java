@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.data.RecordProperty;
+import com.google.template.soy.data.SoyValueProvider;
+import com.google.template.soy.data.restricted.IntegerData;
+import com.google.template.soy.data.restricted.StringData;
+import com.google.template.soy.data.restricted.UndefinedData;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ParamStore}. */
+@RunWith(JUnit4.class)
+public final class ParamStoreTest {
+  private static final RecordProperty A = RecordProperty.get("a");
+  private static final RecordProperty B = RecordProperty.get("b");
+  private static final RecordProperty C = RecordProperty.get("c");
+
+  @Test
+  public void testAugmentFrozenStore() {
+    ParamStore parent =
+        new ParamStore(2)
+            .setField(A, IntegerData.forValue(1))
+            .setField(B, IntegerData.forValue(2))
+            .freeze();
+    ParamStore child =
+        new ParamStore(parent, 2)
+            .setField(B, StringData.forValue("b"))
+            .setField(C, IntegerData.forValue(3))
+            .freeze();
+
+    assertThat(child.size()).isEqualTo(3);
+    assertThat(child.hasField(A)).isTrue();
+    assertThat(child.containsKey(C)).isTrue();
+    assertThat(child.getFieldProvider(A)).isEqualTo(IntegerData.forValue(1));
+    assertThat(child.getFieldProvider(B)).isEqualTo(StringData.forValue("b"));
+    assertThat(child.getPositionalParam(RecordProperty.get("d")))
+        .isEqualTo(UndefinedData.INSTANCE);
+    assertThat(child.properties()).containsExactly(A, B, C);
+    assertThat(asMap(child))
+        .containsExactly(
+            A, IntegerData.forValue(1), B, StringData.forValue("b"), C, IntegerData.forValue(3));
+    assertThat(child.asStringMap().keySet()).containsExactly("a", "b", "c");
+    // The parent is unaffected
+    assertThat(parent.getFieldProvider(B)).isEqualTo(IntegerData.forValue(2));
+    assertThat(parent.size()).isEqualTo(2);
+
+    ParamStore copy =
+        new ParamStore(3)
+            .setField(A, IntegerData.forValue(1))
+            .setField(B, StringData.forValue("b"))
+            .setField(C, IntegerData.forValue(3))
+            .freeze();
+    assertThat(child).isEqualTo(copy);
+    assertThat(child.hashCode()).isEqualTo(copy.hashCode());
+  }
+
+  @Test
+  public void testAugmentDeepChain() {
+    ParamStore store = new ParamStore(1).setField(A, IntegerData.forValue(0)).freeze();
+    for (int i = 1; i <= 100; i++) {
+      store =
+          new ParamStore(store, 1)
+              .setField(RecordProperty.get("p" + i), IntegerData.forValue(i))
+              .freeze();
+    }
+    assertThat(store.size()).isEqualTo(101);
+    assertThat(store.getFieldProvider(A)).isEqualTo(IntegerData.forValue(0));
+    assertThat(store.getFieldProvider(RecordProperty.get("p50")))
+        .isEqualTo(IntegerData.forValue(50));
+    assertThat(asMap(store)).hasSize(101);
+  }
+
+  @Test
+  public void testMerge() {
+    ParamStore bound = new ParamStore(1).setField(A, IntegerData.forValue(1)).freeze();
+    ParamStore params = new ParamStore(1).setField(B, IntegerData.forValue(2)).freeze();
+
+    ParamStore merged = ParamStore.merge(bound, params);
+    assertThat(merged.isFrozen()).isTrue();
+    assertThat(asMap(merged))
+        .containsExactly(A, IntegerData.forValue(1), B, IntegerData.forValue(2));
+
+    assertThrows(IllegalStateException.class, () -> ParamStore.merge(bound, merged));
+  }
+
+  @Test
+  public void testLayout() {
+    ParamLayout layout = ParamLayout.of("a", "b");
+    assertThat(ParamLayout.of("a", "b")).isSameInstanceAs(layout);
+    assertThat(layout.slotOf(B)).isEqualTo(1);
+    assertThat(layout.slotOf(C)).isEqualTo(-1);
+
+    ParamStore store =
+        new ParamStore(layout, 1)
+            .setField(B, IntegerData.forValue(2))
+            .setField(C, IntegerData.forValue(3))
+            .freeze();
+    assertThat(store.size()).isEqualTo(2);
+    assertThat(store.getFieldProvider(layout, 0)).isNull();
+    assertThat(store.getFieldProvider(layout, 1)).isEqualTo(IntegerData.forValue(2));
+    assertThat(store.getFieldProvider(B)).isEqualTo(IntegerData.forValue(2));
+    assertThat(store.getFieldProvider(C)).isEqualTo(IntegerData.forValue(3));
+    assertThat(store.properties()).containsExactly(B, C);
+    assertThat(asMap(store))
+        .containsExactly(B, IntegerData.forValue(2), C, IntegerData.forValue(3));
+
+    // Slot lookups work for stores with a different layout, or none.
+    ParamLayout other = ParamLayout.of("c", "b");
+    assertThat(store.getFieldProvider(other, 0)).isEqualTo(IntegerData.forValue(3));
+    ParamStore plain = new ParamStore(1).setField(B, IntegerData.forValue(4)).freeze();
+    assertThat(plain.getFieldProvider(layout, 1)).isEqualTo(IntegerData.forValue(4));
+  }
+
+  @Test
+  public void testLayout_withBackingStore() {
+    ParamLayout layout = ParamLayout.of("a", "b", "c");
+    ParamStore parent =
+        new ParamStore(2)
+            .setField(A, IntegerData.forValue(1))
+            .setField(B, IntegerData.forValue(2))
+            .freeze();
+    ParamStore child = new ParamStore(parent, layout, 0).setField(B, StringData.forValue("b"));
+    child.freeze();
+
+    assertThat(child.size()).isEqualTo(2);
+    assertThat(child.getFieldProvider(layout, 0)).isEqualTo(IntegerData.forValue(1));
+    assertThat(child.getFieldProvider(layout, 1)).isEqualTo(StringData.forValue("b"));
+    assertThat(child.getFieldProvider(layout, 2)).isNull();
+    assertThat(asMap(child))
+        .containsExactly(A, IntegerData.forValue(1), B, StringData.forValue("b"));
+    assertThrows(
+        IllegalStateException.class,
+        () -> new ParamStore(child, layout, 0).setFieldCritical(A, IntegerData.forValue(5)));
+  }
+
+  private static Map<RecordProperty, SoyValueProvider> asMap(ParamStore store) {
+    Map<RecordProperty, SoyValueProvider> map = new HashMap<>();
+    store.forEach(
+        (k, v) -> {
+          assertThat(map.put(k, v)).isNull();
+        });
+    return ImmutableMap.copyOf(map);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.error;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.template.soy.base.SourceLocation;
+import com.google.template.soy.error.ErrorReporter.Checkpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link PerThreadErrorReporter} */
+@RunWith(JUnit4.class)
+public final class PerThreadErrorReporterTest {
+
+  private static final SoyErrorKind ERROR = SoyErrorKind.of("Oh noes.");
+
+  @Test
+  public void testRunBuffered() {
+    ErrorReporter delegate = ErrorReporter.createForTest();
+    PerThreadErrorReporter reporter = new PerThreadErrorReporter(delegate);
+    ErrorReporter buffer = ErrorReporter.createForTest();
+
+    reporter.report(SourceLocation.UNKNOWN, ERROR);
+    reporter.runBuffered(
+        buffer,
+        () -> {
+          // Only the buffered reports are visible while buffering.
+          assertThat(reporter.hasErrors()).isFalse();
+          Checkpoint cp = reporter.checkpoint();
+          reporter.report(SourceLocation.UNKNOWN, ERROR);
+          reporter.warn(SourceLocation.UNKNOWN, ERROR);
+          assertThat(reporter.errorsSince(cp)).isTrue();
+        });
+
+    assertThat(delegate.getErrors()).hasSize(1);
+    assertThat(buffer.getErrors()).hasSize(1);
+    assertThat(buffer.getWarnings()).hasSize(1);
+
+    buffer.copyTo(reporter);
+    assertThat(delegate.getErrors()).hasSize(2);
+    assertThat(delegate.getWarnings()).hasSize(1);
+  }
+
+  @Test
+  public void testRunBuffered_otherThreadsUnaffected() throws Exception {
+    ErrorReporter delegate = ErrorReporter.createForTest();
+    PerThreadErrorReporter reporter = new PerThreadErrorReporter(delegate);
+
+    reporter.runBuffered(
+        ErrorReporter.createForTest(),
+        () -> {
+          Thread thread = new Thread(() -> reporter.report(SourceLocation.UNKNOWN, ERROR));
+          thread.start();
+          try {
+            thread.join();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        });
+
+    assertThat(delegate.getErrors()).hasSize(1);
+  }
+}
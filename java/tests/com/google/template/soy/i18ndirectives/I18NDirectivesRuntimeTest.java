@@ -0,0 +1,59 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.i18ndirectives;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.ibm.icu.util.ULocale;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link I18NDirectivesRuntime}. */
+@RunWith(JUnit4.class)
+public final class I18NDirectivesRuntimeTest {
+  private static final ULocale EN = new ULocale("en");
+  private static final ULocale DE = new ULocale("de");
+
+  @Test
+  public void testFormat() {
+    assertThat(I18NDirectivesRuntime.format(1234.5678, EN)).isEqualTo("1,234.568");
+    assertThat(I18NDirectivesRuntime.format(1234.5678, DE)).isEqualTo("1.234,568");
+    assertThat(I18NDirectivesRuntime.format(0.5, "percent", EN)).isEqualTo("50%");
+    assertThat(I18NDirectivesRuntime.format(1234567, "compact_short", EN)).isEqualTo("1.23M");
+    assertThat(I18NDirectivesRuntime.format(1234567, "compact_long", EN))
+        .isEqualTo("1.23 million");
+    assertThat(I18NDirectivesRuntime.format(12, "decimal", "roman", EN)).isEqualTo("XII");
+  }
+
+  @Test
+  public void testFormat_cachedFormatsAreKeyedOnAllOptions() {
+    for (int i = 0; i < 3; i++) {
+      assertThat(I18NDirectivesRuntime.format(1.5, "decimal", "latn", 2, EN)).isEqualTo("1.50");
+      assertThat(I18NDirectivesRuntime.format(1.5, "decimal", "latn", 0, 0, EN)).isEqualTo("2");
+      assertThat(I18NDirectivesRuntime.format(1.5, "decimal", "latn", EN)).isEqualTo("1.5");
+      assertThat(I18NDirectivesRuntime.format(1.5, "decimal", "arab", EN)).isEqualTo("١٫٥");
+    }
+  }
+
+  @Test
+  public void testFormat_badFormatType() {
+    assertThrows(
+        IllegalArgumentException.class, () -> I18NDirectivesRuntime.format(1, "bogus", EN));
+  }
+}
@@ -33,7 +33,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.io.ByteSink;
+import com.google.common.io.Files;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.template.soy.SoyFileSetParser;
 import com.google.template.soy.SoyFileSetParser.ParseResult;
 import com.google.template.soy.base.SourceFilePath;
@@ -60,6 +63,7 @@ import com.google.template.soy.jbcsrc.TemplateTester.CompiledTemplateSubject;
 import com.google.template.soy.jbcsrc.api.RenderResult;
 import com.google.template.soy.jbcsrc.api.SoySauce;
 import com.google.template.soy.jbcsrc.api.SoySauceBuilder;
+import com.google.template.soy.jbcsrc.api.TemplateOutputCache;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplate;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
 import com.google.template.soy.jbcsrc.shared.Names;
@@ -76,15 +80,25 @@ import com.google.template.soy.shared.restricted.SoyJavaFunction;
 import com.google.template.soy.soytree.Metadata.CompilationUnitAndKind;
 import com.google.template.soy.soytree.TemplateMetadataSerializer;
 import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 import javax.annotation.Nullable;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -93,6 +107,8 @@ import org.junit.runners.JUnit4;
 public class BytecodeCompilerTest {
   public static final SoyList EMPTY_LIST = ListImpl.forProviderList(ImmutableList.of());
 
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test
   public void testDelCall_modSelections() throws IOException {
     SoyFileSupplier soyFileContent1 =
@@ -405,10 +421,8 @@ public class BytecodeCompilerTest {
             "  {/msg}",
             "{/template}");
     Class<?> templateClass = templates.getTemplateData("ns.msg").templateClass();
-    Class<?> innerClass =
-        Iterables.getOnlyElement(Arrays.asList(templateClass.getDeclaredClasses()));
-    assertThat(innerClass.getSimpleName()).isEqualTo("ph_FOO");
-    assertThat(innerClass.getDeclaredFields()).hasLength(2);
+    assertThat(templateClass.getDeclaredClasses()).isEmpty();
+    assertThat(closureMethodNames(templateClass)).containsExactly("msg$$ph_FOO");
     templates =
         TemplateTester.compileFile(
             "{namespace ns}",
@@ -422,9 +436,143 @@ public class BytecodeCompilerTest {
             "  {/if}",
             "{/template}");
     templateClass = templates.getTemplateData("ns.msg").templateClass();
-    // The placeholder doesn't require an inner class  because `$name` is definitely already
-    // resolved so it is evaluated inline
-    assertThat(templateClass.getDeclaredClasses()).isEmpty();
+    // The placeholder doesn't require a closure because `$name` is definitely already resolved so
+    // it is evaluated inline
+    assertThat(closureMethodNames(templateClass)).isEmpty();
+  }
+
+  private static ImmutableList<String> closureMethodNames(Class<?> templateClass) {
+    return Arrays.stream(templateClass.getDeclaredMethods())
+        .filter(m -> m.isSynthetic() && m.getName().contains("$$"))
+        .map(Method::getName)
+        .collect(toImmutableList());
+  }
+
+  @Test
+  public void testOutputCache() throws IOException {
+    CompiledTemplates templates =
+        TemplateTester.compileFile(
+            "{namespace ns}",
+            "",
+            "{template icon}",
+            "  {@param name : string}",
+            "  {@param? size : int|null}",
+            "  <i class=\"icon-{$name}\"{if $size} width=\"{$size}\"{/if}></i>",
+            "{/template}",
+            "",
+            "{template label kind=\"text\"}",
+            "  {@param name : string}",
+            "  [{$name}]",
+            "{/template}",
+            "",
+            "{template page}",
+            "  {@param names : list<string>}",
+            "  {for $name in $names}",
+            "    {call icon}{param name : $name /}{/call}",
+            "    {call icon}{param name : $name /}{param size : 2 /}{/call}",
+            "    {call label}{param name : $name /}{/call}",
+            "  {/for}",
+            "{/template}");
+    TemplateOutputCache cache = TemplateOutputCache.create(100);
+    ParamStore params = asParams(ImmutableMap.of("names", ImmutableList.of("a", "b", "a")));
+    String expected =
+        "<i class=\"icon-a\"></i><i class=\"icon-a\" width=\"2\"></i>[a]"
+            + "<i class=\"icon-b\"></i><i class=\"icon-b\" width=\"2\"></i>[b]"
+            + "<i class=\"icon-a\"></i><i class=\"icon-a\" width=\"2\"></i>[a]";
+
+    BufferingAppendable output = LoggingAdvisingAppendable.buffering();
+    RenderContext context = getDefaultContext(templates).toBuilder().withOutputCache(cache).build();
+    assertThat(
+            templates
+                .getTemplate("ns.page")
+                .render(params, ParamStore.EMPTY_INSTANCE, output, context))
+        .isEqualTo(RenderResult.done());
+    assertThat(output.toString()).isEqualTo(expected);
+    assertThat(cache.size()).isEqualTo(6);
+    assertThat(cache.stats().missCount()).isEqualTo(6);
+    assertThat(cache.stats().hitCount()).isEqualTo(3);
+
+    // The cache is shared by later renders.
+    output = LoggingAdvisingAppendable.buffering();
+    context = getDefaultContext(templates).toBuilder().withOutputCache(cache).build();
+    assertThat(
+            templates
+                .getTemplate("ns.page")
+                .render(params, ParamStore.EMPTY_INSTANCE, output, context))
+        .isEqualTo(RenderResult.done());
+    assertThat(output.toString()).isEqualTo(expected);
+    assertThat(cache.stats().missCount()).isEqualTo(6);
+    assertThat(cache.stats().hitCount()).isEqualTo(12);
+
+    // The replayed content has the kind of the template.
+    output = LoggingAdvisingAppendable.buffering();
+    assertThat(
+            templates
+                .getTemplate("ns.label")
+                .render(
+                    asParams(ImmutableMap.of("name", "a")),
+                    ParamStore.EMPTY_INSTANCE,
+                    output,
+                    context))
+        .isEqualTo(RenderResult.done());
+    assertThat(output.getAsSoyValue()).isEqualTo(StringData.forValue("[a]"));
+    assertThat(cache.stats().hitCount()).isEqualTo(13);
+    assertThat(render(templates, params, "ns.page")).isEqualTo(expected);
+  }
+
+  @Test
+  public void testInlinedCalls() throws IOException {
+    CompiledTemplates templates =
+        TemplateTester.compileFile(
+            "{namespace ns}",
+            "",
+            "{template item visibility=\"private\"}",
+            "  {@param name : string}",
+            "  {@param? sep : string|null}",
+            "  {@param size : int = 1}",
+            "  {@param? content : html|null}",
+            "  {let $label : $name + ($sep ?? '') /}",
+            "  <li data-size=\"{$size}\">{$label}{$content ?? ''}</li>",
+            "{/template}",
+            "",
+            "{template page}",
+            "  {@param names : list<string>}",
+            "  {let $label : 'outer' /}",
+            "  {for $n in $names}",
+            "    {call item}{param name : $n /}{/call}",
+            "    {call item}{param name : $n /}{param sep : ',' /}{param size : 2 /}{/call}",
+            "    {call item}",
+            "      {param name : $n /}",
+            "      {param content kind=\"html\"}<b>{$label}</b>{/param}",
+            "    {/call}",
+            "  {/for}",
+            "  {let $both kind=\"html\"}",
+            "    {call item}{param name : 'x' /}{/call}",
+            "    {call item}{param name : 'y' /}{param size : 3 /}{/call}",
+            "  {/let}",
+            "  {$both}",
+            "{/template}");
+    ParamStore params = asParams(ImmutableMap.of("names", ImmutableList.of("a")));
+    assertThat(render(templates, params, "ns.page"))
+        .isEqualTo(
+            "<li data-size=\"1\">a</li><li data-size=\"2\">a,</li>"
+                + "<li data-size=\"1\">a<b>outer</b></li>"
+                + "<li data-size=\"1\">x</li><li data-size=\"3\">y</li>");
+
+    // Params that aren't resolved yet detach the caller like they would detach the callee.
+    SettableFuture<String> future = SettableFuture.create();
+    CompiledTemplate page = templates.getTemplate("ns.page");
+    RenderContext context = getDefaultContext(templates);
+    BufferingAppendable output = LoggingAdvisingAppendable.buffering();
+    params = asParams(ImmutableMap.of("names", ImmutableList.of(future)));
+    RenderResult result = page.render(params, ParamStore.EMPTY_INSTANCE, output, context);
+    assertThat(result.type()).isEqualTo(RenderResult.Type.DETACH);
+    assertThat(output.toString()).isEqualTo("<li data-size=\"1\">");
+    future.set("b");
+    assertThat(page.render(params, ParamStore.EMPTY_INSTANCE, output, context))
+        .isEqualTo(RenderResult.done());
+    assertThat(output.toString())
+        .startsWith("<li data-size=\"1\">b</li><li data-size=\"2\">b,</li>");
   }
 
   private static TemplateMetadata getTemplateMetadata(CompiledTemplates templates, String name) {
@@ -1408,6 +1556,120 @@ public class BytecodeCompilerTest {
     return SoyFileSetParserBuilder.forSuppliers(files).addCompilationUnits(dependencies).build();
   }
 
+  @Test
+  public void testCompileToJar_parallelMatchesSerial() throws Exception {
+    String[] files = new String[16];
+    for (int i = 0; i < files.length; i++) {
+      files[i] =
+          Joiner.on("\n")
+              .join(
+                  "{namespace ns" + i + "}",
+                  "{template foo}",
+                  "  {@param p: list<string>}",
+                  "  {for $s in $p}<b>{$s}</b>{/for}",
+                  "  {let $l kind=\"html\"}<i>{$p[0]}</i>{/let}",
+                  "  {$l}",
+                  "{/template}",
+                  "{template bar kind=\"text\"}",
+                  "  {msg desc=\"...\"}Hello {" + i + "}{/msg}",
+                  "{/template}",
+                  "");
+    }
+    SoyFileSetParser parser = SoyFileSetParserBuilder.forFileContents(files).build();
+    ParseResult parseResult = parser.parse();
+
+    ByteArrayOutputStream serial = new ByteArrayOutputStream();
+    BytecodeCompiler.compileToJar(
+        parseResult.fileSet(),
+        ErrorReporter.exploding(),
+        parser.typeRegistry(),
+        asByteSink(serial),
+        parseResult.registry());
+    ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      BytecodeCompiler.compileToJar(
+          parseResult.fileSet(),
+          ErrorReporter.exploding(),
+          parser.typeRegistry(),
+          asByteSink(parallel),
+          parseResult.registry(),
+          executor);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(parallel.toByteArray()).isEqualTo(serial.toByteArray());
+  }
+
+  @Test
+  public void testWarmup() throws Exception {
+    SoyFileSetParser parser =
+        SoyFileSetParserBuilder.forFileContents(
+                Joiner.on("\n")
+                    .join(
+                        "{namespace ns}",
+                        "import {b} from 'no-path-2';",
+                        "{template a}",
+                        "  {call helper /}{call b /}",
+                        "{/template}",
+                        "{template helper visibility=\"private\"}",
+                        "  hello",
+                        "{/template}",
+                        ""),
+                Joiner.on("\n")
+                    .join(
+                        "{namespace ns2}",
+                        "{template b}",
+                        "  {@param? p: string|null}",
+                        "  {$p}",
+                        "{/template}",
+                        "{template c}",
+                        "  world",
+                        "{/template}",
+                        ""))
+            .build();
+    ParseResult parseResult = parser.parse();
+    File jar = temporaryFolder.newFile("templates.jar");
+    BytecodeCompiler.compileToJar(
+        parseResult.fileSet(),
+        ErrorReporter.exploding(),
+        parser.typeRegistry(),
+        Files.asByteSink(jar),
+        parseResult.registry());
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {jar.toURI().toURL()}, getClass().getClassLoader())) {
+      List<SoySauceBuilder.WarmupStats> stats = new ArrayList<>();
+      SoySauce sauce =
+          new SoySauceBuilder().withClassLoader(loader).withWarmup(executor, stats::add).build();
+      // a, helper, b and c
+      assertThat(Iterables.getOnlyElement(stats).templateCount()).isEqualTo(4);
+      assertThat(sauce.renderTemplate("ns.a").renderHtml().get().toString())
+          .isEqualTo("hellonull");
+
+      stats.clear();
+      new SoySauceBuilder()
+          .withClassLoader(loader)
+          .withWarmup(ImmutableList.of("ns.a"), executor, stats::add)
+          .build();
+      // a, helper and b
+      assertThat(Iterables.getOnlyElement(stats).templateCount()).isEqualTo(3);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static ByteSink asByteSink(ByteArrayOutputStream stream) {
+    return new ByteSink() {
+      @Override
+      public OutputStream openStream() {
+        return stream;
+      }
+    };
+  }
+
   private static CompilingClassLoader createCompilingClassLoader(
       SoyFileSetParser parser, ParseResult parseResult) {
     return new CompilingClassLoader(
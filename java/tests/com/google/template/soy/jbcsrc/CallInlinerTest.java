@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+
+import com.google.common.base.Joiner;
+import com.google.template.soy.soytree.CallBasicNode;
+import com.google.template.soy.soytree.SoyTreeUtils;
+import com.google.template.soy.soytree.TemplateBasicNode;
+import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import java.util.Optional;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link CallInliner}. */
+@RunWith(JUnit4.class)
+public final class CallInlinerTest {
+
+  @Test
+  public void testGetInlinableCallee() {
+    assertThat(getInlinableCallee("{template callee visibility=\"private\"}Hi{/template}"))
+        .isPresent();
+    assertThat(
+            getInlinableCallee(
+                "{template callee visibility=\"private\"}",
+                "  {@param? p : string|null}",
+                "  {@param? q : int|null}",
+                "  {$p}{$q}",
+                "{/template}"))
+        .isPresent();
+
+    // Public templates may be stubbed.
+    assertThat(getInlinableCallee("{template callee}Hi{/template}")).isEmpty();
+    // Templates that make calls.
+    assertThat(
+            getInlinableCallee(
+                "{template callee visibility=\"private\"}{call other /}{/template}",
+                "{template other}Hi{/template}"))
+        .isEmpty();
+    // Templates with a different content kind.
+    assertThat(
+            getInlinableCallee(
+                "{template callee visibility=\"private\" kind=\"text\"}Hi{/template}"))
+        .isEmpty();
+    // Templates with injected data.
+    assertThat(
+            getInlinableCallee(
+                "{template callee visibility=\"private\"}",
+                "  {@inject p : string}",
+                "  {$p}",
+                "{/template}"))
+        .isEmpty();
+  }
+
+  @Test
+  public void testGetInlinableCallee_maxSize() {
+    CallBasicNode call = parseCall("{template callee visibility=\"private\"}Hi{/template}");
+    assertThat(CallInliner.getInlinableCallee(call, 100)).isPresent();
+    assertThat(CallInliner.getInlinableCallee(call, 1)).isEmpty();
+    assertThat(CallInliner.getInlinableCallee(call, 0)).isEmpty();
+  }
+
+  @Test
+  public void testInline() {
+    CallBasicNode call =
+        parseCall(
+            "{template callee visibility=\"private\"}",
+            "  {@param? p : string|null}",
+            "  {$p}",
+            "{/template}");
+    TemplateBasicNode callee = CallInliner.getInlinableCallee(call).get();
+    CallInliner.InlinedTemplate inlined = CallInliner.inline(call, callee);
+
+    assertThat(inlined.body().getParent()).isSameInstanceAs(call.getParent());
+    assertThat(call.getParent().getChildren()).doesNotContain(inlined.body());
+    assertThat(inlined.body().numChildren()).isEqualTo(callee.numChildren());
+    assertThat(inlined.params().keySet()).containsExactly("p");
+    // The body references copies of the params, the callee is unaffected.
+    assertThat(inlined.params().get("p")).isNotSameInstanceAs(callee.getParams().get(0));
+    assertThat(callee.numChildren()).isGreaterThan(0);
+  }
+
+  private static Optional<TemplateBasicNode> getInlinableCallee(String... calleeLines) {
+    return CallInliner.getInlinableCallee(parseCall(calleeLines));
+  }
+
+  private static CallBasicNode parseCall(String... calleeLines) {
+    String file =
+        Joiner.on("\n")
+            .join(
+                "{namespace ns}",
+                "{template caller}",
+                "  {call callee /}",
+                "{/template}",
+                Joiner.on("\n").join(calleeLines));
+    return SoyTreeUtils.allNodesOfType(
+            SoyFileSetParserBuilder.forFileContents(file).parse().fileSet(), CallBasicNode.class)
+        .filter(call -> call.getCalleeName().equals("ns.callee"))
+        .findFirst()
+        .get();
+  }
+}
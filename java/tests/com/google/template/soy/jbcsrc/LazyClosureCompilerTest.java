@@ -29,7 +29,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.template.soy.data.LoggingAdvisingAppendable;
 import com.google.template.soy.data.LoggingAdvisingAppendable.BufferingAppendable;
@@ -50,7 +49,9 @@ import com.google.template.soy.shared.restricted.SoyFunctionSignature;
 import com.google.template.soy.shared.restricted.SoyJavaFunction;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -233,11 +234,19 @@ public class LazyClosureCompilerTest {
 
     Class<?> fileClass = templates.getTemplateData("ns.foo").templateClass();
 
-    assertThat(fileClass.getDeclaredClasses()).hasLength(1);
-    List<Class<?>> innerClasses = Lists.newArrayList(fileClass.getDeclaredClasses());
-    Class<?> let = Iterables.getOnlyElement(innerClasses);
-    assertThat(let.getSimpleName()).isEqualTo("let_foo");
-    assertThat(let.getDeclaringClass()).isEqualTo(fileClass);
+    // Closures are compiled to static methods of the file class rather than to inner classes.
+    assertThat(fileClass.getDeclaredClasses()).isEmpty();
+    Method let = Iterables.getOnlyElement(closureMethods(fileClass));
+    assertThat(let.getName()).isEqualTo("foo$$let_foo");
+    assertThat(Modifier.isStatic(let.getModifiers())).isTrue();
+    assertThat(Modifier.isPrivate(let.getModifiers())).isTrue();
+    assertThat(let.getReturnType()).isEqualTo(RenderResult.class);
+  }
+
+  private static ImmutableList<Method> closureMethods(Class<?> fileClass) {
+    return Arrays.stream(fileClass.getDeclaredMethods())
+        .filter(m -> m.isSynthetic() && m.getName().contains("$$"))
+        .collect(toImmutableList());
   }
 
   private static final class IdentityJavaFunction implements SoyJavaFunction {
@@ -311,8 +320,9 @@ public class LazyClosureCompilerTest {
     CompiledTemplates templates =
         compileTemplateBody("{let $bar : [0,1,2][randomInt(1)] /}", "{let $foo : $bar /} {$foo}");
     Class<?> fileClass = templates.getTemplateData("ns.foo").templateClass();
-    assertThat(asList(fileClass.getDeclaredClasses())).hasSize(1);
-    assertThat(fileClass.getDeclaredClasses()[0].getSimpleName()).isEqualTo("let_bar");
+    assertThat(asList(fileClass.getDeclaredClasses())).isEmpty();
+    assertThat(closureMethods(fileClass).stream().map(Method::getName).collect(toImmutableList()))
+        .containsExactly("foo$$let_bar");
     assertThat(asList(fileClass.getDeclaredFields())).isEmpty();
   }
 }
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.data.SanitizedContent;
+import com.google.template.soy.jbcsrc.api.RenderResult;
+import com.google.template.soy.jbcsrc.api.SoySauce;
+import com.google.template.soy.jbcsrc.api.SoySauce.Continuation;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.restricted.SoyMsg;
+import com.google.template.soy.msgs.restricted.SoyMsgBundleImpl;
+import com.google.template.soy.msgs.restricted.SoyMsgPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPlaceholderPart;
+import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for compiling translations into templates with {@link MsgCompiler}. */
+@RunWith(JUnit4.class)
+public final class MsgCompilerTest {
+  private static final String SOURCE =
+      Joiner.on('\n')
+          .join(
+              "{namespace ns}",
+              "",
+              "{template hello}",
+              "  {@param name: string}",
+              "  {msg desc='hello'}Hello <b>{$name}</b>!{/msg}",
+              "{/template}",
+              "",
+              "{template plain kind='text'}",
+              "  {msg desc='plain'}Goodbye{/msg}",
+              "{/template}",
+              "",
+              "{template untranslated}",
+              "  {msg desc='untranslated'}Untranslated{/msg}",
+              "{/template}",
+              "",
+              "{template fallback}",
+              "  {msg desc='new'}New{fallbackmsg desc='old'}Old{/msg}",
+              "{/template}",
+              "",
+              "{template plural}",
+              "  {@param n: int}",
+              "  {msg desc='plural'}",
+              "    {plural $n}{case 1}one item{default}{$n} items{/plural}",
+              "  {/msg}",
+              "{/template}",
+              "");
+
+  private SoyFileSet fileSet;
+  private Map<String, SoyMsg> sourceMsgs;
+  private SoyMsgBundle translations;
+
+  @Before
+  public void setUp() {
+    fileSet = SoyFileSet.builder().add(SOURCE, "test.soy").build();
+    sourceMsgs = new HashMap<>();
+    for (SoyMsg msg : fileSet.extractMsgs()) {
+      sourceMsgs.put(msg.getDesc(), msg);
+    }
+    List<SoyMsg> translated = new ArrayList<>();
+    List<SoyMsgPart> helloParts = sourceMsgs.get("hello").getParts();
+    // Reorder the placeholders: START_BOLD NAME END_BOLD
+    translated.add(
+        translate(
+            sourceMsgs.get("hello"),
+            ImmutableList.of(
+                helloParts.get(1),
+                helloParts.get(2),
+                helloParts.get(3),
+                SoyMsgRawTextPart.of(", bonjour !"))));
+    translated.add(
+        translate(sourceMsgs.get("plain"), ImmutableList.of(SoyMsgRawTextPart.of("Au revoir"))));
+    translated.add(
+        translate(sourceMsgs.get("old"), ImmutableList.of(SoyMsgRawTextPart.of("Ancien"))));
+    translated.add(translate(sourceMsgs.get("plural"), sourceMsgs.get("plural").getParts()));
+    translations = new SoyMsgBundleImpl("fr", translated);
+  }
+
+  private static SoyMsg translate(SoyMsg msg, ImmutableList<SoyMsgPart> parts) {
+    return SoyMsg.builder().setId(msg.getId()).setLocaleString("fr").setParts(parts).build();
+  }
+
+  @Test
+  public void testCompiledTranslationsMatchRuntimeLookups() {
+    SoySauce baked = fileSet.compileTemplatesForLocale(translations, ImmutableMap.of());
+    SoySauce dynamic = SoyFileSet.builder().add(SOURCE, "test.soy").build().compileTemplates();
+
+    ImmutableMap<String, ImmutableMap<String, ?>> cases =
+        ImmutableMap.of(
+            "ns.hello", ImmutableMap.of("name", "<Ana>"),
+            "ns.untranslated", ImmutableMap.of(),
+            "ns.fallback", ImmutableMap.of(),
+            "ns.plural", ImmutableMap.of("n", 3));
+    for (Map.Entry<String, ImmutableMap<String, ?>> entry : cases.entrySet()) {
+      assertThat(renderHtml(baked, entry.getKey(), entry.getValue(), translations))
+          .isEqualTo(renderHtml(dynamic, entry.getKey(), entry.getValue(), translations));
+    }
+    assertThat(renderHtml(baked, "ns.hello", ImmutableMap.of("name", "<Ana>"), translations))
+        .isEqualTo("<b>&lt;Ana&gt;</b>, bonjour !");
+    assertThat(renderHtml(baked, "ns.fallback", ImmutableMap.of(), translations))
+        .isEqualTo("Ancien");
+    assertThat(
+            baked.renderTemplate("ns.plain").setMsgBundle(translations).renderText().get())
+        .isEqualTo("Au revoir");
+  }
+
+  @Test
+  public void testCompiledTranslationsIgnoreRenderTimeBundle() {
+    SoySauce baked = fileSet.compileTemplatesForLocale(translations, ImmutableMap.of());
+
+    assertThat(renderHtml(baked, "ns.hello", ImmutableMap.of("name", "Ana"), SoyMsgBundle.EMPTY))
+        .isEqualTo("<b>Ana</b>, bonjour !");
+    assertThat(baked.renderTemplate("ns.plain").renderText().get()).isEqualTo("Au revoir");
+  }
+
+  @Test
+  public void testCompiledTranslationsDetachInPlaceholders() {
+    SoySauce baked = fileSet.compileTemplatesForLocale(translations, ImmutableMap.of());
+    SettableFuture<String> name = SettableFuture.create();
+
+    Continuation<SanitizedContent> continuation =
+        baked
+            .renderTemplate("ns.hello")
+            .setMsgBundle(translations)
+            .setData(ImmutableMap.of("name", name))
+            .renderHtml();
+    assertThat(continuation.result().type()).isEqualTo(RenderResult.Type.DETACH);
+    name.set("Ana");
+    continuation = continuation.continueRender();
+    assertThat(continuation.result()).isEqualTo(RenderResult.done());
+    assertThat(continuation.get().getContent()).isEqualTo("<b>Ana</b>, bonjour !");
+  }
+
+  @Test
+  public void testCompiledTranslationsWithRepeatedOrDroppedPlaceholders() {
+    SoyMsg hello = sourceMsgs.get("hello");
+    SoyMsgPart name = hello.getParts().get(2);
+    assertThat(((SoyMsgPlaceholderPart) name).getPlaceholderName()).isEqualTo("NAME");
+
+    SoyMsgBundle dropped =
+        new SoyMsgBundleImpl(
+            "fr",
+            ImmutableList.of(translate(hello, ImmutableList.of(SoyMsgRawTextPart.of("Salut")))));
+    assertThat(
+            renderHtml(
+                fileSet.compileTemplatesForLocale(dropped, ImmutableMap.of()),
+                "ns.hello",
+                ImmutableMap.of("name", "Ana"),
+                dropped))
+        .isEqualTo("Salut");
+
+    // Repeated placeholders are rendered with a MsgRenderer
+    SoyMsgBundle repeated =
+        new SoyMsgBundleImpl(
+            "fr",
+            ImmutableList.of(
+                translate(hello, ImmutableList.of(name, SoyMsgRawTextPart.of(" & "), name))));
+    assertThat(
+            renderHtml(
+                fileSet.compileTemplatesForLocale(repeated, ImmutableMap.of()),
+                "ns.hello",
+                ImmutableMap.of("name", "Ana"),
+                repeated))
+        .isEqualTo("Ana & Ana");
+  }
+
+  private static String renderHtml(
+      SoySauce sauce, String template, Map<String, ?> data, SoyMsgBundle msgBundle) {
+    return sauce
+        .renderTemplate(template)
+        .setMsgBundle(msgBundle)
+        .setData(data)
+        .renderHtml()
+        .get()
+        .getContent();
+  }
+}
@@ -446,6 +446,35 @@ public final class TemplateAnalysisTest {
         "{refed($p)}");
   }
 
+  @Test
+  public void testIsOutputMemoizable() {
+    assertThat(isOutputMemoizable("{@param p : string}", "<b>{$p}</b>")).isTrue();
+    assertThat(
+            isOutputMemoizable(
+                "{@param p : string}",
+                "{@param? n : int|null}",
+                "{@param? h : html|null}",
+                "{for $i in range($n ?? 1)}{$p + $i}{/for}{$h}"))
+        .isTrue();
+
+    // Params that aren't simple values
+    assertThat(isOutputMemoizable("{@param p : list<string>}", "{$p[0]}")).isFalse();
+    assertThat(isOutputMemoizable("{@inject p : string}", "{$p}")).isFalse();
+    // Anything that depends on the render
+    assertThat(isOutputMemoizable("{@param p : string}", "{msg desc='...'}Hi {$p}{/msg}"))
+        .isFalse();
+    assertThat(isOutputMemoizable("{@param p : string}", "{$p}{call foo /}")).isFalse();
+    assertThat(isOutputMemoizable("{@param p : string}", "{$p}{xid('foo')}")).isFalse();
+    assertThat(isOutputMemoizable("{@param p : string}", "{log}{$p}{/log}")).isFalse();
+    assertThat(isOutputMemoizable("{@param p : string}", "{refed($p)}")).isFalse();
+    // Not worth caching
+    assertThat(isOutputMemoizable("{@param b : bool}", "{if $b}yes{/if}")).isFalse();
+  }
+
+  private static boolean isOutputMemoizable(String... lines) {
+    return TemplateAnalysisImpl.analyze(parseTemplate(lines)).isOutputMemoizable();
+  }
+
   // we can construct a deep analysis graph with a large number of sequential if-statements
   @Test
   public void testDeepGraph() {
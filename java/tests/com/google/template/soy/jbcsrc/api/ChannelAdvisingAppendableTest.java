@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ChannelAdvisingAppendable}. */
+@RunWith(JUnit4.class)
+public final class ChannelAdvisingAppendableTest {
+  private static final String MIXED = "ascii, été, 中文, 😀!";
+
+  /** A channel that accepts a limited number of bytes, like a non-blocking socket. */
+  private static final class FakeChannel implements WritableByteChannel {
+    final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    int capacity = Integer.MAX_VALUE;
+
+    @Override
+    public int write(ByteBuffer src) {
+      int n = Math.min(capacity, src.remaining());
+      for (int i = 0; i < n; i++) {
+        written.write(src.get());
+      }
+      capacity -= n;
+      return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {}
+
+    String content() {
+      return new String(written.toByteArray(), UTF_8);
+    }
+  }
+
+  @Test
+  public void testEncoding() throws IOException {
+    for (int bufferSize : new int[] {4, 5, 7, 64, 8192}) {
+      FakeChannel channel = new FakeChannel();
+      ChannelAdvisingAppendable appendable =
+          ChannelAdvisingAppendable.create(channel, bufferSize, 2);
+      appendable.append(MIXED).append(MIXED, 3, MIXED.length()).append('é');
+      appendable.appendUtf8(MIXED, MIXED.getBytes(UTF_8));
+      appendable.append('\ud83d');
+      assertThat(appendable.finish()).isTrue();
+
+      assertThat(channel.content())
+          .isEqualTo(MIXED + MIXED.substring(3) + 'é' + MIXED + '?');
+      assertThat(appendable.pendingBytes()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void testSoftLimit() throws IOException {
+    FakeChannel channel = new FakeChannel();
+    channel.capacity = 0;
+    ChannelAdvisingAppendable appendable = ChannelAdvisingAppendable.create(channel, 8, 3);
+
+    appendable.append("01234567");
+    assertThat(appendable.softLimitReached()).isFalse();
+    appendable.append("89abcdef");
+    assertThat(appendable.softLimitReached()).isFalse();
+    appendable.append("ghijklmn!");
+    assertThat(appendable.softLimitReached()).isTrue();
+    // Appending past the limit still works.
+    appendable.append("opqrstuvwxyz");
+    assertThat(appendable.pendingBytes()).isEqualTo(37);
+    assertThat(appendable.drain()).isFalse();
+
+    // The channel accepts part of the output.
+    channel.capacity = 33;
+    assertThat(appendable.drain()).isFalse();
+    assertThat(appendable.softLimitReached()).isFalse();
+    assertThat(channel.content()).isEqualTo("0123456789abcdefghijklmn!opqrstuv");
+
+    channel.capacity = Integer.MAX_VALUE;
+    assertThat(appendable.finish()).isTrue();
+    assertThat(appendable.softLimitReached()).isFalse();
+    assertThat(channel.content()).isEqualTo("0123456789abcdefghijklmn!opqrstuvwxyz");
+  }
+}
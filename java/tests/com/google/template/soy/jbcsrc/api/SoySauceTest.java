@@ -18,18 +18,25 @@ package com.google.template.soy.jbcsrc.api;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static com.google.template.soy.data.UnsafeSanitizedContentOrdainer.ordainAsSafe;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.fail;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.template.soy.SoyFileSet;
 import com.google.template.soy.base.internal.SoyFileKind;
 import com.google.template.soy.data.SanitizedContent;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
+import com.google.template.soy.data.SoyFutureException;
 import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.restricted.IntegerData;
 import com.google.template.soy.data.restricted.NullData;
@@ -37,7 +44,18 @@ import com.google.template.soy.jbcsrc.api.SoySauce.Continuation;
 import com.google.template.soy.jbcsrc.api.SoySauce.WriteContinuation;
 import com.google.template.soy.jbcsrc.runtime.DetachableSoyValueProvider;
 import com.google.template.soy.testing.Foo;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -326,6 +344,308 @@ public class SoySauceTest {
     assertThat(builder.toString()).isEqualTo("Hello, piglet");
   }
 
+  @Test
+  public void testRenderAsync() throws Exception {
+    SoySauce.Renderer tmpl = sauce.renderTemplate("strict_test.withParam");
+    TestAppendable builder = new TestAppendable();
+    SettableFuture<String> p = SettableFuture.create();
+    Deque<Runnable> tasks = new ArrayDeque<>();
+
+    CompletableFuture<Void> result =
+        tmpl.setData(ImmutableMap.of("p", p))
+            .renderHtmlAsync(builder, tasks::add, SettableFuture::create);
+    // The render is waiting on p without occupying a thread.
+    assertThat(result.isDone()).isFalse();
+    assertThat(tasks).isEmpty();
+
+    p.set("eeyore");
+    assertThat(tasks).hasSize(1);
+    tasks.remove().run();
+    assertThat(result.isDone()).isTrue();
+    result.get();
+    assertThat(builder.toString()).isEqualTo("Hello, eeyore");
+  }
+
+  @Test
+  public void testRenderAsync_completionStage() throws Exception {
+    SoySauce.Renderer tmpl = sauce.renderTemplate("strict_test.withParam");
+    CompletableFuture<String> p = new CompletableFuture<>();
+    Deque<Runnable> tasks = new ArrayDeque<>();
+
+    CompletableFuture<SanitizedContent> result =
+        tmpl.setData(ImmutableMap.of("p", p)).renderHtmlAsync(tasks::add);
+    assertThat(result.isDone()).isFalse();
+
+    p.complete("roo");
+    while (!tasks.isEmpty()) {
+      tasks.remove().run();
+    }
+    assertThat(result.get().getContent()).isEqualTo("Hello, roo");
+  }
+
+  @Test
+  public void testRenderAsync_softLimitWaitsForOutput() throws Exception {
+    SoySauce.Renderer tmpl = sauce.renderTemplate("strict_test.withParam");
+    TestAppendable builder = new TestAppendable();
+    builder.softLimitReached = true;
+    SettableFuture<Void> outputReady = SettableFuture.create();
+    Deque<Runnable> tasks = new ArrayDeque<>();
+
+    CompletableFuture<Void> result =
+        tmpl.setData(ImmutableMap.of("p", "kanga"))
+            .renderTextAsync(builder, tasks::add, () -> outputReady);
+    // Nothing is scheduled until the output is ready.
+    assertThat(result.isDone()).isFalse();
+    assertThat(tasks).isEmpty();
+
+    builder.softLimitReached = false;
+    outputReady.set(null);
+    assertThat(tasks).hasSize(1);
+    tasks.remove().run();
+    result.get();
+    assertThat(builder.toString()).isEqualTo("Hello, kanga");
+  }
+
+  @Test
+  public void testRenderAsync_softLimitWithReadyOutput() throws Exception {
+    SoySauce.Renderer tmpl = sauce.renderTemplate("strict_test.withParam");
+    TestAppendable builder = new TestAppendable();
+    builder.softLimitReached = true;
+    Deque<Runnable> tasks = new ArrayDeque<>();
+
+    CompletableFuture<Void> result =
+        tmpl.setData(ImmutableMap.of("p", "kanga"))
+            .renderTextAsync(
+                builder,
+                tasks::add,
+                () -> {
+                  builder.softLimitReached = false;
+                  return Futures.immediateVoidFuture();
+                });
+    // The render continues on the calling thread.
+    assertThat(tasks).isEmpty();
+    result.get();
+    assertThat(builder.toString()).isEqualTo("Hello, kanga");
+  }
+
+  @Test
+  public void testRenderAsync_failure() {
+    SoySauce.Renderer tmpl = sauce.renderTemplate("strict_test.withParam");
+    SettableFuture<String> p = SettableFuture.create();
+
+    CompletableFuture<String> result =
+        tmpl.setData(ImmutableMap.of("p", p)).renderTextAsync(directExecutor());
+    p.setException(new IllegalStateException("no honey"));
+
+    ExecutionException e = assertThrows(ExecutionException.class, result::get);
+    assertThat(e).hasCauseThat().isInstanceOf(SoyFutureException.class);
+    assertThat(e).hasCauseThat().hasCauseThat().hasMessageThat().isEqualTo("no honey");
+  }
+
+  @Test
+  public void testBlockOnFutures() throws Exception {
+    RenderMetricsCollector collector = new RenderMetricsCollector();
+    SoySauce.Renderer tmpl =
+        sauce
+            .renderTemplate("strict_test.withParam")
+            .setBlockOnFutures(true)
+            .setRenderMetricsListener(collector);
+    TestAppendable builder = new TestAppendable();
+    SettableFuture<String> p = SettableFuture.create();
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      executor.schedule(() -> p.set("tigger"), 10, MILLISECONDS);
+      WriteContinuation continuation = tmpl.setData(ImmutableMap.of("p", p)).renderHtml(builder);
+      continuation.assertDone();
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(builder.toString()).isEqualTo("Hello, tigger");
+    RenderMetricsCollector.TemplateMetrics result =
+        collector.snapshot().get("strict_test.withParam");
+    assertThat(result.totalDetaches()).isEqualTo(0);
+    assertThat(result.totalSoftLimitPauses()).isEqualTo(0);
+  }
+
+  @Test
+  public void testBlockOnFutures_waitsForOutput() throws Exception {
+    TestAppendable builder = new TestAppendable();
+    builder.softLimitReached = true;
+    SettableFuture<Void> outputReady = SettableFuture.create();
+    SettableFuture<String> p = SettableFuture.create();
+    SoySauce.Renderer tmpl =
+        sauce
+            .renderTemplate("strict_test.withParam")
+            .setBlockOnFutures(true)
+            .setOutputReady(() -> outputReady);
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      executor.schedule(
+          () -> {
+            builder.softLimitReached = false;
+            outputReady.set(null);
+            p.set("tigger");
+          },
+          10,
+          MILLISECONDS);
+      tmpl.setData(ImmutableMap.of("p", p)).renderHtml(builder).assertDone();
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(builder.toString()).isEqualTo("Hello, tigger");
+  }
+
+  @Test
+  public void testBlockOnFutures_softLimitWithoutOutputReady() throws Exception {
+    TestAppendable builder = new TestAppendable();
+    builder.softLimitReached = true;
+    SoySauce.Renderer tmpl =
+        sauce.renderTemplate("strict_test.withParam").setBlockOnFutures(true);
+    SettableFuture<String> p = SettableFuture.create();
+
+    WriteContinuation continuation = tmpl.setData(ImmutableMap.of("p", p)).renderHtml(builder);
+    // The output pushes back, so the caller has to wait for it.
+    assertThat(continuation.result().type()).isEqualTo(RenderResult.Type.LIMITED);
+    assertThat(builder.toString()).isEmpty();
+
+    builder.softLimitReached = false;
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      executor.schedule(() -> p.set("tigger"), 10, MILLISECONDS);
+      // The continued render still blocks on the future.
+      continuation.continueRender().assertDone();
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(builder.toString()).isEqualTo("Hello, tigger");
+  }
+
+  @Test
+  public void testBlockOnFutures_plugin() throws Exception {
+    SoySauce.Renderer tmpl =
+        sauce
+            .renderTemplate("strict_test.withAsyncPluginCall")
+            .setPluginInstances(ImmutableMap.of("testAsyncPlugin", () -> testAsyncPlugin))
+            .setBlockOnFutures(true);
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    Continuation<SanitizedContent> continuation;
+    try {
+      executor.schedule(() -> testAsyncPlugin.resolveTo("Charlie"), 10, MILLISECONDS);
+      continuation = tmpl.renderHtml();
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(continuation.result()).isEqualTo(RenderResult.done());
+    assertThat(continuation.get().getContent()).isEqualTo("Hello, Charlie!");
+  }
+
+  @Test
+  public void testBlockOnFutures_failure() {
+    SoySauce.Renderer tmpl =
+        sauce.renderTemplate("strict_test.withParam").setBlockOnFutures(true);
+    SettableFuture<String> p = SettableFuture.create();
+    p.setException(new IllegalStateException("no honey"));
+
+    SoyFutureException e =
+        assertThrows(
+            SoyFutureException.class, () -> tmpl.setData(ImmutableMap.of("p", p)).renderText());
+    assertThat(e).hasCauseThat().hasMessageThat().isEqualTo("no honey");
+  }
+
+  @Test
+  public void testRenderUtf8() throws IOException {
+    SoySauce sauce =
+        SoyFileSet.builder()
+            .add(
+                Joiner.on('\n')
+                    .join(
+                        "{namespace ns}",
+                        "{template a}",
+                        "  {@param p: string}",
+                        "  <p title=\"\u00e9t\u00e9\">\u4e2d\u6587 {$p} \ud83d\ude00</p>",
+                        "{/template}"),
+                "a.soy")
+            .build()
+            .compileTemplates();
+    SoySauce.Renderer renderer =
+        sauce.renderTemplate("ns.a").setData(ImmutableMap.of("p", "<\u00e9>"));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create(bytes);
+
+    renderer.renderHtml(appendable).assertDone();
+    appendable.flush();
+
+    String expected = renderer.renderHtml().get().getContent();
+    assertThat(expected).contains("\u4e2d\u6587 &lt;\u00e9&gt; \ud83d\ude00");
+    assertThat(bytes.toByteArray()).isEqualTo(expected.getBytes(UTF_8));
+  }
+
+  @Test
+  public void testRenderToChannel_pausesOnBackPressure() throws IOException {
+    SoySauce sauce =
+        SoyFileSet.builder()
+            .add(
+                Joiner.on('\n')
+                    .join(
+                        "{namespace ns}",
+                        "{template a}",
+                        "  {@param p: string}",
+                        "  {for $i in range(100)}",
+                        "    {call b}{param i: $i /}{param p: $p /}{/call}",
+                        "  {/for}",
+                        "{/template}",
+                        "{template b}",
+                        "  {@param i: int}",
+                        "  {@param p: string}",
+                        "  <li>{$i}: {$p}</li>",
+                        "{/template}"),
+                "a.soy")
+            .build()
+            .compileTemplates();
+    SoySauce.Renderer renderer =
+        sauce.renderTemplate("ns.a").setData(ImmutableMap.of("p", "\u00e9t\u00e9"));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int[] capacity = {0};
+    WritableByteChannel channel =
+        new WritableByteChannel() {
+          @Override
+          public int write(ByteBuffer src) {
+            int n = Math.min(capacity[0], src.remaining());
+            for (int i = 0; i < n; i++) {
+              bytes.write(src.get());
+            }
+            capacity[0] -= n;
+            return n;
+          }
+
+          @Override
+          public boolean isOpen() {
+            return true;
+          }
+
+          @Override
+          public void close() {}
+        };
+    ChannelAdvisingAppendable appendable = ChannelAdvisingAppendable.create(channel, 64, 2);
+
+    int pauses = 0;
+    WriteContinuation continuation = renderer.renderHtml(appendable);
+    while (!continuation.result().isDone()) {
+      assertThat(continuation.result().type()).isEqualTo(RenderResult.Type.LIMITED);
+      pauses++;
+      // The socket became writable.
+      capacity[0] = 64;
+      appendable.drain();
+      continuation = continuation.continueRender();
+    }
+    capacity[0] = Integer.MAX_VALUE;
+    assertThat(appendable.finish()).isTrue();
+
+    assertThat(pauses).isGreaterThan(1);
+    assertThat(new String(bytes.toByteArray(), UTF_8))
+        .isEqualTo(renderer.renderHtml().get().getContent());
+  }
+
   @Test
   public void testPluginDetaching_string() {
     SoySauce.Renderer tmpl = sauce.renderTemplate("strict_test.withAsyncPluginCall");
@@ -407,6 +727,89 @@ public class SoySauceTest {
     assertThat(continuation.get().getContent()).isEqualTo("it works!");
   }
 
+  @Test
+  public void testRenderMetrics() throws IOException {
+    List<RenderMetrics> metrics = new ArrayList<>();
+    TestAppendable builder = new TestAppendable();
+    builder.softLimitReached = true;
+    WriteContinuation continuation =
+        sauce
+            .renderTemplate("strict_test.helloHtml")
+            .setRenderMetricsListener(metrics::add)
+            .renderHtml(builder);
+    assertThat(continuation.result().type()).isEqualTo(RenderResult.Type.LIMITED);
+    assertThat(metrics).isEmpty();
+
+    builder.softLimitReached = false;
+    continuation.continueRender().assertDone();
+    RenderMetrics result = Iterables.getOnlyElement(metrics);
+    assertThat(result.templateName()).isEqualTo("strict_test.helloHtml");
+    assertThat(result.outputChars()).isEqualTo("Hello world".length());
+    assertThat(result.softLimitPauses()).isEqualTo(1);
+    assertThat(result.detaches()).isEqualTo(0);
+    assertThat(result.bufferedRenders()).isEqualTo(0);
+    assertThat(result.wallTime()).isAtLeast(result.renderTime());
+  }
+
+  @Test
+  public void testRenderMetrics_detaches() {
+    RenderMetricsCollector collector = new RenderMetricsCollector();
+    SettableFuture<Foo> s = SettableFuture.create();
+    Continuation<SanitizedContent> continuation =
+        sauce
+            .renderTemplate("strict_test.testExecutionOrder")
+            .setData(ImmutableMap.of("protoFuture", s))
+            .setRenderMetricsListener(collector)
+            .renderHtml();
+    s.set(
+        Foo.newBuilder()
+            .setBoolField(true)
+            .addAllStringA(ImmutableList.of("these", "are", "strings", "!!"))
+            .build());
+    continuation.continueRender();
+
+    RenderMetricsCollector.TemplateMetrics result =
+        collector.snapshot().get("strict_test.testExecutionOrder");
+    assertThat(result.renders()).isEqualTo(1);
+    assertThat(result.totalDetaches()).isEqualTo(1);
+    assertThat(result.totalOutputChars()).isEqualTo("it works!".length());
+  }
+
+  @Test
+  public void testRenderMetrics_bufferedRenders() {
+    SoySauce sauce =
+        SoyFileSet.builder()
+            .add(
+                Joiner.on('\n')
+                    .join(
+                        "{namespace ns}",
+                        "{template a}",
+                        "  <div>{call b errorfallback=\"skip\" /}{call b /}</div>",
+                        "{/template}",
+                        "{template b}",
+                        "  b",
+                        "{/template}"),
+                "test.soy")
+            .build()
+            .compileTemplates();
+    RenderMetricsCollector collector = new RenderMetricsCollector();
+    for (int i = 0; i < 2; i++) {
+      assertThat(
+              sauce
+                  .renderTemplate("ns.a")
+                  .setRenderMetricsListener(collector)
+                  .renderHtml()
+                  .get()
+                  .toString())
+          .isEqualTo("<div>bb</div>");
+    }
+
+    RenderMetricsCollector.TemplateMetrics result = collector.snapshot().get("ns.a");
+    assertThat(result.renders()).isEqualTo(2);
+    assertThat(result.totalBufferedRenders()).isEqualTo(2);
+    assertThat(result.totalOutputChars()).isEqualTo(2 * "<div>bb</div>".length());
+  }
+
   private static final class TestAppendable implements AdvisingAppendable {
     private final StringBuilder delegate = new StringBuilder();
     boolean softLimitReached;
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link Utf8AdvisingAppendable}. */
+@RunWith(JUnit4.class)
+public final class Utf8AdvisingAppendableTest {
+  private static final String MIXED = "ascii, été, 中文, 😀!";
+
+  @Test
+  public void testEncoding() throws IOException {
+    for (int bufferSize : new int[] {4, 5, 7, 64, 8192}) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create(bytes, bufferSize);
+      appendable.append(MIXED).append(MIXED, 3, MIXED.length()).append('é');
+      appendable.appendUtf8(MIXED, MIXED.getBytes(UTF_8));
+      appendable.close();
+
+      String expected = MIXED + MIXED.substring(3) + 'é' + MIXED;
+      assertThat(bytes.toByteArray()).isEqualTo(expected.getBytes(UTF_8));
+    }
+  }
+
+  @Test
+  public void testEncoding_randomStrings() throws IOException {
+    Random random = new Random(12345);
+    for (int i = 0; i < 100; i++) {
+      StringBuilder sb = new StringBuilder();
+      for (int j = random.nextInt(200); j > 0; j--) {
+        // Bias towards the interesting ranges, including unpaired surrogates.
+        switch (random.nextInt(4)) {
+          case 0:
+            sb.append((char) random.nextInt(0x80));
+            break;
+          case 1:
+            sb.append((char) random.nextInt(0x800));
+            break;
+          case 2:
+            sb.append((char) (0xD800 + random.nextInt(0x800)));
+            break;
+          default:
+            sb.append((char) random.nextInt(0x10000));
+        }
+      }
+      String s = sb.toString();
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      Utf8AdvisingAppendable appendable =
+          Utf8AdvisingAppendable.create(bytes, 4 + random.nextInt(32));
+      // Split the string arbitrarily across appends, including between surrogate pairs.
+      int start = 0;
+      while (start < s.length()) {
+        int end = Math.min(s.length(), start + random.nextInt(8));
+        if (random.nextBoolean()) {
+          appendable.append(s, start, end);
+        } else {
+          for (int k = start; k < end; k++) {
+            appendable.append(s.charAt(k));
+          }
+        }
+        start = end;
+      }
+      appendable.close();
+
+      assertThat(bytes.toByteArray()).isEqualTo(s.getBytes(UTF_8));
+    }
+  }
+
+  @Test
+  public void testAppendUtf8_largerThanBuffer() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create(bytes, 8);
+    appendable.append("ab");
+    appendable.appendUtf8(MIXED, MIXED.getBytes(UTF_8));
+    appendable.append("cd");
+    appendable.flush();
+
+    assertThat(new String(bytes.toByteArray(), UTF_8)).isEqualTo("ab" + MIXED + "cd");
+  }
+
+  @Test
+  public void testFlush_keepsPendingHighSurrogate() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create(bytes);
+    appendable.append('a').append('\ud83d');
+    appendable.flush();
+    assertThat(new String(bytes.toByteArray(), UTF_8)).isEqualTo("a");
+
+    appendable.append('\ude00');
+    appendable.flush();
+    assertThat(new String(bytes.toByteArray(), UTF_8)).isEqualTo("a😀");
+  }
+}
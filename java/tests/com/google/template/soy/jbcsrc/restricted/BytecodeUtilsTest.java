@@ -17,8 +17,10 @@
 package com.google.template.soy.jbcsrc.restricted;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.asImmutableList;
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.constant;
+import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.constantUtf8;
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.soyNull;
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.soyUndefined;
 import static com.google.template.soy.jbcsrc.restricted.testing.ExpressionSubject.assertThatExpression;
@@ -95,6 +97,14 @@ public class BytecodeUtilsTest {
     assertThatExpression(constant("aaaa" + large)).evaluatesTo("aaaa" + large);
   }
 
+  @Test
+  public void testUtf8Constant() {
+    String large = "🤦‍♀️".repeat(1 << 16) + "a";
+    assertThat(Utf8.encodedLength(large)).isGreaterThan(65335);
+    assertThatExpression(constantUtf8(large)).evaluatesTo(large.getBytes(UTF_8));
+    assertThatExpression(constantUtf8("")).evaluatesTo(new byte[0]);
+  }
+
   @Test
   public void testNullish() {
     assertThat(soyNull().isNonJavaNullable()).isTrue();
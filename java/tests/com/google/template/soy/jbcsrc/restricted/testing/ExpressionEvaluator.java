@@ -132,7 +132,9 @@ public final class ExpressionEvaluator {
     }
     Class<?> returnType = invokeMethod.getReturnType();
     if (!Type.getType(returnType).equals(expr.resultType())) {
-      if (!returnType.equals(Object.class) || expr.resultType().getSort() != Type.OBJECT) {
+      if (!returnType.equals(Object.class)
+          || (expr.resultType().getSort() != Type.OBJECT
+              && expr.resultType().getSort() != Type.ARRAY)) {
         throw new IllegalArgumentException(
             targetInterface + " is not appropriate for this expression");
       }
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.testing.GcFinalization;
+import com.google.template.soy.msgs.restricted.SoyMsgPart;
+import com.google.template.soy.xliffmsgplugin.XliffMsgPlugin;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link LazySoyMsgBundleLoader}. */
+@RunWith(JUnit4.class)
+public final class LazySoyMsgBundleLoaderTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final SoyMsgBundleHandler handler = new SoyMsgBundleHandler(new XliffMsgPlugin());
+  private final Map<Locale, URL> resources = new HashMap<>();
+
+  @Before
+  public void setUp() throws IOException {
+    resources.put(Locale.FRENCH, writeXliff("fr", "Bonjour"));
+    resources.put(Locale.GERMAN, writeXliff("de", "Hallo"));
+    resources.put(Locale.ITALIAN, writeXliff("it", "Bonjour"));
+  }
+
+  private URL writeXliff(String locale, String translation) throws IOException {
+    return XliffTestFiles.writeXliff(tempFolder, locale, translation).toURI().toURL();
+  }
+
+  private Optional<URL> resourceFor(Locale locale) {
+    return Optional.ofNullable(resources.get(locale));
+  }
+
+  private LazySoyMsgBundleLoader newLoader() {
+    return LazySoyMsgBundleLoader.builder(handler, this::resourceFor).build();
+  }
+
+  @Test
+  public void testLoadsOnFirstUse() {
+    LazySoyMsgBundleLoader loader = newLoader();
+    assertThat(loader.residentLocales()).isEmpty();
+
+    SoyMsgBundle fr = loader.getSoyMsgBundleForLocale(Locale.FRENCH);
+    assertThat(fr.getLocaleString()).isEqualTo("fr");
+    assertThat(fr.getMsgParts(123).get(0).toString()).isEqualTo("Bonjour");
+    assertThat(loader.getSoyMsgBundleForLocale(Locale.FRENCH)).isSameInstanceAs(fr);
+
+    assertThat(loader.residentLocales()).containsExactly(Locale.FRENCH);
+    assertThat(loader.residentBytes()).isGreaterThan(0L);
+    assertThat(loader.stats().loadCount()).isEqualTo(1);
+    assertThat(loader.stats().hitCount()).isEqualTo(1);
+    assertThat(loader.stats().totalLoadTime()).isGreaterThan(0L);
+  }
+
+  @Test
+  public void testLocaleWithoutTranslations() {
+    LazySoyMsgBundleLoader loader = newLoader();
+
+    assertThat(loader.getSoyMsgBundleForLocale(Locale.JAPANESE))
+        .isSameInstanceAs(SoyMsgBundle.EMPTY);
+  }
+
+  @Test
+  public void testSharesPartsAcrossLocales() {
+    LazySoyMsgBundleLoader loader = newLoader();
+
+    assertThat(loader.getSoyMsgBundleForLocale(Locale.FRENCH).getMsgParts(123).get(0))
+        .isSameInstanceAs(loader.getSoyMsgBundleForLocale(Locale.ITALIAN).getMsgParts(123).get(0));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedLocales() {
+    LazySoyMsgBundleLoader unbounded = newLoader();
+    unbounded.getSoyMsgBundleForLocale(Locale.FRENCH);
+    long bundleSize = unbounded.residentBytes();
+
+    LazySoyMsgBundleLoader loader =
+        LazySoyMsgBundleLoader.builder(handler, this::resourceFor)
+            .maximumResidentBytes(2 * bundleSize)
+            .build();
+    loader.getSoyMsgBundleForLocale(Locale.FRENCH);
+    loader.getSoyMsgBundleForLocale(Locale.GERMAN);
+    loader.getSoyMsgBundleForLocale(Locale.FRENCH);
+    assertThat(loader.residentLocales()).containsExactly(Locale.FRENCH, Locale.GERMAN);
+
+    loader.getSoyMsgBundleForLocale(Locale.ITALIAN);
+    assertThat(loader.residentLocales()).containsExactly(Locale.FRENCH, Locale.ITALIAN);
+    assertThat(loader.residentBytes()).isAtMost(2 * bundleSize);
+    assertThat(loader.stats().evictionCount()).isEqualTo(1);
+
+    // Evicted locales are loaded again on demand.
+    assertThat(loader.getSoyMsgBundleForLocale(Locale.GERMAN).getMsgParts(123).get(0).toString())
+        .isEqualTo("Hallo");
+    assertThat(loader.stats().loadCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void testEvictedPartsAreCollected() {
+    LazySoyMsgBundleLoader unbounded = newLoader();
+    unbounded.getSoyMsgBundleForLocale(Locale.FRENCH);
+    long frenchSize = unbounded.residentBytes();
+
+    // Only one locale fits.
+    LazySoyMsgBundleLoader loader =
+        LazySoyMsgBundleLoader.builder(handler, this::resourceFor)
+            .maximumResidentBytes(frenchSize)
+            .build();
+    WeakReference<SoyMsgPart> hallo =
+        new WeakReference<>(loader.getSoyMsgBundleForLocale(Locale.GERMAN).getMsgParts(123).get(0));
+    loader.getSoyMsgBundleForLocale(Locale.FRENCH);
+    assertThat(loader.residentLocales()).containsExactly(Locale.FRENCH);
+
+    // The compactor doesn't keep the parts of the evicted locale alive.
+    GcFinalization.awaitClear(hallo);
+  }
+
+  @Test
+  public void testMissingResource() throws MalformedURLException {
+    resources.put(Locale.FRENCH, new File(tempFolder.getRoot(), "missing.xlf").toURI().toURL());
+    LazySoyMsgBundleLoader loader = newLoader();
+
+    assertThrows(
+        UncheckedIOException.class, () -> loader.getSoyMsgBundleForLocale(Locale.FRENCH));
+    assertThat(loader.residentLocales()).isEmpty();
+  }
+}
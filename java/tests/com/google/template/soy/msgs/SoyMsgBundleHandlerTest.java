@@ -0,0 +1,120 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.google.template.soy.msgs.restricted.SoyMsgBundleCompactor;
+import com.google.template.soy.xliffmsgplugin.XliffMsgPlugin;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SoyMsgBundleHandler}. */
+@RunWith(JUnit4.class)
+public final class SoyMsgBundleHandlerTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final SoyMsgBundleHandler handler = new SoyMsgBundleHandler(new XliffMsgPlugin());
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private File writeXliff(String locale, String translation) throws IOException {
+    return XliffTestFiles.writeXliff(tempFolder, locale, translation + " <x id=\"NAME\"/>");
+  }
+
+  @Test
+  public void testCreateCompactedFromFiles() throws IOException {
+    List<File> files = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      files.add(writeXliff("x-" + i, "Hello" + (i % 2)));
+    }
+
+    ImmutableList<SoyMsgBundle> bundles =
+        handler.createCompactedFromFiles(files, new SoyMsgBundleCompactor(), executor);
+
+    assertThat(Lists.transform(bundles, SoyMsgBundle::getLocaleString))
+        .containsExactlyElementsIn(
+            Lists.transform(files, f -> Files.getNameWithoutExtension(f.getName())))
+        .inOrder();
+    for (int i = 0; i < bundles.size(); i++) {
+      assertThat(bundles.get(i).getMsgParts(123).get(0).toString())
+          .isEqualTo("Hello" + (i % 2) + " ");
+      // Identical parts are shared by all bundles.
+      assertThat(bundles.get(i).getMsgParts(123).get(1))
+          .isSameInstanceAs(bundles.get(0).getMsgParts(123).get(1));
+      assertThat(bundles.get(i).getMsgParts(123).get(0))
+          .isSameInstanceAs(bundles.get(i % 2).getMsgParts(123).get(0));
+    }
+  }
+
+  @Test
+  public void testCreateCompactedFromResources() throws IOException {
+    URL fr = writeXliff("fr", "Bonjour").toURI().toURL();
+    URL de = writeXliff("de", "Hallo").toURI().toURL();
+
+    ImmutableList<SoyMsgBundle> bundles =
+        handler.createCompactedFromResources(
+            ImmutableList.of(fr, de), new SoyMsgBundleCompactor(), executor);
+
+    assertThat(Lists.transform(bundles, SoyMsgBundle::getLocaleString))
+        .containsExactly("fr", "de")
+        .inOrder();
+  }
+
+  @Test
+  public void testCreateCompactedFromFilesReportsErrors() throws IOException {
+    File valid = writeXliff("fr", "Bonjour");
+    File missing = new File(tempFolder.getRoot(), "de.xlf");
+    File invalid = tempFolder.newFile("it.xlf");
+    Files.asCharSink(invalid, UTF_8).write("<xliff");
+
+    assertThrows(
+        FileNotFoundException.class,
+        () ->
+            handler.createCompactedFromFiles(
+                ImmutableList.of(valid, missing), new SoyMsgBundleCompactor(), executor));
+    SoyMsgException e =
+        assertThrows(
+            SoyMsgException.class,
+            () ->
+                handler.createCompactedFromFiles(
+                    ImmutableList.of(valid, invalid), new SoyMsgBundleCompactor(), executor));
+    assertThat(e).hasMessageThat().contains("it.xlf");
+  }
+}
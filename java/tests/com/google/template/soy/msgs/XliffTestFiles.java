@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import org.junit.rules.TemporaryFolder;
+
+/** Writes translated messages files for tests. */
+final class XliffTestFiles {
+
+  /**
+   * Writes an XLIFF file named after {@code locale}, with a single message with id 123.
+   *
+   * @param translation The XLIFF content of the message's target.
+   */
+  static File writeXliff(TemporaryFolder folder, String locale, String translation)
+      throws IOException {
+    File file = folder.newFile(locale + ".xlf");
+    Files.asCharSink(file, UTF_8)
+        .write(
+            Joiner.on('\n')
+                .join(
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                    "<xliff version=\"1.2\" xmlns=\"urn:oasis:names:tc:xliff:document:1.2\">",
+                    "  <file original=\"SoyMsgBundle\" datatype=\"x-soy-msg-bundle\""
+                        + " xml:space=\"preserve\" source-language=\"en\" target-language=\""
+                        + locale
+                        + "\">",
+                    "    <body>",
+                    "      <trans-unit id=\"123\" datatype=\"html\">",
+                    "        <source>Hello</source>",
+                    "        <target>" + translation + "</target>",
+                    "      </trans-unit>",
+                    "    </body>",
+                    "  </file>",
+                    "</xliff>"));
+    return file;
+  }
+
+  private XliffTestFiles() {}
+}
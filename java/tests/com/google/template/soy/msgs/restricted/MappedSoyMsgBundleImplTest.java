@@ -0,0 +1,174 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs.restricted;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteSink;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.SoyMsgException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MappedSoyMsgBundleImpl}. */
+@RunWith(JUnit4.class)
+public final class MappedSoyMsgBundleImplTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static SoyMsg msg(long id, SoyMsgPart... parts) {
+    return SoyMsg.builder()
+        .setId(id)
+        .setLocaleString("ar")
+        .setIsPlrselMsg(MsgPartUtils.hasPlrselPart(ImmutableList.copyOf(parts)))
+        .setParts(ImmutableList.copyOf(parts))
+        .build();
+  }
+
+  private static final ImmutableList<SoyMsg> MSGS =
+      ImmutableList.of(
+          msg(
+              42,
+              SoyMsgRawTextPart.of("Hello "),
+              new SoyMsgPlaceholderPart("NAME"),
+              SoyMsgRawTextPart.of(" ☺")),
+          msg(
+              7,
+              new SoyMsgPluralPart(
+                  "N",
+                  1,
+                  ImmutableList.of(
+                      SoyMsgPart.Case.create(
+                          new SoyMsgPluralCaseSpec(0),
+                          ImmutableList.of(SoyMsgRawTextPart.of("no"))),
+                      SoyMsgPart.Case.create(
+                          SoyMsgPluralCaseSpec.forType(SoyMsgPluralCaseSpec.Type.OTHER),
+                          ImmutableList.of(
+                              new SoyMsgPluralRemainderPart("N"),
+                              SoyMsgRawTextPart.of(" more")))))),
+          msg(
+              Long.MAX_VALUE,
+              new SoyMsgSelectPart(
+                  "GENDER",
+                  ImmutableList.of(
+                      SoyMsgPart.Case.create(
+                          "female", ImmutableList.of(SoyMsgRawTextPart.of("her"))),
+                      SoyMsgPart.Case.create(
+                          (String) null, ImmutableList.of(SoyMsgRawTextPart.of("their")))))),
+          msg(3, SoyMsgRawTextPart.of("")));
+
+  private static byte[] write(SoyMsgBundle bundle) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MappedSoyMsgBundleImpl.write(
+        bundle,
+        new ByteSink() {
+          @Override
+          public OutputStream openStream() {
+            return out;
+          }
+        });
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    SoyMsgBundle original = new RenderOnlySoyMsgBundleImpl("ar", MSGS);
+    SoyMsgBundle mapped = MappedSoyMsgBundleImpl.fromBuffer(ByteBuffer.wrap(write(original)));
+
+    assertThat(mapped.getLocaleString()).isEqualTo("ar");
+    assertThat(mapped.isRtl()).isTrue();
+    assertThat(mapped.getNumMsgs()).isEqualTo(MSGS.size());
+    for (SoyMsg msg : MSGS) {
+      assertThat(mapped.hasMsg(msg.getId())).isTrue();
+      assertThat(mapped.getMsgParts(msg.getId())).isEqualTo(msg.getParts());
+      assertThat(mapped.getMsg(msg.getId())).isEqualTo(original.getMsg(msg.getId()));
+    }
+    assertThat(mapped.getMsgParts(5)).isEmpty();
+    assertThat(mapped.getMsg(5)).isNull();
+    assertThat(mapped.hasMsg(5)).isFalse();
+    // Decoded parts are reused.
+    assertThat(mapped.getMsgParts(42)).isSameInstanceAs(mapped.getMsgParts(42));
+
+    List<SoyMsg> iterated = Lists.newArrayList(mapped);
+    assertThat(Lists.transform(iterated, SoyMsg::getId))
+        .containsExactly(3L, 7L, 42L, Long.MAX_VALUE)
+        .inOrder();
+  }
+
+  @Test
+  public void testMapFile() throws IOException {
+    File file = tempFolder.newFile("msgs.bin");
+    MappedSoyMsgBundleImpl.write(new SoyMsgBundleImpl("ar", MSGS), Files.asByteSink(file));
+
+    SoyMsgBundle mapped = MappedSoyMsgBundleImpl.map(file);
+    assertThat(mapped.getLocaleString()).isEqualTo("ar");
+    assertThat(mapped.getMsgParts(42)).isEqualTo(MSGS.get(0).getParts());
+  }
+
+  @Test
+  public void testDropsPlaceholderExamples() throws IOException {
+    SoyMsgBundle bundle =
+        new SoyMsgBundleImpl(
+            "ar", ImmutableList.of(msg(1, new SoyMsgPlaceholderPart("NAME", Optional.of("Bob")))));
+    SoyMsgBundle mapped = MappedSoyMsgBundleImpl.fromBuffer(ByteBuffer.wrap(write(bundle)));
+
+    assertThat(mapped.getMsgParts(1)).containsExactly(new SoyMsgPlaceholderPart("NAME"));
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    SoyMsgBundle empty = new RenderOnlySoyMsgBundleImpl(null, ImmutableList.of());
+    SoyMsgBundle mapped = MappedSoyMsgBundleImpl.fromBuffer(ByteBuffer.wrap(write(empty)));
+
+    assertThat(mapped.getLocaleString()).isNull();
+    assertThat(mapped.getNumMsgs()).isEqualTo(0);
+    assertThat(mapped.getMsgParts(1)).isEmpty();
+  }
+
+  @Test
+  public void testInvalidInput() throws IOException {
+    SoyMsgException e =
+        assertThrows(
+            SoyMsgException.class,
+            () -> MappedSoyMsgBundleImpl.fromBuffer(ByteBuffer.wrap(new byte[] {1, 2, 3, 4})));
+    assertThat(e).hasMessageThat().contains("Not a message bundle file");
+
+    byte[] bytes = write(new SoyMsgBundleImpl("ar", MSGS));
+    e =
+        assertThrows(
+            SoyMsgException.class,
+            () ->
+                MappedSoyMsgBundleImpl.fromBuffer(
+                    ByteBuffer.wrap(ByteSource.wrap(bytes).slice(0, 30).read())));
+    assertThat(e).hasMessageThat().contains("Truncated");
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2023 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs.restricted;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MsgIdSet}. */
+@RunWith(JUnit4.class)
+public final class MsgIdSetTest {
+
+  private static SoyMsg msg(long id) {
+    return SoyMsg.builder()
+        .setId(id)
+        .setParts(ImmutableList.of(SoyMsgRawTextPart.of("Message #" + id)))
+        .build();
+  }
+
+  @Test
+  public void testEmpty() {
+    MsgIdSet ids = MsgIdSet.create(ImmutableList.of());
+
+    assertThat(ids.contains(0)).isFalse();
+    assertThat(ids.contains(-1)).isFalse();
+  }
+
+  @Test
+  public void testContains() {
+    Random random = new Random(42);
+    Set<Long> present = new HashSet<>();
+    while (present.size() < 5000) {
+      present.add(random.nextLong() & Long.MAX_VALUE);
+    }
+    // Ids that collide in their low bits.
+    LongStream.range(0, 100).forEach(i -> present.add(i << 40));
+    List<SoyMsg> msgs = present.stream().map(MsgIdSetTest::msg).collect(Collectors.toList());
+    MsgIdSet ids = MsgIdSet.create(msgs);
+
+    for (long id : present) {
+      assertThat(ids.contains(id)).isTrue();
+    }
+    for (int i = 0; i < 5000; i++) {
+      long id = random.nextLong() & Long.MAX_VALUE;
+      assertThat(ids.contains(id)).isEqualTo(present.contains(id));
+    }
+    assertThat(ids.contains(-1)).isFalse();
+    assertThat(ids.contains(1L << 40 | 1)).isFalse();
+  }
+}
@@ -125,6 +125,15 @@ public class RenderOnlySoyMsgBundleImplTest {
     }
   }
 
+  @Test
+  public void testHasMsg() {
+    for (SoyMsg message : testMessages) {
+      assertThat(bundle.hasMsg(message.getId())).isTrue();
+    }
+    assertThat(bundle.hasMsg(1)).isFalse();
+    assertThat(new RenderOnlySoyMsgBundleImpl("fr", ImmutableList.of()).hasMsg(123L)).isFalse();
+  }
+
   @Test
   public void testIterator() {
     List<SoyMsg> actualMessages = Lists.newArrayList();
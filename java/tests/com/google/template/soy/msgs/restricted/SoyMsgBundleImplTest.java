@@ -102,6 +102,10 @@ public class SoyMsgBundleImplTest {
     assertThat(((SoyMsgPlaceholderPart) helloMsgParts.get(1)).getPlaceholderName())
         .isEqualTo("NAME");
     assertThat(((SoyMsgRawTextPart) helloMsgParts.get(2)).getRawText()).isEqualTo("!");
+
+    assertThat(msgBundle.hasMsg(0x123)).isTrue();
+    assertThat(msgBundle.hasMsg(0xABC)).isTrue();
+    assertThat(msgBundle.hasMsg(0x456)).isFalse();
   }
 
   @Test
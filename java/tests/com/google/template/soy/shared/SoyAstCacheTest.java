@@ -19,6 +19,7 @@ package com.google.template.soy.shared;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
 import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.base.SourceLocation;
@@ -27,6 +28,7 @@ import com.google.template.soy.base.internal.SoyFileSupplier.Version;
 import com.google.template.soy.error.ErrorReporter;
 import com.google.template.soy.soytree.NamespaceDeclaration;
 import com.google.template.soy.soytree.SoyFileNode;
+import com.google.template.soy.soytree.SoyTreeUtils;
 import com.google.template.soy.soytree.TemplateNode;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -85,4 +87,66 @@ public final class SoyAstCacheTest {
     assertThat(cache.get(foo, version2)).isNull();
     assertThat(cache.get(bar, version1)).isNull();
   }
+
+  @Test
+  public void testStats() {
+    SourceFilePath foo = SourceFilePath.create("foo");
+    cache.put(foo, version1, fileNode1);
+    assertThat(cache.get(foo, version1)).isNotNull();
+    assertThat(cache.get(foo, version1)).isNotNull();
+    // An outdated version is a miss, and drops the entry.
+    assertThat(cache.get(foo, version2)).isNull();
+    assertThat(cache.get(foo, version1)).isNull();
+
+    CacheStats stats = cache.stats();
+    assertThat(stats.hitCount()).isEqualTo(2);
+    assertThat(stats.missCount()).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testMaximumFileCount() {
+    SoyAstCache bounded = SoyAstCache.builder().maximumFileCount(2).build();
+    SourceFilePath foo = SourceFilePath.create("foo");
+    SourceFilePath bar = SourceFilePath.create("bar");
+    SourceFilePath baz = SourceFilePath.create("baz");
+    bounded.put(foo, version1, fileNode1);
+    bounded.put(bar, version1, fileNode1);
+    // Touch foo so that bar is the least recently used.
+    assertThat(bounded.get(foo, version1)).isNotNull();
+    bounded.put(baz, version1, fileNode1);
+
+    assertThat(bounded.size()).isEqualTo(2);
+    assertThat(bounded.get(bar, version1)).isNull();
+    assertThat(bounded.get(foo, version1)).isNotNull();
+    assertThat(bounded.get(baz, version1)).isNotNull();
+    assertThat(bounded.stats().evictionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testMaximumNodeCount() {
+    long nodesPerFile = SoyTreeUtils.allNodes(fileNode1).count();
+    SoyAstCache bounded =
+        SoyAstCache.builder().maximumNodeCount(nodesPerFile * 2 + nodesPerFile / 2).build();
+    SourceFilePath foo = SourceFilePath.create("foo");
+    SourceFilePath bar = SourceFilePath.create("bar");
+    SourceFilePath baz = SourceFilePath.create("baz");
+    bounded.put(foo, version1, fileNode1);
+    bounded.put(bar, version1, fileNode1);
+    assertThat(bounded.size()).isEqualTo(2);
+
+    bounded.put(baz, version1, fileNode1);
+    assertThat(bounded.size()).isEqualTo(2);
+    assertThat(bounded.get(foo, version1)).isNull();
+    assertThat(bounded.stats().evictionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testEvict() {
+    SourceFilePath foo = SourceFilePath.create("foo");
+    cache.put(foo, version1, fileNode1);
+    assertThat(cache.evict(foo)).isTrue();
+    assertThat(cache.evict(foo)).isFalse();
+    assertThat(cache.get(foo, version1)).isNull();
+  }
 }